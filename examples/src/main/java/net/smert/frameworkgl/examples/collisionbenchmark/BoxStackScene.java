@@ -0,0 +1,130 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.collisionbenchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.CollisionWorld;
+import net.smert.frameworkgl.collision.broadphase.BroadphaseAlgorithm;
+import net.smert.frameworkgl.collision.broadphase.CollisionGroups;
+import net.smert.frameworkgl.collision.shapes.ShapeType;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.opengl.GL;
+import net.smert.frameworkgl.opengl.mesh.Mesh;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class BoxStackScene {
+
+    public final static float DELTA = 1f / 60f;
+
+    private static Mesh boxMesh;
+    private static Mesh floorMesh;
+
+    private final List<CollisionGameObject> boxes;
+
+    public BoxStackScene() {
+        boxes = new ArrayList<>();
+    }
+
+    private static void CreateMeshes() {
+        if (boxMesh != null) {
+            return;
+        }
+
+        // Meshes are only used for their AABBs
+        boxMesh = GL.meshFactory.createMesh();
+        boxMesh.getAabb().setMin(-.5f, -.5f, -.5f);
+        boxMesh.getAabb().setMax(.5f, .5f, .5f);
+        floorMesh = GL.meshFactory.createMesh();
+        floorMesh.getAabb().setMin(-1000f, -.5f, -1000f);
+        floorMesh.getAabb().setMax(1000f, .5f, 1000f);
+    }
+
+    public CollisionWorld create(int totalBoxes) {
+        return create(Fw.collisionFactory.createCollisionWorld(), totalBoxes);
+    }
+
+    public CollisionWorld create(BroadphaseAlgorithm broadphase, int totalBoxes) {
+        CollisionWorld collisionWorld = new CollisionWorld(broadphase, Fw.collisionFactory.createCollisionResolver(),
+                Fw.collisionFactory.createNarrowphaseDispatch());
+        return create(collisionWorld, totalBoxes);
+    }
+
+    public CollisionWorld create(CollisionWorld collisionWorld, int totalBoxes) {
+        CreateMeshes();
+        boxes.clear();
+
+        // Static floor
+        CollisionGameObject floor = Fw.collisionFactory.createCollisionGameObject(ShapeType.AABB);
+        floor.setCollisionGroup(CollisionGroups.GROUP1);
+        floor.setCollisionCollidesWith(CollisionGroups.GROUP1);
+        floor.setMass(0f);
+        floor.setMesh(floorMesh);
+        floor.setStaticObject(true);
+        floor.setWorldPosition(0f, -.5f, 0f);
+        collisionWorld.addCollisionGameObject(floor);
+
+        // Stacks of boxes spaced so that neighbouring stacks touch and form islands
+        int boxesPerSide = (int) Math.ceil(Math.sqrt(totalBoxes / 4f));
+        for (int i = 0; i < totalBoxes; i++) {
+            int x = i % boxesPerSide;
+            int z = (i / boxesPerSide) % boxesPerSide;
+            int y = i / (boxesPerSide * boxesPerSide);
+
+            CollisionGameObject box = Fw.collisionFactory.createCollisionGameObject(ShapeType.AABB);
+            box.setCollisionGroup(CollisionGroups.GROUP1);
+            box.setCollisionCollidesWith(CollisionGroups.GROUP1);
+            box.setLinearAcceleration(0f, -9.81f, 0f);
+            box.setMass(1f);
+            box.setMesh(boxMesh);
+            box.setWorldPosition(x * 1.02f - boxesPerSide * .5f, y * 1.1f + 1f, z * 1.02f - boxesPerSide * .5f);
+            collisionWorld.addCollisionGameObject(box);
+            boxes.add(box);
+        }
+
+        return collisionWorld;
+    }
+
+    public List<CollisionGameObject> getBoxes() {
+        return boxes;
+    }
+
+    public float[] getPositions() {
+        float[] positions = new float[boxes.size() * 3];
+        for (int i = 0; i < boxes.size(); i++) {
+            Vector3f position = boxes.get(i).getWorldPosition();
+            positions[i * 3] = position.getX();
+            positions[i * 3 + 1] = position.getY();
+            positions[i * 3 + 2] = position.getZ();
+        }
+        return positions;
+    }
+
+    public static double Run(CollisionWorld collisionWorld, int warmupSteps, int measuredSteps) {
+        for (int i = 0; i < warmupSteps; i++) {
+            collisionWorld.update(DELTA);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredSteps; i++) {
+            collisionWorld.update(DELTA);
+        }
+        long end = System.nanoTime();
+        return (end - start) / 1000000.0 / measuredSteps;
+    }
+
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.collisionbenchmark;
+
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.collision.CollisionWorld;
+import net.smert.frameworkgl.collision.broadphase.BroadphaseAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class BroadphaseBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(BroadphaseBenchmark.class);
+    private final static int MEASURED_STEPS = 300;
+    private final static int WARMUP_STEPS = 60;
+
+    private final BoxStackScene scene;
+
+    public BroadphaseBenchmark() {
+        scene = new BoxStackScene();
+    }
+
+    private void run(String name, BroadphaseAlgorithm broadphase, int totalBoxes) {
+        CollisionWorld collisionWorld = scene.create(broadphase, totalBoxes);
+        double ms = BoxStackScene.Run(collisionWorld, WARMUP_STEPS, MEASURED_STEPS);
+        collisionWorld.destroy();
+        log.info(String.format("boxes= %d broadphase= %s: %.3f ms/step", totalBoxes, name, ms));
+    }
+
+    public void run(int totalBoxes) {
+        run("simple", Fw.collisionFactory.createSimpleBroadphase(), totalBoxes);
+        run("tree", Fw.collisionFactory.createDynamicAABBTreeBroadphase(), totalBoxes);
+        run("sap", Fw.collisionFactory.createSweepAndPruneBroadphase(), totalBoxes);
+    }
+
+}
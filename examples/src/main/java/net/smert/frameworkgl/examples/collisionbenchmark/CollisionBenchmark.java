@@ -0,0 +1,125 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.collisionbenchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.Screen;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class CollisionBenchmark extends Screen {
+
+    private final List<String> benchmarks;
+
+    public CollisionBenchmark(String[] args) {
+
+        // Run all benchmarks unless some were named on the command line
+        if (args.length > 0) {
+            benchmarks = Arrays.asList(args);
+        } else {
+            benchmarks = Arrays.asList("broadphase", "ccd", "contactevents", "fixedstep", "narrowphase", "paircache",
+                    "parallel", "sleeping", "spatialhash", "stacking", "temparena", "treelayout");
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    @Override
+    public void init() {
+        if (benchmarks.contains("broadphase")) {
+            BroadphaseBenchmark broadphaseBenchmark = new BroadphaseBenchmark();
+            broadphaseBenchmark.run(1000);
+            broadphaseBenchmark.run(4000);
+        }
+        if (benchmarks.contains("ccd")) {
+            ContinuousCollisionBenchmark continuousCollisionBenchmark = new ContinuousCollisionBenchmark();
+            continuousCollisionBenchmark.run(100);
+            continuousCollisionBenchmark.run(1000);
+        }
+        if (benchmarks.contains("contactevents")) {
+            ContactEventBenchmark contactEventBenchmark = new ContactEventBenchmark();
+            contactEventBenchmark.run(1000);
+            contactEventBenchmark.run(4000);
+        }
+        if (benchmarks.contains("fixedstep")) {
+            FixedStepBenchmark fixedStepBenchmark = new FixedStepBenchmark();
+            fixedStepBenchmark.run(1000);
+        }
+        if (benchmarks.contains("narrowphase")) {
+            NarrowphaseBenchmark narrowphaseBenchmark = new NarrowphaseBenchmark();
+            narrowphaseBenchmark.run(10000);
+            narrowphaseBenchmark.run(100000);
+        }
+        if (benchmarks.contains("paircache")) {
+            OverlappingPairCacheBenchmark overlappingPairCacheBenchmark = new OverlappingPairCacheBenchmark();
+            overlappingPairCacheBenchmark.run(10000);
+            overlappingPairCacheBenchmark.run(100000);
+        }
+        if (benchmarks.contains("parallel")) {
+            ParallelStepBenchmark parallelStepBenchmark = new ParallelStepBenchmark();
+            parallelStepBenchmark.run(1000);
+            parallelStepBenchmark.run(4000);
+        }
+        if (benchmarks.contains("sleeping")) {
+            SleepingBenchmark sleepingBenchmark = new SleepingBenchmark();
+            sleepingBenchmark.run(1000);
+            sleepingBenchmark.run(4000);
+        }
+        if (benchmarks.contains("spatialhash")) {
+            SpatialHashBenchmark spatialHashBenchmark = new SpatialHashBenchmark();
+            spatialHashBenchmark.run(10000);
+            spatialHashBenchmark.run(50000);
+            spatialHashBenchmark.run(200000);
+        }
+        if (benchmarks.contains("stacking")) {
+            StackingBenchmark stackingBenchmark = new StackingBenchmark();
+            stackingBenchmark.run(4000);
+        }
+        if (benchmarks.contains("temparena")) {
+            TempArenaBenchmark tempArenaBenchmark = new TempArenaBenchmark();
+            tempArenaBenchmark.run(100000);
+            tempArenaBenchmark.run(1000000);
+        }
+        if (benchmarks.contains("treelayout")) {
+            TreeLayoutBenchmark treeLayoutBenchmark = new TreeLayoutBenchmark();
+            treeLayoutBenchmark.run(10000);
+            treeLayoutBenchmark.run(50000);
+            treeLayoutBenchmark.run(100000);
+        }
+
+        Fw.app.stopRunning();
+    }
+
+    @Override
+    public void pause() {
+    }
+
+    @Override
+    public void render() {
+    }
+
+    @Override
+    public void resize(int width, int height) {
+    }
+
+    @Override
+    public void resume() {
+    }
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.collisionbenchmark;
+
+import net.smert.frameworkgl.collision.CollisionWorld;
+import net.smert.frameworkgl.collision.ContactEvent;
+import net.smert.frameworkgl.collision.ContactEventCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class ContactEventBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(ContactEventBenchmark.class);
+    private final static int MEASURED_STEPS = 120;
+    private final static int WARMUP_STEPS = 180;
+
+    private final int[] eventCounts;
+    private final BoxStackScene scene;
+    private final ContactEventCallback contactEventCallback;
+
+    public ContactEventBenchmark() {
+        eventCounts = new int[ContactEvent.END + 1];
+        scene = new BoxStackScene();
+        contactEventCallback = (contactEvent) -> {
+            eventCounts[contactEvent.type]++;
+        };
+    }
+
+    private void run(String name, int eventMask, int totalBoxes) {
+        CollisionWorld collisionWorld = scene.create(totalBoxes);
+
+        // Keep every box awake so that every contact is tracked each step
+        collisionWorld.setTicksToSleep(Integer.MAX_VALUE);
+        if (eventMask != 0) {
+            collisionWorld.getContactEventManager().setEventMask(eventMask);
+            collisionWorld.setContactEventCallback(contactEventCallback);
+        }
+
+        for (int i = 0; i < eventCounts.length; i++) {
+            eventCounts[i] = 0;
+        }
+        double milliseconds = BoxStackScene.Run(collisionWorld, WARMUP_STEPS, MEASURED_STEPS);
+        collisionWorld.destroy();
+
+        log.info(String.format("boxes= %d events= %s: %.3f ms/step begin= %d persist= %d end= %d", totalBoxes,
+                name, milliseconds, eventCounts[ContactEvent.BEGIN], eventCounts[ContactEvent.PERSIST],
+                eventCounts[ContactEvent.END]));
+    }
+
+    public void run(int totalBoxes) {
+        run("none", 0, totalBoxes);
+        run("begin/end", ContactEvent.BEGIN | ContactEvent.END, totalBoxes);
+        run("begin/persist/end", ContactEvent.BEGIN | ContactEvent.PERSIST | ContactEvent.END, totalBoxes);
+    }
+
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.collisionbenchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.CollisionWorld;
+import net.smert.frameworkgl.collision.broadphase.CollisionGroups;
+import net.smert.frameworkgl.collision.shapes.ShapeType;
+import net.smert.frameworkgl.opengl.GL;
+import net.smert.frameworkgl.opengl.mesh.Mesh;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class ContinuousCollisionBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(ContinuousCollisionBenchmark.class);
+    private final static float PROJECTILE_SPEED = 300f;
+    private final static int SIMULATED_SECONDS = 1;
+
+    private static Mesh projectileMesh;
+    private static Mesh wallMesh;
+
+    private final List<CollisionGameObject> projectiles;
+
+    public ContinuousCollisionBenchmark() {
+        projectiles = new ArrayList<>();
+    }
+
+    private static void CreateMeshes() {
+        if (projectileMesh != null) {
+            return;
+        }
+
+        // Meshes are only used for their AABBs
+        projectileMesh = GL.meshFactory.createMesh();
+        projectileMesh.getAabb().setMin(-.1f, -.1f, -.1f);
+        projectileMesh.getAabb().setMax(.1f, .1f, .1f);
+        wallMesh = GL.meshFactory.createMesh();
+        wallMesh.getAabb().setMin(-.05f, -100f, -100f);
+        wallMesh.getAabb().setMax(.05f, 100f, 100f);
+    }
+
+    private CollisionWorld create(boolean continuousCollisionDetection, int totalProjectiles) {
+        CreateMeshes();
+        projectiles.clear();
+        CollisionWorld collisionWorld = Fw.collisionFactory.createCollisionWorld();
+
+        // Static wall much thinner than the distance a projectile moves in a tick
+        CollisionGameObject wall = Fw.collisionFactory.createCollisionGameObject(ShapeType.AABB);
+        wall.setCollisionGroup(CollisionGroups.GROUP1);
+        wall.setCollisionCollidesWith(CollisionGroups.GROUP1);
+        wall.setMass(0f);
+        wall.setMesh(wallMesh);
+        wall.setStaticObject(true);
+        wall.setWorldPosition(0f, 0f, 0f);
+        collisionWorld.addCollisionGameObject(wall);
+
+        // Projectiles in a grid flying at the wall from different distances
+        int projectilesPerSide = (int) Math.ceil(Math.sqrt(totalProjectiles));
+        for (int i = 0; i < totalProjectiles; i++) {
+            int y = i % projectilesPerSide;
+            int z = i / projectilesPerSide;
+
+            CollisionGameObject projectile = Fw.collisionFactory.createCollisionGameObject(ShapeType.AABB);
+            projectile.setCollisionGroup(CollisionGroups.GROUP1);
+            projectile.setCollisionCollidesWith(CollisionGroups.GROUP1);
+            projectile.setContinuousCollisionDetection(continuousCollisionDetection);
+            projectile.setLinearVelocity(PROJECTILE_SPEED, 0f, 0f);
+            projectile.setMass(1f);
+            projectile.setMesh(projectileMesh);
+            projectile.setRestitution(0f);
+            projectile.setWorldPosition(-5f - (i % 7), y * .5f - projectilesPerSide * .25f,
+                    z * .5f - projectilesPerSide * .25f);
+            collisionWorld.addCollisionGameObject(projectile);
+            projectiles.add(projectile);
+        }
+
+        return collisionWorld;
+    }
+
+    private void run(boolean continuousCollisionDetection, int ticksPerSecond, int totalProjectiles) {
+        CollisionWorld collisionWorld = create(continuousCollisionDetection, totalProjectiles);
+
+        float delta = 1f / ticksPerSecond;
+        long start = System.nanoTime();
+        for (int i = 0; i < ticksPerSecond * SIMULATED_SECONDS; i++) {
+            collisionWorld.update(delta);
+        }
+        long nanos = System.nanoTime() - start;
+        collisionWorld.destroy();
+
+        // Projectiles that ended up on the far side went through the wall
+        int tunneled = 0;
+        for (CollisionGameObject projectile : projectiles) {
+            if (projectile.getWorldPosition().getX() > 0f) {
+                tunneled++;
+            }
+        }
+
+        log.info(String.format("projectiles= %d ccd= %b ticks/s= %d: %.3f ms/simulated second tunneled= %d",
+                totalProjectiles, continuousCollisionDetection, ticksPerSecond,
+                nanos / 1000000.0 / SIMULATED_SECONDS, tunneled));
+    }
+
+    public void run(int totalProjectiles) {
+
+        // Raising the tick rate is the only way to stop tunneling without continuous collision detection
+        run(false, 30, totalProjectiles);
+        run(false, 480, totalProjectiles);
+        run(true, 30, totalProjectiles);
+    }
+
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.collisionbenchmark;
+
+import java.util.Random;
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.CollisionWorld;
+import net.smert.frameworkgl.collision.broadphase.BroadphaseAlgorithm;
+import net.smert.frameworkgl.collision.broadphase.CollisionGroups;
+import net.smert.frameworkgl.collision.shapes.ShapeType;
+import net.smert.frameworkgl.opengl.GL;
+import net.smert.frameworkgl.opengl.mesh.Mesh;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class DebrisScene {
+
+    private static Mesh debrisMesh;
+
+    private static void CreateMeshes() {
+        if (debrisMesh != null) {
+            return;
+        }
+
+        // Meshes are only used for their AABBs
+        debrisMesh = GL.meshFactory.createMesh();
+        debrisMesh.getAabb().setMin(-.25f, -.25f, -.25f);
+        debrisMesh.getAabb().setMax(.25f, .25f, .25f);
+    }
+
+    public CollisionWorld create(BroadphaseAlgorithm broadphase, int totalDebris) {
+        CreateMeshes();
+        CollisionWorld collisionWorld = new CollisionWorld(broadphase, Fw.collisionFactory.createCollisionResolver(),
+                Fw.collisionFactory.createNarrowphaseDispatch());
+
+        // Same seed so that every broadphase gets the same scene. The volume grows with the number of objects to
+        // keep the density constant.
+        Random random = new Random(1);
+        float size = (float) Math.cbrt(totalDebris * 4f);
+        for (int i = 0; i < totalDebris; i++) {
+            CollisionGameObject debris = Fw.collisionFactory.createCollisionGameObject(ShapeType.AABB);
+            debris.setCollisionGroup(CollisionGroups.GROUP1);
+            debris.setCollisionCollidesWith(CollisionGroups.GROUP1);
+            debris.setLinearVelocity(random.nextFloat() * 4f - 2f, random.nextFloat() * 4f - 2f,
+                    random.nextFloat() * 4f - 2f);
+            debris.setMass(1f);
+            debris.setMesh(debrisMesh);
+            debris.setWorldPosition(random.nextFloat() * size, random.nextFloat() * size, random.nextFloat() * size);
+            collisionWorld.addCollisionGameObject(debris);
+        }
+
+        return collisionWorld;
+    }
+
+}
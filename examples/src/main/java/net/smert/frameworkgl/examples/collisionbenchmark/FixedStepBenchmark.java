@@ -0,0 +1,68 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.collisionbenchmark;
+
+import net.smert.frameworkgl.collision.CollisionWorld;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class FixedStepBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(FixedStepBenchmark.class);
+    private final static int SIMULATED_SECONDS = 3;
+
+    private final BoxStackScene scene;
+
+    public FixedStepBenchmark() {
+        scene = new BoxStackScene();
+    }
+
+    private void run(boolean fixedTimeStepping, int framesPerSecond, int totalBoxes) {
+        CollisionWorld collisionWorld = scene.create(totalBoxes);
+
+        // Keep every box awake so only the number of steps changes
+        collisionWorld.setTicksToSleep(Integer.MAX_VALUE);
+
+        float delta = 1f / framesPerSecond;
+        int totalFrames = framesPerSecond * SIMULATED_SECONDS;
+        int totalSteps = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < totalFrames; i++) {
+            if (fixedTimeStepping) {
+                totalSteps += collisionWorld.stepSimulation(delta);
+            } else {
+                collisionWorld.update(delta);
+                totalSteps++;
+            }
+        }
+        long end = System.nanoTime();
+        collisionWorld.destroy();
+
+        log.info(String.format("boxes= %d fps= %d fixed= %b: %.3f ms/frame steps= %d y0= %.3f", totalBoxes,
+                framesPerSecond, fixedTimeStepping, (end - start) / 1000000.0 / totalFrames, totalSteps,
+                scene.getBoxes().get(0).getWorldPosition().getY()));
+    }
+
+    public void run(int totalBoxes) {
+        int[] framesPerSecond = {30, 60, 144, 240};
+        for (int i = 0; i < framesPerSecond.length; i++) {
+            run(false, framesPerSecond[i], totalBoxes);
+            run(true, framesPerSecond[i], totalBoxes);
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.collisionbenchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.narrowphase.Contact;
+import net.smert.frameworkgl.collision.narrowphase.ContactData;
+import net.smert.frameworkgl.collision.narrowphase.NarrowphaseDispatch;
+import net.smert.frameworkgl.collision.narrowphase.algorithm.NarrowphaseAlgorithm;
+import net.smert.frameworkgl.collision.shapes.ShapeType;
+import net.smert.frameworkgl.math.Vector3f;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class NarrowphaseBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(NarrowphaseBenchmark.class);
+    private final static int CONTACTS_PER_FREE = 256;
+    private final static int MEASURED_ITERATIONS = 50;
+    private final static int WARMUP_ITERATIONS = 20;
+
+    private final NarrowphaseDispatch narrowphaseDispatch;
+
+    public NarrowphaseBenchmark() {
+        narrowphaseDispatch = new NarrowphaseDispatch(Fw.collisionFactory.createDefaultNarrowphaseFilterCallback());
+    }
+
+    private CollisionGameObject createCollisionGameObject(ShapeType shapeType, Random random, float offset) {
+        CollisionGameObject collisionGameObject = new CollisionGameObject();
+        collisionGameObject.initSetShapeType(shapeType);
+        collisionGameObject.setShapeHalfExtents(
+                .25f + random.nextFloat() * .5f, .25f + random.nextFloat() * .5f, .25f + random.nextFloat() * .5f);
+        collisionGameObject.setShapeHalfHeight(.25f + random.nextFloat() * .5f);
+        collisionGameObject.setShapeRadius(.25f + random.nextFloat() * .5f);
+        collisionGameObject.setWorldPosition(offset + random.nextFloat() * 1.5f, random.nextFloat() * 1.5f,
+                random.nextFloat() * 1.5f);
+
+        // AABB shapes use the world AABB and can't be rotated
+        if (shapeType == ShapeType.AABB) {
+            Vector3f halfExtents = collisionGameObject.getShapeHalfExtents();
+            Vector3f position = collisionGameObject.getWorldPosition();
+            collisionGameObject.getWorldAabb().getMin().set(position).subtract(halfExtents);
+            collisionGameObject.getWorldAabb().getMax().set(position).add(halfExtents);
+        } else {
+            Vector3f axis = new Vector3f(random.nextFloat() - .5f, random.nextFloat() - .5f, .1f).normalize();
+            collisionGameObject.setWorldRotation(axis, random.nextFloat() * 360f);
+        }
+
+        return collisionGameObject;
+    }
+
+    private int freeContacts(ContactData contactData) {
+        int totalContacts = 0;
+        Contact[] contacts = contactData.getContacts();
+        for (int i = 0; i < contacts.length; i++) {
+            Contact contact = contacts[i];
+            if (contact.index == ContactData.NULL) {
+                continue;
+            }
+            contactData.freeContact(contact);
+            totalContacts++;
+        }
+        return totalContacts;
+    }
+
+    private long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private int iteration(CollisionGameObject[] collisionGameObjects0, CollisionGameObject[] collisionGameObjects1,
+            NarrowphaseAlgorithm algorithm, ContactData contactData) {
+        int contactsToFree = 0;
+        int totalContacts = 0;
+        for (int i = 0; i < collisionGameObjects0.length; i++) {
+            contactsToFree += algorithm.processCollision(collisionGameObjects0[i], collisionGameObjects1[i],
+                    contactData);
+
+            // Keep the contact data small like the resolver does every step
+            if (contactsToFree >= CONTACTS_PER_FREE) {
+                totalContacts += freeContacts(contactData);
+                contactsToFree = 0;
+            }
+        }
+        totalContacts += freeContacts(contactData);
+        return totalContacts;
+    }
+
+    private void run(ShapeType shapeType0, ShapeType shapeType1, int totalPairs) {
+        CollisionGameObject[] collisionGameObjects0 = new CollisionGameObject[totalPairs];
+        CollisionGameObject[] collisionGameObjects1 = new CollisionGameObject[totalPairs];
+
+        // Random placement gives a mix of touching and separated pairs
+        Random random = new Random(1234);
+        for (int i = 0; i < totalPairs; i++) {
+            collisionGameObjects0[i] = createCollisionGameObject(shapeType0, random, 0f);
+            collisionGameObjects1[i] = createCollisionGameObject(shapeType1, random, .5f);
+        }
+
+        ContactData contactData = narrowphaseDispatch.getContactData();
+        NarrowphaseAlgorithm algorithm = narrowphaseDispatch.findAlgorithm(collisionGameObjects0[0],
+                collisionGameObjects1[0]);
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration(collisionGameObjects0, collisionGameObjects1, algorithm, contactData);
+        }
+
+        int totalContacts = 0;
+        long startBytes = getAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            totalContacts = iteration(collisionGameObjects0, collisionGameObjects1, algorithm, contactData);
+        }
+        long end = System.nanoTime();
+        long endBytes = getAllocatedBytes();
+
+        long totalTests = (long) totalPairs * MEASURED_ITERATIONS;
+        log.info(String.format("%s-%s pairs= %d: %.1f ns/pair %.3f bytes/pair contacts= %d", shapeType0,
+                shapeType1, totalPairs, (double) (end - start) / totalTests,
+                (double) (endBytes - startBytes) / totalTests, totalContacts));
+    }
+
+    public void run(int totalPairs) {
+        run(ShapeType.AABB, ShapeType.AABB, totalPairs);
+        run(ShapeType.SPHERE, ShapeType.SPHERE, totalPairs);
+        run(ShapeType.SPHERE, ShapeType.CAPSULE, totalPairs);
+        run(ShapeType.CAPSULE, ShapeType.CAPSULE, totalPairs);
+        run(ShapeType.SPHERE, ShapeType.OBB, totalPairs);
+        run(ShapeType.SPHERE, ShapeType.AABB, totalPairs);
+        run(ShapeType.CAPSULE, ShapeType.OBB, totalPairs);
+        run(ShapeType.OBB, ShapeType.OBB, totalPairs);
+        run(ShapeType.OBB, ShapeType.AABB, totalPairs);
+    }
+
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.collisionbenchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.broadphase.BroadphaseProxy;
+import net.smert.frameworkgl.collision.broadphase.CollisionGroups;
+import net.smert.frameworkgl.collision.broadphase.HashedOverlappingPairCache;
+import net.smert.frameworkgl.collision.broadphase.OverlappingPair;
+import net.smert.frameworkgl.collision.broadphase.OverlappingPairCache;
+import net.smert.frameworkgl.collision.narrowphase.NarrowphaseDispatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class OverlappingPairCacheBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(OverlappingPairCacheBenchmark.class);
+    private final static int CHURN_PER_FRAME = 1000;
+    private final static int MEASURED_FRAMES = 200;
+    private final static int PAIRS_PER_PROXY = 5;
+    private final static int WARMUP_FRAMES = 50;
+
+    private final NarrowphaseDispatch keepAllPairsDispatch;
+
+    public OverlappingPairCacheBenchmark() {
+        keepAllPairsDispatch = new NarrowphaseDispatch(Fw.collisionFactory.createDefaultNarrowphaseFilterCallback()) {
+
+            @Override
+            public boolean processOverlappingPair(OverlappingPair pair) {
+                return true;
+            }
+
+        };
+    }
+
+    private BroadphaseProxy[] createProxies(int totalProxies) {
+        BroadphaseProxy[] proxies = new BroadphaseProxy[totalProxies + PAIRS_PER_PROXY + 1];
+        for (int i = 0; i < proxies.length; i++) {
+            BroadphaseProxy proxy = new BroadphaseProxy();
+            proxy.collisionCollidesWith = CollisionGroups.GROUP1;
+            proxy.collisionGameObject = new CollisionGameObject();
+            proxy.collisionGroup = CollisionGroups.GROUP1;
+            proxy.uniqueId = i;
+            proxies[i] = proxy;
+        }
+        return proxies;
+    }
+
+    private void frame(OverlappingPairCache cache, BroadphaseProxy[] proxies, int totalProxies, int frame) {
+
+        // Remove and add back a sliding window of pairs like the broadphase does for moving proxies
+        int start = (frame * CHURN_PER_FRAME / PAIRS_PER_PROXY) % totalProxies;
+        for (int i = 0; i < CHURN_PER_FRAME / PAIRS_PER_PROXY; i++) {
+            int index = (start + i) % totalProxies;
+            for (int j = 1; j <= PAIRS_PER_PROXY; j++) {
+                cache.removeOverlappingPair(proxies[index], proxies[index + j]);
+            }
+        }
+        for (int i = 0; i < CHURN_PER_FRAME / PAIRS_PER_PROXY; i++) {
+            int index = (start + i) % totalProxies;
+            for (int j = 1; j <= PAIRS_PER_PROXY; j++) {
+                cache.addOverlappingPair(proxies[index], proxies[index + j]);
+            }
+        }
+
+        // Find every pair
+        for (int i = 0; i < totalProxies; i++) {
+            for (int j = 1; j <= PAIRS_PER_PROXY; j++) {
+                if (cache.findOverlappingPair(proxies[i], proxies[i + j]) == null) {
+                    cache.addOverlappingPair(proxies[i], proxies[i + j]);
+                }
+            }
+        }
+
+        // Narrowphase
+        cache.processOverlappingPairs(keepAllPairsDispatch);
+    }
+
+    private long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private void run(String name, OverlappingPairCache cache, int totalPairs) {
+        int totalProxies = totalPairs / PAIRS_PER_PROXY;
+        BroadphaseProxy[] proxies = createProxies(totalProxies);
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            frame(cache, proxies, totalProxies, i);
+        }
+
+        long startBytes = getAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            frame(cache, proxies, totalProxies, WARMUP_FRAMES + i);
+        }
+        long end = System.nanoTime();
+        long endBytes = getAllocatedBytes();
+
+        // Count the pairs that survived. Pairs lost to hash collisions are missing here.
+        final int[] totalPairsFound = new int[1];
+        cache.processOverlappingPairs(new NarrowphaseDispatch(
+                Fw.collisionFactory.createDefaultNarrowphaseFilterCallback()) {
+
+            @Override
+            public boolean processOverlappingPair(OverlappingPair pair) {
+                totalPairsFound[0]++;
+                return true;
+            }
+
+        });
+
+        log.info(String.format("%s pairs= %d: %.3f ms/frame %d bytes/frame pairs in cache= %d", name, totalPairs,
+                (end - start) / 1000000.0 / MEASURED_FRAMES, (endBytes - startBytes) / MEASURED_FRAMES,
+                totalPairsFound[0]));
+    }
+
+    public void run(int totalPairs) {
+
+        // The chained cache is a copy of the previous implementation used as a baseline
+        run("chained", new ChainedOverlappingPairCache(
+                Fw.collisionFactory.createDefaultOverlappingPairFilterCallback()), totalPairs);
+        run("open addressing", new HashedOverlappingPairCache(
+                Fw.collisionFactory.createDefaultOverlappingPairFilterCallback()), totalPairs);
+    }
+
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.collisionbenchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import net.smert.frameworkgl.collision.CollisionWorld;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class ParallelStepBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(ParallelStepBenchmark.class);
+    private final static int MEASURED_STEPS = 300;
+    private final static int WARMUP_STEPS = 60;
+
+    private final BoxStackScene scene;
+
+    public ParallelStepBenchmark() {
+        scene = new BoxStackScene();
+    }
+
+    public void run(int totalBoxes) {
+
+        // Serial baseline
+        CollisionWorld collisionWorld = scene.create(totalBoxes);
+        double serialMs = BoxStackScene.Run(collisionWorld, WARMUP_STEPS, MEASURED_STEPS);
+        float[] serialPositions = scene.getPositions();
+        collisionWorld.destroy();
+        log.info(String.format("boxes= %d serial: %.3f ms/step", totalBoxes, serialMs));
+
+        // Parallel with 1 to N cores
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads++) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            collisionWorld = scene.create(totalBoxes);
+            collisionWorld.setForkJoinPool(pool);
+            collisionWorld.setParallel(true);
+            double parallelMs = BoxStackScene.Run(collisionWorld, WARMUP_STEPS, MEASURED_STEPS);
+            boolean deterministic = Arrays.equals(serialPositions, scene.getPositions());
+            collisionWorld.destroy();
+            pool.shutdown();
+            log.info(String.format("boxes= %d threads= %d parallel: %.3f ms/step speedup= %.2fx deterministic= %b",
+                    totalBoxes, threads, parallelMs, serialMs / parallelMs, deterministic));
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.collisionbenchmark;
+
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.CollisionWorld;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class SleepingBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(SleepingBenchmark.class);
+    private final static int MEASURED_STEPS = 300;
+    private final static int WARMUP_STEPS = 120;
+
+    private final BoxStackScene scene;
+
+    public SleepingBenchmark() {
+        scene = new BoxStackScene();
+    }
+
+    private int getTotalAwake() {
+        int totalAwake = 0;
+        for (CollisionGameObject box : scene.getBoxes()) {
+            if (box.isAwake()) {
+                totalAwake++;
+            }
+        }
+        return totalAwake;
+    }
+
+    private void run(String name, int ticksToSleep, int totalBoxes) {
+        CollisionWorld collisionWorld = scene.create(totalBoxes);
+        collisionWorld.setTicksToSleep(ticksToSleep);
+        double ms = BoxStackScene.Run(collisionWorld, WARMUP_STEPS, MEASURED_STEPS);
+        collisionWorld.destroy();
+        log.info(String.format("boxes= %d sleeping= %s: %.3f ms/step awake= %d", totalBoxes, name, ms,
+                getTotalAwake()));
+    }
+
+    public void run(int totalBoxes) {
+
+        // Boxes settle during the warmup so most of them are asleep for the measured steps
+        run("off", Integer.MAX_VALUE, totalBoxes);
+        run("on", 30, totalBoxes);
+    }
+
+}
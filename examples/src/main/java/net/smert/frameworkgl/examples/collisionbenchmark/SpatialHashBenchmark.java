@@ -0,0 +1,63 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.collisionbenchmark;
+
+import java.util.concurrent.ForkJoinPool;
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.collision.CollisionWorld;
+import net.smert.frameworkgl.collision.broadphase.SpatialHashBroadphase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class SpatialHashBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(SpatialHashBenchmark.class);
+    private final static int MEASURED_STEPS = 20;
+    private final static int WARMUP_STEPS = 5;
+
+    private final DebrisScene scene;
+
+    public SpatialHashBenchmark() {
+        scene = new DebrisScene();
+    }
+
+    public void run(int totalDebris) {
+
+        // Tree baseline
+        CollisionWorld collisionWorld = scene.create(Fw.collisionFactory.createDynamicAABBTreeBroadphase(),
+                totalDebris);
+        double treeMs = BoxStackScene.Run(collisionWorld, WARMUP_STEPS, MEASURED_STEPS);
+        collisionWorld.destroy();
+        log.info(String.format("debris= %d tree: %.3f ms/step", totalDebris, treeMs));
+
+        // Spatial hash with 1 to N cores
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads++) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            SpatialHashBroadphase broadphase = Fw.collisionFactory.createSpatialHashBroadphase();
+            broadphase.setCellSize(1f);
+            broadphase.setForkJoinPool(pool);
+            collisionWorld = scene.create(broadphase, totalDebris);
+            double hashMs = BoxStackScene.Run(collisionWorld, WARMUP_STEPS, MEASURED_STEPS);
+            collisionWorld.destroy();
+            pool.shutdown();
+            log.info(String.format("debris= %d threads= %d spatial hash: %.3f ms/step speedup= %.2fx",
+                    totalDebris, threads, hashMs, treeMs / hashMs));
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.collisionbenchmark;
+
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.CollisionWorld;
+import net.smert.frameworkgl.collision.response.CollisionResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class StackingBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(StackingBenchmark.class);
+    private final static int MEASURED_SECONDS = 2;
+    private final static int WARMUP_SECONDS = 3;
+
+    private final BoxStackScene scene;
+
+    public StackingBenchmark() {
+        scene = new BoxStackScene();
+    }
+
+    private void run(String name, CollisionResolver resolver, int ticksPerSecond, int totalBoxes) {
+        CollisionWorld collisionWorld = new CollisionWorld(Fw.collisionFactory.createDynamicAABBTreeBroadphase(),
+                resolver, Fw.collisionFactory.createNarrowphaseDispatch());
+        scene.create(collisionWorld, totalBoxes);
+
+        // Keep every box awake so that jitter can be measured
+        collisionWorld.setTicksToSleep(Integer.MAX_VALUE);
+
+        float delta = 1f / ticksPerSecond;
+        for (int i = 0; i < ticksPerSecond * WARMUP_SECONDS; i++) {
+            collisionWorld.update(delta);
+        }
+
+        // Jitter is the average distance each box moves per step after the stacks should have settled
+        double jitter = 0;
+        float[] lastPositions = scene.getPositions();
+        int totalSteps = ticksPerSecond * MEASURED_SECONDS;
+        long nanos = 0;
+        for (int i = 0; i < totalSteps; i++) {
+            long start = System.nanoTime();
+            collisionWorld.update(delta);
+            nanos += System.nanoTime() - start;
+
+            float[] positions = scene.getPositions();
+            for (int j = 0; j < positions.length; j++) {
+                jitter += Math.abs(positions[j] - lastPositions[j]);
+            }
+            lastPositions = positions;
+        }
+        collisionWorld.destroy();
+
+        // Boxes sink into each other when the resolver can't hold up the stack
+        float maxY = Float.NEGATIVE_INFINITY;
+        for (CollisionGameObject box : scene.getBoxes()) {
+            maxY = Math.max(maxY, box.getWorldPosition().getY());
+        }
+
+        log.info(String.format("boxes= %d resolver= %s ticks/s= %d: %.3f ms/simulated second jitter= %.6f "
+                + "top box y= %.3f", totalBoxes, name, ticksPerSecond, nanos / 1000000.0 / MEASURED_SECONDS,
+                jitter / ((double) totalBoxes * totalSteps), maxY));
+    }
+
+    public void run(int totalBoxes) {
+        int[] ticksPerSecond = {120, 60, 30};
+        for (int i = 0; i < ticksPerSecond.length; i++) {
+            run("single pass", Fw.collisionFactory.createCollisionResolver(), ticksPerSecond[i], totalBoxes);
+            run("sequential impulse", Fw.collisionFactory.createSequentialImpulseCollisionResolver(),
+                    ticksPerSecond[i], totalBoxes);
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.collisionbenchmark;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.utils.TempArena;
+import net.smert.frameworkgl.utils.ThreadLocalVars;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class TempArenaBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(TempArenaBenchmark.class);
+    private final static int MEASURED_ITERATIONS = 50;
+    private final static int WARMUP_ITERATIONS = 50;
+
+    private float[] results;
+    private Vector3f[] positions;
+    private Vector3f[] velocities;
+
+    private float arena(int start, int end) {
+        float sum = 0f;
+        TempArena arena = TempArena.Get();
+        for (int i = start; i < end; i++) {
+            sum += arenaStep(i, arena);
+        }
+        return sum;
+    }
+
+    private float arenaStep(int index, TempArena arena) {
+
+        // Temp vars from the arena
+        arena.begin();
+        Vector3f relativePosition = arena.vector3f();
+        Vector3f relativeVelocity = arena.vector3f();
+
+        float result = step(index, relativePosition, relativeVelocity);
+
+        // Give back temp vars
+        arena.end();
+
+        return result;
+    }
+
+    private float step(int index, Vector3f relativePosition, Vector3f relativeVelocity) {
+        int other = (index + 1) % positions.length;
+        relativePosition.set(positions[other]).subtract(positions[index]);
+        relativeVelocity.set(velocities[other]).subtract(velocities[index]);
+        results[index] = relativePosition.dot(relativeVelocity);
+        return results[index];
+    }
+
+    private float threadLocalVars(int start, int end) {
+        float sum = 0f;
+        for (int i = start; i < end; i++) {
+            sum += threadLocalVarsStep(i);
+        }
+        return sum;
+    }
+
+    private float threadLocalVarsStep(int index) {
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Vector3f relativePosition = vars.v3f0;
+        Vector3f relativeVelocity = vars.v3f1;
+
+        float result = step(index, relativePosition, relativeVelocity);
+
+        // Release vars instance
+        vars.release();
+
+        return result;
+    }
+
+    private double time(boolean useArena, boolean parallel, int totalObjects) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            update(useArena, parallel, totalObjects);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            update(useArena, parallel, totalObjects);
+        }
+        return (double) (System.nanoTime() - start) / MEASURED_ITERATIONS;
+    }
+
+    private void update(boolean useArena, boolean parallel, int totalObjects) {
+        if (!parallel) {
+            if (useArena) {
+                arena(0, totalObjects);
+            } else {
+                threadLocalVars(0, totalObjects);
+            }
+            return;
+        }
+
+        // Split the objects into one chunk per worker thread
+        int chunks = ForkJoinPool.commonPool().getParallelism() * 4;
+        int chunkSize = (totalObjects + chunks - 1) / chunks;
+        ForkJoinPool.commonPool().submit(() -> {
+            IntStream.range(0, chunks).parallel().forEach((chunk) -> {
+                int start = chunk * chunkSize;
+                int end = Math.min(start + chunkSize, totalObjects);
+                if (useArena) {
+                    arena(start, end);
+                } else {
+                    threadLocalVars(start, end);
+                }
+            });
+        }).join();
+    }
+
+    public void run(int totalObjects) {
+        positions = new Vector3f[totalObjects];
+        results = new float[totalObjects];
+        velocities = new Vector3f[totalObjects];
+
+        Random random = new Random(1234);
+        for (int i = 0; i < totalObjects; i++) {
+            positions[i] = new Vector3f(random.nextFloat(), random.nextFloat(), random.nextFloat());
+            velocities[i] = new Vector3f(random.nextFloat(), random.nextFloat(), random.nextFloat());
+        }
+
+        double threadLocalVarsTime = time(false, false, totalObjects);
+        double arenaTime = time(true, false, totalObjects);
+        double parallelThreadLocalVarsTime = time(false, true, totalObjects);
+        double parallelArenaTime = time(true, true, totalObjects);
+
+        log.info(String.format("objects= %d thread local vars: %.3f ms (%.1f ns/object) arena: %.3f ms "
+                + "(%.1f ns/object) parallel thread local vars: %.3f ms parallel arena: %.3f ms",
+                totalObjects,
+                threadLocalVarsTime / 1000000.0, threadLocalVarsTime / totalObjects, arenaTime / 1000000.0,
+                arenaTime / totalObjects, parallelThreadLocalVarsTime / 1000000.0, parallelArenaTime / 1000000.0));
+    }
+
+}
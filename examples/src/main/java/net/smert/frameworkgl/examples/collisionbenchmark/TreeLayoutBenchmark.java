@@ -0,0 +1,116 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.collisionbenchmark;
+
+import java.util.Random;
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.broadphase.BroadphaseAlgorithm;
+import net.smert.frameworkgl.collision.broadphase.BroadphaseProxy;
+import net.smert.frameworkgl.collision.broadphase.CollisionGroups;
+import net.smert.frameworkgl.collision.broadphase.OverlappingPair;
+import net.smert.frameworkgl.collision.narrowphase.NarrowphaseDispatch;
+import net.smert.frameworkgl.math.AABB;
+import net.smert.frameworkgl.math.AABBUtilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class TreeLayoutBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(TreeLayoutBenchmark.class);
+    private final static float DELTA = 1f / 60f;
+    private final static float HALF_SIZE = .25f;
+    private final static int MEASURED_FRAMES = 20;
+    private final static int WARMUP_FRAMES = 5;
+
+    private final AABB worldAabb;
+    private final NarrowphaseDispatch aabbOverlapDispatch;
+
+    public TreeLayoutBenchmark() {
+        worldAabb = new AABB();
+
+        // Keep pairs while the proxy AABBs overlap like the narrowphase does
+        aabbOverlapDispatch = new NarrowphaseDispatch(Fw.collisionFactory.createDefaultNarrowphaseFilterCallback()) {
+
+            @Override
+            public boolean processOverlappingPair(OverlappingPair pair) {
+                return AABBUtilities.DoesAabb0IntersectAabb1(pair.proxy0.aabb, pair.proxy1.aabb);
+            }
+
+        };
+    }
+
+    private void run(String name, BroadphaseAlgorithm broadphase, int totalProxies) {
+
+        // Same seed so that every broadphase gets the same scene
+        Random random = new Random(1);
+        float size = (float) Math.cbrt(totalProxies * 8f);
+        float[] positions = new float[totalProxies * 3];
+        float[] velocities = new float[totalProxies * 3];
+        BroadphaseProxy[] proxies = new BroadphaseProxy[totalProxies];
+        for (int i = 0; i < totalProxies; i++) {
+            for (int j = 0; j < 3; j++) {
+                positions[i * 3 + j] = random.nextFloat() * size;
+                velocities[i * 3 + j] = random.nextFloat() * 4f - 2f;
+            }
+            setWorldAabb(positions, i);
+            proxies[i] = broadphase.createProxy(new CollisionGameObject(), CollisionGroups.GROUP1,
+                    CollisionGroups.GROUP1, worldAabb);
+        }
+
+        long moveNanos = 0;
+        long updateNanos = 0;
+        for (int frame = 0; frame < WARMUP_FRAMES + MEASURED_FRAMES; frame++) {
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] += velocities[i] * DELTA;
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < totalProxies; i++) {
+                setWorldAabb(positions, i);
+                broadphase.moveProxy(proxies[i], worldAabb);
+            }
+            long middle = System.nanoTime();
+            broadphase.updateOverlappingPairs();
+            long end = System.nanoTime();
+            broadphase.getOverlappingPairCache().processOverlappingPairs(aabbOverlapDispatch);
+
+            if (frame >= WARMUP_FRAMES) {
+                moveNanos += middle - start;
+                updateNanos += end - middle;
+            }
+        }
+
+        log.info(String.format("proxies= %d %s: moveProxy %.3f ms/frame updateOverlappingPairs %.3f ms/frame",
+                totalProxies, name, moveNanos / 1000000.0 / MEASURED_FRAMES,
+                updateNanos / 1000000.0 / MEASURED_FRAMES));
+    }
+
+    private void setWorldAabb(float[] positions, int index) {
+        float x = positions[index * 3];
+        float y = positions[index * 3 + 1];
+        float z = positions[index * 3 + 2];
+        worldAabb.setMin(x - HALF_SIZE, y - HALF_SIZE, z - HALF_SIZE);
+        worldAabb.setMax(x + HALF_SIZE, y + HALF_SIZE, z + HALF_SIZE);
+    }
+
+    public void run(int totalProxies) {
+        run("object tree", Fw.collisionFactory.createDynamicAABBTreeBroadphase(), totalProxies);
+        run("packed tree", Fw.collisionFactory.createPackedAABBTreeBroadphase(), totalProxies);
+    }
+
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.renderbenchmark;
+
+import net.smert.frameworkgl.animation.KeyframeAnimationEvaluator;
+import net.smert.frameworkgl.animation.KeyframeTrack;
+import net.smert.frameworkgl.gameobjects.GameObject;
+import net.smert.frameworkgl.math.Quaternion4f;
+import net.smert.frameworkgl.math.Vector3f;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class AnimationBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(AnimationBenchmark.class);
+    private final static int KEYFRAMES = 64;
+    private final static int MEASURED_TICKS = 300;
+    private final static int WARMUP_TICKS = 300;
+
+    private KeyframeTrack createKeyframeTrack(boolean slerp) {
+        KeyframeTrack keyframeTrack = new KeyframeTrack();
+        keyframeTrack.setSlerp(slerp);
+        Quaternion4f rotation = new Quaternion4f();
+        Vector3f axis = new Vector3f(.2f, 1f, .1f).normalize();
+        Vector3f position = new Vector3f();
+        Vector3f scale = new Vector3f(1f, 1f, 1f);
+        for (int i = 0; i < KEYFRAMES; i++) {
+            position.set(i * .1f, (i % 8) * .25f, 0f);
+            rotation.fromAxisAngle(axis, i * 25f);
+            keyframeTrack.addKeyframe(i * .25f, position, rotation, scale);
+        }
+        return keyframeTrack;
+    }
+
+    private void run(int totalObjects, boolean slerp, boolean parallel) {
+        KeyframeAnimationEvaluator keyframeAnimationEvaluator = new KeyframeAnimationEvaluator();
+        keyframeAnimationEvaluator.setParallel(parallel);
+        KeyframeTrack keyframeTrack = createKeyframeTrack(slerp);
+
+        // Spread the start times so objects sample different keyframes
+        for (int i = 0; i < totalObjects; i++) {
+            keyframeAnimationEvaluator.addKeyframeAnimation(new GameObject(), keyframeTrack)
+                    .setTime(keyframeTrack.getDuration() * i / totalObjects);
+        }
+
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            keyframeAnimationEvaluator.update(1f / 60f);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            keyframeAnimationEvaluator.update(1f / 60f);
+        }
+        long end = System.nanoTime();
+
+        log.info(String.format("objects= %d slerp= %b parallel= %b: %.3f ms/tick %.1f ns/object", totalObjects,
+                slerp, parallel, (double) (end - start) / MEASURED_TICKS / 1000000.0,
+                (double) (end - start) / MEASURED_TICKS / totalObjects));
+    }
+
+    public void run(int totalObjects) {
+        run(totalObjects, false, false);
+        run(totalObjects, false, true);
+        run(totalObjects, true, false);
+        run(totalObjects, true, true);
+    }
+
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.renderbenchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.smert.frameworkgl.Graphics;
+import net.smert.frameworkgl.gameobjects.GameObject;
+import net.smert.frameworkgl.math.AABB;
+import net.smert.frameworkgl.math.ClipPlanes;
+import net.smert.frameworkgl.opengl.camera.AbstractFrustumCulling;
+import net.smert.frameworkgl.opengl.camera.Camera;
+import net.smert.frameworkgl.opengl.camera.FrustumCullingClipSpace;
+import net.smert.frameworkgl.opengl.pipeline.RenderAABBTree;
+import net.smert.frameworkgl.opengl.pipeline.RenderAABBTreeQueryCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class FrustumCoherencyBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(FrustumCoherencyBenchmark.class);
+    private final static int MEASURED_FRAMES = 100;
+    private final static int WARMUP_FRAMES = 100;
+
+    private int visibleCount;
+    private final Graphics graphics;
+    private final RenderAABBTreeQueryCallback queryCallback;
+
+    public FrustumCoherencyBenchmark() {
+        graphics = new Graphics();
+        queryCallback = (node) -> {
+            visibleCount++;
+        };
+    }
+
+    private Camera createCamera() {
+        Camera camera = new Camera();
+        camera.setFrustumCulling(new FrustumCullingClipSpace());
+        camera.setPerspectiveProjection(70f, 16f / 9f, .1f, 500f);
+        camera.resetRotation();
+        return camera;
+    }
+
+    private List<GameObject> createGameObjects(int totalObjects, boolean staticObjects) {
+        List<GameObject> gameObjects = new ArrayList<>(totalObjects);
+
+        // Same seed so that every run gets the same scene
+        Random random = new Random(1234);
+        for (int i = 0; i < totalObjects; i++) {
+            float halfExtent = .5f + random.nextFloat() * 2f;
+            float x = (random.nextFloat() - .5f) * 600f;
+            float y = (random.nextFloat() - .5f) * 600f;
+            float z = (random.nextFloat() - .5f) * 600f;
+            GameObject gameObject = new GameObject();
+            AABB worldAabb = gameObject.getWorldAabb();
+            worldAabb.setMin(x - halfExtent, y - halfExtent, z - halfExtent);
+            worldAabb.setMax(x + halfExtent, y + halfExtent, z + halfExtent);
+            gameObject.getRenderableState().setStaticObject(staticObjects);
+            gameObjects.add(gameObject);
+        }
+
+        return gameObjects;
+    }
+
+    private void frame(Camera camera, float turnSpeed) {
+        camera.rotate(0f, turnSpeed, 0f);
+        camera.update();
+        camera.updatePlanes();
+    }
+
+    private void log(String name, int totalObjects, float turnSpeed, long planeTests, long skippedTests,
+            long elapsed) {
+        log.info(String.format("objects= %d turn= %.1f deg/frame %s: %.3f ms/frame plane tests= %.1f/object "
+                + "skipped= %.1f%%", totalObjects, turnSpeed, name, (double) elapsed / MEASURED_FRAMES / 1000000.0,
+                (double) planeTests / MEASURED_FRAMES / totalObjects,
+                (double) skippedTests * 100.0 / MEASURED_FRAMES / totalObjects));
+    }
+
+    private void runPerObject(int totalObjects, float turnSpeed, boolean coherent, boolean staticObjects) {
+        Camera camera = createCamera();
+        AbstractFrustumCulling frustumCulling = camera.getFrustumCulling();
+        List<GameObject> gameObjects = createGameObjects(totalObjects, staticObjects);
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            frame(camera, turnSpeed);
+            perObject(camera, gameObjects, coherent);
+        }
+
+        long elapsed = 0;
+        long planeTests = 0;
+        long skippedTests = 0;
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            frame(camera, turnSpeed);
+            long start = System.nanoTime();
+            perObject(camera, gameObjects, coherent);
+            elapsed += System.nanoTime() - start;
+            planeTests += frustumCulling.getPlaneTests();
+            skippedTests += frustumCulling.getSkippedTests();
+        }
+
+        String name = coherent ? (staticObjects ? "per object coherent static" : "per object coherent")
+                : "per object";
+        log(name, totalObjects, turnSpeed, planeTests, skippedTests, elapsed);
+    }
+
+    private void perObject(Camera camera, List<GameObject> gameObjects, boolean coherent) {
+        if (coherent) {
+            graphics.performCulling(camera, gameObjects);
+            return;
+        }
+
+        // Same plane test without remembering the rejecting plane
+        AbstractFrustumCulling frustumCulling = camera.getFrustumCulling();
+        for (int i = 0, max = gameObjects.size(); i < max; i++) {
+            GameObject gameObject = gameObjects.get(i);
+            int planeMask = frustumCulling.getAABBPlaneMask(gameObject.getWorldAabb(), ClipPlanes.PLANE_MASK_ALL);
+            gameObject.getRenderableState().setInFrustum(planeMask != ClipPlanes.PLANE_MASK_OUTSIDE);
+        }
+    }
+
+    private void runTree(int totalObjects, float turnSpeed) {
+        Camera camera = createCamera();
+        AbstractFrustumCulling frustumCulling = camera.getFrustumCulling();
+        List<GameObject> gameObjects = createGameObjects(totalObjects, false);
+        RenderAABBTree renderAABBTree = new RenderAABBTree();
+        for (GameObject gameObject : gameObjects) {
+            renderAABBTree.createLeaf(gameObject, 0);
+        }
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            frame(camera, turnSpeed);
+            renderAABBTree.query(frustumCulling, queryCallback);
+        }
+
+        long elapsed = 0;
+        long planeTests = 0;
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            frame(camera, turnSpeed);
+            long start = System.nanoTime();
+            renderAABBTree.query(frustumCulling, queryCallback);
+            elapsed += System.nanoTime() - start;
+            planeTests += frustumCulling.getPlaneTests();
+        }
+
+        log("tree coherent", totalObjects, turnSpeed, planeTests, 0, elapsed);
+    }
+
+    public void run(int totalObjects) {
+        for (float turnSpeed : new float[]{0f, .5f}) {
+            runPerObject(totalObjects, turnSpeed, false, false);
+            runPerObject(totalObjects, turnSpeed, true, false);
+            runPerObject(totalObjects, turnSpeed, true, true);
+            runTree(totalObjects, turnSpeed);
+        }
+    }
+
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.renderbenchmark;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import net.smert.frameworkgl.gameobjects.GameObject;
+import net.smert.frameworkgl.math.AABB;
+import net.smert.frameworkgl.math.Matrix4f;
+import net.smert.frameworkgl.opengl.camera.BatchFrustumCulling;
+import net.smert.frameworkgl.opengl.camera.FrustumCullingClipSpace;
+import net.smert.frameworkgl.opengl.pipeline.RenderAABBTree;
+import net.smert.frameworkgl.opengl.pipeline.RenderAABBTreeQueryCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class FrustumCullingBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(FrustumCullingBenchmark.class);
+    private final static int MEASURED_ITERATIONS = 50;
+    private final static int WARMUP_ITERATIONS = 100;
+
+    private int treeVisibleCount;
+    private final FrustumCullingClipSpace frustumCulling;
+    private final RenderAABBTreeQueryCallback queryCallback;
+
+    public FrustumCullingBenchmark() {
+        frustumCulling = new FrustumCullingClipSpace();
+        Matrix4f projectionMatrix = new Matrix4f();
+        projectionMatrix.setPerspective(70f, 16f / 9f, .1f, 500f);
+        Matrix4f viewMatrix = new Matrix4f();
+        viewMatrix.identity();
+        frustumCulling.updatePlanes(projectionMatrix, viewMatrix);
+        queryCallback = (node) -> {
+            treeVisibleCount++;
+        };
+    }
+
+    private int batch(BatchFrustumCulling batchFrustumCulling) {
+        return batchFrustumCulling.cull(frustumCulling);
+    }
+
+    private int perObject(AABB[] aabbs, boolean[] inFrustum) {
+        int visibleCount = 0;
+        for (int i = 0; i < aabbs.length; i++) {
+            inFrustum[i] = frustumCulling.isAABBInFrustum(aabbs[i]);
+            if (inFrustum[i]) {
+                visibleCount++;
+            }
+        }
+        return visibleCount;
+    }
+
+    private double timeBatch(BatchFrustumCulling batchFrustumCulling) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            batch(batchFrustumCulling);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            batch(batchFrustumCulling);
+        }
+        return (double) (System.nanoTime() - start) / MEASURED_ITERATIONS;
+    }
+
+    private double timeTree(RenderAABBTree renderAABBTree) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            tree(renderAABBTree);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            tree(renderAABBTree);
+        }
+        return (double) (System.nanoTime() - start) / MEASURED_ITERATIONS;
+    }
+
+    private int tree(RenderAABBTree renderAABBTree) {
+        treeVisibleCount = 0;
+        renderAABBTree.query(frustumCulling, queryCallback);
+        return treeVisibleCount;
+    }
+
+    public void run(int totalObjects) {
+        AABB[] aabbs = new AABB[totalObjects];
+        BatchFrustumCulling batchFrustumCulling = new BatchFrustumCulling();
+        RenderAABBTree renderAABBTree = new RenderAABBTree();
+        boolean[] inFrustum = new boolean[totalObjects];
+
+        // Boxes all around the camera so roughly a sixth of them are visible
+        Random random = new Random(1234);
+        for (int i = 0; i < totalObjects; i++) {
+            float halfExtent = .5f + random.nextFloat() * 2f;
+            float x = (random.nextFloat() - .5f) * 600f;
+            float y = (random.nextFloat() - .5f) * 600f;
+            float z = (random.nextFloat() - .5f) * 600f;
+            aabbs[i] = new AABB();
+            aabbs[i].setMin(x - halfExtent, y - halfExtent, z - halfExtent);
+            aabbs[i].setMax(x + halfExtent, y + halfExtent, z + halfExtent);
+            batchFrustumCulling.add(aabbs[i]);
+            GameObject gameObject = new GameObject();
+            gameObject.getWorldAabb().set(aabbs[i]);
+            renderAABBTree.createLeaf(gameObject, 0);
+        }
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            perObject(aabbs, inFrustum);
+        }
+        long start = System.nanoTime();
+        int perObjectVisible = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            perObjectVisible = perObject(aabbs, inFrustum);
+        }
+        double perObjectTime = (double) (System.nanoTime() - start) / MEASURED_ITERATIONS;
+
+        double batchTime = timeBatch(batchFrustumCulling);
+        int batchVisible = batchFrustumCulling.getVisibleCount();
+
+        // The per object path falls back to a bounding sphere test which lets through some boxes that are outside a
+        // plane. The p-vertex test rejects those.
+        int perObjectOnly = 0;
+        boolean[] batchInFrustum = new boolean[totalObjects];
+        int[] visibleIndices = batchFrustumCulling.getVisibleIndices();
+        for (int i = 0; i < batchVisible; i++) {
+            batchInFrustum[visibleIndices[i]] = true;
+        }
+        for (int i = 0; i < totalObjects; i++) {
+            if (inFrustum[i] && !batchInFrustum[i]) {
+                perObjectOnly++;
+            }
+        }
+
+        batchFrustumCulling.setParallel(true);
+        batchFrustumCulling.setForkJoinPool(ForkJoinPool.commonPool());
+        double parallelTime = timeBatch(batchFrustumCulling);
+        int parallelVisible = batchFrustumCulling.getVisibleCount();
+
+        double treeTime = timeTree(renderAABBTree);
+
+        log.info(String.format("objects= %d per object: %.3f ms (%.1f ns/object) visible= %d batch: %.3f ms "
+                + "(%.1f ns/object) visible= %d parallel: %.3f ms visible= %d tree: %.3f ms visible= %d "
+                + "per object only= %d",
+                totalObjects,
+                perObjectTime / 1000000.0, perObjectTime / totalObjects, perObjectVisible, batchTime / 1000000.0,
+                batchTime / totalObjects, batchVisible, parallelTime / 1000000.0, parallelVisible, treeTime / 1000000.0,
+                treeVisibleCount, perObjectOnly));
+    }
+
+}
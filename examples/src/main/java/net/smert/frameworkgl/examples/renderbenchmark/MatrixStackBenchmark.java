@@ -0,0 +1,127 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.renderbenchmark;
+
+import java.util.Random;
+import java.util.Stack;
+import net.smert.frameworkgl.math.Matrix4f;
+import net.smert.frameworkgl.math.Transform4f;
+import net.smert.frameworkgl.opengl.helpers.MatrixHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class MatrixStackBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(MatrixStackBenchmark.class);
+    private final static int MEASURED_FRAMES = 100;
+    private final static int WARMUP_FRAMES = 100;
+
+    private float sum;
+    private final Matrix4f projectionMatrix;
+    private final Matrix4f projectionViewModelMatrix;
+    private final Matrix4f viewMatrix;
+    private final Matrix4f viewModelMatrix;
+    private final MatrixHelper matrixHelper;
+    private final Stack<Matrix4f> modelMatrixStack;
+    private Transform4f[] transforms;
+
+    public MatrixStackBenchmark() {
+        projectionMatrix = new Matrix4f();
+        projectionViewModelMatrix = new Matrix4f();
+        viewMatrix = new Matrix4f();
+        viewModelMatrix = new Matrix4f();
+        matrixHelper = new MatrixHelper();
+        modelMatrixStack = new Stack<>();
+    }
+
+    private void frameCachedProducts(int drawsPerObject) {
+        for (int i = 0; i < transforms.length; i++) {
+            matrixHelper.setModeModel();
+            matrixHelper.push();
+            matrixHelper.load(transforms[i]);
+            for (int j = 0; j < drawsPerObject; j++) {
+                sum += matrixHelper.getProjectionViewModelMatrix().getPositionX();
+            }
+            matrixHelper.pop();
+        }
+    }
+
+    private void frameStack(int drawsPerObject) {
+        for (int i = 0; i < transforms.length; i++) {
+
+            // What MatrixHelper and AbstractShader did before the products were cached
+            modelMatrixStack.push(new Matrix4f(modelMatrixStack.peek()));
+            modelMatrixStack.peek().set(transforms[i]);
+            for (int j = 0; j < drawsPerObject; j++) {
+                viewMatrix.viewMultiplyModelOut(modelMatrixStack.peek(), viewModelMatrix);
+                projectionMatrix.projectionMultiplyViewOut(viewModelMatrix, projectionViewModelMatrix);
+                sum += projectionViewModelMatrix.getPositionX();
+            }
+            modelMatrixStack.pop();
+        }
+    }
+
+    private double time(boolean cached, int drawsPerObject) {
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            update(cached, drawsPerObject);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            update(cached, drawsPerObject);
+        }
+        return (double) (System.nanoTime() - start) / MEASURED_FRAMES;
+    }
+
+    private void update(boolean cached, int drawsPerObject) {
+        if (cached) {
+            frameCachedProducts(drawsPerObject);
+        } else {
+            frameStack(drawsPerObject);
+        }
+    }
+
+    public void run(int totalObjects, int drawsPerObject) {
+        transforms = new Transform4f[totalObjects];
+
+        Random random = new Random(1234);
+        for (int i = 0; i < totalObjects; i++) {
+            transforms[i] = new Transform4f();
+            transforms[i].getPosition().set(random.nextFloat() * 100f, random.nextFloat() * 100f,
+                    random.nextFloat() * 100f);
+        }
+
+        // Same camera for both
+        matrixHelper.reset();
+        matrixHelper.setModeProjection();
+        matrixHelper.setPerspective(70f, 16f / 9f, .1f, 1000f);
+        matrixHelper.setModeView();
+        matrixHelper.translate(0f, -10f, -50f);
+        projectionMatrix.set(matrixHelper.getProjectionMatrix());
+        viewMatrix.set(matrixHelper.getViewMatrix());
+        modelMatrixStack.clear();
+        modelMatrixStack.push(new Matrix4f());
+
+        double stackTime = time(false, drawsPerObject);
+        double cachedTime = time(true, drawsPerObject);
+
+        log.info(String.format("objects= %d draws per object= %d java.util.Stack and multiply per draw: %.3f ms "
+                + "(%.1f ns/object) preallocated stack and cached products: %.3f ms (%.1f ns/object) checksum= %.1f",
+                totalObjects, drawsPerObject, stackTime / 1000000.0, stackTime / totalObjects,
+                cachedTime / 1000000.0, cachedTime / totalObjects, sum));
+    }
+
+}
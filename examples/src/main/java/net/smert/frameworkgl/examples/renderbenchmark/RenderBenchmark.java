@@ -0,0 +1,97 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.renderbenchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.Screen;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class RenderBenchmark extends Screen {
+
+    private final List<String> benchmarks;
+
+    public RenderBenchmark(String[] args) {
+
+        // Run all benchmarks unless some were named on the command line
+        if (args.length > 0) {
+            benchmarks = Arrays.asList(args);
+        } else {
+            benchmarks = Arrays.asList("animation", "coherency", "culling", "matrixstack", "renderqueue",
+                    "transformbatch");
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    @Override
+    public void init() {
+        if (benchmarks.contains("animation")) {
+            AnimationBenchmark animationBenchmark = new AnimationBenchmark();
+            animationBenchmark.run(10000);
+            animationBenchmark.run(50000);
+        }
+        if (benchmarks.contains("coherency")) {
+            FrustumCoherencyBenchmark frustumCoherencyBenchmark = new FrustumCoherencyBenchmark();
+            frustumCoherencyBenchmark.run(10000);
+            frustumCoherencyBenchmark.run(100000);
+        }
+        if (benchmarks.contains("culling")) {
+            FrustumCullingBenchmark frustumCullingBenchmark = new FrustumCullingBenchmark();
+            frustumCullingBenchmark.run(10000);
+            frustumCullingBenchmark.run(100000);
+            frustumCullingBenchmark.run(500000);
+        }
+        if (benchmarks.contains("matrixstack")) {
+            MatrixStackBenchmark matrixStackBenchmark = new MatrixStackBenchmark();
+            matrixStackBenchmark.run(10000, 1);
+            matrixStackBenchmark.run(10000, 4);
+        }
+        if (benchmarks.contains("renderqueue")) {
+            RenderQueueBenchmark renderQueueBenchmark = new RenderQueueBenchmark();
+            renderQueueBenchmark.run(10000);
+            renderQueueBenchmark.run(100000);
+        }
+        if (benchmarks.contains("transformbatch")) {
+            TransformBatchBenchmark transformBatchBenchmark = new TransformBatchBenchmark();
+            transformBatchBenchmark.run(1000);
+            transformBatchBenchmark.run(10000);
+            transformBatchBenchmark.run(100000);
+        }
+
+        Fw.app.stopRunning();
+    }
+
+    @Override
+    public void pause() {
+    }
+
+    @Override
+    public void render() {
+    }
+
+    @Override
+    public void resize(int width, int height) {
+    }
+
+    @Override
+    public void resume() {
+    }
+
+}
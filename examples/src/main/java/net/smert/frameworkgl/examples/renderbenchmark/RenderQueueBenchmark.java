@@ -0,0 +1,146 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.renderbenchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.smert.frameworkgl.gameobjects.GameObject;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.opengl.GL;
+import net.smert.frameworkgl.opengl.TextureType;
+import net.smert.frameworkgl.opengl.mesh.Mesh;
+import net.smert.frameworkgl.opengl.mesh.Segment;
+import net.smert.frameworkgl.opengl.mesh.SegmentMaterial;
+import net.smert.frameworkgl.opengl.renderable.AbstractRenderable;
+import net.smert.frameworkgl.opengl.renderable.Renderable;
+import net.smert.frameworkgl.opengl.renderer.RenderQueue;
+import net.smert.frameworkgl.opengl.shader.AbstractShader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class RenderQueueBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(RenderQueueBenchmark.class);
+    private final static int MEASURED_FRAMES = 100;
+    private final static int TOTAL_MESHES = 64;
+    private final static int TOTAL_SHADERS = 4;
+    private final static int TOTAL_TEXTURES = 16;
+    private final static int WARMUP_FRAMES = 100;
+
+    private final RenderQueue renderQueue;
+
+    public RenderQueueBenchmark() {
+        renderQueue = new RenderQueue();
+    }
+
+    private List<GameObject> createGameObjects(int totalObjects, AbstractShader[] shaders, AbstractShader[] objectShaders) {
+        List<GameObject> gameObjects = new ArrayList<>(totalObjects);
+
+        // Meshes share textures and renderables share meshes like models loaded once and placed many times
+        AbstractRenderable[] renderables = new AbstractRenderable[TOTAL_MESHES];
+        Mesh[] meshes = new Mesh[TOTAL_MESHES];
+        int renderableConfigID = Renderable.configPool.getOrAdd(GL.meshFactory.createRenderableConfiguration());
+        for (int i = 0; i < TOTAL_MESHES; i++) {
+            SegmentMaterial material = GL.meshFactory.createSegmentMaterial();
+            material.setTexture(TextureType.DIFFUSE, "texture" + (i % TOTAL_TEXTURES) + ".png");
+            Segment segment = GL.meshFactory.createSegment();
+            segment.setElementCount(3);
+            segment.setMaterial(material);
+            meshes[i] = GL.meshFactory.createMesh();
+            meshes[i].setRenderableConfigID(renderableConfigID);
+            meshes[i].addSegment(segment);
+            renderables[i] = new AbstractRenderable() {
+
+                @Override
+                public void create(Mesh mesh) {
+                }
+
+                @Override
+                public void destroy() {
+                }
+
+                @Override
+                public void render() {
+                }
+
+            };
+        }
+
+        Random random = new Random(1234);
+        for (int i = 0; i < totalObjects; i++) {
+            int meshIndex = random.nextInt(TOTAL_MESHES);
+            GameObject gameObject = new GameObject();
+            gameObject.getRenderableState().setOpaque(random.nextInt(10) != 0);
+            gameObject.setMesh(meshes[meshIndex]);
+            gameObject.setRenderable(renderables[meshIndex]);
+            gameObject.setWorldPosition((random.nextFloat() - .5f) * 500f, (random.nextFloat() - .5f) * 500f,
+                    (random.nextFloat() - .5f) * 500f);
+            gameObjects.add(gameObject);
+            objectShaders[i] = shaders[meshIndex % TOTAL_SHADERS];
+        }
+
+        return gameObjects;
+    }
+
+    private void fill(List<GameObject> gameObjects, AbstractShader[] objectShaders) {
+        renderQueue.clear();
+        for (int i = 0; i < gameObjects.size(); i++) {
+            renderQueue.add(gameObjects.get(i), objectShaders[i]);
+        }
+    }
+
+    public void run(int totalObjects) {
+        AbstractShader[] shaders = new AbstractShader[TOTAL_SHADERS];
+        for (int i = 0; i < TOTAL_SHADERS; i++) {
+
+            // Only used as keys so they are never bound
+            shaders[i] = new AbstractShader(null, null) {
+            };
+        }
+        AbstractShader[] objectShaders = new AbstractShader[totalObjects];
+        List<GameObject> gameObjects = createGameObjects(totalObjects, shaders, objectShaders);
+        renderQueue.reset();
+        renderQueue.setCameraPosition(new Vector3f());
+
+        // State changes when drawing in list order
+        fill(gameObjects, objectShaders);
+        renderQueue.countStateChanges();
+        int listShaderChanges = renderQueue.getShaderChanges();
+        int listTextureSetChanges = renderQueue.getTextureSetChanges();
+        int listRenderableChanges = renderQueue.getRenderableChanges();
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            fill(gameObjects, objectShaders);
+            renderQueue.sort();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            fill(gameObjects, objectShaders);
+            renderQueue.sort();
+        }
+        double frameTime = (double) (System.nanoTime() - start) / MEASURED_FRAMES;
+        renderQueue.countStateChanges();
+
+        log.info(String.format("objects= %d fill and sort: %.3f ms (%.1f ns/object) list order shader/texture/"
+                + "renderable changes= %d/%d/%d sorted= %d/%d/%d pass changes= %d", totalObjects,
+                frameTime / 1000000.0, frameTime / totalObjects, listShaderChanges, listTextureSetChanges,
+                listRenderableChanges, renderQueue.getShaderChanges(), renderQueue.getTextureSetChanges(),
+                renderQueue.getRenderableChanges(), renderQueue.getPassChanges()));
+    }
+
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2014 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.examples.renderbenchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import net.smert.frameworkgl.math.AABB;
+import net.smert.frameworkgl.math.AABBUtilities;
+import net.smert.frameworkgl.math.Matrix4f;
+import net.smert.frameworkgl.math.Transform4f;
+import net.smert.frameworkgl.math.TransformBatchUtilities;
+import net.smert.frameworkgl.math.Vector3f;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class TransformBatchBenchmark {
+
+    private final static Logger log = LoggerFactory.getLogger(TransformBatchBenchmark.class);
+    private final static int MEASURED_ITERATIONS = 500;
+    private final static int WARMUP_ITERATIONS = 500;
+
+    private float sink;
+
+    private void batchAabbs(float[] localAabbs, float[] transforms, int count, float[] worldAabbs) {
+        TransformBatchUtilities.TransformAabbs(localAabbs, transforms, count, worldAabbs);
+        sink += worldAabbs[0];
+    }
+
+    private void batchMatrices(Matrix4f viewMatrix, float[] transforms, int count, float[] matrices,
+            FloatBuffer fbMatrices) {
+        TransformBatchUtilities.MultiplyTransforms(viewMatrix, transforms, count, matrices);
+        fbMatrices.clear();
+        TransformBatchUtilities.ToFloatBuffer(matrices, count, fbMatrices);
+        sink += fbMatrices.get(0);
+    }
+
+    private void scalarAabbs(AABB[] localAabbs, Transform4f[] transforms, AABB[] worldAabbs) {
+        for (int i = 0; i < transforms.length; i++) {
+            AABBUtilities.Transform(localAabbs[i], transforms[i], worldAabbs[i]);
+        }
+        sink += worldAabbs[0].getMin().getX();
+    }
+
+    private void scalarMatrices(Matrix4f viewMatrix, Transform4f[] transforms, Matrix4f modelMatrix,
+            Matrix4f modelViewMatrix, FloatBuffer fbMatrices) {
+        fbMatrices.clear();
+        for (int i = 0; i < transforms.length; i++) {
+            modelMatrix.set(transforms[i]);
+            viewMatrix.multiplyOut(modelMatrix, modelViewMatrix);
+            modelViewMatrix.toFloatBuffer(fbMatrices);
+        }
+        sink += fbMatrices.get(0);
+    }
+
+    public void run(int totalTransforms) {
+        AABB[] localAabbs = new AABB[totalTransforms];
+        AABB[] worldAabbs = new AABB[totalTransforms];
+        Transform4f[] transforms = new Transform4f[totalTransforms];
+
+        // Random rotated transforms with random local bounds
+        Random random = new Random(1234);
+        for (int i = 0; i < totalTransforms; i++) {
+            float halfExtent = .25f + random.nextFloat();
+            localAabbs[i] = new AABB();
+            localAabbs[i].setMin(-halfExtent, -halfExtent * .5f, -halfExtent);
+            localAabbs[i].setMax(halfExtent, halfExtent * 1.5f, halfExtent);
+            worldAabbs[i] = new AABB();
+            transforms[i] = new Transform4f();
+            Vector3f axis = new Vector3f(random.nextFloat() - .5f, random.nextFloat() - .5f, .1f).normalize();
+            transforms[i].getRotation().fromAxisAngle(axis, random.nextFloat() * 360f);
+            transforms[i].getPosition().set(
+                    random.nextFloat() * 100f, random.nextFloat() * 100f, random.nextFloat() * 100f);
+        }
+
+        Matrix4f modelMatrix = new Matrix4f();
+        Matrix4f modelViewMatrix = new Matrix4f();
+        Matrix4f viewMatrix = new Matrix4f();
+        viewMatrix.setPerspective(70f, 16f / 9f, .1f, 1000f);
+
+        // Packed copies for the batch kernels
+        float[] packedLocalAabbs = new float[totalTransforms * TransformBatchUtilities.AABB_STRIDE];
+        float[] packedMatrices = new float[totalTransforms * TransformBatchUtilities.MATRIX_STRIDE];
+        float[] packedTransforms = new float[totalTransforms * TransformBatchUtilities.TRANSFORM_STRIDE];
+        float[] packedWorldAabbs = new float[totalTransforms * TransformBatchUtilities.AABB_STRIDE];
+        TransformBatchUtilities.PackAabbs(localAabbs, totalTransforms, packedLocalAabbs);
+        TransformBatchUtilities.PackTransforms(transforms, totalTransforms, packedTransforms);
+        FloatBuffer fbMatrices = ByteBuffer.allocateDirect(packedMatrices.length * 4).order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            scalarMatrices(viewMatrix, transforms, modelMatrix, modelViewMatrix, fbMatrices);
+            batchMatrices(viewMatrix, packedTransforms, totalTransforms, packedMatrices, fbMatrices);
+            scalarAabbs(localAabbs, transforms, worldAabbs);
+            batchAabbs(packedLocalAabbs, packedTransforms, totalTransforms, packedWorldAabbs);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            scalarMatrices(viewMatrix, transforms, modelMatrix, modelViewMatrix, fbMatrices);
+        }
+        long scalarMatricesTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            batchMatrices(viewMatrix, packedTransforms, totalTransforms, packedMatrices, fbMatrices);
+        }
+        long batchMatricesTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            scalarAabbs(localAabbs, transforms, worldAabbs);
+        }
+        long scalarAabbsTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            batchAabbs(packedLocalAabbs, packedTransforms, totalTransforms, packedWorldAabbs);
+        }
+        long batchAabbsTime = System.nanoTime() - start;
+
+        // Both paths should agree
+        float maxError = 0f;
+        float[] packedScalarAabbs = new float[packedWorldAabbs.length];
+        TransformBatchUtilities.PackAabbs(worldAabbs, totalTransforms, packedScalarAabbs);
+        for (int i = 0; i < packedWorldAabbs.length; i++) {
+            maxError = Math.max(maxError, Math.abs(packedWorldAabbs[i] - packedScalarAabbs[i]));
+        }
+
+        long totalOperations = (long) totalTransforms * MEASURED_ITERATIONS;
+        log.info(String.format("transforms= %d matrices: scalar %.2f ns batch %.2f ns aabbs: scalar %.2f ns "
+                + "batch %.2f ns max error= %e sink= %.1f", totalTransforms,
+                (double) scalarMatricesTime / totalOperations, (double) batchMatricesTime / totalOperations,
+                (double) scalarAabbsTime / totalOperations, (double) batchAabbsTime / totalOperations, maxError,
+                sink));
+    }
+
+}
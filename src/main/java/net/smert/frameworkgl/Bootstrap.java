@@ -22,7 +22,10 @@ import net.smert.frameworkgl.collision.broadphase.DynamicAABBTreeBroadphase;
 import net.smert.frameworkgl.collision.broadphase.HashedOverlappingPairCache;
 import net.smert.frameworkgl.collision.broadphase.OverlappingPairCache;
 import net.smert.frameworkgl.collision.broadphase.OverlappingPairFilterCallback;
+import net.smert.frameworkgl.collision.broadphase.PackedAABBTreeBroadphase;
 import net.smert.frameworkgl.collision.broadphase.SimpleBroadphase;
+import net.smert.frameworkgl.collision.broadphase.SpatialHashBroadphase;
+import net.smert.frameworkgl.collision.broadphase.SweepAndPruneBroadphase;
 import net.smert.frameworkgl.collision.factory.CollisionFactory;
 import net.smert.frameworkgl.collision.narrowphase.DefaultNarrowphaseFilterCallback;
 import net.smert.frameworkgl.collision.narrowphase.NarrowphaseDispatch;
@@ -30,6 +33,7 @@ import net.smert.frameworkgl.collision.narrowphase.NarrowphaseFilterCallback;
 import net.smert.frameworkgl.collision.response.CollisionResolver;
 import net.smert.frameworkgl.collision.response.CollisionResponseFilterCallback;
 import net.smert.frameworkgl.collision.response.DefaultCollisionResponseFilterCallback;
+import net.smert.frameworkgl.collision.response.SequentialImpulseCollisionResolver;
 import net.smert.frameworkgl.gameobjects.GameObject;
 import net.smert.frameworkgl.gameobjects.factory.GameObjectFactory;
 import net.smert.frameworkgl.helpers.KeyboardHelper;
@@ -66,6 +70,7 @@ import net.smert.frameworkgl.opengl.VertexArray;
 import net.smert.frameworkgl.opengl.VertexArrayObject;
 import net.smert.frameworkgl.opengl.VertexBufferObject;
 import net.smert.frameworkgl.opengl.VertexBufferObjectInterleaved;
+import net.smert.frameworkgl.opengl.camera.BatchFrustumCulling;
 import net.smert.frameworkgl.opengl.camera.Camera;
 import net.smert.frameworkgl.opengl.camera.CameraController;
 import net.smert.frameworkgl.opengl.camera.FrustumCullingClipSpace;
@@ -86,6 +91,7 @@ import net.smert.frameworkgl.opengl.helpers.RenderBufferObjectHelper;
 import net.smert.frameworkgl.opengl.helpers.ShaderHelper;
 import net.smert.frameworkgl.opengl.helpers.ShaderUniformHelper;
 import net.smert.frameworkgl.opengl.helpers.TextureHelper;
+import net.smert.frameworkgl.opengl.helpers.UniformBufferObjectHelper;
 import net.smert.frameworkgl.opengl.helpers.VertexArrayHelper;
 import net.smert.frameworkgl.opengl.helpers.VertexArrayObjectHelper;
 import net.smert.frameworkgl.opengl.helpers.VertexBufferObjectHelper;
@@ -148,6 +154,7 @@ import net.smert.frameworkgl.opengl.renderable.gl2.VertexBufferObjectInterleaved
 import net.smert.frameworkgl.opengl.renderable.gl2.VertexBufferObjectNonInterleavedGL2Renderable;
 import net.smert.frameworkgl.opengl.renderable.gl3.DynamicVertexArrayObjectInterleavedGL3Renderable;
 import net.smert.frameworkgl.opengl.renderable.gl3.DynamicVertexArrayObjectNonInterleavedGL3Renderable;
+import net.smert.frameworkgl.opengl.renderable.gl3.InstancedVertexArrayObjectInterleavedGL3Renderable;
 import net.smert.frameworkgl.opengl.renderable.gl3.VertexArrayObjectInterleavedGL3Renderable;
 import net.smert.frameworkgl.opengl.renderable.gl3.VertexArrayObjectNonInterleavedGL3Renderable;
 import net.smert.frameworkgl.opengl.renderable.immediatemode.ImmediateModeRenderCall;
@@ -169,8 +176,10 @@ import net.smert.frameworkgl.opengl.renderable.va.VertexArrays;
 import net.smert.frameworkgl.opengl.renderable.va.factory.VADrawCallFactory;
 import net.smert.frameworkgl.opengl.renderable.vbo.ByteBuffers;
 import net.smert.frameworkgl.opengl.renderable.vbo.VBODrawArrays;
+import net.smert.frameworkgl.opengl.renderable.vbo.VBODrawArraysInstanced;
 import net.smert.frameworkgl.opengl.renderable.vbo.VBODrawCallBuilder;
 import net.smert.frameworkgl.opengl.renderable.vbo.VBODrawElements;
+import net.smert.frameworkgl.opengl.renderable.vbo.VBODrawElementsInstanced;
 import net.smert.frameworkgl.opengl.renderable.vbo.VBODrawRangeElements;
 import net.smert.frameworkgl.opengl.renderable.vbo.factory.VBODrawCallFactory;
 import net.smert.frameworkgl.opengl.renderer.AngelCodeFontRenderer;
@@ -182,6 +191,7 @@ import net.smert.frameworkgl.opengl.renderer.RendererGL3;
 import net.smert.frameworkgl.opengl.renderer.factory.RendererFactory;
 import net.smert.frameworkgl.opengl.shader.DefaultAttribLocations;
 import net.smert.frameworkgl.opengl.shader.ShaderBuilder;
+import net.smert.frameworkgl.opengl.shader.UniformBlockBuffer;
 import net.smert.frameworkgl.opengl.shader.UniformVariables;
 import net.smert.frameworkgl.opengl.texture.TextureBuilder;
 import net.smert.frameworkgl.opengl.texture.TextureReader;
@@ -229,7 +239,11 @@ public class Bootstrap {
             collisionFactoryContainer.addComponent(BroadphaseAlgorithm.class, DynamicAABBTreeBroadphase.class);
             collisionFactoryContainer.addComponent(OverlappingPairCache.class, HashedOverlappingPairCache.class);
             collisionFactoryContainer.addComponent(NarrowphaseDispatch.class);
+            collisionFactoryContainer.addComponent(PackedAABBTreeBroadphase.class);
+            collisionFactoryContainer.addComponent(SequentialImpulseCollisionResolver.class);
             collisionFactoryContainer.addComponent(SimpleBroadphase.class);
+            collisionFactoryContainer.addComponent(SpatialHashBroadphase.class);
+            collisionFactoryContainer.addComponent(SweepAndPruneBroadphase.class);
 
             // Add container for CollisionFactory
             parentContainer.addComponent("collisionFactoryContainer", collisionFactoryContainer);
@@ -291,6 +305,7 @@ public class Bootstrap {
                     .withConstructorInjection().build(); // NO caching!
 
             // Camera
+            cameraFactoryContainer.addComponent(BatchFrustumCulling.class);
             cameraFactoryContainer.addComponent(Camera.class);
             cameraFactoryContainer.addComponent(CameraController.class);
             cameraFactoryContainer.addComponent(FrustumCullingClipSpace.class);
@@ -393,6 +408,7 @@ public class Bootstrap {
             // Renderable
             renderableFactoryGL3Container.addComponent(DynamicVertexArrayObjectInterleavedGL3Renderable.class);
             renderableFactoryGL3Container.addComponent(DynamicVertexArrayObjectNonInterleavedGL3Renderable.class);
+            renderableFactoryGL3Container.addComponent(InstancedVertexArrayObjectInterleavedGL3Renderable.class);
             renderableFactoryGL3Container.addComponent(VertexArrayObjectInterleavedGL3Renderable.class);
             renderableFactoryGL3Container.addComponent(VertexArrayObjectNonInterleavedGL3Renderable.class);
 
@@ -460,7 +476,9 @@ public class Bootstrap {
 
             // Renderable VBO
             vboDrawCallFactoryContainer.addComponent(VBODrawArrays.class);
+            vboDrawCallFactoryContainer.addComponent(VBODrawArraysInstanced.class);
             vboDrawCallFactoryContainer.addComponent(VBODrawElements.class);
+            vboDrawCallFactoryContainer.addComponent(VBODrawElementsInstanced.class);
             vboDrawCallFactoryContainer.addComponent(VBODrawRangeElements.class);
 
             // Add container for VBODrawCallFactory
@@ -549,6 +567,7 @@ public class Bootstrap {
         container.addComponent(ShaderHelper.class);
         container.addComponent(ShaderUniformHelper.class);
         container.addComponent(TextureHelper.class);
+        container.addComponent(UniformBufferObjectHelper.class);
         container.addComponent(VertexArrayHelper.class);
         container.addComponent(VertexArrayObjectHelper.class);
         container.addComponent(VertexBufferObjectHelper.class);
@@ -630,6 +649,7 @@ public class Bootstrap {
         // Shader
         container.addComponent(DefaultAttribLocations.class);
         container.addComponent(ShaderBuilder.class);
+        container.addComponent(UniformBlockBuffer.class);
         container.addComponent(UniformVariables.class);
 
         // Texture
@@ -696,6 +716,8 @@ public class Bootstrap {
         GL.textureBuilder = container.getComponent(TextureBuilder.class);
         GL.textureHelper = container.getComponent(TextureHelper.class);
         GL.textureReader = container.getComponent(TextureReader.class);
+        GL.uboHelper = container.getComponent(UniformBufferObjectHelper.class);
+        GL.uniformBlockBuffer = container.getComponent(UniformBlockBuffer.class);
         GL.uniformVariables = container.getComponent(UniformVariables.class);
         GL.vaHelper = container.getComponent(VertexArrayHelper.class);
         GL.vaoHelper = container.getComponent(VertexArrayObjectHelper.class);
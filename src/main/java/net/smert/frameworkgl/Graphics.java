@@ -21,12 +21,15 @@ import java.util.List;
 import net.smert.frameworkgl.gameobjects.GameObject;
 import net.smert.frameworkgl.math.AABB;
 import net.smert.frameworkgl.math.AABBUtilities;
+import net.smert.frameworkgl.math.ClipPlanes;
 import net.smert.frameworkgl.math.Transform4f;
 import net.smert.frameworkgl.math.Vector3f;
 import net.smert.frameworkgl.opengl.GL;
 import net.smert.frameworkgl.opengl.MaterialLight;
 import net.smert.frameworkgl.opengl.Shader;
 import net.smert.frameworkgl.opengl.Texture;
+import net.smert.frameworkgl.opengl.camera.AbstractFrustumCulling;
+import net.smert.frameworkgl.opengl.camera.BatchFrustumCulling;
 import net.smert.frameworkgl.opengl.camera.Camera;
 import net.smert.frameworkgl.opengl.constants.ShaderTypes;
 import net.smert.frameworkgl.opengl.constants.TextureTargets;
@@ -38,6 +41,7 @@ import net.smert.frameworkgl.opengl.mesh.Tessellator;
 import net.smert.frameworkgl.opengl.renderable.AbstractRenderable;
 import net.smert.frameworkgl.opengl.renderable.Renderable;
 import net.smert.frameworkgl.opengl.renderable.RenderableConfiguration;
+import net.smert.frameworkgl.opengl.renderable.RenderableState;
 import net.smert.frameworkgl.opengl.renderable.factory.RenderableFactory;
 import net.smert.frameworkgl.opengl.renderable.shared.DrawCommands;
 import net.smert.frameworkgl.opengl.renderer.AbstractRendererGL;
@@ -296,8 +300,22 @@ public class Graphics implements GLRenderer {
     }
 
     public void performCulling(Camera camera, GameObject gameObject) {
-        boolean inFrustum = camera.getFrustumCulling().isAABBInFrustum(gameObject.getWorldAabb());
-        gameObject.getRenderableState().setInFrustum(inFrustum);
+        AbstractFrustumCulling frustumCulling = camera.getFrustumCulling();
+        RenderableState renderableState = gameObject.getRenderableState();
+        int planesVersion = frustumCulling.getPlanesVersion();
+
+        // Static objects keep their result until the camera moves
+        if (renderableState.isStaticObject() && (renderableState.getFrustumPlanesVersion() == planesVersion)) {
+            frustumCulling.incrementSkippedTests();
+            return;
+        }
+
+        // Test the plane that rejected the object last time first
+        int planeMask = frustumCulling.getAABBPlaneMask(gameObject.getWorldAabb(), ClipPlanes.PLANE_MASK_ALL,
+                renderableState.getFrustumRejectingPlane());
+        renderableState.setFrustumPlanesVersion(planesVersion);
+        renderableState.setFrustumRejectingPlane(frustumCulling.getRejectingPlane());
+        renderableState.setInFrustum(planeMask != ClipPlanes.PLANE_MASK_OUTSIDE);
     }
 
     public void performCulling(Camera camera, List<GameObject> gameObjects) {
@@ -306,6 +324,21 @@ public class Graphics implements GLRenderer {
         }
     }
 
+    public void performCulling(Camera camera, List<GameObject> gameObjects, BatchFrustumCulling batchFrustumCulling) {
+        int size = gameObjects.size();
+        batchFrustumCulling.setSize(size);
+        for (int i = 0; i < size; i++) {
+            GameObject gameObject = gameObjects.get(i);
+            batchFrustumCulling.set(i, gameObject.getWorldAabb());
+            gameObject.getRenderableState().setInFrustum(false);
+        }
+        int visibleCount = batchFrustumCulling.cull(camera.getFrustumCulling());
+        int[] visibleIndices = batchFrustumCulling.getVisibleIndices();
+        for (int i = 0; i < visibleCount; i++) {
+            gameObjects.get(visibleIndices[i]).getRenderableState().setInFrustum(true);
+        }
+    }
+
     public void setDefaultFontRenderer(FontRenderer defaultFontRenderer) {
         renderer.setDefaultFontRenderer(defaultFontRenderer);
     }
@@ -366,6 +399,16 @@ public class Graphics implements GLRenderer {
         }
     }
 
+    public void updateWorldTransforms(List<GameObject> gameObjects) {
+        for (GameObject gameObject : gameObjects) {
+
+            // Children are updated by their root
+            if (gameObject.getParent() == null) {
+                gameObject.updateWorldTransforms();
+            }
+        }
+    }
+
     @Override
     public void color(float r, float g, float b, float a) {
         renderer.color(r, g, b, a);
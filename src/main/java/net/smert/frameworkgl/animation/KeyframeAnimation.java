@@ -0,0 +1,121 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.animation;
+
+import net.smert.frameworkgl.gameobjects.GameObject;
+import net.smert.frameworkgl.math.Transform4f;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.utils.ThreadLocalVars;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class KeyframeAnimation {
+
+    private boolean looping;
+    private float speed;
+    private float time;
+    private final GameObject gameObject;
+    private KeyframeTrack keyframeTrack;
+    private final Transform4f scalingTransform; // Given to the game object when the track scales it
+
+    public KeyframeAnimation(GameObject gameObject, KeyframeTrack keyframeTrack) {
+        this.gameObject = gameObject;
+        this.keyframeTrack = keyframeTrack;
+        looping = true;
+        speed = 1f;
+        time = keyframeTrack.getStartTime();
+        scalingTransform = new Transform4f();
+    }
+
+    void advance(float delta) {
+        time += delta * speed;
+
+        float startTime = keyframeTrack.getStartTime();
+        float endTime = keyframeTrack.getEndTime();
+        float duration = endTime - startTime;
+        if (looping && (duration > 0f)) {
+            if ((time < startTime) || (time >= endTime)) {
+                time -= (float) Math.floor((time - startTime) / duration) * duration;
+            }
+        } else if (time < startTime) {
+            time = startTime;
+        } else if (time > endTime) {
+            time = endTime;
+        }
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Vector3f scale = vars.v3f0;
+
+        // Roots own their world transform and children own their local transform. Scale goes in the scaling transform
+        // so the rotation stays orthonormal. A scaling transform set by someone else is left alone.
+        Transform4f transform = (gameObject.getParent() == null)
+                ? gameObject.getWorldTransform() : gameObject.getLocalTransform();
+        keyframeTrack.sample(time, transform, scale);
+        Transform4f currentScalingTransform = gameObject.getScalingTransform();
+        if (currentScalingTransform == scalingTransform) {
+            scalingTransform.getRotation().identity().setDiagonal(scale);
+        } else if ((currentScalingTransform == null)
+                && ((scale.getX() != 1f) || (scale.getY() != 1f) || (scale.getZ() != 1f))) {
+            scalingTransform.getRotation().identity().setDiagonal(scale);
+            gameObject.setScalingTransform(scalingTransform);
+        }
+
+        // Release vars instance
+        vars.release();
+    }
+
+    public boolean isFinished() {
+        return !looping && (time >= keyframeTrack.getEndTime());
+    }
+
+    public boolean isLooping() {
+        return looping;
+    }
+
+    public void setLooping(boolean looping) {
+        this.looping = looping;
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(float speed) {
+        this.speed = speed;
+    }
+
+    public float getTime() {
+        return time;
+    }
+
+    public void setTime(float time) {
+        this.time = time;
+    }
+
+    public GameObject getGameObject() {
+        return gameObject;
+    }
+
+    public KeyframeTrack getKeyframeTrack() {
+        return keyframeTrack;
+    }
+
+    public void setKeyframeTrack(KeyframeTrack keyframeTrack) {
+        this.keyframeTrack = keyframeTrack;
+        time = keyframeTrack.getStartTime();
+    }
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.animation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.gameobjects.GameObject;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class KeyframeAnimationEvaluator {
+
+    private boolean parallel;
+    private int objectsPerTask;
+    private ForkJoinPool forkJoinPool;
+    private final List<KeyframeAnimation> keyframeAnimations;
+
+    public KeyframeAnimationEvaluator() {
+        parallel = false;
+        objectsPerTask = 256;
+        forkJoinPool = ForkJoinPool.commonPool();
+        keyframeAnimations = new ArrayList<>();
+    }
+
+    public KeyframeAnimation addKeyframeAnimation(GameObject gameObject, KeyframeTrack keyframeTrack) {
+        KeyframeAnimation keyframeAnimation = new KeyframeAnimation(gameObject, keyframeTrack);
+        keyframeAnimations.add(keyframeAnimation);
+        return keyframeAnimation;
+    }
+
+    public void clear() {
+        keyframeAnimations.clear();
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    public List<KeyframeAnimation> getKeyframeAnimations() {
+        return keyframeAnimations;
+    }
+
+    public int getObjectsPerTask() {
+        return objectsPerTask;
+    }
+
+    public void setObjectsPerTask(int objectsPerTask) {
+        this.objectsPerTask = objectsPerTask;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public void removeKeyframeAnimation(KeyframeAnimation keyframeAnimation) {
+        keyframeAnimations.remove(keyframeAnimation);
+    }
+
+    public void update() {
+        update(Fw.timer.getDelta());
+    }
+
+    public void update(float delta) {
+        int size = keyframeAnimations.size();
+
+        // Each animation writes only its own game object so sampling can be split across threads
+        if (parallel && (size > objectsPerTask)) {
+            forkJoinPool.invoke(new AdvanceTask(delta, 0, size));
+        } else {
+            for (int i = 0; i < size; i++) {
+                keyframeAnimations.get(i).advance(delta);
+            }
+        }
+
+        // Marking dirty walks up the hierarchy so it must be done serially
+        for (int i = 0; i < size; i++) {
+            keyframeAnimations.get(i).getGameObject().markTransformDirty();
+        }
+    }
+
+    private class AdvanceTask extends RecursiveAction {
+
+        private final float delta;
+        private final int end;
+        private final int start;
+
+        public AdvanceTask(float delta, int start, int end) {
+            this.delta = delta;
+            this.end = end;
+            this.start = start;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= objectsPerTask) {
+                for (int i = start; i < end; i++) {
+                    keyframeAnimations.get(i).advance(delta);
+                }
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+            invokeAll(new AdvanceTask(delta, start, middle), new AdvanceTask(delta, middle, end));
+        }
+
+    }
+
+}
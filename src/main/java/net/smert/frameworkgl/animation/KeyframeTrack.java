@@ -0,0 +1,203 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.animation;
+
+import net.smert.frameworkgl.math.Quaternion4f;
+import net.smert.frameworkgl.math.Transform4f;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.utils.ThreadLocalVars;
+
+/**
+ * Keyframes are stored in primitive arrays. Times must be added in increasing order.
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class KeyframeTrack {
+
+    private boolean slerp;
+    private int capacity;
+    private int size;
+    private float[] positions;
+    private float[] rotations;
+    private float[] scales;
+    private float[] times;
+
+    public KeyframeTrack() {
+        slerp = false;
+        capacity = 16;
+        size = 0;
+        positions = new float[capacity * 3];
+        rotations = new float[capacity * 4];
+        scales = new float[capacity * 3];
+        times = new float[capacity];
+    }
+
+    private void expand() {
+        capacity *= 2;
+        float[] newPositions = new float[capacity * 3];
+        float[] newRotations = new float[capacity * 4];
+        float[] newScales = new float[capacity * 3];
+        float[] newTimes = new float[capacity];
+        System.arraycopy(positions, 0, newPositions, 0, size * 3);
+        System.arraycopy(rotations, 0, newRotations, 0, size * 4);
+        System.arraycopy(scales, 0, newScales, 0, size * 3);
+        System.arraycopy(times, 0, newTimes, 0, size);
+        positions = newPositions;
+        rotations = newRotations;
+        scales = newScales;
+        times = newTimes;
+    }
+
+    public void addKeyframe(float time, Vector3f position, Quaternion4f rotation, Vector3f scale) {
+        assert ((size == 0) || (time > times[size - 1]));
+        if (size == capacity) {
+            expand();
+        }
+        int index3 = size * 3;
+        int index4 = size * 4;
+        positions[index3] = position.getX();
+        positions[index3 + 1] = position.getY();
+        positions[index3 + 2] = position.getZ();
+        rotations[index4] = rotation.getW();
+        rotations[index4 + 1] = rotation.getX();
+        rotations[index4 + 2] = rotation.getY();
+        rotations[index4 + 3] = rotation.getZ();
+        scales[index3] = scale.getX();
+        scales[index3 + 1] = scale.getY();
+        scales[index3 + 2] = scale.getZ();
+        times[size] = time;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int findKeyframe(float time) {
+        assert (size > 0);
+
+        // Binary search for the last keyframe at or before time
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (times[middle] <= time) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    public float getEndTime() {
+        return (size > 0) ? times[size - 1] : 0f;
+    }
+
+    public float getStartTime() {
+        return (size > 0) ? times[0] : 0f;
+    }
+
+    public float getDuration() {
+        return getEndTime() - getStartTime();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isSlerp() {
+        return slerp;
+    }
+
+    public void setSlerp(boolean slerp) {
+        this.slerp = slerp;
+    }
+
+    /**
+     * Samples the position and rotation. The rotation is kept orthonormal since game objects invert and orient with it,
+     * so the scale keys are ignored.
+     *
+     * @param time Time in the track
+     * @param transformOut Receives the position and rotation
+     */
+    public void sample(float time, Transform4f transformOut) {
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Vector3f scale = vars.v3f0;
+
+        sample(time, transformOut, scale);
+
+        // Release vars instance
+        vars.release();
+    }
+
+    public void sample(float time, Transform4f transformOut, Vector3f scaleOut) {
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Quaternion4f rotation = vars.q4f0;
+
+        sample(time, transformOut.getPosition(), rotation, scaleOut);
+        rotation.toMatrix3(transformOut.getRotation());
+
+        // Release vars instance
+        vars.release();
+    }
+
+    public void sample(float time, Vector3f positionOut, Quaternion4f rotationOut, Vector3f scaleOut) {
+        assert (size > 0);
+        int index = findKeyframe(time);
+
+        // Clamp outside the track and on the last keyframe
+        if ((index == size - 1) || (time <= times[index])) {
+            int index3 = index * 3;
+            int index4 = index * 4;
+            positionOut.set(positions[index3], positions[index3 + 1], positions[index3 + 2]);
+            rotationOut.set(rotations[index4], rotations[index4 + 1], rotations[index4 + 2], rotations[index4 + 3]);
+            scaleOut.set(scales[index3], scales[index3 + 1], scales[index3 + 2]);
+            return;
+        }
+
+        int index3 = index * 3;
+        int index4 = index * 4;
+        float f = (time - times[index]) / (times[index + 1] - times[index]);
+        float s = 1f - f;
+        positionOut.set(
+                positions[index3] * s + positions[index3 + 3] * f,
+                positions[index3 + 1] * s + positions[index3 + 4] * f,
+                positions[index3 + 2] * s + positions[index3 + 5] * f);
+        scaleOut.set(
+                scales[index3] * s + scales[index3 + 3] * f,
+                scales[index3 + 1] * s + scales[index3 + 4] * f,
+                scales[index3 + 2] * s + scales[index3 + 5] * f);
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Quaternion4f rotation0 = vars.q4f0;
+        Quaternion4f rotation1 = vars.q4f1;
+
+        rotation0.set(rotations[index4], rotations[index4 + 1], rotations[index4 + 2], rotations[index4 + 3]);
+        rotation1.set(rotations[index4 + 4], rotations[index4 + 5], rotations[index4 + 6], rotations[index4 + 7]);
+        if (slerp) {
+            rotationOut.setSlerp(rotation0, rotation1, f);
+        } else {
+            rotationOut.setNlerp(rotation0, rotation1, f);
+        }
+
+        // Release vars instance
+        vars.release();
+    }
+
+}
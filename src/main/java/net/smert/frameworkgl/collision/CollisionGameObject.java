@@ -12,11 +12,15 @@
  */
 package net.smert.frameworkgl.collision;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import net.smert.frameworkgl.collision.broadphase.BroadphaseProxy;
 import net.smert.frameworkgl.collision.narrowphase.Contact;
 import net.smert.frameworkgl.collision.shapes.ShapeType;
 import net.smert.frameworkgl.gameobjects.GameObject;
+import net.smert.frameworkgl.math.AABB;
 import net.smert.frameworkgl.math.MathHelper;
+import net.smert.frameworkgl.math.Matrix3f;
+import net.smert.frameworkgl.math.Transform4f;
 import net.smert.frameworkgl.math.Vector3f;
 
 /**
@@ -25,39 +29,97 @@ import net.smert.frameworkgl.math.Vector3f;
  */
 public class CollisionGameObject extends GameObject {
 
+    private final static AtomicInteger nextUniqueID = new AtomicInteger();
+
     private boolean awake;
     private boolean canSleep;
+    private boolean ccdSweeping; // Moved far enough during the last tick to need a swept test
+    private boolean continuousCollisionDetection;
     private boolean enabled;
     private boolean hasContactResponse;
+    private boolean interpolated;
     private boolean staticObject;
+    private float ccdTimeOfImpact; // Fraction of the last tick's motion until the first impact
     private float inverseMass;
     private float linearDamping;
     private float restitution;
+    private float shapeHalfHeight; // Capsule segment half height along the local Y axis
+    private float shapeRadius; // Sphere and capsule radius
     private int collisionGroup;
     private int collisionCollidesWith;
+    private int islandTag;
+    private int sleepTicks; // Ticks in a row spent under the sleeping threshold
+    private final int uniqueID; // Never reused unlike the broadphase proxy unique ID
     private BroadphaseProxy broadphaseProxy;
     private ShapeType shapeType;
+    private final AABB sweptAabb; // World AABB from the start to the end of the last tick
+    private final Transform4f previousWorldTransform; // World transform before the last fixed time step
+    private final Transform4f renderTransform; // Interpolated between the previous and current world transform
+    private final Vector3f ccdDisplacement; // Motion during the last tick
+    private final Vector3f ccdStartPosition; // Position before the last tick
     private final Vector3f linearAcceleration;
     private final Vector3f linearForce;
     private final Vector3f linearVelocity;
     private final Vector3f position;
+    private final Vector3f shapeHalfExtents; // OBB half extents along the local axes
+    private final Vector3f sleepPosition; // Position at the end of the last tick
 
     public CollisionGameObject() {
         super();
         awake = true;
         canSleep = true;
+        ccdSweeping = false;
+        continuousCollisionDetection = false;
         enabled = true;
         hasContactResponse = true;
+        interpolated = false;
         staticObject = false;
+        ccdTimeOfImpact = 1f;
         inverseMass = 0f;
         linearDamping = .99f;
         restitution = .1f;
+        shapeHalfHeight = .5f;
+        shapeRadius = .5f;
         collisionCollidesWith = 0;
         collisionGroup = 0;
+        islandTag = IslandManager.NULL;
+        sleepTicks = 0;
+        uniqueID = nextUniqueID.getAndIncrement();
+        sweptAabb = new AABB();
+        ccdDisplacement = new Vector3f();
+        ccdStartPosition = new Vector3f();
         linearAcceleration = new Vector3f();
         linearForce = new Vector3f();
         linearVelocity = new Vector3f();
         position = getWorldPosition(); // From game object
+        previousWorldTransform = new Transform4f();
+        renderTransform = new Transform4f();
+        shapeHalfExtents = new Vector3f(.5f, .5f, .5f);
+        sleepPosition = new Vector3f();
+    }
+
+    private void positionChanged() {
+
+        // Same bookkeeping as a moved game object but the interpolation is kept and the object is not woken
+        super.worldTransformChanged();
+    }
+
+    @Override
+    protected void localTransformChanged() {
+        super.localTransformChanged();
+
+        // A sleeping object moved directly must respond to contacts where it is now
+        wakeUp();
+    }
+
+    @Override
+    protected void worldTransformChanged() {
+        super.worldTransformChanged();
+
+        // Moved directly so don't interpolate from where it was
+        previousWorldTransform.set(getWorldTransform());
+        interpolated = false;
+        wakeUp();
     }
 
     public void applyForce(Vector3f force) {
@@ -66,7 +128,7 @@ public class CollisionGameObject extends GameObject {
         }
 
         linearForce.add(force);
-        awake = true;
+        wakeUp();
     }
 
     public void applyImpulse(Vector3f impulse) {
@@ -75,7 +137,7 @@ public class CollisionGameObject extends GameObject {
         }
 
         linearVelocity.addScaled(impulse, inverseMass);
-        awake = true;
+        wakeUp();
     }
 
     public void applyPositionCorrection(Vector3f delta) {
@@ -84,7 +146,8 @@ public class CollisionGameObject extends GameObject {
         }
 
         position.addScaled(delta, inverseMass);
-        awake = true;
+        positionChanged();
+        wakeUp();
     }
 
     public boolean canSleep() {
@@ -95,9 +158,36 @@ public class CollisionGameObject extends GameObject {
         this.canSleep = canSleep;
     }
 
+    /**
+     * Moves back along the motion of the last tick to the first impact found by the swept test. The penetration is
+     * kept past the impact so the discrete narrowphase creates a contact that stops the object.
+     *
+     * @param penetration Distance to move past the first impact
+     * @return True if the object was moved back
+     */
+    public boolean clampToTimeOfImpact(float penetration) {
+        if (!ccdSweeping || (ccdTimeOfImpact >= 1f)) {
+            return false;
+        }
+
+        float fraction = Math.min(ccdTimeOfImpact + penetration / ccdDisplacement.magnitude(), 1f);
+        position.set(ccdStartPosition).addScaled(ccdDisplacement, fraction);
+        positionChanged();
+        ccdDisplacement.multiply(fraction);
+        return true;
+    }
+
     public void collidedWith(CollisionGameObject other, Contact contact) {
     }
 
+    public float getCcdTimeOfImpact() {
+        return ccdTimeOfImpact;
+    }
+
+    public void setCcdTimeOfImpact(float ccdTimeOfImpact) {
+        this.ccdTimeOfImpact = ccdTimeOfImpact;
+    }
+
     public float getInverseMass() {
         return inverseMass;
     }
@@ -150,6 +240,22 @@ public class CollisionGameObject extends GameObject {
         this.collisionCollidesWith = collisionCollidesWith;
     }
 
+    public int getIslandTag() {
+        return islandTag;
+    }
+
+    public void setIslandTag(int islandTag) {
+        this.islandTag = islandTag;
+    }
+
+    public int getSleepTicks() {
+        return sleepTicks;
+    }
+
+    public int getUniqueID() {
+        return uniqueID;
+    }
+
     public BroadphaseProxy getBroadphaseProxy() {
         return broadphaseProxy;
     }
@@ -166,6 +272,50 @@ public class CollisionGameObject extends GameObject {
         this.shapeType = shapeType;
     }
 
+    public AABB getSweptAabb() {
+        return sweptAabb;
+    }
+
+    public Vector3f getCcdDisplacement() {
+        return ccdDisplacement;
+    }
+
+    public Vector3f getShapeHalfExtents() {
+        return shapeHalfExtents;
+    }
+
+    public void setShapeHalfExtents(float x, float y, float z) {
+        this.shapeHalfExtents.set(x, y, z);
+    }
+
+    public void setShapeHalfExtents(Vector3f shapeHalfExtents) {
+        this.shapeHalfExtents.set(shapeHalfExtents);
+    }
+
+    public float getShapeHalfHeight() {
+        return shapeHalfHeight;
+    }
+
+    public void setShapeHalfHeight(float shapeHalfHeight) {
+        this.shapeHalfHeight = shapeHalfHeight;
+    }
+
+    public float getShapeRadius() {
+        return shapeRadius;
+    }
+
+    public void setShapeRadius(float shapeRadius) {
+        this.shapeRadius = shapeRadius;
+    }
+
+    @Override
+    public Transform4f getRenderTransform() {
+        if (interpolated) {
+            return renderTransform;
+        }
+        return getWorldTransform();
+    }
+
     public Vector3f getLinearAcceleration() {
         return linearAcceleration;
     }
@@ -211,6 +361,7 @@ public class CollisionGameObject extends GameObject {
         // Integrate
         linearVelocity.multiply(MathHelper.Pow(linearDamping, delta));
         position.addScaled(linearVelocity, delta);
+        positionChanged();
         linearAcceleration.addScaled(linearForce, inverseMass);
         linearVelocity.addScaled(linearAcceleration, delta);
 
@@ -236,6 +387,7 @@ public class CollisionGameObject extends GameObject {
         linearVelocity.addScaled(linearAcceleration, delta);
         linearVelocity.multiply(MathHelper.Pow(linearDamping, delta));
         position.addScaled(linearVelocity, delta);
+        positionChanged();
 
         // Restore
         linearAcceleration.set(accX, accY, accZ);
@@ -244,12 +396,56 @@ public class CollisionGameObject extends GameObject {
         linearForce.zero();
     }
 
+    public void clearInterpolation() {
+        interpolated = false;
+    }
+
+    public void interpolateWorldTransform(float alpha) {
+        Matrix3f previousRotation = previousWorldTransform.getRotation();
+        Matrix3f renderRotation = renderTransform.getRotation();
+        Matrix3f rotation = getWorldRotation();
+
+        // Blend each axis and orthonormalize which is close enough for the small rotation of a single step
+        renderRotation.getXAxis().setInterpolate(previousRotation.getXAxis(), rotation.getXAxis(), alpha);
+        renderRotation.getYAxis().setInterpolate(previousRotation.getYAxis(), rotation.getYAxis(), alpha);
+        renderRotation.getZAxis().setInterpolate(previousRotation.getZAxis(), rotation.getZAxis(), alpha);
+        renderRotation.orthonormalize();
+        renderTransform.getPosition().setInterpolate(previousWorldTransform.getPosition(), position, alpha);
+        interpolated = true;
+    }
+
+    public boolean isActive() {
+        return awake && !staticObject;
+    }
+
+    public boolean isCcdSweeping() {
+        return ccdSweeping;
+    }
+
+    public boolean isContinuousCollisionDetection() {
+        return continuousCollisionDetection;
+    }
+
+    /**
+     * Fast objects can move through thin objects in a single tick. With continuous collision detection the object is
+     * swept from where it started the tick to where it ended and is stopped at the first impact.
+     *
+     * @param continuousCollisionDetection True to enable swept tests for this object
+     */
+    public void setContinuousCollisionDetection(boolean continuousCollisionDetection) {
+        this.continuousCollisionDetection = continuousCollisionDetection;
+    }
+
     public boolean isAwake() {
         return awake;
     }
 
     public void setAwake(boolean awake) {
-        this.awake = awake;
+        if (awake) {
+            wakeUp();
+        } else {
+            sleep();
+        }
     }
 
     public boolean isEnabled() {
@@ -268,4 +464,97 @@ public class CollisionGameObject extends GameObject {
         this.staticObject = staticObject;
     }
 
+    @Override
+    public void shiftOrigin(Vector3f shift) {
+        super.shiftOrigin(shift); // Also moves the position since it is the world position
+        previousWorldTransform.getPosition().subtract(shift);
+        renderTransform.getPosition().subtract(shift);
+        sleepPosition.subtract(shift);
+    }
+
+    public void saveStartPosition() {
+        if (continuousCollisionDetection) {
+            ccdStartPosition.set(position);
+        }
+    }
+
+    public void saveWorldTransform() {
+        previousWorldTransform.set(getWorldTransform());
+    }
+
+    public void sleep() {
+        awake = false;
+
+        // Sleeping objects are not interpolated so render them where they stopped
+        previousWorldTransform.set(getWorldTransform());
+        renderTransform.set(getWorldTransform());
+
+        // Sleeping objects are not integrated so they must not keep moving when woken
+        ccdSweeping = false;
+        linearForce.zero();
+        linearVelocity.zero();
+    }
+
+    /**
+     * Updates the swept AABB from the start position and the world AABB. Must be called after the world AABB was
+     * updated for the end of the tick.
+     *
+     * @return True if the object moved far enough that the swept AABB should be used
+     */
+    public boolean updateSweptAabb() {
+        ccdTimeOfImpact = 1f;
+        if (!continuousCollisionDetection) {
+            ccdSweeping = false;
+            return false;
+        }
+
+        AABB worldAabb = getWorldAabb();
+        Vector3f max = worldAabb.getMax();
+        Vector3f min = worldAabb.getMin();
+        ccdDisplacement.set(position).subtract(ccdStartPosition);
+
+        // Moving less than half the smallest extent still overlaps anything in the way at the end of the tick
+        float threshold = .5f * Math.min(Math.min(max.getX() - min.getX(), max.getY() - min.getY()),
+                max.getZ() - min.getZ());
+        ccdSweeping = (ccdDisplacement.magnitudeSquared() > threshold * threshold);
+        if (!ccdSweeping) {
+            return false;
+        }
+
+        sweptAabb.set(worldAabb);
+        sweptAabb.getMax().set(
+                Math.max(max.getX(), max.getX() - ccdDisplacement.getX()),
+                Math.max(max.getY(), max.getY() - ccdDisplacement.getY()),
+                Math.max(max.getZ(), max.getZ() - ccdDisplacement.getZ()));
+        sweptAabb.getMin().set(
+                Math.min(min.getX(), min.getX() - ccdDisplacement.getX()),
+                Math.min(min.getY(), min.getY() - ccdDisplacement.getY()),
+                Math.min(min.getZ(), min.getZ() - ccdDisplacement.getZ()));
+        return true;
+    }
+
+    public void updateSleepTicks(float linearSleepingThreshold, float delta) {
+
+        // The resolver pushes objects apart with position corrections so objects resting in a stack can keep a
+        // velocity while not moving at all. Use the distance moved during the tick instead of the velocity.
+        float distanceSquared = position.distanceSquared(sleepPosition);
+        float maxDistance = linearSleepingThreshold * delta;
+        sleepPosition.set(position);
+
+        if (!canSleep || (distanceSquared > maxDistance * maxDistance)) {
+            sleepTicks = 0;
+        } else if (sleepTicks < Integer.MAX_VALUE) {
+            sleepTicks++;
+        }
+    }
+
+    public void wakeUp() {
+        if (awake) {
+            return;
+        }
+
+        awake = true;
+        sleepTicks = 0;
+    }
+
 }
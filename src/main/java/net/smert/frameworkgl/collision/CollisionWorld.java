@@ -14,11 +14,17 @@ package net.smert.frameworkgl.collision;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import net.smert.frameworkgl.Fw;
 import net.smert.frameworkgl.collision.broadphase.BroadphaseAlgorithm;
 import net.smert.frameworkgl.collision.broadphase.BroadphaseProxy;
 import net.smert.frameworkgl.collision.narrowphase.NarrowphaseDispatch;
 import net.smert.frameworkgl.collision.response.CollisionResolver;
+import net.smert.frameworkgl.gameobjects.GameObject;
+import net.smert.frameworkgl.math.AABBUtilities;
+import net.smert.frameworkgl.math.Vector3d;
+import net.smert.frameworkgl.math.Vector3f;
 import net.smert.frameworkgl.opengl.pipeline.PipelineRenderDebugCallback;
 
 /**
@@ -27,74 +33,528 @@ import net.smert.frameworkgl.opengl.pipeline.PipelineRenderDebugCallback;
  */
 public class CollisionWorld {
 
+    private boolean fixedTimeStepping;
+    private boolean interpolating; // Render transforms were interpolated by the last step simulation
+    private boolean parallel;
+    private float accumulator;
+    private float ccdPenetration;
+    private float fixedTimeStep;
+    private float interpolationAlpha;
+    private float linearSleepingThreshold;
+    private float originRebaseDistance;
+    private int maxSubSteps;
+    private int objectsPerTask;
+    private int sweptObjects; // Objects using swept AABBs this tick
+    private int ticksToSleep;
     private final BroadphaseAlgorithm broadphase;
     private final CollisionResolver resolver;
+    private ContactEventCallback contactEventCallback;
+    private final ContactEventManager contactEventManager;
+    private ForkJoinPool forkJoinPool;
+    private final IslandManager islandManager;
     private final List<CollisionGameObject> collisionGameObjects;
     private final NarrowphaseDispatch dispatch;
+    private GameObject originFocus;
+    private OriginRebaseCallback originRebaseCallback;
+    private final Vector3d worldOrigin;
+    private final Vector3f originShift;
 
     public CollisionWorld(BroadphaseAlgorithm broadphase, CollisionResolver resolver, NarrowphaseDispatch dispatch) {
         this.broadphase = broadphase;
         this.resolver = resolver;
         this.dispatch = dispatch;
+        fixedTimeStepping = false;
+        interpolating = false;
+        parallel = false;
+        accumulator = 0f;
+        ccdPenetration = .01f;
+        fixedTimeStep = 1f / 60f;
+        interpolationAlpha = 0f;
+        linearSleepingThreshold = .1f;
+        originRebaseDistance = 0f;
+        maxSubSteps = 4;
+        objectsPerTask = 256;
+        sweptObjects = 0;
+        ticksToSleep = 30;
+        forkJoinPool = ForkJoinPool.commonPool();
+        contactEventManager = new ContactEventManager();
+        islandManager = new IslandManager();
         collisionGameObjects = new ArrayList<>();
+        worldOrigin = new Vector3d();
+        originShift = new Vector3f();
     }
 
-    public void addCollisionGameObject(CollisionGameObject collisionGameObject) {
-        Fw.graphics.updateAabb(collisionGameObject);
+    private void createProxy(CollisionGameObject collisionGameObject) {
         BroadphaseProxy broadphaseProxy = broadphase.createProxy(collisionGameObject,
                 collisionGameObject.getCollisionGroup(), collisionGameObject.getCollisionCollidesWith(),
                 collisionGameObject.getWorldAabb());
         collisionGameObject.setBroadphaseProxy(broadphaseProxy);
-        collisionGameObjects.add(collisionGameObject);
     }
 
-    public void destroy() {
-        broadphase.destroyDebugRender();
+    private void clampToTimeOfImpacts() {
+        for (CollisionGameObject collisionGameObject : collisionGameObjects) {
+            if (collisionGameObject.isActive() && collisionGameObject.clampToTimeOfImpact(ccdPenetration)) {
+                Fw.graphics.updateAabb(collisionGameObject);
+                collisionGameObject.worldAabbUpdated();
+            }
+        }
     }
 
-    public PipelineRenderDebugCallback getPipelineRenderDebugCallback() {
-        return broadphase.getPipelineRenderDebugCallback();
+    private void dispatchContactEvents() {
+        if (contactEventCallback == null) {
+            return;
+        }
+
+        ContactEventQueue contactEventQueue = contactEventManager.getContactEventQueue();
+        ContactEvent contactEvent;
+        while ((contactEvent = contactEventQueue.poll()) != null) {
+            contactEventCallback.contactEvent(contactEvent);
+        }
     }
 
-    public void removeCollisionGameObject(CollisionGameObject collisionGameObject) {
-        BroadphaseProxy broadphaseProxy = collisionGameObject.getBroadphaseProxy();
-        broadphase.removeProxy(broadphaseProxy);
-        collisionGameObject.setBroadphaseProxy(null);
-        collisionGameObjects.remove(collisionGameObject);
+    private void moveProxy(CollisionGameObject collisionGameObject) {
+
+        // World AABBs can be updated in parallel so listeners are told here where it is serial
+        collisionGameObject.worldAabbUpdated();
+
+        if (collisionGameObject.updateSweptAabb()) {
+            sweptObjects++;
+            broadphase.moveProxy(collisionGameObject.getBroadphaseProxy(), collisionGameObject.getSweptAabb());
+            return;
+        }
+        broadphase.moveProxy(collisionGameObject.getBroadphaseProxy(), collisionGameObject.getWorldAabb());
     }
 
-    public void update() {
+    private void updateOriginRebase() {
+        if ((originFocus == null) || (originRebaseDistance <= 0f)) {
+            return;
+        }
+
+        Vector3f focusPosition = originFocus.getWorldPosition();
+        if (focusPosition.magnitudeSquared() < originRebaseDistance * originRebaseDistance) {
+            return;
+        }
+
+        // Whole units so the new origin stays exact in double precision
+        originShift.set(Math.round(focusPosition.getX()), Math.round(focusPosition.getY()),
+                Math.round(focusPosition.getZ()));
+        rebaseOrigin(originShift);
+    }
+
+    private void updateParallel(float delta) {
+
+        // Integrate and update world AABBs in parallel
+        forkJoinPool.invoke(new IntegrateTask(delta, 0, collisionGameObjects.size()));
+
+        // Moving proxies modifies the broadphase so it must be done serially
+        sweptObjects = 0;
+        for (CollisionGameObject collisionGameObject : collisionGameObjects) {
+            if (collisionGameObject.isActive()) {
+                moveProxy(collisionGameObject);
+            }
+        }
+
+        // Broadphase
+        broadphase.updateOverlappingPairs();
+
+        // Continuous collision detection
+        updateTimeOfImpacts();
+
+        // Narrowphase
+        dispatch.processOverlappingPairs(broadphase.getOverlappingPairCache());
+
+        // Islands and contact events are found before the resolver frees the contacts
+        islandManager.buildIslands(collisionGameObjects, dispatch.getContactData());
+        processContactEvents();
+
+        // Resolve collisions for each island in parallel
+        resolver.processContacts(dispatch.getContactData(), islandManager, forkJoinPool);
+
+        // Sleeping
+        updateSleeping(delta);
+
+        // Events are sent once the step is done so callbacks can change the world
+        dispatchContactEvents();
+    }
+
+    private void processContactEvents() {
+        if (contactEventCallback != null) {
+            contactEventManager.processContacts(dispatch.getContactData());
+        }
+    }
+
+    private void interpolateWorldTransforms() {
+        for (CollisionGameObject collisionGameObject : collisionGameObjects) {
+            if (collisionGameObject.isActive()) {
+                collisionGameObject.interpolateWorldTransform(interpolationAlpha);
+            }
+        }
+    }
+
+    private void saveWorldTransforms() {
+        for (CollisionGameObject collisionGameObject : collisionGameObjects) {
+            if (collisionGameObject.isActive()) {
+                collisionGameObject.saveWorldTransform();
+            }
+        }
+    }
+
+    private void updateTimeOfImpacts() {
+        if (sweptObjects == 0) {
+            return;
+        }
+
+        // Pairs were found with the swept AABBs so they include everything in the way
+        dispatch.processTimeOfImpacts(broadphase.getOverlappingPairCache());
+        clampToTimeOfImpacts();
+    }
+
+    private void updateSleeping(float delta) {
+        for (CollisionGameObject collisionGameObject : collisionGameObjects) {
+            if (collisionGameObject.isActive()) {
+                collisionGameObject.updateSleepTicks(linearSleepingThreshold, delta);
+            }
+        }
+        islandManager.updateSleeping(collisionGameObjects, ticksToSleep);
+    }
+
+    private void step(float delta) {
+
+        // Keep the focus close to the origin so floats stay precise in large worlds
+        updateOriginRebase();
+
+        if (parallel) {
+            updateParallel(delta);
+            return;
+        }
 
         // Integrate
-        float delta = Fw.timer.getDelta();
         for (CollisionGameObject collisionGameObject : collisionGameObjects) {
-            collisionGameObject.integrateSemiExplicitEuler(delta);
+            if (collisionGameObject.isActive()) {
+                collisionGameObject.saveStartPosition();
+                collisionGameObject.integrateSemiExplicitEuler(delta);
+            }
         }
 
         // AABBs
+        sweptObjects = 0;
         updateAabbs();
 
         // Broadphase
         broadphase.updateOverlappingPairs();
 
+        // Continuous collision detection
+        updateTimeOfImpacts();
+
         // Narrowphase
         dispatch.processOverlappingPairs(broadphase.getOverlappingPairCache());
 
+        // Islands and contact events are found before the resolver frees the contacts
+        islandManager.buildIslands(collisionGameObjects, dispatch.getContactData());
+        processContactEvents();
+
         // Resolve collisions
         resolver.processContacts(dispatch.getContactData());
+
+        // Sleeping
+        updateSleeping(delta);
+
+        // Events are sent once the step is done so callbacks can change the world
+        dispatchContactEvents();
+    }
+
+    public void addCollisionGameObject(CollisionGameObject collisionGameObject) {
+        Fw.graphics.updateAabb(collisionGameObject);
+        collisionGameObject.worldAabbUpdated();
+        createProxy(collisionGameObject);
+        collisionGameObject.saveStartPosition();
+        collisionGameObject.saveWorldTransform();
+        collisionGameObjects.add(collisionGameObject);
+    }
+
+    public ContactEventCallback getContactEventCallback() {
+        return contactEventCallback;
+    }
+
+    /**
+     * Sets the callback for begin, persist and end contact events. Events are queued during the step and sent after
+     * it. Which events are sent is set with the event mask of the contact event manager.
+     *
+     * @param contactEventCallback Callback for events or null to stop tracking contacts
+     */
+    public void setContactEventCallback(ContactEventCallback contactEventCallback) {
+        this.contactEventCallback = contactEventCallback;
+        contactEventManager.clear();
+    }
+
+    public ContactEventManager getContactEventManager() {
+        return contactEventManager;
+    }
+
+    public void destroy() {
+        broadphase.destroyDebugRender();
+    }
+
+    public float getCcdPenetration() {
+        return ccdPenetration;
+    }
+
+    /**
+     * Sets how far past the first impact a swept object is moved. A small penetration lets the discrete narrowphase
+     * create the contact that stops the object.
+     *
+     * @param ccdPenetration Distance past the first impact
+     */
+    public void setCcdPenetration(float ccdPenetration) {
+        this.ccdPenetration = ccdPenetration;
+    }
+
+    public float getFixedTimeStep() {
+        return fixedTimeStep;
+    }
+
+    public void setFixedTimeStep(float fixedTimeStep) {
+        this.fixedTimeStep = fixedTimeStep;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    public float getInterpolationAlpha() {
+        return interpolationAlpha;
+    }
+
+    public float getLinearSleepingThreshold() {
+        return linearSleepingThreshold;
+    }
+
+    public void setLinearSleepingThreshold(float linearSleepingThreshold) {
+        this.linearSleepingThreshold = linearSleepingThreshold;
+    }
+
+    public int getMaxSubSteps() {
+        return maxSubSteps;
+    }
+
+    public void setMaxSubSteps(int maxSubSteps) {
+        this.maxSubSteps = maxSubSteps;
+    }
+
+    public GameObject getOriginFocus() {
+        return originFocus;
+    }
+
+    /**
+     * Sets the object that the world origin follows. Usually this is the player or the object the camera follows.
+     *
+     * @param originFocus Object to keep close to the origin or null to disable automatic rebasing
+     */
+    public void setOriginFocus(GameObject originFocus) {
+        this.originFocus = originFocus;
+    }
+
+    public float getOriginRebaseDistance() {
+        return originRebaseDistance;
+    }
+
+    public void setOriginRebaseDistance(float originRebaseDistance) {
+        this.originRebaseDistance = originRebaseDistance;
+    }
+
+    public OriginRebaseCallback getOriginRebaseCallback() {
+        return originRebaseCallback;
+    }
+
+    public void setOriginRebaseCallback(OriginRebaseCallback originRebaseCallback) {
+        this.originRebaseCallback = originRebaseCallback;
+    }
+
+    public Vector3d getWorldOrigin() {
+        return worldOrigin;
+    }
+
+    public int getSweptObjects() {
+        return sweptObjects;
+    }
+
+    public int getObjectsPerTask() {
+        return objectsPerTask;
+    }
+
+    public void setObjectsPerTask(int objectsPerTask) {
+        this.objectsPerTask = objectsPerTask;
+    }
+
+    public int getTicksToSleep() {
+        return ticksToSleep;
+    }
+
+    public void setTicksToSleep(int ticksToSleep) {
+        this.ticksToSleep = ticksToSleep;
+    }
+
+    public PipelineRenderDebugCallback getPipelineRenderDebugCallback() {
+        return broadphase.getPipelineRenderDebugCallback();
+    }
+
+    public boolean isFixedTimeStepping() {
+        return fixedTimeStepping;
+    }
+
+    public void setFixedTimeStepping(boolean fixedTimeStepping) {
+        this.fixedTimeStepping = fixedTimeStepping;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Moves the world origin by the shift. Every collision game object is moved by the opposite of the shift so it
+     * keeps the same absolute position while its float position stays close to the origin. Overlapping pairs are
+     * found again on the next update.
+     *
+     * @param shift Distance to move the world origin
+     */
+    public void rebaseOrigin(Vector3f shift) {
+        for (CollisionGameObject collisionGameObject : collisionGameObjects) {
+            collisionGameObject.shiftOrigin(shift);
+        }
+
+        // Proxies are recreated since moving them would grow their AABBs by the whole shift
+        for (CollisionGameObject collisionGameObject : collisionGameObjects) {
+            broadphase.removeProxy(collisionGameObject.getBroadphaseProxy());
+            createProxy(collisionGameObject);
+        }
+
+        worldOrigin.add(shift);
+
+        if (originRebaseCallback != null) {
+            originRebaseCallback.originRebased(shift, worldOrigin);
+        }
+    }
+
+    public void removeCollisionGameObject(CollisionGameObject collisionGameObject) {
+        BroadphaseProxy broadphaseProxy = collisionGameObject.getBroadphaseProxy();
+
+        // Wake objects that could be resting on the removed object
+        for (CollisionGameObject other : collisionGameObjects) {
+            if (!other.isAwake() && AABBUtilities.DoesAabb0IntersectAabb1(
+                    other.getBroadphaseProxy().aabb, broadphaseProxy.aabb)) {
+                other.wakeUp();
+            }
+        }
+
+        broadphase.removeProxy(broadphaseProxy);
+        collisionGameObject.setBroadphaseProxy(null);
+        collisionGameObjects.remove(collisionGameObject);
+    }
+
+    /**
+     * Advances the world by the frame delta in steps of the fixed time step. Time left over that is less than a step is
+     * kept for the next frame and is used for the interpolation alpha. Collision game objects are rendered with their
+     * world transform interpolated between the last two steps. At most the max sub steps are taken and any time left
+     * over after that is dropped so a long frame can't cause more work the next frame.
+     *
+     * @param delta Frame delta in seconds
+     * @return The number of fixed steps taken
+     */
+    public int stepSimulation(float delta) {
+        int subSteps = 0;
+        accumulator += delta;
+
+        while ((accumulator >= fixedTimeStep) && (subSteps < maxSubSteps)) {
+            saveWorldTransforms();
+            step(fixedTimeStep);
+            accumulator -= fixedTimeStep;
+            subSteps++;
+        }
+
+        // Drop whole steps that were over the limit
+        if (accumulator >= fixedTimeStep) {
+            accumulator %= fixedTimeStep;
+        }
+
+        interpolationAlpha = accumulator / fixedTimeStep;
+        interpolateWorldTransforms();
+        interpolating = true;
+
+        return subSteps;
+    }
+
+    public void update() {
+        if (fixedTimeStepping) {
+            stepSimulation(Fw.timer.getDelta());
+            return;
+        }
+        update(Fw.timer.getDelta());
+    }
+
+    public void update(float delta) {
+
+        // Objects are rendered where they are once the world stops interpolating
+        if (interpolating) {
+            for (CollisionGameObject collisionGameObject : collisionGameObjects) {
+                collisionGameObject.clearInterpolation();
+            }
+            interpolating = false;
+        }
+
+        step(delta);
     }
 
     public void updateAabb(CollisionGameObject collisionGameObject) {
         Fw.graphics.updateAabb(collisionGameObject);
-        broadphase.moveProxy(collisionGameObject.getBroadphaseProxy(), collisionGameObject.getWorldAabb());
+        moveProxy(collisionGameObject);
     }
 
     public void updateAabbs() {
         for (CollisionGameObject collisionGameObject : collisionGameObjects) {
-            if (!collisionGameObject.isStaticObject()) {
+            if (collisionGameObject.isActive()) {
                 updateAabb(collisionGameObject);
             }
         }
     }
 
+    private class IntegrateTask extends RecursiveAction {
+
+        private final float delta;
+        private final int end;
+        private final int start;
+
+        public IntegrateTask(float delta, int start, int end) {
+            this.delta = delta;
+            this.end = end;
+            this.start = start;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= objectsPerTask) {
+                for (int i = start; i < end; i++) {
+                    CollisionGameObject collisionGameObject = collisionGameObjects.get(i);
+                    if (collisionGameObject.isActive()) {
+                        collisionGameObject.saveStartPosition();
+                        collisionGameObject.integrateSemiExplicitEuler(delta);
+                        Fw.graphics.updateAabb(collisionGameObject);
+                    }
+                }
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+            invokeAll(new IntegrateTask(delta, start, middle), new IntegrateTask(delta, middle, end));
+        }
+
+    }
+
 }
@@ -0,0 +1,261 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.collision;
+
+import net.smert.frameworkgl.collision.narrowphase.Contact;
+import net.smert.frameworkgl.collision.narrowphase.ContactData;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.utils.HashTableUtils;
+
+/**
+ * Tracks which pairs of collision game objects are touching from one tick to the next and queues begin, persist and
+ * end events. Pairs with more than one contact get a single event for their first contact. Pairs that fall asleep
+ * keep touching without persist events until one of the objects wakes up or is removed.
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class ContactEventManager {
+
+    private final static long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private int currentPairs;
+    private int eventMask;
+    private int previousPairs;
+    private int tableCapacity;
+    private int tableHashMask;
+    private int tableHashShift;
+    private boolean[] previousTouching; // Pairs of the last tick that are still touching
+    private long[] currentKeys;
+    private long[] previousKeys;
+    private CollisionGameObject[] currentObjects; // Two per slot. Null when the slot is empty.
+    private CollisionGameObject[] previousObjects;
+    private final ContactEventQueue contactEventQueue;
+
+    public ContactEventManager() {
+        currentPairs = 0;
+        eventMask = ContactEvent.BEGIN | ContactEvent.END;
+        previousPairs = 0;
+        contactEventQueue = new ContactEventQueue();
+        createTables(32);
+    }
+
+    private void createTables(int capacity) {
+        assert (Integer.bitCount(capacity) == 1);
+        tableCapacity = capacity;
+        tableHashMask = capacity - 1;
+        tableHashShift = 64 - Integer.numberOfTrailingZeros(capacity);
+        previousTouching = new boolean[capacity];
+        currentKeys = new long[capacity];
+        previousKeys = new long[capacity];
+        currentObjects = new CollisionGameObject[capacity * 2];
+        previousObjects = new CollisionGameObject[capacity * 2];
+    }
+
+    private void addEvent(int type, Contact contact) {
+        ContactEvent event = contactEventQueue.add();
+        CollisionGameObject collisionGameObject0 = contact.collisionGameObject0;
+        CollisionGameObject collisionGameObject1 = contact.collisionGameObject1;
+        Vector3f linearVelocity0 = collisionGameObject0.getLinearVelocity();
+        Vector3f linearVelocity1 = collisionGameObject1.getLinearVelocity();
+        Vector3f normal = contact.normal;
+        event.normalVelocity = (linearVelocity1.getX() - linearVelocity0.getX()) * normal.getX()
+                + (linearVelocity1.getY() - linearVelocity0.getY()) * normal.getY()
+                + (linearVelocity1.getZ() - linearVelocity0.getZ()) * normal.getZ();
+        event.penetration = contact.penetration;
+        event.type = type;
+        event.collisionGameObject0 = collisionGameObject0;
+        event.collisionGameObject1 = collisionGameObject1;
+        event.normal.set(normal);
+    }
+
+    private void addEndEvent(CollisionGameObject collisionGameObject0, CollisionGameObject collisionGameObject1) {
+        ContactEvent event = contactEventQueue.add();
+        event.normalVelocity = 0f;
+        event.penetration = 0f;
+        event.type = ContactEvent.END;
+        event.collisionGameObject0 = collisionGameObject0;
+        event.collisionGameObject1 = collisionGameObject1;
+        event.normal.zero();
+    }
+
+    private int findSlot(long[] keys, CollisionGameObject[] objects, long key,
+            CollisionGameObject collisionGameObject0, CollisionGameObject collisionGameObject1) {
+        int slot = (int) ((key * HASH_MULTIPLIER) >>> tableHashShift);
+        CollisionGameObject slotObject0;
+        while ((slotObject0 = objects[slot * 2]) != null) {
+            if (keys[slot] == key) {
+                CollisionGameObject slotObject1 = objects[slot * 2 + 1];
+                if (((slotObject0 == collisionGameObject0) && (slotObject1 == collisionGameObject1))
+                        || ((slotObject0 == collisionGameObject1) && (slotObject1 == collisionGameObject0))) {
+                    return slot;
+                }
+            }
+            slot = (slot + 1) & tableHashMask;
+        }
+        return -slot - 1;
+    }
+
+    private long getKey(CollisionGameObject collisionGameObject0, CollisionGameObject collisionGameObject1) {
+
+        // Proxies and their unique IDs are recreated when the world origin is rebased so pairs use the identity of the
+        // objects. The key must be the same regardless of the order of the objects.
+        int hash0 = System.identityHashCode(collisionGameObject0);
+        int hash1 = System.identityHashCode(collisionGameObject1);
+        if (hash0 > hash1) {
+            return ((long) hash1 << 32) | (hash0 & 0xFFFFFFFFL);
+        }
+        return ((long) hash0 << 32) | (hash1 & 0xFFFFFFFFL);
+    }
+
+    private void swapTables() {
+        long[] keys = previousKeys;
+        previousKeys = currentKeys;
+        currentKeys = keys;
+        CollisionGameObject[] objects = previousObjects;
+        previousObjects = currentObjects;
+        currentObjects = objects;
+    }
+
+    public void clear() {
+        for (int i = 0; i < tableCapacity * 2; i++) {
+            currentObjects[i] = null;
+            previousObjects[i] = null;
+        }
+        currentPairs = 0;
+        previousPairs = 0;
+        contactEventQueue.clear();
+    }
+
+    public ContactEventQueue getContactEventQueue() {
+        return contactEventQueue;
+    }
+
+    public int getEventMask() {
+        return eventMask;
+    }
+
+    /**
+     * Sets which event types are queued. Pairs are tracked either way so leaving out ContactEvent.PERSIST only skips
+     * queuing an event for every touching pair each tick.
+     *
+     * @param eventMask Combination of ContactEvent.BEGIN, ContactEvent.PERSIST and ContactEvent.END
+     */
+    public void setEventMask(int eventMask) {
+        this.eventMask = eventMask;
+    }
+
+    /**
+     * Compares the contacts of this tick with the pairs touching the last tick and queues events. Must be called
+     * before the resolver frees the contacts.
+     *
+     * @param contactData
+     */
+    public void processContacts(ContactData contactData) {
+        Contact[] contacts = contactData.getContacts();
+
+        // Pairs of the last tick are moved into the larger tables
+        int capacity = HashTableUtils.GetCapacity(tableCapacity, contacts.length + previousPairs);
+        if (capacity != tableCapacity) {
+            long[] oldKeys = previousKeys;
+            CollisionGameObject[] oldObjects = previousObjects;
+            int oldCapacity = tableCapacity;
+            createTables(capacity);
+            for (int i = 0; i < oldCapacity; i++) {
+                CollisionGameObject collisionGameObject0 = oldObjects[i * 2];
+                if (collisionGameObject0 == null) {
+                    continue;
+                }
+                CollisionGameObject collisionGameObject1 = oldObjects[i * 2 + 1];
+                int slot = -findSlot(previousKeys, previousObjects, oldKeys[i], collisionGameObject0,
+                        collisionGameObject1) - 1;
+                previousKeys[slot] = oldKeys[i];
+                previousObjects[slot * 2] = collisionGameObject0;
+                previousObjects[slot * 2 + 1] = collisionGameObject1;
+            }
+        }
+
+        boolean queueBegin = ((eventMask & ContactEvent.BEGIN) != 0);
+        boolean queuePersist = ((eventMask & ContactEvent.PERSIST) != 0);
+
+        for (int i = 0; i < contacts.length; i++) {
+            Contact contact = contacts[i];
+
+            // Skip free contact
+            if (contact.index == ContactData.NULL) {
+                continue;
+            }
+
+            CollisionGameObject collisionGameObject0 = contact.collisionGameObject0;
+            CollisionGameObject collisionGameObject1 = contact.collisionGameObject1;
+            long key = getKey(collisionGameObject0, collisionGameObject1);
+            int slot = findSlot(currentKeys, currentObjects, key, collisionGameObject0, collisionGameObject1);
+
+            // Pairs with more than one contact keep the first one
+            if (slot >= 0) {
+                continue;
+            }
+            slot = -slot - 1;
+            currentKeys[slot] = key;
+            currentObjects[slot * 2] = collisionGameObject0;
+            currentObjects[slot * 2 + 1] = collisionGameObject1;
+            currentPairs++;
+
+            int previousSlot = findSlot(previousKeys, previousObjects, key, collisionGameObject0,
+                    collisionGameObject1);
+            if (previousSlot >= 0) {
+                previousTouching[previousSlot] = true;
+                if (queuePersist) {
+                    addEvent(ContactEvent.PERSIST, contact);
+                }
+            } else if (queueBegin) {
+                addEvent(ContactEvent.BEGIN, contact);
+            }
+        }
+
+        // Pairs of the last tick without a contact this tick have ended
+        boolean queueEnd = ((eventMask & ContactEvent.END) != 0);
+        for (int i = 0; i < tableCapacity; i++) {
+            CollisionGameObject collisionGameObject0 = previousObjects[i * 2];
+            if (collisionGameObject0 == null) {
+                continue;
+            }
+            CollisionGameObject collisionGameObject1 = previousObjects[i * 2 + 1];
+            if (!previousTouching[i]) {
+
+                // The narrowphase skips pairs that are asleep or static so they are still touching
+                if (!collisionGameObject0.isActive() && !collisionGameObject1.isActive()
+                        && (collisionGameObject0.getBroadphaseProxy() != null)
+                        && (collisionGameObject1.getBroadphaseProxy() != null)) {
+                    long key = previousKeys[i];
+                    int slot = -findSlot(currentKeys, currentObjects, key, collisionGameObject0,
+                            collisionGameObject1) - 1;
+                    currentKeys[slot] = key;
+                    currentObjects[slot * 2] = collisionGameObject0;
+                    currentObjects[slot * 2 + 1] = collisionGameObject1;
+                    currentPairs++;
+                } else if (queueEnd) {
+                    addEndEvent(collisionGameObject0, collisionGameObject1);
+                }
+            }
+            previousTouching[i] = false;
+            previousObjects[i * 2] = null;
+            previousObjects[i * 2 + 1] = null;
+        }
+
+        // This tick's pairs are compared against next tick
+        swapTables();
+        previousPairs = currentPairs;
+        currentPairs = 0;
+    }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.collision;
+
+/**
+ * Ring buffer of preallocated contact events. Events are reused so an event returned by poll() is only valid until the
+ * queue is added to again.
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class ContactEventQueue {
+
+    private int capacity;
+    private int head;
+    private int size;
+    private ContactEvent[] events;
+
+    public ContactEventQueue() {
+        capacity = 64;
+        head = 0;
+        size = 0;
+        events = new ContactEvent[capacity];
+        createEvents(0);
+    }
+
+    private void createEvents(int start) {
+        for (int i = start; i < capacity; i++) {
+            events[i] = new ContactEvent();
+        }
+    }
+
+    public ContactEvent add() {
+
+        // Expand events array in order so the oldest event is first
+        if (size == capacity) {
+            ContactEvent[] newEvents = new ContactEvent[capacity * 2];
+            for (int i = 0; i < size; i++) {
+                newEvents[i] = events[(head + i) & (capacity - 1)];
+            }
+            events = newEvents;
+            head = 0;
+            capacity *= 2;
+            createEvents(size);
+        }
+
+        ContactEvent event = events[(head + size) & (capacity - 1)];
+        size++;
+        return event;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            ContactEvent event = events[(head + i) & (capacity - 1)];
+            event.collisionGameObject0 = null;
+            event.collisionGameObject1 = null;
+        }
+        head = 0;
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return (size == 0);
+    }
+
+    public ContactEvent poll() {
+        if (size == 0) {
+            return null;
+        }
+
+        ContactEvent event = events[head];
+        head = (head + 1) & (capacity - 1);
+        size--;
+        return event;
+    }
+
+    public int size() {
+        return size;
+    }
+
+}
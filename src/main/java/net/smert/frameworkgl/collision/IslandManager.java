@@ -0,0 +1,272 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.collision;
+
+import java.util.List;
+import net.smert.frameworkgl.collision.narrowphase.Contact;
+import net.smert.frameworkgl.collision.narrowphase.ContactData;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class IslandManager {
+
+    public final static int NULL = -1;
+
+    private int contactCapacity;
+    private int islandCount;
+    private int objectCapacity;
+    private int[] contactIndexes;
+    private int[] contactIslands;
+    private int[] islandSleepTicks;
+    private int[] islandStarts;
+    private int[] parents;
+    private int[] rootIslands;
+
+    public IslandManager() {
+        contactCapacity = 16;
+        islandCount = 0;
+        objectCapacity = 16;
+        contactIndexes = new int[contactCapacity];
+        contactIslands = new int[contactCapacity];
+        islandSleepTicks = new int[contactCapacity];
+        islandStarts = new int[contactCapacity + 1];
+        parents = new int[objectCapacity];
+        rootIslands = new int[objectCapacity];
+    }
+
+    private void ensureContactCapacity(int capacity) {
+        if (capacity <= contactCapacity) {
+            return;
+        }
+        while (contactCapacity < capacity) {
+            contactCapacity *= 2;
+        }
+        contactIndexes = new int[contactCapacity];
+        contactIslands = new int[contactCapacity];
+        islandSleepTicks = new int[contactCapacity];
+        islandStarts = new int[contactCapacity + 1];
+    }
+
+    private void ensureObjectCapacity(int capacity) {
+        if (capacity <= objectCapacity) {
+            return;
+        }
+        while (objectCapacity < capacity) {
+            objectCapacity *= 2;
+        }
+        parents = new int[objectCapacity];
+        rootIslands = new int[objectCapacity];
+    }
+
+    private int findIsland(CollisionGameObject collisionGameObject) {
+        int islandTag = collisionGameObject.getIslandTag();
+        if (islandTag == NULL) {
+            return NULL;
+        }
+        return rootIslands[find(islandTag)];
+    }
+
+    private int find(int index) {
+        int root = index;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+
+        // Path compression
+        while (parents[index] != root) {
+            int next = parents[index];
+            parents[index] = root;
+            index = next;
+        }
+
+        return root;
+    }
+
+    private void union(int index0, int index1) {
+        int root0 = find(index0);
+        int root1 = find(index1);
+
+        if (root0 == root1) {
+            return;
+        }
+
+        // Lowest index is always the root so the result doesn't depend on the order of the contacts
+        if (root0 < root1) {
+            parents[root1] = root0;
+        } else {
+            parents[root0] = root1;
+        }
+    }
+
+    /**
+     * Partitions the contacts into islands of dynamic objects connected through contacts. Objects with an inverse
+     * mass of zero are never changed by the resolver so they do not connect islands. Islands are numbered in the order
+     * of their first contact and contacts keep their original order inside of an island so resolving islands
+     * concurrently gives the same result as resolving all contacts serially.
+     *
+     * @param collisionGameObjects
+     * @param contactData
+     */
+    public void buildIslands(List<CollisionGameObject> collisionGameObjects, ContactData contactData) {
+        Contact[] contacts = contactData.getContacts();
+        int totalCollisionGameObjects = collisionGameObjects.size();
+
+        ensureContactCapacity(contacts.length);
+        ensureObjectCapacity(totalCollisionGameObjects);
+
+        // Tag dynamic objects with their index. Objects that can't be moved by the resolver are not tagged.
+        for (int i = 0; i < totalCollisionGameObjects; i++) {
+            CollisionGameObject collisionGameObject = collisionGameObjects.get(i);
+            if (collisionGameObject.getInverseMass() == 0f) {
+                collisionGameObject.setIslandTag(NULL);
+            } else {
+                collisionGameObject.setIslandTag(i);
+            }
+            parents[i] = i;
+            rootIslands[i] = NULL;
+        }
+
+        // Connect objects that share a contact
+        for (int i = 0; i < contacts.length; i++) {
+            Contact contact = contacts[i];
+
+            // Skip free contact
+            if (contact.index == ContactData.NULL) {
+                continue;
+            }
+
+            int islandTag0 = contact.collisionGameObject0.getIslandTag();
+            int islandTag1 = contact.collisionGameObject1.getIslandTag();
+
+            if ((islandTag0 != NULL) && (islandTag1 != NULL)) {
+                union(islandTag0, islandTag1);
+            }
+        }
+
+        // Number islands in the order of their first contact and count the contacts for each island
+        islandCount = 0;
+        for (int i = 0; i < contacts.length; i++) {
+            Contact contact = contacts[i];
+            contactIslands[i] = NULL;
+
+            // Skip free contact
+            if (contact.index == ContactData.NULL) {
+                continue;
+            }
+
+            int islandTag = contact.collisionGameObject0.getIslandTag();
+            if (islandTag == NULL) {
+                islandTag = contact.collisionGameObject1.getIslandTag();
+            }
+
+            // Contacts between two objects that can't be moved don't belong to an island
+            if (islandTag == NULL) {
+                continue;
+            }
+
+            int root = find(islandTag);
+            int island = rootIslands[root];
+            if (island == NULL) {
+                island = islandCount++;
+                rootIslands[root] = island;
+                islandStarts[island] = 0;
+            }
+            contactIslands[i] = island;
+            islandStarts[island]++;
+        }
+
+        // Convert counts into start offsets
+        int offset = 0;
+        for (int i = 0; i < islandCount; i++) {
+            int count = islandStarts[i];
+            islandStarts[i] = offset;
+            offset += count;
+        }
+        islandStarts[islandCount] = offset;
+
+        // Fill contact indexes in their original order using the island start as a cursor
+        for (int i = 0; i < contacts.length; i++) {
+            int island = contactIslands[i];
+            if (island != NULL) {
+                contactIndexes[islandStarts[island]++] = i;
+            }
+        }
+
+        // Restore start offsets which were moved to the end of each island
+        for (int i = islandCount; i > 0; i--) {
+            islandStarts[i] = islandStarts[i - 1];
+        }
+        islandStarts[0] = 0;
+    }
+
+    public int getContactIndex(int index) {
+        return contactIndexes[index];
+    }
+
+    public int getIslandCount() {
+        return islandCount;
+    }
+
+    public int getIslandEnd(int island) {
+        return islandStarts[island + 1];
+    }
+
+    public int getIslandStart(int island) {
+        return islandStarts[island];
+    }
+
+    /**
+     * Puts islands to sleep once every object in the island has spent the given number of ticks under the sleeping
+     * threshold and wakes every object in an island that is still moving. A sleeping object touched by an awake object
+     * is woken by the resolver which resets its ticks so the whole island wakes up. Islands must already be built for
+     * the same list of collision game objects.
+     *
+     * @param collisionGameObjects
+     * @param ticksToSleep
+     */
+    public void updateSleeping(List<CollisionGameObject> collisionGameObjects, int ticksToSleep) {
+        int totalCollisionGameObjects = collisionGameObjects.size();
+
+        // Find the fewest ticks under the sleeping threshold for each island
+        for (int i = 0; i < islandCount; i++) {
+            islandSleepTicks[i] = Integer.MAX_VALUE;
+        }
+        for (int i = 0; i < totalCollisionGameObjects; i++) {
+            CollisionGameObject collisionGameObject = collisionGameObjects.get(i);
+            int island = findIsland(collisionGameObject);
+            if (island != NULL) {
+                islandSleepTicks[island] = Math.min(islandSleepTicks[island], collisionGameObject.getSleepTicks());
+            }
+        }
+
+        // Sleep or wake whole islands. Dynamic objects without contacts are an island by themselves.
+        for (int i = 0; i < totalCollisionGameObjects; i++) {
+            CollisionGameObject collisionGameObject = collisionGameObjects.get(i);
+            if (collisionGameObject.getIslandTag() == NULL) {
+                continue;
+            }
+
+            int island = findIsland(collisionGameObject);
+            int sleepTicks = (island == NULL) ? collisionGameObject.getSleepTicks() : islandSleepTicks[island];
+
+            if (sleepTicks < ticksToSleep) {
+                collisionGameObject.wakeUp();
+            } else if (collisionGameObject.isAwake()) {
+                collisionGameObject.sleep();
+            }
+        }
+    }
+
+}
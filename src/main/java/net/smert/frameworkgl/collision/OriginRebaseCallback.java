@@ -0,0 +1,28 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.collision;
+
+import net.smert.frameworkgl.math.Vector3d;
+import net.smert.frameworkgl.math.Vector3f;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public interface OriginRebaseCallback {
+
+    // Called after the collision world moved its objects. Cameras and objects outside of the collision world must be
+    // moved by the opposite of the shift.
+    public void originRebased(Vector3f shift, Vector3d worldOrigin);
+
+}
@@ -14,6 +14,7 @@ package net.smert.frameworkgl.collision.broadphase;
 
 import java.util.Objects;
 import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.math.AABB;
 
 /**
  *
@@ -23,7 +24,9 @@ public class BroadphaseProxy {
 
     public int collisionGroup;
     public int collisionCollidesWith;
+    public int uniqueId; // Index assigned by the broadphase. Unique among all proxies in use.
     public CollisionGameObject collisionGameObject;
+    public final AABB aabb = new AABB(); // World AABB with margin
 
     @Override
     public int hashCode() {
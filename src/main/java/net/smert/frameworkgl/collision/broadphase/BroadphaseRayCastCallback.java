@@ -0,0 +1,27 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.collision.broadphase;
+
+import net.smert.frameworkgl.math.Ray;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public interface BroadphaseRayCastCallback {
+
+    // The ray index is the index into the batch or zero for a single ray. Return a negative value to ignore the
+    // proxy, zero to stop the ray cast or a fraction to clip the ray. Returning maxFraction continues unchanged.
+    public float rayCastProxy(int rayIndex, Ray ray, BroadphaseProxy broadphaseProxy, float maxFraction);
+
+}
@@ -12,11 +12,14 @@
  */
 package net.smert.frameworkgl.collision.broadphase;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import net.smert.frameworkgl.Fw;
 import net.smert.frameworkgl.collision.CollisionGameObject;
 import net.smert.frameworkgl.gameobjects.AABBGameObject;
 import net.smert.frameworkgl.math.AABB;
 import net.smert.frameworkgl.math.AABBUtilities;
+import net.smert.frameworkgl.math.Ray;
 import net.smert.frameworkgl.math.Vector3f;
 import net.smert.frameworkgl.opengl.pipeline.PipelineRenderDebugCallback;
 import net.smert.frameworkgl.utils.StackInt;
@@ -33,11 +36,14 @@ public class DynamicAABBTreeBroadphase implements BroadphaseAlgorithm {
     private float displacementMultiplier;
     private int capacity;
     private int free;
+    private int raysPerTask;
     private int root;
     private int size;
+    private ForkJoinPool forkJoinPool;
     private DynamicAABBTreeBroadphaseProxy[] proxies;
     private final OverlappingPairCache overlappingPairCache;
     private final StackInt stackOfIndexes;
+    private final ThreadLocal<StackInt> queryStackOfIndexes; // Queries can run from any thread
     private final Vector3f margin;
 
     public DynamicAABBTreeBroadphase(OverlappingPairCache overlappingPairCache) {
@@ -46,10 +52,13 @@ public class DynamicAABBTreeBroadphase implements BroadphaseAlgorithm {
         displacementMultiplier = 2f;
         capacity = 16;
         free = 0;
+        raysPerTask = 64;
         root = NULL;
         size = 0;
+        forkJoinPool = ForkJoinPool.commonPool();
         proxies = new DynamicAABBTreeBroadphaseProxy[capacity];
         stackOfIndexes = new StackInt();
+        queryStackOfIndexes = ThreadLocal.withInitial(() -> new StackInt());
         margin = new Vector3f(.1f, .1f, .1f);
         createProxies(free);
     }
@@ -463,12 +472,64 @@ public class DynamicAABBTreeBroadphase implements BroadphaseAlgorithm {
         ascendFixingHeightAndAabb(indexNewParent);
     }
 
+    private void rayCast(int rayIndex, Ray ray, float maxFraction, BroadphaseRayCastCallback callback,
+            StackInt stack, Vector3f inverseDirection) {
+        inverseDirection.set(1f / ray.getDirection().getX(), 1f / ray.getDirection().getY(),
+                1f / ray.getDirection().getZ());
+
+        // Start with root. A callback can start another query on this thread so only the part of the stack above
+        // bottom belongs to this query.
+        int bottom = stack.getSize();
+        stack.push(root);
+
+        // Loop until this query is empty
+        while (stack.getSize() > bottom) {
+
+            // Get current element off the stack
+            int indexStack = stack.pop();
+
+            // Skip free proxy
+            if (indexStack == NULL) {
+                continue;
+            }
+
+            DynamicAABBTreeBroadphaseProxy proxyStack = proxies[indexStack];
+
+            // Test for intersection with the ray clipped by the closest hit so far
+            if (!AABBUtilities.DoesRayIntersectAabb(ray.getOrigin(), inverseDirection, maxFraction, proxyStack.aabb)) {
+                continue;
+            }
+
+            // Decend the tree
+            if (!proxyStack.isLeaf()) {
+                stack.push(proxyStack.left);
+                stack.push(proxyStack.right);
+                continue;
+            }
+
+            float fraction = callback.rayCastProxy(rayIndex, ray, proxyStack, maxFraction);
+
+            // Callback stopped the ray cast
+            if (fraction == 0f) {
+                stack.setSize(bottom);
+                return;
+            }
+
+            // Callback clipped the ray. It can only get shorter.
+            if ((fraction > 0f) && (fraction < maxFraction)) {
+                maxFraction = fraction;
+            }
+        }
+    }
+
     private void removeLeaf(int index) {
         assert (index >= 0);
         assert (index < capacity);
 
+        // Last proxy in the tree has no parent
         if (index == root) {
             root = NULL;
+            return;
         }
 
         DynamicAABBTreeBroadphaseProxy proxy = proxies[index];
@@ -611,6 +672,14 @@ public class DynamicAABBTreeBroadphase implements BroadphaseAlgorithm {
         this.displacementMultiplier = displacementMultiplier;
     }
 
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
     public Vector3f getMargin() {
         return margin;
     }
@@ -627,6 +696,82 @@ public class DynamicAABBTreeBroadphase implements BroadphaseAlgorithm {
         this.margin.set(margin);
     }
 
+    public int getRaysPerTask() {
+        return raysPerTask;
+    }
+
+    public void setRaysPerTask(int raysPerTask) {
+        this.raysPerTask = raysPerTask;
+    }
+
+    public void queryAabb(AABB aabb, BroadphaseAabbQueryCallback callback) {
+        StackInt stack = queryStackOfIndexes.get();
+
+        // Start with root. A callback can start another query on this thread so only the part of the stack above
+        // bottom belongs to this query.
+        int bottom = stack.getSize();
+        stack.push(root);
+
+        // Loop until this query is empty
+        while (stack.getSize() > bottom) {
+
+            // Get current element off the stack
+            int indexStack = stack.pop();
+
+            // Skip free proxy
+            if (indexStack == NULL) {
+                continue;
+            }
+
+            DynamicAABBTreeBroadphaseProxy proxyStack = proxies[indexStack];
+
+            // Test for intersection
+            if (!AABBUtilities.DoesAabb0IntersectAabb1(proxyStack.aabb, aabb)) {
+                continue;
+            }
+
+            // Decend the tree
+            if (!proxyStack.isLeaf()) {
+                stack.push(proxyStack.left);
+                stack.push(proxyStack.right);
+                continue;
+            }
+
+            // Callback stopped the query
+            if (!callback.queryProxy(proxyStack)) {
+                stack.setSize(bottom);
+                return;
+            }
+        }
+    }
+
+    public void rayCast(Ray ray, BroadphaseRayCastCallback callback) {
+        rayCast(ray, 1f, callback);
+    }
+
+    public void rayCast(Ray ray, float maxFraction, BroadphaseRayCastCallback callback) {
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Vector3f inverseDirection = vars.v3f0;
+
+        rayCast(0, ray, maxFraction, callback, queryStackOfIndexes.get(), inverseDirection);
+
+        // Release vars instance
+        vars.release();
+    }
+
+    public void rayCastBatch(Ray[] rays, int totalRays, float maxFraction, BroadphaseRayCastCallback callback) {
+        assert (totalRays <= rays.length);
+
+        // The tree must not be modified while the rays are cast. The callback is called from multiple threads.
+        if (totalRays <= raysPerTask) {
+            new RayCastTask(rays, maxFraction, callback, 0, totalRays).compute();
+            return;
+        }
+        forkJoinPool.invoke(new RayCastTask(rays, maxFraction, callback, 0, totalRays));
+    }
+
     public void validate() {
         validateStructure(root);
         validateMetrics(root);
@@ -656,13 +801,11 @@ public class DynamicAABBTreeBroadphase implements BroadphaseAlgorithm {
         proxy.collisionCollidesWith = collisionCollidesWith;
         proxy.collisionGameObject = collisionGameObject;
         proxy.collisionGroup = collisionGroup;
+        proxy.uniqueId = index;
 
         // Insert proxy into tree
         insertLeaf(index);
 
-        // TODO remove me
-        validate();
-
         return proxy;
     }
 
@@ -741,6 +884,7 @@ public class DynamicAABBTreeBroadphase implements BroadphaseAlgorithm {
     @Override
     public void removeProxy(BroadphaseProxy broadphaseProxy) {
         DynamicAABBTreeBroadphaseProxy proxy = (DynamicAABBTreeBroadphaseProxy) broadphaseProxy;
+        overlappingPairCache.removeOverlappingPairsContainingProxy(proxy);
         removeLeaf(proxy.index);
         freeProxy(proxy.index);
     }
@@ -760,6 +904,11 @@ public class DynamicAABBTreeBroadphase implements BroadphaseAlgorithm {
                 continue;
             }
 
+            // Sleeping proxies don't move so their pairs are found by the queries of awake proxies
+            if (!proxy.collisionGameObject.isAwake()) {
+                continue;
+            }
+
             // Start with root
             stackOfIndexes.push(root);
 
@@ -808,6 +957,47 @@ public class DynamicAABBTreeBroadphase implements BroadphaseAlgorithm {
         }
     }
 
+    private class RayCastTask extends RecursiveAction {
+
+        private final float maxFraction;
+        private final int end;
+        private final int start;
+        private final BroadphaseRayCastCallback callback;
+        private final Ray[] rays;
+
+        public RayCastTask(Ray[] rays, float maxFraction, BroadphaseRayCastCallback callback, int start, int end) {
+            this.maxFraction = maxFraction;
+            this.end = end;
+            this.start = start;
+            this.callback = callback;
+            this.rays = rays;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= raysPerTask) {
+
+                // Temp vars from thread local storage
+                ThreadLocalVars vars = ThreadLocalVars.Get();
+                Vector3f inverseDirection = vars.v3f0;
+
+                StackInt stack = queryStackOfIndexes.get();
+                for (int i = start; i < end; i++) {
+                    rayCast(i, rays[i], maxFraction, callback, stack, inverseDirection);
+                }
+
+                // Release vars instance
+                vars.release();
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+            invokeAll(new RayCastTask(rays, maxFraction, callback, start, middle),
+                    new RayCastTask(rays, maxFraction, callback, middle, end));
+        }
+
+    }
+
     public static class Render {
 
         private static boolean initialized;
@@ -13,7 +13,6 @@
 package net.smert.frameworkgl.collision.broadphase;
 
 import static net.smert.frameworkgl.collision.broadphase.DynamicAABBTreeBroadphase.NULL;
-import net.smert.frameworkgl.math.AABB;
 
 /**
  *
@@ -26,7 +25,6 @@ public class DynamicAABBTreeBroadphaseProxy extends BroadphaseProxy {
     int left;
     int parent;
     int right;
-    public final AABB aabb = new AABB();
 
     public boolean isLeaf() {
         return right == NULL;
@@ -12,9 +12,7 @@
  */
 package net.smert.frameworkgl.collision.broadphase;
 
-import java.util.Iterator;
-import net.smert.frameworkgl.collision.narrowphase.NarrowphaseDispatch;
-import net.smert.frameworkgl.utils.HashMapIntGeneric;
+import net.smert.frameworkgl.utils.HashTableUtils;
 
 /**
  *
@@ -22,25 +20,144 @@ import net.smert.frameworkgl.utils.HashMapIntGeneric;
  */
 public class HashedOverlappingPairCache implements OverlappingPairCache {
 
-    private final HashMapIntGeneric<OverlappingPair> overlappingPairs;
+    private final static int NULL = -1;
+    private final static long EMPTY_KEY = -1L; // Unique IDs are never negative so this can't be a valid key
+    private final static long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private int hashShift;
+    private int hashMask;
+    private int pairCapacity;
+    private int size;
+    private int[] pairIndexes;
+    private long[] keys;
+    private OverlappingPair[] pairs;
     private final OverlappingPairFilterCallback overlappingPairFilterCallback;
 
     public HashedOverlappingPairCache(OverlappingPairFilterCallback overlappingPairFilterCallback) {
         this.overlappingPairFilterCallback = overlappingPairFilterCallback;
-        overlappingPairs = new HashMapIntGeneric<>();
+        pairCapacity = 16;
+        size = 0;
+        pairs = new OverlappingPair[pairCapacity];
+        createPairs(0);
+        createTable(HashTableUtils.GetCapacity(1, pairCapacity));
     }
 
-    private int getHashCode(BroadphaseProxy broadphaseProxy0, BroadphaseProxy broadphaseProxy1) {
-        int hash0 = broadphaseProxy0.hashCode();
-        int hash1 = broadphaseProxy1.hashCode();
+    private void createPairs(int index) {
+        for (int i = index; i < pairCapacity; i++) {
+            pairs[i] = new OverlappingPair();
+        }
+    }
+
+    private void createTable(int tableCapacity) {
+        assert (Integer.bitCount(tableCapacity) == 1);
+        hashMask = tableCapacity - 1;
+        hashShift = 64 - Integer.numberOfTrailingZeros(tableCapacity);
+        keys = new long[tableCapacity];
+        pairIndexes = new int[tableCapacity];
+        for (int i = 0; i < tableCapacity; i++) {
+            keys[i] = EMPTY_KEY;
+        }
+    }
 
-        if (hash0 < hash1) {
-            int tmp = hash0;
-            hash0 = hash1;
-            hash1 = tmp;
+    private void expand() {
+
+        // Expand pairs array and fill it with new pairs to recycle
+        int oldCapacity = pairCapacity;
+        pairCapacity *= 2;
+        OverlappingPair[] newPairs = new OverlappingPair[pairCapacity];
+        System.arraycopy(pairs, 0, newPairs, 0, oldCapacity);
+        pairs = newPairs;
+        createPairs(oldCapacity);
+
+        // Rehash all pairs into the larger table
+        createTable(HashTableUtils.GetCapacity(keys.length, pairCapacity));
+        for (int i = 0; i < size; i++) {
+            OverlappingPair pair = pairs[i];
+            insertKey(getKey(pair.proxy0, pair.proxy1), i);
         }
+    }
+
+    private int findSlot(long key) {
+        int slot = hash(key);
+        long slotKey;
+        while ((slotKey = keys[slot]) != EMPTY_KEY) {
+            if (slotKey == key) {
+                return slot;
+            }
+            slot = (slot + 1) & hashMask;
+        }
+        return NULL;
+    }
 
-        return (hash0 * 17) ^ (hash1 * 31);
+    private long getKey(BroadphaseProxy broadphaseProxy0, BroadphaseProxy broadphaseProxy1) {
+        int uniqueId0 = broadphaseProxy0.uniqueId;
+        int uniqueId1 = broadphaseProxy1.uniqueId;
+
+        assert (uniqueId0 >= 0);
+        assert (uniqueId1 >= 0);
+
+        // The key must be the same regardless of the order of the proxies
+        if (uniqueId0 > uniqueId1) {
+            int tmp = uniqueId0;
+            uniqueId0 = uniqueId1;
+            uniqueId1 = tmp;
+        }
+
+        return ((long) uniqueId0 << 32) | uniqueId1;
+    }
+
+    private int hash(long key) {
+        return (int) ((key * HASH_MULTIPLIER) >>> hashShift);
+    }
+
+    private void insertKey(long key, int pairIndex) {
+        int slot = hash(key);
+        while (keys[slot] != EMPTY_KEY) {
+            slot = (slot + 1) & hashMask;
+        }
+        keys[slot] = key;
+        pairIndexes[slot] = pairIndex;
+    }
+
+    private void removeSlot(int slot) {
+        int pairIndex = pairIndexes[slot];
+
+        // Backward shift deletion keeps linear probing chains intact without tombstones
+        int empty = slot;
+        int current = slot;
+        while (true) {
+            current = (current + 1) & hashMask;
+            long key = keys[current];
+            if (key == EMPTY_KEY) {
+                break;
+            }
+
+            // Move the key back if its home slot is not between the empty slot and the current slot
+            int home = hash(key);
+            if (((current - home) & hashMask) >= ((current - empty) & hashMask)) {
+                keys[empty] = key;
+                pairIndexes[empty] = pairIndexes[current];
+                empty = current;
+            }
+        }
+        keys[empty] = EMPTY_KEY;
+
+        // Move the last pair into the hole so that pairs stay dense. The removed pair is kept at the end to be
+        // recycled by the next add.
+        int lastIndex = --size;
+        if (pairIndex != lastIndex) {
+            OverlappingPair removedPair = pairs[pairIndex];
+            OverlappingPair lastPair = pairs[lastIndex];
+            pairs[pairIndex] = lastPair;
+            pairs[lastIndex] = removedPair;
+            pairIndexes[findSlot(getKey(lastPair.proxy0, lastPair.proxy1))] = pairIndex;
+        }
+        pairs[lastIndex].proxy0 = null;
+        pairs[lastIndex].proxy1 = null;
+    }
+
+    public int getSize() {
+        return size;
     }
 
     @Override
@@ -49,52 +166,74 @@ public class HashedOverlappingPairCache implements OverlappingPairCache {
             return null;
         }
 
-        // Calculate hash code and create new pair
-        int hashCode = getHashCode(broadphaseProxy0, broadphaseProxy1);
-        OverlappingPair pair = new OverlappingPair();
+        // Pair already exists
+        long key = getKey(broadphaseProxy0, broadphaseProxy1);
+        int slot = findSlot(key);
+        if (slot != NULL) {
+            return pairs[pairIndexes[slot]];
+        }
+
+        if (size == pairCapacity) {
+            expand();
+        }
+
+        // Recycle pair
+        int pairIndex = size++;
+        OverlappingPair pair = pairs[pairIndex];
         pair.proxy0 = broadphaseProxy0;
         pair.proxy1 = broadphaseProxy1;
 
         // Save pair
-        OverlappingPair oldPair = overlappingPairs.put(hashCode, pair);
+        insertKey(key, pairIndex);
 
         return pair;
     }
 
     @Override
     public OverlappingPair findOverlappingPair(BroadphaseProxy broadphaseProxy0, BroadphaseProxy broadphaseProxy1) {
-        int hashCode = getHashCode(broadphaseProxy0, broadphaseProxy1);
-        return overlappingPairs.get(hashCode);
+        int slot = findSlot(getKey(broadphaseProxy0, broadphaseProxy1));
+        if (slot == NULL) {
+            return null;
+        }
+        return pairs[pairIndexes[slot]];
     }
 
     @Override
-    public void processOverlappingPairs(NarrowphaseDispatch dispatch) {
-        Iterator it = overlappingPairs.values().iterator();
+    public void processOverlappingPairs(OverlappingPairCallback callback) {
+        int i = 0;
+        while (i < size) {
+            OverlappingPair pair = pairs[i];
 
-        while (it.hasNext()) {
-            OverlappingPair pair = (OverlappingPair) it.next();
+            if (callback.processOverlappingPair(pair)) {
+                i++;
+            } else {
 
-            if (!dispatch.processOverlappingPair(pair)) {
-                it.remove();
+                // The last pair is moved into this index so it must be processed next
+                removeSlot(findSlot(getKey(pair.proxy0, pair.proxy1)));
             }
         }
     }
 
     @Override
     public void removeOverlappingPair(BroadphaseProxy broadphaseProxy0, BroadphaseProxy broadphaseProxy1) {
-        int hashCode = getHashCode(broadphaseProxy0, broadphaseProxy1);
-        overlappingPairs.remove(hashCode);
+        int slot = findSlot(getKey(broadphaseProxy0, broadphaseProxy1));
+        if (slot != NULL) {
+            removeSlot(slot);
+        }
     }
 
     @Override
     public void removeOverlappingPairsContainingProxy(BroadphaseProxy broadphaseProxy) {
-        Iterator it = overlappingPairs.values().iterator();
-
-        while (it.hasNext()) {
-            OverlappingPair pair = (OverlappingPair) it.next();
+        int i = 0;
+        while (i < size) {
+            OverlappingPair pair = pairs[i];
 
             if ((pair.proxy0 == broadphaseProxy) || (pair.proxy1 == broadphaseProxy)) {
-                it.remove();
+
+                // The last pair is moved into this index so it must be checked next
+                removeSlot(findSlot(getKey(pair.proxy0, pair.proxy1)));
+            } else {
+                i++;
             }
         }
     }
@@ -12,8 +12,6 @@
  */
 package net.smert.frameworkgl.collision.broadphase;
 
-import net.smert.frameworkgl.collision.narrowphase.NarrowphaseDispatch;
-
 /**
  *
  * @author Jason Sorensen <sorensenj@smert.net>
@@ -24,7 +22,7 @@ public interface OverlappingPairCache {
 
     public OverlappingPair findOverlappingPair(BroadphaseProxy broadphaseProxy0, BroadphaseProxy broadphaseProxy1);
 
-    public void processOverlappingPairs(NarrowphaseDispatch dispatch);
+    public void processOverlappingPairs(OverlappingPairCallback callback);
 
     public void removeOverlappingPair(BroadphaseProxy broadphaseProxy0, BroadphaseProxy broadphaseProxy1);
 
@@ -0,0 +1,699 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.collision.broadphase;
+
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.math.AABB;
+import net.smert.frameworkgl.math.AABBUtilities;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.opengl.pipeline.PipelineRenderDebugCallback;
+import net.smert.frameworkgl.utils.ThreadLocalVars;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class PackedAABBTreeBroadphase implements BroadphaseAlgorithm {
+
+    public final static int NULL = -1;
+
+    private float displacementMultiplier;
+    private int capacity;
+    private int free;
+    private int root;
+    private int size;
+    private int totalMoved;
+
+    // Nodes are stored as a structure of arrays. A node's bounds and links are at the same index in each array and
+    // leaf nodes also have a proxy.
+    private float[] maxX;
+    private float[] maxY;
+    private float[] maxZ;
+    private float[] minX;
+    private float[] minY;
+    private float[] minZ;
+    private int[] height;
+    private int[] left;
+    private int[] parent; // Next free node for free nodes
+    private int[] right;
+    private boolean[] moved;
+    private int[] movedLeaves;
+    private int[] stack;
+    private PackedAABBTreeBroadphaseProxy[] proxies;
+    private final OverlappingPairCache overlappingPairCache;
+    private final Vector3f margin;
+
+    public PackedAABBTreeBroadphase(OverlappingPairCache overlappingPairCache) {
+        this.overlappingPairCache = overlappingPairCache;
+
+        displacementMultiplier = 2f;
+        capacity = 16;
+        free = 0;
+        root = NULL;
+        size = 0;
+        totalMoved = 0;
+        maxX = new float[capacity];
+        maxY = new float[capacity];
+        maxZ = new float[capacity];
+        minX = new float[capacity];
+        minY = new float[capacity];
+        minZ = new float[capacity];
+        height = new int[capacity];
+        left = new int[capacity];
+        parent = new int[capacity];
+        right = new int[capacity];
+        moved = new boolean[capacity];
+        movedLeaves = new int[capacity];
+        stack = new int[64];
+        proxies = new PackedAABBTreeBroadphaseProxy[capacity];
+        margin = new Vector3f(.1f, .1f, .1f);
+        createNodes(free);
+    }
+
+    private void ascendFixingHeightAndAabb(int node) {
+        while (node != NULL) {
+            node = balance(node);
+
+            assert (node >= 0);
+            assert (node < capacity);
+
+            int nodeLeft = left[node];
+            int nodeRight = right[node];
+
+            assert (nodeLeft >= 0);
+            assert (nodeLeft < capacity);
+            assert (nodeRight >= 0);
+            assert (nodeRight < capacity);
+
+            combine(node, nodeLeft, nodeRight);
+            height[node] = 1 + Math.max(height[nodeLeft], height[nodeRight]);
+
+            node = parent[node];
+        }
+    }
+
+    private int allocateNode() {
+
+        // Expand node arrays
+        if (free == NULL) {
+            assert (size == capacity);
+            int oldCapacity = capacity;
+            capacity *= 2;
+            free = size;
+            maxX = expand(maxX);
+            maxY = expand(maxY);
+            maxZ = expand(maxZ);
+            minX = expand(minX);
+            minY = expand(minY);
+            minZ = expand(minZ);
+            height = expand(height);
+            left = expand(left);
+            parent = expand(parent);
+            right = expand(right);
+            boolean[] newMoved = new boolean[capacity];
+            System.arraycopy(moved, 0, newMoved, 0, oldCapacity);
+            moved = newMoved;
+            PackedAABBTreeBroadphaseProxy[] newProxies = new PackedAABBTreeBroadphaseProxy[capacity];
+            System.arraycopy(proxies, 0, newProxies, 0, oldCapacity);
+            proxies = newProxies;
+            createNodes(free);
+        }
+
+        // Allocate node
+        int node = free;
+        free = parent[node]; // Next free node
+        size++;
+
+        // Defaults
+        height[node] = 0;
+        left[node] = NULL;
+        parent[node] = NULL; // Last free node
+        right[node] = NULL;
+
+        return node;
+    }
+
+    private int balance(int node) {
+        assert (node >= 0);
+        assert (node < capacity);
+
+        // Same rotations as DynamicAABBTreeBroadphase.balance()
+        if (isLeaf(node) || (height[node] < 2)) {
+            return node;
+        }
+
+        int nodeLeft = left[node];
+        int nodeRight = right[node];
+
+        assert (nodeLeft >= 0);
+        assert (nodeLeft < capacity);
+        assert (nodeRight >= 0);
+        assert (nodeRight < capacity);
+
+        int balance = height[nodeRight] - height[nodeLeft];
+
+        // Rotate left up
+        if (balance < -1) {
+            int nodeLeftLeft = left[nodeLeft];
+            int nodeLeftRight = right[nodeLeft];
+
+            assert (nodeLeftLeft >= 0);
+            assert (nodeLeftLeft < capacity);
+            assert (nodeLeftRight >= 0);
+            assert (nodeLeftRight < capacity);
+
+            // Swap node and left
+            left[nodeLeft] = node;
+            parent[nodeLeft] = parent[node];
+            parent[node] = nodeLeft;
+
+            // Node's old parent should point to left
+            replaceChild(parent[nodeLeft], node, nodeLeft);
+
+            if (height[nodeLeftLeft] > height[nodeLeftRight]) {
+                left[node] = nodeLeftRight;
+                parent[nodeLeftRight] = node;
+                right[nodeLeft] = nodeLeftLeft;
+                combine(node, nodeLeftRight, nodeRight);
+                combine(nodeLeft, node, nodeLeftLeft);
+                height[node] = 1 + Math.max(height[nodeLeftRight], height[nodeRight]);
+                height[nodeLeft] = 1 + Math.max(height[node], height[nodeLeftLeft]);
+            } else {
+                left[node] = nodeLeftLeft;
+                parent[nodeLeftLeft] = node;
+                right[nodeLeft] = nodeLeftRight;
+                combine(node, nodeLeftLeft, nodeRight);
+                combine(nodeLeft, node, nodeLeftRight);
+                height[node] = 1 + Math.max(height[nodeLeftLeft], height[nodeRight]);
+                height[nodeLeft] = 1 + Math.max(height[node], height[nodeLeftRight]);
+            }
+
+            return nodeLeft;
+        }
+
+        // Rotate right up
+        if (balance > 1) {
+            int nodeRightLeft = left[nodeRight];
+            int nodeRightRight = right[nodeRight];
+
+            assert (nodeRightLeft >= 0);
+            assert (nodeRightLeft < capacity);
+            assert (nodeRightRight >= 0);
+            assert (nodeRightRight < capacity);
+
+            // Swap node and right
+            left[nodeRight] = node;
+            parent[nodeRight] = parent[node];
+            parent[node] = nodeRight;
+
+            // Node's old parent should point to right
+            replaceChild(parent[nodeRight], node, nodeRight);
+
+            if (height[nodeRightLeft] > height[nodeRightRight]) {
+                right[node] = nodeRightRight;
+                parent[nodeRightRight] = node;
+                right[nodeRight] = nodeRightLeft;
+                combine(node, nodeLeft, nodeRightRight);
+                combine(nodeRight, node, nodeRightLeft);
+                height[node] = 1 + Math.max(height[nodeLeft], height[nodeRightRight]);
+                height[nodeRight] = 1 + Math.max(height[node], height[nodeRightLeft]);
+            } else {
+                right[node] = nodeRightLeft;
+                parent[nodeRightLeft] = node;
+                right[nodeRight] = nodeRightRight;
+                combine(node, nodeLeft, nodeRightLeft);
+                combine(nodeRight, node, nodeRightRight);
+                height[node] = 1 + Math.max(height[nodeLeft], height[nodeRightLeft]);
+                height[nodeRight] = 1 + Math.max(height[node], height[nodeRightRight]);
+            }
+
+            return nodeRight;
+        }
+
+        return node;
+    }
+
+    private void combine(int node, int node0, int node1) {
+        minX[node] = Math.min(minX[node0], minX[node1]);
+        minY[node] = Math.min(minY[node0], minY[node1]);
+        minZ[node] = Math.min(minZ[node0], minZ[node1]);
+        maxX[node] = Math.max(maxX[node0], maxX[node1]);
+        maxY[node] = Math.max(maxY[node0], maxY[node1]);
+        maxZ[node] = Math.max(maxZ[node0], maxZ[node1]);
+    }
+
+    private float combinedVolume(int node0, int node1) {
+        return (Math.max(maxX[node0], maxX[node1]) - Math.min(minX[node0], minX[node1]))
+                * (Math.max(maxY[node0], maxY[node1]) - Math.min(minY[node0], minY[node1]))
+                * (Math.max(maxZ[node0], maxZ[node1]) - Math.min(minZ[node0], minZ[node1]));
+    }
+
+    private int computeHeight(int node) {
+        if (isLeaf(node)) {
+            return 0;
+        }
+        return 1 + Math.max(computeHeight(left[node]), computeHeight(right[node]));
+    }
+
+    private void createNodes(int node) {
+        assert (node >= 0);
+        assert (node < capacity);
+
+        // Link all nodes except the last one
+        for (int i = node; i < capacity - 1; i++) {
+            height[i] = NULL; // Mark not in use
+            parent[i] = i + 1; // Next free node
+        }
+
+        // Link last node
+        height[capacity - 1] = NULL; // Mark not in use
+        parent[capacity - 1] = NULL; // Last free node
+    }
+
+    private float[] expand(float[] array) {
+        float[] newArray = new float[capacity];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+
+    private int[] expand(int[] array) {
+        int[] newArray = new int[capacity];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+
+    private void freeNode(int node) {
+        assert (node >= 0);
+        assert (node < capacity);
+        assert (size > 0);
+
+        height[node] = NULL; // Mark not in use
+        parent[node] = free; // Next free node
+        free = node;
+        size--;
+    }
+
+    private void insertLeaf(int leaf) {
+        assert (leaf >= 0);
+        assert (leaf < capacity);
+
+        // Create root node
+        if (root == NULL) {
+            root = leaf;
+            parent[leaf] = NULL;
+            return;
+        }
+
+        // Find best sibling for the leaf using the same volume heuristic as DynamicAABBTreeBroadphase
+        int node = root;
+        while (!isLeaf(node)) {
+            int nodeLeft = left[node];
+            int nodeRight = right[node];
+
+            // Calculate volumes
+            float currentVolume = volume(node);
+            float leafAndCurrentVolume = combinedVolume(node, leaf);
+
+            // Calculate costs
+            float combinedCost = 2f * leafAndCurrentVolume;
+            float leafCost = 2f * (leafAndCurrentVolume - currentVolume);
+            float leftCost = combinedVolume(nodeLeft, leaf) + leafCost;
+            float rightCost = combinedVolume(nodeRight, leaf) + leafCost;
+            if (!isLeaf(nodeLeft)) {
+                leftCost -= volume(nodeLeft);
+            }
+            if (!isLeaf(nodeRight)) {
+                rightCost -= volume(nodeRight);
+            }
+
+            // Combined cost of leaf and current node might be cheaper
+            if ((combinedCost < leftCost) && (combinedCost < rightCost)) {
+                break;
+            }
+
+            // Descend according to the minimum cost
+            if (leftCost < rightCost) {
+                node = nodeLeft;
+            } else {
+                node = nodeRight;
+            }
+        }
+
+        // We now have a sibling node so create a new parent
+        int sibling = node;
+        int oldParent = parent[sibling];
+        int newParent = allocateNode();
+        combine(newParent, sibling, leaf);
+        height[newParent] = height[sibling] + 1;
+        left[newParent] = sibling;
+        parent[newParent] = oldParent;
+        right[newParent] = leaf;
+
+        // Change parent of leaf and sibling
+        parent[leaf] = newParent;
+        parent[sibling] = newParent;
+
+        // Sibling's old parent should point to the new parent
+        replaceChild(oldParent, sibling, newParent);
+
+        ascendFixingHeightAndAabb(newParent);
+    }
+
+    private boolean isLeaf(int node) {
+        return right[node] == NULL;
+    }
+
+    private void markMoved(int leaf) {
+        if (moved[leaf]) {
+            return;
+        }
+
+        // Removed leaves can leave stale entries so the list can outgrow the capacity
+        if (totalMoved == movedLeaves.length) {
+            int[] newMovedLeaves = new int[totalMoved * 2];
+            System.arraycopy(movedLeaves, 0, newMovedLeaves, 0, totalMoved);
+            movedLeaves = newMovedLeaves;
+        }
+        moved[leaf] = true;
+        movedLeaves[totalMoved++] = leaf;
+    }
+
+    private void removeLeaf(int leaf) {
+        assert (leaf >= 0);
+        assert (leaf < capacity);
+
+        // Last leaf in the tree has no parent
+        if (leaf == root) {
+            root = NULL;
+            return;
+        }
+
+        int nodeParent = parent[leaf];
+        int nodeGrandParent = parent[nodeParent];
+        int sibling = (left[nodeParent] == leaf) ? right[nodeParent] : left[nodeParent];
+
+        if (nodeGrandParent != NULL) {
+
+            // Destroy parent and connect sibling to grand parent
+            replaceChild(nodeGrandParent, nodeParent, sibling);
+            parent[sibling] = nodeGrandParent;
+            ascendFixingHeightAndAabb(nodeGrandParent);
+        } else {
+            root = sibling;
+            parent[sibling] = NULL;
+        }
+
+        freeNode(nodeParent);
+    }
+
+    private void replaceChild(int node, int oldChild, int newChild) {
+
+        // A node without a parent is the root
+        if (node == NULL) {
+            root = newChild;
+            return;
+        }
+
+        if (left[node] == oldChild) {
+            left[node] = newChild;
+        } else {
+            right[node] = newChild;
+        }
+    }
+
+    private void setBounds(int node, AABB aabb) {
+        minX[node] = aabb.getMin().getX();
+        minY[node] = aabb.getMin().getY();
+        minZ[node] = aabb.getMin().getZ();
+        maxX[node] = aabb.getMax().getX();
+        maxY[node] = aabb.getMax().getY();
+        maxZ[node] = aabb.getMax().getZ();
+    }
+
+    private void validate(int node) {
+        if (node == root) {
+            assert (parent[node] == NULL);
+        }
+
+        if (isLeaf(node)) {
+
+            // Test leaf node
+            assert (height[node] == 0);
+            assert (left[node] == NULL);
+            assert (proxies[node] != null);
+            assert (proxies[node].node == node);
+            return;
+        }
+
+        int nodeLeft = left[node];
+        int nodeRight = right[node];
+
+        // Test links, height and bounds against the children
+        assert (parent[nodeLeft] == node);
+        assert (parent[nodeRight] == node);
+        assert (proxies[node] == null);
+        assert (height[node] == 1 + Math.max(height[nodeLeft], height[nodeRight]));
+        assert (minX[node] == Math.min(minX[nodeLeft], minX[nodeRight]));
+        assert (minY[node] == Math.min(minY[nodeLeft], minY[nodeRight]));
+        assert (minZ[node] == Math.min(minZ[nodeLeft], minZ[nodeRight]));
+        assert (maxX[node] == Math.max(maxX[nodeLeft], maxX[nodeRight]));
+        assert (maxY[node] == Math.max(maxY[nodeLeft], maxY[nodeRight]));
+        assert (maxZ[node] == Math.max(maxZ[nodeLeft], maxZ[nodeRight]));
+
+        // Decend
+        validate(nodeLeft);
+        validate(nodeRight);
+    }
+
+    private float volume(int node) {
+        return (maxX[node] - minX[node]) * (maxY[node] - minY[node]) * (maxZ[node] - minZ[node]);
+    }
+
+    public float getDisplacementMultiplier() {
+        return displacementMultiplier;
+    }
+
+    public void setDisplacementMultiplier(float displacementMultiplier) {
+        this.displacementMultiplier = displacementMultiplier;
+    }
+
+    public int getHeight() {
+        if (root == NULL) {
+            return 0;
+        }
+        return height[root];
+    }
+
+    public Vector3f getMargin() {
+        return margin;
+    }
+
+    public void setMargin(float margin) {
+        this.margin.set(margin, margin, margin);
+    }
+
+    public void setMargin(float x, float y, float z) {
+        this.margin.set(x, y, z);
+    }
+
+    public void setMargin(Vector3f margin) {
+        this.margin.set(margin);
+    }
+
+    public void validate() {
+        if (root != NULL) {
+            validate(root);
+            assert (computeHeight(root) == getHeight());
+        }
+
+        int freeCount = 0;
+        int node = free;
+        while (node != NULL) {
+            assert (node >= 0);
+            assert (node < capacity);
+            node = parent[node];
+            freeCount++;
+        }
+
+        assert (freeCount + size == capacity);
+    }
+
+    @Override
+    public BroadphaseProxy createProxy(CollisionGameObject collisionGameObject, int collisionGroup,
+            int collisionCollidesWith, AABB worldAabb) {
+        int leaf = allocateNode();
+
+        PackedAABBTreeBroadphaseProxy proxy = new PackedAABBTreeBroadphaseProxy();
+        proxies[leaf] = proxy;
+
+        // Set proxy AABB and add margin
+        proxy.aabb.set(worldAabb);
+        proxy.aabb.expand(margin);
+        proxy.collisionCollidesWith = collisionCollidesWith;
+        proxy.collisionGameObject = collisionGameObject;
+        proxy.collisionGroup = collisionGroup;
+        proxy.node = leaf;
+        proxy.uniqueId = leaf; // Leaf nodes keep their index for their lifetime
+
+        // Insert leaf into tree
+        setBounds(leaf, proxy.aabb);
+        insertLeaf(leaf);
+        markMoved(leaf);
+
+        return proxy;
+    }
+
+    @Override
+    public void destroyDebugRender() {
+    }
+
+    @Override
+    public OverlappingPairCache getOverlappingPairCache() {
+        return overlappingPairCache;
+    }
+
+    @Override
+    public PipelineRenderDebugCallback getPipelineRenderDebugCallback() {
+        return null;
+    }
+
+    @Override
+    public boolean moveProxy(BroadphaseProxy broadphaseProxy, AABB worldAabb) {
+
+        // Downcast
+        PackedAABBTreeBroadphaseProxy proxy = (PackedAABBTreeBroadphaseProxy) broadphaseProxy;
+
+        // If the new AABB is still contained in the proxy's AABB then we do nothing
+        if (AABBUtilities.IsAabb0ContainedInAabb1(worldAabb, proxy.aabb)) {
+            return false;
+        }
+
+        // Remove leaf from tree
+        removeLeaf(proxy.node);
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Vector3f worldCenterNew = vars.v3f1;
+        Vector3f worldCenterOld = vars.v3f2;
+
+        // Calculate displacement
+        worldCenterNew.set(worldAabb.getMin()).add(worldAabb.getMax()).multiply(.5f);
+        worldCenterOld.set(proxy.aabb.getMin()).add(proxy.aabb.getMax()).multiply(.5f);
+        worldCenterNew.subtract(worldCenterOld).multiply(displacementMultiplier);
+
+        // Set proxy AABB and add margin
+        proxy.aabb.set(worldAabb);
+        proxy.aabb.expand(margin);
+
+        // Expand AABB by the displacement vector
+        if (worldCenterNew.getX() < 0f) {
+            proxy.aabb.getMin().addX(worldCenterNew.getX());
+        } else {
+            proxy.aabb.getMax().addX(worldCenterNew.getX());
+        }
+        if (worldCenterNew.getY() < 0f) {
+            proxy.aabb.getMin().addY(worldCenterNew.getY());
+        } else {
+            proxy.aabb.getMax().addY(worldCenterNew.getY());
+        }
+        if (worldCenterNew.getZ() < 0f) {
+            proxy.aabb.getMin().addZ(worldCenterNew.getZ());
+        } else {
+            proxy.aabb.getMax().addZ(worldCenterNew.getZ());
+        }
+
+        // Release vars instance
+        vars.release();
+
+        // Insert leaf back into tree
+        setBounds(proxy.node, proxy.aabb);
+        insertLeaf(proxy.node);
+        markMoved(proxy.node);
+
+        return true;
+    }
+
+    @Override
+    public void removeProxy(BroadphaseProxy broadphaseProxy) {
+        PackedAABBTreeBroadphaseProxy proxy = (PackedAABBTreeBroadphaseProxy) broadphaseProxy;
+        overlappingPairCache.removeOverlappingPairsContainingProxy(proxy);
+        removeLeaf(proxy.node);
+        moved[proxy.node] = false; // Stale entries in movedLeaves are skipped
+        proxies[proxy.node] = null;
+        freeNode(proxy.node);
+    }
+
+    @Override
+    public void updateOverlappingPairs() {
+
+        // Only leaves that moved can have new pairs. Pairs between leaves that did not move are already in the
+        // cache and are removed by the narrowphase once the AABBs stop overlapping.
+        for (int i = 0; i < totalMoved; i++) {
+            int leaf = movedLeaves[i];
+
+            // Skip removed leaf
+            if (!moved[leaf]) {
+                continue;
+            }
+
+            float leafMinX = minX[leaf];
+            float leafMinY = minY[leaf];
+            float leafMinZ = minZ[leaf];
+            float leafMaxX = maxX[leaf];
+            float leafMaxY = maxY[leaf];
+            float leafMaxZ = maxZ[leaf];
+
+            // Start with root
+            int stackSize = 0;
+            stack[stackSize++] = root;
+
+            // Loop until empty
+            while (stackSize > 0) {
+                int node = stack[--stackSize];
+
+                // Test for intersection
+                if ((minX[node] > leafMaxX) || (leafMinX > maxX[node])
+                        || (minZ[node] > leafMaxZ) || (leafMinZ > maxZ[node])
+                        || (minY[node] > leafMaxY) || (leafMinY > maxY[node])) {
+                    continue;
+                }
+
+                if (isLeaf(node)) {
+
+                    // Skip self collisions. When both leaves moved only the lower leaf adds the pair. Adding a pair
+                    // that is already cached returns the existing pair.
+                    if ((node != leaf) && (!moved[node] || (leaf < node))) {
+                        overlappingPairCache.addOverlappingPair(proxies[leaf], proxies[node]);
+                    }
+                    continue;
+                }
+
+                // Decend the tree
+                if (stackSize + 2 > stack.length) {
+                    int[] newStack = new int[stack.length * 2];
+                    System.arraycopy(stack, 0, newStack, 0, stackSize);
+                    stack = newStack;
+                }
+                stack[stackSize++] = left[node];
+                stack[stackSize++] = right[node];
+            }
+        }
+
+        // Clear moved leaves
+        for (int i = 0; i < totalMoved; i++) {
+            moved[movedLeaves[i]] = false;
+        }
+        totalMoved = 0;
+    }
+
+}
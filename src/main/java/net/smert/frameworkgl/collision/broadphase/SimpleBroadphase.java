@@ -135,6 +135,7 @@ public class SimpleBroadphase implements BroadphaseAlgorithm {
         proxy.collisionCollidesWith = collisionCollidesWith;
         proxy.collisionGameObject = collisionGameObject;
         proxy.collisionGroup = collisionGroup;
+        proxy.uniqueId = proxy.index;
 
         return proxy;
     }
@@ -204,6 +205,7 @@ public class SimpleBroadphase implements BroadphaseAlgorithm {
     @Override
     public void removeProxy(BroadphaseProxy broadphaseProxy) {
         SimpleBroadphaseProxy proxy = (SimpleBroadphaseProxy) broadphaseProxy;
+        overlappingPairCache.removeOverlappingPairsContainingProxy(proxy);
         freeProxy(proxy);
     }
 
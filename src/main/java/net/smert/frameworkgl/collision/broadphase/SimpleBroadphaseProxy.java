@@ -12,8 +12,6 @@
  */
 package net.smert.frameworkgl.collision.broadphase;
 
-import net.smert.frameworkgl.math.AABB;
-
 /**
  *
  * @author Jason Sorensen <sorensenj@smert.net>
@@ -22,6 +20,5 @@ public class SimpleBroadphaseProxy extends BroadphaseProxy {
 
     int index;
     int next;
-    public final AABB aabb = new AABB();
 
 }
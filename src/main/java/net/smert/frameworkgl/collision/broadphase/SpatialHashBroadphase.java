@@ -0,0 +1,530 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.collision.broadphase;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.math.AABB;
+import net.smert.frameworkgl.math.AABBUtilities;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.opengl.pipeline.PipelineRenderDebugCallback;
+import net.smert.frameworkgl.utils.ThreadLocalVars;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class SpatialHashBroadphase implements BroadphaseAlgorithm {
+
+    private final static int NULL = -1;
+    private final static int CELL_BITS = 21;
+    private final static long CELL_MASK = (1L << CELL_BITS) - 1;
+    private final static long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private float cellSize;
+    private float displacementMultiplier;
+    private float inverseCellSize;
+    private int bucketCount;
+    private int bucketsPerTask;
+    private int capacity;
+    private int free;
+    private int hashShift;
+    private int maxCellsPerProxy;
+    private int size;
+    private int totalEntries;
+    private int totalLargeProxies;
+    private ForkJoinPool forkJoinPool;
+    private int[] bucketStarts;
+    private int[] entryProxies;
+    private int[] largeProxies;
+    private int[] pairBufferSizes;
+    private int[] sortedProxies;
+    private int[][] pairBuffers; // One per task so that tasks never share a buffer
+    private long[] entryCells;
+    private long[] sortedCells;
+    private final OverlappingPairCache overlappingPairCache;
+    private SpatialHashBroadphaseProxy[] proxies;
+    private final Vector3f margin;
+
+    public SpatialHashBroadphase(OverlappingPairCache overlappingPairCache) {
+        this.overlappingPairCache = overlappingPairCache;
+
+        cellSize = 2f;
+        displacementMultiplier = 2f;
+        inverseCellSize = 1f / cellSize;
+        bucketCount = 0;
+        bucketsPerTask = 1024;
+        capacity = 16;
+        free = 0;
+        hashShift = 64;
+        maxCellsPerProxy = 64;
+        size = 0;
+        totalEntries = 0;
+        totalLargeProxies = 0;
+        forkJoinPool = ForkJoinPool.commonPool();
+        bucketStarts = new int[1];
+        entryProxies = new int[capacity];
+        largeProxies = new int[capacity];
+        pairBufferSizes = new int[0];
+        sortedProxies = new int[capacity];
+        pairBuffers = new int[0][];
+        entryCells = new long[capacity];
+        sortedCells = new long[capacity];
+        proxies = new SpatialHashBroadphaseProxy[capacity];
+        margin = new Vector3f(.1f, .1f, .1f);
+        createProxies(free);
+    }
+
+    private SpatialHashBroadphaseProxy allocateProxy() {
+
+        // Expand proxies array
+        if (free == NULL) {
+            assert (size == capacity);
+            capacity *= 2;
+            free = size;
+            SpatialHashBroadphaseProxy[] newProxies = new SpatialHashBroadphaseProxy[capacity];
+            System.arraycopy(proxies, 0, newProxies, 0, size);
+            proxies = newProxies;
+            largeProxies = new int[capacity];
+            createProxies(free);
+        }
+
+        // Allocate proxy
+        int index = free;
+        SpatialHashBroadphaseProxy proxy = proxies[index];
+        free = proxy.next; // Next free proxy
+        size++;
+
+        // Defaults
+        proxy.index = index; // Mark proxy in use and also used to free proxy
+        proxy.next = NULL; // Last free proxy
+
+        return proxy;
+    }
+
+    private void createProxies(int index) {
+        assert (index >= 0);
+        assert (index < capacity);
+
+        // Create all proxies except the last one
+        for (int i = index; i < capacity - 1; i++) {
+            SpatialHashBroadphaseProxy proxy = new SpatialHashBroadphaseProxy();
+            proxy.index = NULL; // Mark not in use
+            proxy.next = i + 1; // Next free proxy
+            proxies[i] = proxy;
+        }
+
+        // Create last proxy
+        SpatialHashBroadphaseProxy proxy = new SpatialHashBroadphaseProxy();
+        proxy.index = NULL; // Mark not in use
+        proxy.next = NULL; // Last free proxy
+        proxies[capacity - 1] = proxy;
+    }
+
+    private void freeProxy(SpatialHashBroadphaseProxy proxy) {
+        assert (size > 0);
+        proxy.next = free; // Next free proxy
+        free = proxy.index;
+        size--;
+        proxy.index = NULL; // Mark proxy free
+    }
+
+    private void addPair(int leaf, int index0, int index1) {
+        int[] pairBuffer = pairBuffers[leaf];
+        int pairBufferSize = pairBufferSizes[leaf];
+        if (pairBufferSize + 2 > pairBuffer.length) {
+            int[] newPairBuffer = new int[pairBuffer.length * 2];
+            System.arraycopy(pairBuffer, 0, newPairBuffer, 0, pairBufferSize);
+            pairBuffer = newPairBuffer;
+            pairBuffers[leaf] = pairBuffer;
+        }
+        pairBuffer[pairBufferSize] = index0;
+        pairBuffer[pairBufferSize + 1] = index1;
+        pairBufferSizes[leaf] = pairBufferSize + 2;
+    }
+
+    private void binProxies() {
+
+        // Find the cells covered by each proxy and count entries
+        totalEntries = 0;
+        totalLargeProxies = 0;
+        for (int i = 0; i < capacity; i++) {
+            SpatialHashBroadphaseProxy proxy = proxies[i];
+
+            // Skip free proxy
+            if (proxy.index == NULL) {
+                continue;
+            }
+
+            long cells = 1;
+            for (int axis = 0; axis < 3; axis++) {
+                proxy.minCell[axis] = (int) Math.floor(proxy.aabb.getMin().getElement(axis) * inverseCellSize);
+                proxy.maxCell[axis] = (int) Math.floor(proxy.aabb.getMax().getElement(axis) * inverseCellSize);
+                cells *= proxy.maxCell[axis] - proxy.minCell[axis] + 1;
+            }
+            proxy.large = (cells > maxCellsPerProxy);
+            if (proxy.large) {
+                largeProxies[totalLargeProxies++] = i;
+            } else {
+                totalEntries += (int) cells;
+            }
+        }
+
+        // Size the hash table to about two buckets per entry
+        int newBucketCount = 16;
+        while (newBucketCount < totalEntries * 2) {
+            newBucketCount *= 2;
+        }
+        if (newBucketCount != bucketCount) {
+            bucketCount = newBucketCount;
+            bucketStarts = new int[bucketCount + 1];
+            hashShift = 64 - Integer.numberOfTrailingZeros(bucketCount);
+        } else {
+            for (int i = 0; i <= bucketCount; i++) {
+                bucketStarts[i] = 0;
+            }
+        }
+        if (totalEntries > entryCells.length) {
+            int newEntryCapacity = entryCells.length;
+            while (newEntryCapacity < totalEntries) {
+                newEntryCapacity *= 2;
+            }
+            entryCells = new long[newEntryCapacity];
+            entryProxies = new int[newEntryCapacity];
+            sortedCells = new long[newEntryCapacity];
+            sortedProxies = new int[newEntryCapacity];
+        }
+
+        // Add an entry for each cell and count entries per bucket
+        int entry = 0;
+        for (int i = 0; i < capacity; i++) {
+            SpatialHashBroadphaseProxy proxy = proxies[i];
+
+            // Skip free and large proxies
+            if ((proxy.index == NULL) || proxy.large) {
+                continue;
+            }
+
+            for (int x = proxy.minCell[0]; x <= proxy.maxCell[0]; x++) {
+                for (int y = proxy.minCell[1]; y <= proxy.maxCell[1]; y++) {
+                    for (int z = proxy.minCell[2]; z <= proxy.maxCell[2]; z++) {
+                        long cell = getCell(x, y, z);
+                        entryCells[entry] = cell;
+                        entryProxies[entry] = i;
+                        bucketStarts[hash(cell) + 1]++;
+                        entry++;
+                    }
+                }
+            }
+        }
+        assert (entry == totalEntries);
+
+        // Prefix sum of the counts gives the start of each bucket
+        for (int i = 0; i < bucketCount; i++) {
+            bucketStarts[i + 1] += bucketStarts[i];
+        }
+
+        // Scatter entries into buckets which leaves each start at the end of its bucket
+        for (int i = 0; i < totalEntries; i++) {
+            int sortedEntry = bucketStarts[hash(entryCells[i])]++;
+            sortedCells[sortedEntry] = entryCells[i];
+            sortedProxies[sortedEntry] = entryProxies[i];
+        }
+        for (int i = bucketCount; i > 0; i--) {
+            bucketStarts[i] = bucketStarts[i - 1];
+        }
+        bucketStarts[0] = 0;
+    }
+
+    private void findPairs(int leaf) {
+        int start = leaf * bucketsPerTask;
+        int end = Math.min(start + bucketsPerTask, bucketCount);
+        for (int bucket = start; bucket < end; bucket++) {
+            int bucketEnd = bucketStarts[bucket + 1];
+            for (int i = bucketStarts[bucket]; i < bucketEnd; i++) {
+                long cell = sortedCells[i];
+                SpatialHashBroadphaseProxy proxy0 = proxies[sortedProxies[i]];
+
+                for (int j = i + 1; j < bucketEnd; j++) {
+
+                    // Different cells can share a bucket
+                    if (sortedCells[j] != cell) {
+                        continue;
+                    }
+
+                    SpatialHashBroadphaseProxy proxy1 = proxies[sortedProxies[j]];
+
+                    // Pairs where neither proxy moved are already in the cache
+                    if (!proxy0.moved && !proxy1.moved) {
+                        continue;
+                    }
+
+                    // Overlapping proxies share every cell their overlap covers. Only report the pair from the cell
+                    // that contains the minimum corner of the overlap.
+                    long firstSharedCell = getCell(Math.max(proxy0.minCell[0], proxy1.minCell[0]),
+                            Math.max(proxy0.minCell[1], proxy1.minCell[1]),
+                            Math.max(proxy0.minCell[2], proxy1.minCell[2]));
+                    if (firstSharedCell != cell) {
+                        continue;
+                    }
+
+                    // Test for intersection
+                    if (AABBUtilities.DoesAabb0IntersectAabb1(proxy0.aabb, proxy1.aabb)) {
+                        addPair(leaf, proxy0.index, proxy1.index);
+                    }
+                }
+            }
+        }
+    }
+
+    private long getCell(int x, int y, int z) {
+        return ((x & CELL_MASK) << (CELL_BITS * 2)) | ((y & CELL_MASK) << CELL_BITS) | (z & CELL_MASK);
+    }
+
+    private int hash(long cell) {
+        return (int) ((cell * HASH_MULTIPLIER) >>> hashShift);
+    }
+
+    public int getBucketsPerTask() {
+        return bucketsPerTask;
+    }
+
+    public void setBucketsPerTask(int bucketsPerTask) {
+        this.bucketsPerTask = bucketsPerTask;
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    public void setCellSize(float cellSize) {
+        this.cellSize = cellSize;
+        inverseCellSize = 1f / cellSize;
+    }
+
+    public float getDisplacementMultiplier() {
+        return displacementMultiplier;
+    }
+
+    public void setDisplacementMultiplier(float displacementMultiplier) {
+        this.displacementMultiplier = displacementMultiplier;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    public Vector3f getMargin() {
+        return margin;
+    }
+
+    public void setMargin(float margin) {
+        this.margin.set(margin, margin, margin);
+    }
+
+    public void setMargin(float x, float y, float z) {
+        this.margin.set(x, y, z);
+    }
+
+    public void setMargin(Vector3f margin) {
+        this.margin.set(margin);
+    }
+
+    public int getMaxCellsPerProxy() {
+        return maxCellsPerProxy;
+    }
+
+    public void setMaxCellsPerProxy(int maxCellsPerProxy) {
+        this.maxCellsPerProxy = maxCellsPerProxy;
+    }
+
+    @Override
+    public BroadphaseProxy createProxy(CollisionGameObject collisionGameObject, int collisionGroup,
+            int collisionCollidesWith, AABB worldAabb) {
+        SpatialHashBroadphaseProxy proxy = allocateProxy();
+
+        // Set proxy AABB and add margin
+        proxy.aabb.set(worldAabb);
+        proxy.aabb.expand(margin);
+        proxy.collisionCollidesWith = collisionCollidesWith;
+        proxy.collisionGameObject = collisionGameObject;
+        proxy.collisionGroup = collisionGroup;
+        proxy.moved = true;
+        proxy.uniqueId = proxy.index;
+
+        return proxy;
+    }
+
+    @Override
+    public void destroyDebugRender() {
+    }
+
+    @Override
+    public OverlappingPairCache getOverlappingPairCache() {
+        return overlappingPairCache;
+    }
+
+    @Override
+    public PipelineRenderDebugCallback getPipelineRenderDebugCallback() {
+        return null;
+    }
+
+    @Override
+    public boolean moveProxy(BroadphaseProxy broadphaseProxy, AABB worldAabb) {
+
+        // Downcast
+        SpatialHashBroadphaseProxy proxy = (SpatialHashBroadphaseProxy) broadphaseProxy;
+
+        // If the new AABB is still contained in the proxy's AABB then we do nothing
+        if (AABBUtilities.IsAabb0ContainedInAabb1(worldAabb, proxy.aabb)) {
+            return false;
+        }
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Vector3f worldCenterNew = vars.v3f1;
+        Vector3f worldCenterOld = vars.v3f2;
+
+        // Calculate displacement
+        worldCenterNew.set(worldAabb.getMin()).add(worldAabb.getMax()).multiply(.5f);
+        worldCenterOld.set(proxy.aabb.getMin()).add(proxy.aabb.getMax()).multiply(.5f);
+        worldCenterNew.subtract(worldCenterOld).multiply(displacementMultiplier);
+
+        // Set proxy AABB and add margin
+        proxy.aabb.set(worldAabb);
+        proxy.aabb.expand(margin);
+
+        // Expand AABB by the displacement vector
+        if (worldCenterNew.getX() < 0f) {
+            proxy.aabb.getMin().addX(worldCenterNew.getX());
+        } else {
+            proxy.aabb.getMax().addX(worldCenterNew.getX());
+        }
+        if (worldCenterNew.getY() < 0f) {
+            proxy.aabb.getMin().addY(worldCenterNew.getY());
+        } else {
+            proxy.aabb.getMax().addY(worldCenterNew.getY());
+        }
+        if (worldCenterNew.getZ() < 0f) {
+            proxy.aabb.getMin().addZ(worldCenterNew.getZ());
+        } else {
+            proxy.aabb.getMax().addZ(worldCenterNew.getZ());
+        }
+
+        // Release vars instance
+        vars.release();
+
+        proxy.moved = true;
+
+        return true;
+    }
+
+    @Override
+    public void removeProxy(BroadphaseProxy broadphaseProxy) {
+        SpatialHashBroadphaseProxy proxy = (SpatialHashBroadphaseProxy) broadphaseProxy;
+        overlappingPairCache.removeOverlappingPairsContainingProxy(proxy);
+        freeProxy(proxy);
+    }
+
+    @Override
+    public void updateOverlappingPairs() {
+        binProxies();
+
+        // Each task searches a range of buckets and writes pairs into its own buffer
+        int totalTasks = (bucketCount + bucketsPerTask - 1) / bucketsPerTask;
+        if (totalTasks > pairBuffers.length) {
+            int[][] newPairBuffers = new int[totalTasks][];
+            System.arraycopy(pairBuffers, 0, newPairBuffers, 0, pairBuffers.length);
+            for (int i = pairBuffers.length; i < totalTasks; i++) {
+                newPairBuffers[i] = new int[64];
+            }
+            pairBuffers = newPairBuffers;
+            pairBufferSizes = new int[totalTasks];
+        }
+        for (int i = 0; i < totalTasks; i++) {
+            pairBufferSizes[i] = 0;
+        }
+        if (totalTasks == 1) {
+            findPairs(0);
+        } else {
+            forkJoinPool.invoke(new FindPairsTask(0, totalTasks));
+        }
+
+        // The pair cache is not thread safe so merge serially in task order. Adding a pair that is already cached
+        // returns the existing pair. Pairs are removed by the narrowphase once the AABBs stop overlapping.
+        for (int i = 0; i < totalTasks; i++) {
+            int[] pairBuffer = pairBuffers[i];
+            int pairBufferSize = pairBufferSizes[i];
+            for (int j = 0; j < pairBufferSize; j += 2) {
+                overlappingPairCache.addOverlappingPair(proxies[pairBuffer[j]], proxies[pairBuffer[j + 1]]);
+            }
+        }
+
+        // Large proxies are tested against every other proxy
+        for (int i = 0; i < totalLargeProxies; i++) {
+            SpatialHashBroadphaseProxy proxy0 = proxies[largeProxies[i]];
+            for (int j = 0; j < capacity; j++) {
+                SpatialHashBroadphaseProxy proxy1 = proxies[j];
+
+                // Skip free proxy, self and large proxy pairs seen from the other side
+                if ((proxy1.index == NULL) || (proxy1 == proxy0) || (proxy1.large && (j < proxy0.index))) {
+                    continue;
+                }
+
+                // Pairs where neither proxy moved are already in the cache
+                if (!proxy0.moved && !proxy1.moved) {
+                    continue;
+                }
+
+                // Test for intersection
+                if (AABBUtilities.DoesAabb0IntersectAabb1(proxy0.aabb, proxy1.aabb)) {
+                    overlappingPairCache.addOverlappingPair(proxy0, proxy1);
+                }
+            }
+        }
+
+        // Clear moved flags
+        for (int i = 0; i < capacity; i++) {
+            proxies[i].moved = false;
+        }
+    }
+
+    private class FindPairsTask extends RecursiveAction {
+
+        private final int end;
+        private final int start;
+
+        public FindPairsTask(int start, int end) {
+            this.end = end;
+            this.start = start;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                findPairs(start);
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+            invokeAll(new FindPairsTask(start, middle), new FindPairsTask(middle, end));
+        }
+
+    }
+
+}
@@ -0,0 +1,443 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.collision.broadphase;
+
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.math.AABB;
+import net.smert.frameworkgl.math.AABBUtilities;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.opengl.pipeline.PipelineRenderDebugCallback;
+import net.smert.frameworkgl.utils.ThreadLocalVars;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class SweepAndPruneBroadphase implements BroadphaseAlgorithm {
+
+    private final static int NULL = -1;
+    private final static int MAX_FLAG = 1;
+
+    private float displacementMultiplier;
+    private int capacity;
+    private int free;
+    private int size;
+    private int totalEndpoints;
+
+    // The min and max of each proxy AABB are kept sorted per axis. Pairs are only added or removed when an endpoint
+    // passes the endpoint of another proxy while being insertion sorted.
+    private final int[][] endpointHandles; // Proxy index shifted left by one and MAX_FLAG for max endpoints
+    private final float[][] endpointValues;
+    private final OverlappingPairCache overlappingPairCache;
+    private SweepAndPruneBroadphaseProxy[] proxies;
+    private final Vector3f margin;
+
+    public SweepAndPruneBroadphase(OverlappingPairCache overlappingPairCache) {
+        this.overlappingPairCache = overlappingPairCache;
+
+        displacementMultiplier = 2f;
+        capacity = 16;
+        free = 0;
+        size = 0;
+        totalEndpoints = 0;
+        endpointHandles = new int[3][capacity * 2];
+        endpointValues = new float[3][capacity * 2];
+        proxies = new SweepAndPruneBroadphaseProxy[capacity];
+        margin = new Vector3f(.1f, .1f, .1f);
+        createProxies(free);
+    }
+
+    private SweepAndPruneBroadphaseProxy allocateProxy() {
+
+        // Expand proxies and endpoint arrays
+        if (free == NULL) {
+            assert (size == capacity);
+            capacity *= 2;
+            free = size;
+            SweepAndPruneBroadphaseProxy[] newProxies = new SweepAndPruneBroadphaseProxy[capacity];
+            System.arraycopy(proxies, 0, newProxies, 0, size);
+            proxies = newProxies;
+            for (int axis = 0; axis < 3; axis++) {
+                int[] newHandles = new int[capacity * 2];
+                float[] newValues = new float[capacity * 2];
+                System.arraycopy(endpointHandles[axis], 0, newHandles, 0, totalEndpoints);
+                System.arraycopy(endpointValues[axis], 0, newValues, 0, totalEndpoints);
+                endpointHandles[axis] = newHandles;
+                endpointValues[axis] = newValues;
+            }
+            createProxies(free);
+        }
+
+        // Allocate proxy
+        int index = free;
+        SweepAndPruneBroadphaseProxy proxy = proxies[index];
+        free = proxy.next; // Next free proxy
+        size++;
+
+        // Defaults
+        proxy.index = index; // Mark proxy in use and also used to free proxy
+        proxy.next = NULL; // Last free proxy
+
+        return proxy;
+    }
+
+    private void createProxies(int index) {
+        assert (index >= 0);
+        assert (index < capacity);
+
+        // Create all proxies except the last one
+        for (int i = index; i < capacity - 1; i++) {
+            SweepAndPruneBroadphaseProxy proxy = new SweepAndPruneBroadphaseProxy();
+            proxy.index = NULL; // Mark not in use
+            proxy.next = i + 1; // Next free proxy
+            proxies[i] = proxy;
+        }
+
+        // Create last proxy
+        SweepAndPruneBroadphaseProxy proxy = new SweepAndPruneBroadphaseProxy();
+        proxy.index = NULL; // Mark not in use
+        proxy.next = NULL; // Last free proxy
+        proxies[capacity - 1] = proxy;
+    }
+
+    private void freeProxy(SweepAndPruneBroadphaseProxy proxy) {
+        assert (size > 0);
+        proxy.next = free; // Next free proxy
+        free = proxy.index;
+        size--;
+        proxy.index = NULL; // Mark proxy free
+    }
+
+    private void addPairIfOverlapping(SweepAndPruneBroadphaseProxy proxy0, SweepAndPruneBroadphaseProxy proxy1,
+            int axis) {
+
+        // The axis being sorted now overlaps so only the other two need to be tested
+        int axis1 = (axis + 1) % 3;
+        int axis2 = (axis + 2) % 3;
+        if (doesOverlapOnAxis(proxy0.aabb, proxy1.aabb, axis1) && doesOverlapOnAxis(proxy0.aabb, proxy1.aabb, axis2)) {
+            if (overlappingPairCache.findOverlappingPair(proxy0, proxy1) == null) {
+                overlappingPairCache.addOverlappingPair(proxy0, proxy1);
+            }
+        }
+    }
+
+    private boolean doesOverlapOnAxis(AABB aabb0, AABB aabb1, int axis) {
+        return ((aabb0.getMin().getElement(axis) <= aabb1.getMax().getElement(axis))
+                && (aabb1.getMin().getElement(axis) <= aabb0.getMax().getElement(axis)));
+    }
+
+    private void removePair(SweepAndPruneBroadphaseProxy proxy0, SweepAndPruneBroadphaseProxy proxy1) {
+        if (overlappingPairCache.findOverlappingPair(proxy0, proxy1) != null) {
+            overlappingPairCache.removeOverlappingPair(proxy0, proxy1);
+        }
+    }
+
+    private void setEndpoint(int axis, int endpoint, int handle, float value) {
+        endpointHandles[axis][endpoint] = handle;
+        endpointValues[axis][endpoint] = value;
+        SweepAndPruneBroadphaseProxy proxy = proxies[handle >> 1];
+        if ((handle & MAX_FLAG) == MAX_FLAG) {
+            proxy.maxEndpoints[axis] = endpoint;
+        } else {
+            proxy.minEndpoints[axis] = endpoint;
+        }
+    }
+
+    // At equal values a min endpoint is always sorted before a max endpoint so touching AABBs overlap. This matches
+    // the tests in AABBUtilities.
+    private void sortMaxDown(int axis, int endpoint, boolean updateOverlaps) {
+        int[] handles = endpointHandles[axis];
+        float[] values = endpointValues[axis];
+        int handle = handles[endpoint];
+        float value = values[endpoint];
+        SweepAndPruneBroadphaseProxy proxy = proxies[handle >> 1];
+
+        int prev = endpoint - 1;
+        while ((prev >= 0) && (values[prev] > value)) {
+            int prevHandle = handles[prev];
+
+            // Max passed a min of another proxy so they no longer overlap
+            if (updateOverlaps && ((prevHandle & MAX_FLAG) == 0)) {
+                removePair(proxy, proxies[prevHandle >> 1]);
+            }
+
+            setEndpoint(axis, prev + 1, prevHandle, values[prev]);
+            prev--;
+        }
+        setEndpoint(axis, prev + 1, handle, value);
+    }
+
+    private void sortMaxUp(int axis, int endpoint, boolean updateOverlaps) {
+        int[] handles = endpointHandles[axis];
+        float[] values = endpointValues[axis];
+        int handle = handles[endpoint];
+        float value = values[endpoint];
+        SweepAndPruneBroadphaseProxy proxy = proxies[handle >> 1];
+
+        int next = endpoint + 1;
+        while ((next < totalEndpoints) && ((values[next] < value)
+                || ((values[next] == value) && ((handles[next] & MAX_FLAG) == 0)))) {
+            int nextHandle = handles[next];
+
+            // Max passed a min of another proxy so they might overlap
+            if (updateOverlaps && ((nextHandle & MAX_FLAG) == 0) && ((nextHandle >> 1) != proxy.index)) {
+                addPairIfOverlapping(proxy, proxies[nextHandle >> 1], axis);
+            }
+
+            setEndpoint(axis, next - 1, nextHandle, values[next]);
+            next++;
+        }
+        setEndpoint(axis, next - 1, handle, value);
+    }
+
+    private void sortMinDown(int axis, int endpoint, boolean updateOverlaps) {
+        int[] handles = endpointHandles[axis];
+        float[] values = endpointValues[axis];
+        int handle = handles[endpoint];
+        float value = values[endpoint];
+        SweepAndPruneBroadphaseProxy proxy = proxies[handle >> 1];
+
+        int prev = endpoint - 1;
+        while ((prev >= 0) && ((values[prev] > value)
+                || ((values[prev] == value) && ((handles[prev] & MAX_FLAG) == MAX_FLAG)))) {
+            int prevHandle = handles[prev];
+
+            // Min passed a max of another proxy so they might overlap
+            if (updateOverlaps && ((prevHandle & MAX_FLAG) == MAX_FLAG) && ((prevHandle >> 1) != proxy.index)) {
+                addPairIfOverlapping(proxy, proxies[prevHandle >> 1], axis);
+            }
+
+            setEndpoint(axis, prev + 1, prevHandle, values[prev]);
+            prev--;
+        }
+        setEndpoint(axis, prev + 1, handle, value);
+    }
+
+    private void sortMinUp(int axis, int endpoint, boolean updateOverlaps) {
+        int[] handles = endpointHandles[axis];
+        float[] values = endpointValues[axis];
+        int handle = handles[endpoint];
+        float value = values[endpoint];
+        SweepAndPruneBroadphaseProxy proxy = proxies[handle >> 1];
+
+        int next = endpoint + 1;
+        while ((next < totalEndpoints) && (values[next] < value)) {
+            int nextHandle = handles[next];
+
+            // Min passed a max of another proxy so they no longer overlap
+            if (updateOverlaps && ((nextHandle & MAX_FLAG) == MAX_FLAG) && ((nextHandle >> 1) != proxy.index)) {
+                removePair(proxy, proxies[nextHandle >> 1]);
+            }
+
+            setEndpoint(axis, next - 1, nextHandle, values[next]);
+            next++;
+        }
+        setEndpoint(axis, next - 1, handle, value);
+    }
+
+    private void updateEndpoints(SweepAndPruneBroadphaseProxy proxy) {
+        for (int axis = 0; axis < 3; axis++) {
+            int minEndpoint = proxy.minEndpoints[axis];
+            int maxEndpoint = proxy.maxEndpoints[axis];
+            float min = proxy.aabb.getMin().getElement(axis);
+            float max = proxy.aabb.getMax().getElement(axis);
+            float oldMin = endpointValues[axis][minEndpoint];
+            float oldMax = endpointValues[axis][maxEndpoint];
+            endpointValues[axis][minEndpoint] = min;
+            endpointValues[axis][maxEndpoint] = max;
+
+            // Growing is done before shrinking so that a min never passes its own max
+            if (min < oldMin) {
+                sortMinDown(axis, minEndpoint, true);
+            }
+            if (max > oldMax) {
+                sortMaxUp(axis, proxy.maxEndpoints[axis], true);
+            }
+            if (min > oldMin) {
+                sortMinUp(axis, proxy.minEndpoints[axis], true);
+            }
+            if (max < oldMax) {
+                sortMaxDown(axis, proxy.maxEndpoints[axis], true);
+            }
+        }
+    }
+
+    public float getDisplacementMultiplier() {
+        return displacementMultiplier;
+    }
+
+    public void setDisplacementMultiplier(float displacementMultiplier) {
+        this.displacementMultiplier = displacementMultiplier;
+    }
+
+    public Vector3f getMargin() {
+        return margin;
+    }
+
+    public void setMargin(float margin) {
+        this.margin.set(margin, margin, margin);
+    }
+
+    public void setMargin(float x, float y, float z) {
+        this.margin.set(x, y, z);
+    }
+
+    public void setMargin(Vector3f margin) {
+        this.margin.set(margin);
+    }
+
+    public void validate() {
+        for (int axis = 0; axis < 3; axis++) {
+            int[] handles = endpointHandles[axis];
+            float[] values = endpointValues[axis];
+            for (int i = 0; i < totalEndpoints; i++) {
+                int handle = handles[i];
+                SweepAndPruneBroadphaseProxy proxy = proxies[handle >> 1];
+                assert (proxy.index != NULL);
+                if ((handle & MAX_FLAG) == MAX_FLAG) {
+                    assert (proxy.maxEndpoints[axis] == i);
+                } else {
+                    assert (proxy.minEndpoints[axis] == i);
+                }
+                assert ((i == 0) || (values[i - 1] <= values[i]));
+            }
+        }
+        assert (totalEndpoints == size * 2);
+    }
+
+    @Override
+    public BroadphaseProxy createProxy(CollisionGameObject collisionGameObject, int collisionGroup,
+            int collisionCollidesWith, AABB worldAabb) {
+        SweepAndPruneBroadphaseProxy proxy = allocateProxy();
+
+        // Set proxy AABB and add margin
+        proxy.aabb.set(worldAabb);
+        proxy.aabb.expand(margin);
+        proxy.collisionCollidesWith = collisionCollidesWith;
+        proxy.collisionGameObject = collisionGameObject;
+        proxy.collisionGroup = collisionGroup;
+        proxy.uniqueId = proxy.index;
+
+        // Append endpoints to the end of each axis and sort them into place. Overlaps only need to be updated for
+        // the last axis since the other axes are already sorted.
+        int minEndpoint = totalEndpoints;
+        int maxEndpoint = totalEndpoints + 1;
+        totalEndpoints += 2;
+        for (int axis = 0; axis < 3; axis++) {
+            boolean updateOverlaps = (axis == 2);
+            setEndpoint(axis, minEndpoint, proxy.index << 1, proxy.aabb.getMin().getElement(axis));
+            setEndpoint(axis, maxEndpoint, (proxy.index << 1) | MAX_FLAG, proxy.aabb.getMax().getElement(axis));
+            sortMinDown(axis, minEndpoint, updateOverlaps);
+            sortMaxDown(axis, proxy.maxEndpoints[axis], updateOverlaps);
+        }
+
+        return proxy;
+    }
+
+    @Override
+    public void destroyDebugRender() {
+    }
+
+    @Override
+    public OverlappingPairCache getOverlappingPairCache() {
+        return overlappingPairCache;
+    }
+
+    @Override
+    public PipelineRenderDebugCallback getPipelineRenderDebugCallback() {
+        return null;
+    }
+
+    @Override
+    public boolean moveProxy(BroadphaseProxy broadphaseProxy, AABB worldAabb) {
+
+        // Downcast
+        SweepAndPruneBroadphaseProxy proxy = (SweepAndPruneBroadphaseProxy) broadphaseProxy;
+
+        // If the new AABB is still contained in the proxy's AABB then we do nothing
+        if (AABBUtilities.IsAabb0ContainedInAabb1(worldAabb, proxy.aabb)) {
+            return false;
+        }
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Vector3f worldCenterNew = vars.v3f1;
+        Vector3f worldCenterOld = vars.v3f2;
+
+        // Calculate displacement
+        worldCenterNew.set(worldAabb.getMin()).add(worldAabb.getMax()).multiply(.5f);
+        worldCenterOld.set(proxy.aabb.getMin()).add(proxy.aabb.getMax()).multiply(.5f);
+        worldCenterNew.subtract(worldCenterOld).multiply(displacementMultiplier);
+
+        // Set proxy AABB and add margin
+        proxy.aabb.set(worldAabb);
+        proxy.aabb.expand(margin);
+
+        // Expand AABB by the displacement vector
+        if (worldCenterNew.getX() < 0f) {
+            proxy.aabb.getMin().addX(worldCenterNew.getX());
+        } else {
+            proxy.aabb.getMax().addX(worldCenterNew.getX());
+        }
+        if (worldCenterNew.getY() < 0f) {
+            proxy.aabb.getMin().addY(worldCenterNew.getY());
+        } else {
+            proxy.aabb.getMax().addY(worldCenterNew.getY());
+        }
+        if (worldCenterNew.getZ() < 0f) {
+            proxy.aabb.getMin().addZ(worldCenterNew.getZ());
+        } else {
+            proxy.aabb.getMax().addZ(worldCenterNew.getZ());
+        }
+
+        // Release vars instance
+        vars.release();
+
+        // Sort endpoints and update pairs
+        updateEndpoints(proxy);
+
+        return true;
+    }
+
+    @Override
+    public void removeProxy(BroadphaseProxy broadphaseProxy) {
+        SweepAndPruneBroadphaseProxy proxy = (SweepAndPruneBroadphaseProxy) broadphaseProxy;
+        overlappingPairCache.removeOverlappingPairsContainingProxy(proxy);
+
+        // Remove both endpoints from each axis by shifting the remaining endpoints down
+        for (int axis = 0; axis < 3; axis++) {
+            int[] handles = endpointHandles[axis];
+            float[] values = endpointValues[axis];
+            int minEndpoint = proxy.minEndpoints[axis];
+            int maxEndpoint = proxy.maxEndpoints[axis];
+            int shift = 0;
+            for (int i = minEndpoint; i < totalEndpoints; i++) {
+                if ((i == minEndpoint) || (i == maxEndpoint)) {
+                    shift++;
+                    continue;
+                }
+                setEndpoint(axis, i - shift, handles[i], values[i]);
+            }
+        }
+        totalEndpoints -= 2;
+
+        freeProxy(proxy);
+    }
+
+    @Override
+    public void updateOverlappingPairs() {
+
+        // Pairs are updated as proxies are moved
+    }
+
+}
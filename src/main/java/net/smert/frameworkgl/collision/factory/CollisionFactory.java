@@ -17,11 +17,15 @@ import net.smert.frameworkgl.collision.CollisionWorld;
 import net.smert.frameworkgl.collision.broadphase.DefaultOverlappingPairFilterCallback;
 import net.smert.frameworkgl.collision.broadphase.DynamicAABBTreeBroadphase;
 import net.smert.frameworkgl.collision.broadphase.HashedOverlappingPairCache;
+import net.smert.frameworkgl.collision.broadphase.PackedAABBTreeBroadphase;
 import net.smert.frameworkgl.collision.broadphase.SimpleBroadphase;
+import net.smert.frameworkgl.collision.broadphase.SpatialHashBroadphase;
+import net.smert.frameworkgl.collision.broadphase.SweepAndPruneBroadphase;
 import net.smert.frameworkgl.collision.narrowphase.DefaultNarrowphaseFilterCallback;
 import net.smert.frameworkgl.collision.narrowphase.NarrowphaseDispatch;
 import net.smert.frameworkgl.collision.response.CollisionResolver;
 import net.smert.frameworkgl.collision.response.DefaultCollisionResponseFilterCallback;
+import net.smert.frameworkgl.collision.response.SequentialImpulseCollisionResolver;
 import net.smert.frameworkgl.collision.shapes.ShapeType;
 import org.picocontainer.MutablePicoContainer;
 
@@ -81,8 +85,24 @@ public class CollisionFactory {
         return container.getComponent(NarrowphaseDispatch.class);
     }
 
+    public PackedAABBTreeBroadphase createPackedAABBTreeBroadphase() {
+        return container.getComponent(PackedAABBTreeBroadphase.class);
+    }
+
+    public SequentialImpulseCollisionResolver createSequentialImpulseCollisionResolver() {
+        return container.getComponent(SequentialImpulseCollisionResolver.class);
+    }
+
     public SimpleBroadphase createSimpleBroadphase() {
         return container.getComponent(SimpleBroadphase.class);
     }
 
+    public SpatialHashBroadphase createSpatialHashBroadphase() {
+        return container.getComponent(SpatialHashBroadphase.class);
+    }
+
+    public SweepAndPruneBroadphase createSweepAndPruneBroadphase() {
+        return container.getComponent(SweepAndPruneBroadphase.class);
+    }
+
 }
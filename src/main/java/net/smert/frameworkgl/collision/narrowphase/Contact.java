@@ -21,6 +21,7 @@ import net.smert.frameworkgl.math.Vector3f;
  */
 public class Contact {
 
+    public float normalImpulse; // Accumulated along the normal by the resolver
     public float penetration;
     public int index;
     public int next;
@@ -31,7 +32,7 @@ public class Contact {
     @Override
     public String toString() {
         return "(collisionGameObject0=" + collisionGameObject0 + " collisionGameObject1= " + collisionGameObject1
-                + " normal= " + normal + " penetration= " + penetration + ")";
+                + " normal= " + normal + " normalImpulse= " + normalImpulse + " penetration= " + penetration + ")";
     }
 
 }
@@ -14,26 +14,90 @@ package net.smert.frameworkgl.collision.narrowphase;
 
 import net.smert.frameworkgl.collision.CollisionGameObject;
 import net.smert.frameworkgl.collision.broadphase.OverlappingPair;
+import net.smert.frameworkgl.collision.broadphase.OverlappingPairCallback;
 import net.smert.frameworkgl.collision.broadphase.OverlappingPairCache;
 import net.smert.frameworkgl.collision.narrowphase.algorithm.AABBAABBAlgorithm;
+import net.smert.frameworkgl.collision.narrowphase.algorithm.CapsuleCapsuleAlgorithm;
+import net.smert.frameworkgl.collision.narrowphase.algorithm.CapsuleOBBAlgorithm;
 import net.smert.frameworkgl.collision.narrowphase.algorithm.NarrowphaseAlgorithm;
+import net.smert.frameworkgl.collision.narrowphase.algorithm.OBBOBBAlgorithm;
+import net.smert.frameworkgl.collision.narrowphase.algorithm.SphereCapsuleAlgorithm;
+import net.smert.frameworkgl.collision.narrowphase.algorithm.SphereOBBAlgorithm;
+import net.smert.frameworkgl.collision.narrowphase.algorithm.SphereSphereAlgorithm;
 import net.smert.frameworkgl.collision.shapes.ShapeType;
+import net.smert.frameworkgl.math.AABBUtilities;
+import net.smert.frameworkgl.math.Vector3f;
 
 /**
  *
  * @author Jason Sorensen <sorensenj@smert.net>
  */
-public class NarrowphaseDispatch {
+public class NarrowphaseDispatch implements OverlappingPairCallback {
 
     private final ContactData contactData;
     private final NarrowphaseAlgorithm[][] doubleDispatch;
     private final NarrowphaseFilterCallback narrowphaseFilterCallback;
+    private final OverlappingPairCallback timeOfImpactCallback;
+    private final Vector3f noDisplacement;
 
     public NarrowphaseDispatch(NarrowphaseFilterCallback narrowphaseFilterCallback) {
         this.narrowphaseFilterCallback = narrowphaseFilterCallback;
         contactData = new ContactData();
+        timeOfImpactCallback = (OverlappingPair pair) -> {
+            processTimeOfImpact(pair);
+            return true;
+        };
+        noDisplacement = new Vector3f();
         doubleDispatch = new NarrowphaseAlgorithm[ShapeType.MAX_SHAPE.ordinal()][ShapeType.MAX_SHAPE.ordinal()];
         registerAlgorithm(new AABBAABBAlgorithm(), ShapeType.AABB, ShapeType.AABB);
+
+        // Algorithms handle both orders of their shape types
+        NarrowphaseAlgorithm capsuleOBBAlgorithm = new CapsuleOBBAlgorithm();
+        NarrowphaseAlgorithm obbOBBAlgorithm = new OBBOBBAlgorithm();
+        NarrowphaseAlgorithm sphereCapsuleAlgorithm = new SphereCapsuleAlgorithm();
+        NarrowphaseAlgorithm sphereOBBAlgorithm = new SphereOBBAlgorithm();
+        registerAlgorithm(capsuleOBBAlgorithm, ShapeType.AABB, ShapeType.CAPSULE);
+        registerAlgorithm(capsuleOBBAlgorithm, ShapeType.CAPSULE, ShapeType.AABB);
+        registerAlgorithm(capsuleOBBAlgorithm, ShapeType.CAPSULE, ShapeType.OBB);
+        registerAlgorithm(capsuleOBBAlgorithm, ShapeType.OBB, ShapeType.CAPSULE);
+        registerAlgorithm(new CapsuleCapsuleAlgorithm(), ShapeType.CAPSULE, ShapeType.CAPSULE);
+        registerAlgorithm(obbOBBAlgorithm, ShapeType.AABB, ShapeType.OBB);
+        registerAlgorithm(obbOBBAlgorithm, ShapeType.OBB, ShapeType.AABB);
+        registerAlgorithm(obbOBBAlgorithm, ShapeType.OBB, ShapeType.OBB);
+        registerAlgorithm(sphereCapsuleAlgorithm, ShapeType.CAPSULE, ShapeType.SPHERE);
+        registerAlgorithm(sphereCapsuleAlgorithm, ShapeType.SPHERE, ShapeType.CAPSULE);
+        registerAlgorithm(sphereOBBAlgorithm, ShapeType.AABB, ShapeType.SPHERE);
+        registerAlgorithm(sphereOBBAlgorithm, ShapeType.OBB, ShapeType.SPHERE);
+        registerAlgorithm(sphereOBBAlgorithm, ShapeType.SPHERE, ShapeType.AABB);
+        registerAlgorithm(sphereOBBAlgorithm, ShapeType.SPHERE, ShapeType.OBB);
+        registerAlgorithm(new SphereSphereAlgorithm(), ShapeType.SPHERE, ShapeType.SPHERE);
+    }
+
+    private void processTimeOfImpact(OverlappingPair pair) {
+        CollisionGameObject collisionGameObject0 = pair.proxy0.collisionGameObject;
+        CollisionGameObject collisionGameObject1 = pair.proxy1.collisionGameObject;
+        boolean sweeping0 = collisionGameObject0.isCcdSweeping();
+        boolean sweeping1 = collisionGameObject1.isCcdSweeping();
+
+        // Objects without a contact response can't stop anything
+        if ((!sweeping0 && !sweeping1) || !collisionGameObject0.hasContactResponse()
+                || !collisionGameObject1.hasContactResponse()
+                || !narrowphaseFilterCallback.needsNarrowphaseCollision(collisionGameObject0, collisionGameObject1)) {
+            return;
+        }
+
+        // Objects that are not swept are treated as if they didn't move during the tick
+        float timeOfImpact = AABBUtilities.TimeOfImpact(
+                collisionGameObject0.getWorldAabb(),
+                sweeping0 ? collisionGameObject0.getCcdDisplacement() : noDisplacement,
+                collisionGameObject1.getWorldAabb(),
+                sweeping1 ? collisionGameObject1.getCcdDisplacement() : noDisplacement);
+        if (sweeping0 && (timeOfImpact < collisionGameObject0.getCcdTimeOfImpact())) {
+            collisionGameObject0.setCcdTimeOfImpact(timeOfImpact);
+        }
+        if (sweeping1 && (timeOfImpact < collisionGameObject1.getCcdTimeOfImpact())) {
+            collisionGameObject1.setCcdTimeOfImpact(timeOfImpact);
+        }
     }
 
     public NarrowphaseAlgorithm findAlgorithm(CollisionGameObject collisionGameObject0,
@@ -47,23 +111,40 @@ public class NarrowphaseDispatch {
         return contactData;
     }
 
+    @Override
     public boolean processOverlappingPair(OverlappingPair pair) {
         CollisionGameObject collisionGameObject0 = pair.proxy0.collisionGameObject;
         CollisionGameObject collisionGameObject1 = pair.proxy1.collisionGameObject;
 
-        if (narrowphaseFilterCallback.needsNarrowphaseCollision(collisionGameObject0, collisionGameObject1)) {
+        // Sleeping and static objects resting against each other don't need contacts
+        if ((collisionGameObject0.isActive() || collisionGameObject1.isActive())
+                && narrowphaseFilterCallback.needsNarrowphaseCollision(collisionGameObject0, collisionGameObject1)) {
             NarrowphaseAlgorithm algorithm = findAlgorithm(collisionGameObject0, collisionGameObject1);
             int contactsAdded = algorithm.processCollision(collisionGameObject0, collisionGameObject1, contactData);
-            return (contactsAdded > 0);
+            if (contactsAdded > 0) {
+                return true;
+            }
         }
 
-        return false;
+        // Keep the pair while the broadphase AABBs overlap. Incremental broadphases only report a pair once when
+        // it starts to overlap.
+        return AABBUtilities.DoesAabb0IntersectAabb1(pair.proxy0.aabb, pair.proxy1.aabb);
     }
 
     public void processOverlappingPairs(OverlappingPairCache overlappingPairCache) {
         overlappingPairCache.processOverlappingPairs(this);
     }
 
+    /**
+     * Finds the first impact of each swept object against the objects its swept AABB overlaps. No contacts are
+     * created and every pair is kept.
+     *
+     * @param overlappingPairCache Pairs found using the swept AABBs
+     */
+    public void processTimeOfImpacts(OverlappingPairCache overlappingPairCache) {
+        overlappingPairCache.processOverlappingPairs(timeOfImpactCallback);
+    }
+
     public final void registerAlgorithm(NarrowphaseAlgorithm algorithm, ShapeType shapeType0, ShapeType shapeType1) {
         int value0 = shapeType0.ordinal();
         int value1 = shapeType1.ordinal();
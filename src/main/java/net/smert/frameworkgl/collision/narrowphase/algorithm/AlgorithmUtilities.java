@@ -0,0 +1,254 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.collision.narrowphase.algorithm;
+
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.narrowphase.Contact;
+import net.smert.frameworkgl.collision.narrowphase.ContactData;
+import net.smert.frameworkgl.collision.shapes.ShapeType;
+import net.smert.frameworkgl.math.AABB;
+import net.smert.frameworkgl.math.MathHelper;
+import net.smert.frameworkgl.math.Matrix3f;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.utils.ThreadLocalVars;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class AlgorithmUtilities {
+
+    private AlgorithmUtilities() {
+    }
+
+    public static int AddContact(CollisionGameObject collisionGameObject0, CollisionGameObject collisionGameObject1,
+            Vector3f normal, float penetration, ContactData contactData) {
+        Contact contact = contactData.allocateContact();
+        contact.collisionGameObject0 = collisionGameObject0;
+        contact.collisionGameObject1 = collisionGameObject1;
+        contact.normal.set(normal);
+        contact.penetration = penetration;
+        return 1;
+    }
+
+    public static Vector3f ClosestPointOnSegment(Vector3f point, Vector3f segment0, Vector3f segment1, Vector3f out) {
+        float dx = segment1.getX() - segment0.getX();
+        float dy = segment1.getY() - segment0.getY();
+        float dz = segment1.getZ() - segment0.getZ();
+        float lengthSquared = dx * dx + dy * dy + dz * dz;
+
+        // Degenerate segment is a point
+        if (lengthSquared < MathHelper.ZERO_EPSILON) {
+            return out.set(segment0);
+        }
+
+        float t = ((point.getX() - segment0.getX()) * dx + (point.getY() - segment0.getY()) * dy
+                + (point.getZ() - segment0.getZ()) * dz) / lengthSquared;
+        t = MathHelper.Clamp(t, 0f, 1f);
+        return out.set(segment0.getX() + dx * t, segment0.getY() + dy * t, segment0.getZ() + dz * t);
+    }
+
+    public static void ClosestPointsSegmentSegment(Vector3f segment0Start, Vector3f segment0End,
+            Vector3f segment1Start, Vector3f segment1End, Vector3f out0, Vector3f out1) {
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Vector3f direction0 = vars.v3f0;
+        Vector3f direction1 = vars.v3f1;
+        Vector3f r = vars.v3f2;
+
+        direction0.set(segment0End).subtract(segment0Start);
+        direction1.set(segment1End).subtract(segment1Start);
+        r.set(segment0Start).subtract(segment1Start);
+        float a = direction0.dot(direction0);
+        float e = direction1.dot(direction1);
+        float f = direction1.dot(r);
+        float s;
+        float t;
+
+        // Ericson, Real-Time Collision Detection 5.1.9
+        if ((a < MathHelper.ZERO_EPSILON) && (e < MathHelper.ZERO_EPSILON)) {
+
+            // Both segments are points
+            s = 0f;
+            t = 0f;
+        } else if (a < MathHelper.ZERO_EPSILON) {
+
+            // First segment is a point
+            s = 0f;
+            t = MathHelper.Clamp(f / e, 0f, 1f);
+        } else {
+            float c = direction0.dot(r);
+            if (e < MathHelper.ZERO_EPSILON) {
+
+                // Second segment is a point
+                t = 0f;
+                s = MathHelper.Clamp(-c / a, 0f, 1f);
+            } else {
+                float b = direction0.dot(direction1);
+                float denominator = a * e - b * b;
+
+                // Parallel segments pick any s
+                if (denominator > MathHelper.ZERO_EPSILON) {
+                    s = MathHelper.Clamp((b * f - c * e) / denominator, 0f, 1f);
+                } else {
+                    s = 0f;
+                }
+
+                t = (b * s + f) / e;
+                if (t < 0f) {
+                    t = 0f;
+                    s = MathHelper.Clamp(-c / a, 0f, 1f);
+                } else if (t > 1f) {
+                    t = 1f;
+                    s = MathHelper.Clamp((b - c) / a, 0f, 1f);
+                }
+            }
+        }
+
+        out0.set(segment0Start).addScaled(direction0, s);
+        out1.set(segment1Start).addScaled(direction1, t);
+
+        // Release vars instance
+        vars.release();
+    }
+
+    public static void GetBox(CollisionGameObject collisionGameObject, Vector3f center, Matrix3f axes,
+            Vector3f halfExtents) {
+
+        // An AABB is a box aligned to the world axes
+        if (collisionGameObject.getShapeType() == ShapeType.AABB) {
+            AABB aabb = collisionGameObject.getWorldAabb();
+            center.set(aabb.getMin()).add(aabb.getMax()).multiply(.5f);
+            halfExtents.set(aabb.getMax()).subtract(aabb.getMin()).multiply(.5f);
+            axes.identity();
+            return;
+        }
+
+        center.set(collisionGameObject.getWorldPosition());
+        halfExtents.set(collisionGameObject.getShapeHalfExtents());
+        axes.set(collisionGameObject.getWorldRotation());
+    }
+
+    public static void GetSegment(CollisionGameObject collisionGameObject, Vector3f segmentStart,
+            Vector3f segmentEnd) {
+        Vector3f axis = collisionGameObject.getWorldRotation().getYAxis();
+        float halfHeight = collisionGameObject.getShapeHalfHeight();
+        segmentStart.set(collisionGameObject.getWorldPosition()).addScaled(axis, -halfHeight);
+        segmentEnd.set(collisionGameObject.getWorldPosition()).addScaled(axis, halfHeight);
+    }
+
+    public static int SphereBoxContact(CollisionGameObject sphereGameObject, Vector3f sphereCenter, float radius,
+            CollisionGameObject boxGameObject, Vector3f boxCenter, Matrix3f boxAxes, Vector3f halfExtents,
+            ContactData contactData) {
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Vector3f closestPoint = vars.v3f0;
+        Vector3f local = vars.v3f1;
+        Vector3f normal = vars.v3f2;
+
+        // Sphere center in the box's local space
+        local.set(sphereCenter).subtract(boxCenter);
+        boxAxes.multiplyTransposeOut(local, local);
+
+        // Clamp to the box
+        float x = MathHelper.Clamp(local.getX(), -halfExtents.getX(), halfExtents.getX());
+        float y = MathHelper.Clamp(local.getY(), -halfExtents.getY(), halfExtents.getY());
+        float z = MathHelper.Clamp(local.getZ(), -halfExtents.getZ(), halfExtents.getZ());
+        float dx = local.getX() - x;
+        float dy = local.getY() - y;
+        float dz = local.getZ() - z;
+        float distanceSquared = dx * dx + dy * dy + dz * dz;
+
+        if (distanceSquared >= radius * radius) {
+
+            // Release vars instance
+            vars.release();
+
+            return 0; // No penetration
+        }
+
+        float penetration;
+        if (distanceSquared > MathHelper.ZERO_EPSILON) {
+
+            // Center is outside the box so push along the closest point
+            float distance = MathHelper.Sqrt(distanceSquared);
+            closestPoint.set(x, y, z);
+            boxAxes.multiplyOut(closestPoint, closestPoint).add(boxCenter);
+            normal.set(closestPoint).subtract(sphereCenter).multiply(1f / distance);
+            penetration = distance - radius;
+        } else {
+
+            // Center is inside the box so push out through the closest face
+            int axis = 0;
+            float faceDistance = halfExtents.getX() - Math.abs(local.getX());
+            float faceDistanceY = halfExtents.getY() - Math.abs(local.getY());
+            float faceDistanceZ = halfExtents.getZ() - Math.abs(local.getZ());
+            if (faceDistanceY < faceDistance) {
+                axis = 1;
+                faceDistance = faceDistanceY;
+            }
+            if (faceDistanceZ < faceDistance) {
+                axis = 2;
+                faceDistance = faceDistanceZ;
+            }
+            normal.set(boxAxes.getAxis(axis));
+            if (local.getElement(axis) > 0f) {
+                normal.multiply(-1f);
+            }
+            penetration = -(faceDistance + radius);
+        }
+
+        // Normal points from the sphere to the box
+        int contacts = AddContact(sphereGameObject, boxGameObject, normal, penetration, contactData);
+
+        // Release vars instance
+        vars.release();
+
+        return contacts;
+    }
+
+    public static int SphereSphereContact(CollisionGameObject collisionGameObject0, Vector3f center0, float radius0,
+            CollisionGameObject collisionGameObject1, Vector3f center1, float radius1, ContactData contactData) {
+        float dx = center1.getX() - center0.getX();
+        float dy = center1.getY() - center0.getY();
+        float dz = center1.getZ() - center0.getZ();
+        float distanceSquared = dx * dx + dy * dy + dz * dz;
+        float radius = radius0 + radius1;
+
+        if (distanceSquared >= radius * radius) {
+            return 0; // No penetration
+        }
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Vector3f normal = vars.v3f0;
+
+        // Concentric spheres have no direction so pick one
+        float distance = MathHelper.Sqrt(distanceSquared);
+        if (distance > MathHelper.ZERO_EPSILON) {
+            normal.set(dx, dy, dz).multiply(1f / distance);
+        } else {
+            normal.set(Vector3f.WORLD_Y_AXIS);
+        }
+
+        int contacts = AddContact(collisionGameObject0, collisionGameObject1, normal, distance - radius, contactData);
+
+        // Release vars instance
+        vars.release();
+
+        return contacts;
+    }
+
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.collision.narrowphase.algorithm;
+
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.narrowphase.ContactData;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.utils.ThreadLocalVars;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class CapsuleCapsuleAlgorithm implements NarrowphaseAlgorithm {
+
+    @Override
+    public int processCollision(CollisionGameObject collisionGameObject0, CollisionGameObject collisionGameObject1,
+            ContactData contactData) {
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Vector3f closestPoint0 = vars.v3f0;
+        Vector3f closestPoint1 = vars.v3f1;
+        Vector3f segment0End = vars.v3f2;
+        Vector3f segment0Start = vars.v3f3;
+        Vector3f segment1End = vars.v3f4;
+        Vector3f segment1Start = vars.v3f5;
+
+        // Closest points between the segments are the centers of two spheres
+        AlgorithmUtilities.GetSegment(collisionGameObject0, segment0Start, segment0End);
+        AlgorithmUtilities.GetSegment(collisionGameObject1, segment1Start, segment1End);
+        AlgorithmUtilities.ClosestPointsSegmentSegment(segment0Start, segment0End, segment1Start, segment1End,
+                closestPoint0, closestPoint1);
+        int contacts = AlgorithmUtilities.SphereSphereContact(
+                collisionGameObject0, closestPoint0, collisionGameObject0.getShapeRadius(),
+                collisionGameObject1, closestPoint1, collisionGameObject1.getShapeRadius(), contactData);
+
+        // Release vars instance
+        vars.release();
+
+        return contacts;
+    }
+
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.collision.narrowphase.algorithm;
+
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.narrowphase.ContactData;
+import net.smert.frameworkgl.collision.shapes.ShapeType;
+import net.smert.frameworkgl.math.MathHelper;
+import net.smert.frameworkgl.math.Matrix3f;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.utils.ThreadLocalVars;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class CapsuleOBBAlgorithm implements NarrowphaseAlgorithm {
+
+    private final static float CONVERGED_DISTANCE = .0001f;
+    private final static int MAX_ITERATIONS = 8;
+
+    @Override
+    public int processCollision(CollisionGameObject collisionGameObject0, CollisionGameObject collisionGameObject1,
+            ContactData contactData) {
+
+        // Registered for both orders and for AABBs
+        CollisionGameObject capsule = collisionGameObject0;
+        CollisionGameObject box = collisionGameObject1;
+        if (capsule.getShapeType() != ShapeType.CAPSULE) {
+            capsule = collisionGameObject1;
+            box = collisionGameObject0;
+        }
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Matrix3f boxAxes = vars.m3f0;
+        Vector3f boxCenter = vars.v3f0;
+        Vector3f boxPoint = vars.v3f1;
+        Vector3f halfExtents = vars.v3f2;
+        Vector3f segmentEnd = vars.v3f3;
+        Vector3f segmentPoint = vars.v3f4;
+        Vector3f segmentStart = vars.v3f5;
+
+        // Work in the box's local space where the box is an AABB at the origin
+        AlgorithmUtilities.GetBox(box, boxCenter, boxAxes, halfExtents);
+        AlgorithmUtilities.GetSegment(capsule, segmentStart, segmentEnd);
+        boxAxes.multiplyTransposeOut(segmentStart.subtract(boxCenter), segmentStart);
+        boxAxes.multiplyTransposeOut(segmentEnd.subtract(boxCenter), segmentEnd);
+
+        // Find the closest points by projecting back and forth between the segment and the box. Both are convex so
+        // this converges on the closest points and stops once the point on the box no longer changes.
+        segmentPoint.set(segmentStart).add(segmentEnd).multiply(.5f);
+        clampToBox(segmentPoint, halfExtents, boxPoint);
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            AlgorithmUtilities.ClosestPointOnSegment(boxPoint, segmentStart, segmentEnd, segmentPoint);
+            float x = boxPoint.getX();
+            float y = boxPoint.getY();
+            float z = boxPoint.getZ();
+            clampToBox(segmentPoint, halfExtents, boxPoint);
+            if ((Math.abs(x - boxPoint.getX()) + Math.abs(y - boxPoint.getY()) + Math.abs(z - boxPoint.getZ()))
+                    < CONVERGED_DISTANCE) {
+                break;
+            }
+        }
+
+        // Closest point on the segment is the center of a sphere
+        boxAxes.multiplyOut(segmentPoint, segmentPoint).add(boxCenter);
+        int contacts = AlgorithmUtilities.SphereBoxContact(capsule, segmentPoint, capsule.getShapeRadius(), box,
+                boxCenter, boxAxes, halfExtents, contactData);
+
+        // Release vars instance
+        vars.release();
+
+        return contacts;
+    }
+
+    private void clampToBox(Vector3f point, Vector3f halfExtents, Vector3f out) {
+        out.set(MathHelper.Clamp(point.getX(), -halfExtents.getX(), halfExtents.getX()),
+                MathHelper.Clamp(point.getY(), -halfExtents.getY(), halfExtents.getY()),
+                MathHelper.Clamp(point.getZ(), -halfExtents.getZ(), halfExtents.getZ()));
+    }
+
+}
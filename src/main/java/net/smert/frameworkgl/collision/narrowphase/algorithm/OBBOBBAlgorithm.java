@@ -0,0 +1,175 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.collision.narrowphase.algorithm;
+
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.narrowphase.ContactData;
+import net.smert.frameworkgl.math.MathHelper;
+import net.smert.frameworkgl.math.Matrix3f;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.utils.ThreadLocalVars;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class OBBOBBAlgorithm implements NarrowphaseAlgorithm {
+
+    private final static float EDGE_TOLERANCE = .001f; // Prefer face axes when the separation is about the same
+    private final static float PARALLEL_EPSILON = .00001f;
+
+    private float getAbsElement(Vector3f row0, Vector3f row1, Vector3f row2, int row, int column) {
+
+        // Epsilon keeps near parallel edges from producing a zero axis that looks separating
+        return Math.abs(getElement(row0, row1, row2, row, column)) + PARALLEL_EPSILON;
+    }
+
+    private float getElement(Vector3f row0, Vector3f row1, Vector3f row2, int row, int column) {
+        switch (row) {
+            case 0:
+                return row0.getElement(column);
+            case 1:
+                return row1.getElement(column);
+            case 2:
+                return row2.getElement(column);
+        }
+        throw new IllegalArgumentException("Invalid row: " + row);
+    }
+
+    @Override
+    public int processCollision(CollisionGameObject collisionGameObject0, CollisionGameObject collisionGameObject1,
+            ContactData contactData) {
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Matrix3f axes0 = vars.m3f0;
+        Matrix3f axes1 = vars.m3f1;
+        Vector3f center0 = vars.v3f0;
+        Vector3f center1 = vars.v3f1;
+        Vector3f halfExtents0 = vars.v3f2;
+        Vector3f halfExtents1 = vars.v3f3;
+        Vector3f normal = vars.v3f4;
+        Vector3f row0 = vars.v3f5;
+        Vector3f row1 = vars.v3f6;
+        Vector3f row2 = vars.v3f7;
+
+        AlgorithmUtilities.GetBox(collisionGameObject0, center0, axes0, halfExtents0);
+        AlgorithmUtilities.GetBox(collisionGameObject1, center1, axes1, halfExtents1);
+
+        // Separating axis test, Ericson, Real-Time Collision Detection 4.4.1. The rotation of box 1 in box 0's space
+        // is stored as rows and the translation in locals.
+        center1.subtract(center0);
+        float t0 = axes0.getXAxis().dot(center1);
+        float t1 = axes0.getYAxis().dot(center1);
+        float t2 = axes0.getZAxis().dot(center1);
+        axes1.multiplyTransposeOut(axes0.getXAxis(), row0);
+        axes1.multiplyTransposeOut(axes0.getYAxis(), row1);
+        axes1.multiplyTransposeOut(axes0.getZAxis(), row2);
+
+        float bestSeparation = -Float.MAX_VALUE;
+        int bestAxis0 = -1;
+        int bestAxis1 = -1;
+        float bestSign = 1f;
+
+        // Face axes of box 0
+        for (int i = 0; i < 3; i++) {
+            float t = (i == 0) ? t0 : (i == 1) ? t1 : t2;
+            float radius1 = halfExtents1.getX() * getAbsElement(row0, row1, row2, i, 0)
+                    + halfExtents1.getY() * getAbsElement(row0, row1, row2, i, 1)
+                    + halfExtents1.getZ() * getAbsElement(row0, row1, row2, i, 2);
+            float separation = Math.abs(t) - (halfExtents0.getElement(i) + radius1);
+            if (separation > 0f) {
+                vars.release();
+                return 0; // Separated
+            }
+            if (separation > bestSeparation) {
+                bestSeparation = separation;
+                bestAxis0 = i;
+                bestAxis1 = -1;
+                bestSign = (t < 0f) ? -1f : 1f;
+            }
+        }
+
+        // Face axes of box 1
+        for (int j = 0; j < 3; j++) {
+            float t = t0 * row0.getElement(j) + t1 * row1.getElement(j) + t2 * row2.getElement(j);
+            float radius0 = halfExtents0.getX() * getAbsElement(row0, row1, row2, 0, j)
+                    + halfExtents0.getY() * getAbsElement(row0, row1, row2, 1, j)
+                    + halfExtents0.getZ() * getAbsElement(row0, row1, row2, 2, j);
+            float separation = Math.abs(t) - (radius0 + halfExtents1.getElement(j));
+            if (separation > 0f) {
+                vars.release();
+                return 0; // Separated
+            }
+            if (separation > bestSeparation) {
+                bestSeparation = separation;
+                bestAxis0 = -1;
+                bestAxis1 = j;
+                bestSign = (t < 0f) ? -1f : 1f;
+            }
+        }
+
+        // Cross products of edges
+        for (int i = 0; i < 3; i++) {
+            int i1 = (i + 1) % 3;
+            int i2 = (i + 2) % 3;
+            float ti1 = (i1 == 0) ? t0 : (i1 == 1) ? t1 : t2;
+            float ti2 = (i2 == 0) ? t0 : (i2 == 1) ? t1 : t2;
+            for (int j = 0; j < 3; j++) {
+                int j1 = (j + 1) % 3;
+                int j2 = (j + 2) % 3;
+
+                // Parallel edges give a zero axis which is covered by the face axes
+                float r = getElement(row0, row1, row2, i, j);
+                float length = MathHelper.Sqrt(Math.max(1f - r * r, 0f));
+                if (length < PARALLEL_EPSILON) {
+                    continue;
+                }
+
+                float radius0 = halfExtents0.getElement(i1) * getAbsElement(row0, row1, row2, i2, j)
+                        + halfExtents0.getElement(i2) * getAbsElement(row0, row1, row2, i1, j);
+                float radius1 = halfExtents1.getElement(j1) * getAbsElement(row0, row1, row2, i, j2)
+                        + halfExtents1.getElement(j2) * getAbsElement(row0, row1, row2, i, j1);
+                float t = ti2 * getElement(row0, row1, row2, i1, j) - ti1 * getElement(row0, row1, row2, i2, j);
+                float separation = (Math.abs(t) - (radius0 + radius1)) / length;
+                if (separation > 0f) {
+                    vars.release();
+                    return 0; // Separated
+                }
+                if (separation > bestSeparation + EDGE_TOLERANCE) {
+                    bestSeparation = separation;
+                    bestAxis0 = i;
+                    bestAxis1 = j;
+                    bestSign = ((t < 0f) ? -1f : 1f) / length;
+                }
+            }
+        }
+
+        // Normal from box 0 to box 1 along the axis with the least penetration
+        if (bestAxis1 == -1) {
+            normal.set(axes0.getAxis(bestAxis0)).multiply(bestSign);
+        } else if (bestAxis0 == -1) {
+            normal.set(axes1.getAxis(bestAxis1)).multiply(bestSign);
+        } else {
+            normal.set(axes0.getAxis(bestAxis0)).cross(axes1.getAxis(bestAxis1)).multiply(bestSign);
+        }
+        int contacts = AlgorithmUtilities.AddContact(collisionGameObject0, collisionGameObject1, normal,
+                bestSeparation, contactData);
+
+        // Release vars instance
+        vars.release();
+
+        return contacts;
+    }
+
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.collision.narrowphase.algorithm;
+
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.narrowphase.ContactData;
+import net.smert.frameworkgl.collision.shapes.ShapeType;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.utils.ThreadLocalVars;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class SphereCapsuleAlgorithm implements NarrowphaseAlgorithm {
+
+    @Override
+    public int processCollision(CollisionGameObject collisionGameObject0, CollisionGameObject collisionGameObject1,
+            ContactData contactData) {
+
+        // Registered for both orders
+        CollisionGameObject sphere = collisionGameObject0;
+        CollisionGameObject capsule = collisionGameObject1;
+        if (sphere.getShapeType() != ShapeType.SPHERE) {
+            sphere = collisionGameObject1;
+            capsule = collisionGameObject0;
+        }
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Vector3f closestPoint = vars.v3f0;
+        Vector3f segmentEnd = vars.v3f1;
+        Vector3f segmentStart = vars.v3f2;
+
+        // Closest point on the capsule segment is the center of a sphere
+        AlgorithmUtilities.GetSegment(capsule, segmentStart, segmentEnd);
+        AlgorithmUtilities.ClosestPointOnSegment(sphere.getWorldPosition(), segmentStart, segmentEnd, closestPoint);
+        int contacts = AlgorithmUtilities.SphereSphereContact(sphere, sphere.getWorldPosition(),
+                sphere.getShapeRadius(), capsule, closestPoint, capsule.getShapeRadius(), contactData);
+
+        // Release vars instance
+        vars.release();
+
+        return contacts;
+    }
+
+}
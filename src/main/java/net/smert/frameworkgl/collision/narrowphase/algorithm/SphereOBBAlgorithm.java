@@ -0,0 +1,56 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.collision.narrowphase.algorithm;
+
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.narrowphase.ContactData;
+import net.smert.frameworkgl.collision.shapes.ShapeType;
+import net.smert.frameworkgl.math.Matrix3f;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.utils.ThreadLocalVars;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class SphereOBBAlgorithm implements NarrowphaseAlgorithm {
+
+    @Override
+    public int processCollision(CollisionGameObject collisionGameObject0, CollisionGameObject collisionGameObject1,
+            ContactData contactData) {
+
+        // Registered for both orders and for AABBs
+        CollisionGameObject sphere = collisionGameObject0;
+        CollisionGameObject box = collisionGameObject1;
+        if (sphere.getShapeType() != ShapeType.SPHERE) {
+            sphere = collisionGameObject1;
+            box = collisionGameObject0;
+        }
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        Matrix3f boxAxes = vars.m3f0;
+        Vector3f boxCenter = vars.v3f0;
+        Vector3f halfExtents = vars.v3f1;
+
+        AlgorithmUtilities.GetBox(box, boxCenter, boxAxes, halfExtents);
+        int contacts = AlgorithmUtilities.SphereBoxContact(sphere, sphere.getWorldPosition(),
+                sphere.getShapeRadius(), box, boxCenter, boxAxes, halfExtents, contactData);
+
+        // Release vars instance
+        vars.release();
+
+        return contacts;
+    }
+
+}
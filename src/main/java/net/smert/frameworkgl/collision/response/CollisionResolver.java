@@ -14,11 +14,14 @@ package net.smert.frameworkgl.collision.response;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.IslandManager;
 import net.smert.frameworkgl.collision.narrowphase.Contact;
 import net.smert.frameworkgl.collision.narrowphase.ContactData;
 import net.smert.frameworkgl.math.Vector3f;
-import net.smert.frameworkgl.utils.ThreadLocalVars;
+import net.smert.frameworkgl.utils.TempArena;
 
 /**
  *
@@ -26,15 +29,49 @@ import net.smert.frameworkgl.utils.ThreadLocalVars;
  */
 public class CollisionResolver {
 
-    private final CollisionResponseFilterCallback collisionResponseFilterCallback;
+    protected int contactsPerTask;
+    protected final CollisionResponseFilterCallback collisionResponseFilterCallback;
     private final List<Contact> contactsToFree;
 
     public CollisionResolver(CollisionResponseFilterCallback collisionResponseFilterCallback) {
         this.collisionResponseFilterCallback = collisionResponseFilterCallback;
+        contactsPerTask = 64;
         contactsToFree = new ArrayList<>();
     }
 
-    private void resolveCollision(Contact contact) {
+    protected void notifyAndFreeContacts(ContactData contactData) {
+        Contact[] contacts = contactData.getContacts();
+
+        for (int i = 0; i < contacts.length; i++) {
+            Contact contact = contacts[i];
+
+            // Skip free contact
+            if (contact.index == ContactData.NULL) {
+                continue;
+            }
+
+            // Save contact to list
+            contactsToFree.add(contact);
+        }
+
+        // Notify collision game objects that there was a collision
+        for (Contact contact : contactsToFree) {
+            CollisionGameObject collisionGameObject0 = contact.collisionGameObject0;
+            CollisionGameObject collisionGameObject1 = contact.collisionGameObject1;
+            collisionGameObject0.collidedWith(collisionGameObject1, contact);
+            collisionGameObject1.collidedWith(collisionGameObject0, contact);
+        }
+
+        // Free all contacts
+        for (Contact contact : contactsToFree) {
+            contactData.freeContact(contact);
+        }
+
+        // Clear list
+        contactsToFree.clear();
+    }
+
+    private void resolveCollision(Contact contact, TempArena arena) {
         float penetration = contact.penetration;
         CollisionGameObject collisionGameObject0 = contact.collisionGameObject0;
         CollisionGameObject collisionGameObject1 = contact.collisionGameObject1;
@@ -46,11 +83,11 @@ public class CollisionResolver {
         Vector3f linearVelocity0 = collisionGameObject0.getLinearVelocity();
         Vector3f linearVelocity1 = collisionGameObject1.getLinearVelocity();
 
-        // Temp vars from thread local storage
-        ThreadLocalVars vars = ThreadLocalVars.Get();
-        Vector3f impulse = vars.v3f0;
-        Vector3f positionCorrection = vars.v3f1;
-        Vector3f relativeVelocity = vars.v3f2;
+        // Temp vars from the arena
+        arena.begin();
+        Vector3f impulse = arena.vector3f();
+        Vector3f positionCorrection = arena.vector3f();
+        Vector3f relativeVelocity = arena.vector3f();
 
         // Relative velocity from collisionGameObject0 to collisionGameObject1
         relativeVelocity.set(linearVelocity1).subtract(linearVelocity0);
@@ -60,6 +97,7 @@ public class CollisionResolver {
         // j = -(1 + e) * ((Vb - Va) . N) / ( (1 / MASSa) + (1 / MASSb) )
         float j = -(1f + restitution) * velocityOnNormal / totalInverseMass;
         impulse.set(normal).multiply(j);
+        contact.normalImpulse = j;
 
         // Apply impulse to both objects but do collisionGameObject1 first
         // since the impulse to collisionGameObject0 needs to be inverted.
@@ -73,12 +111,40 @@ public class CollisionResolver {
         collisionGameObject0.applyPositionCorrection(positionCorrection);
         collisionGameObject1.applyPositionCorrection(positionCorrection.invert());
 
-        // Release vars instance
-        vars.release();
+        // Give back temp vars
+        arena.end();
+    }
+
+    private void resolveIslands(Contact[] contacts, IslandManager islandManager, int islandStart, int islandEnd) {
+
+        TempArena arena = TempArena.Get();
+
+        for (int i = islandStart; i < islandEnd; i++) {
+            int end = islandManager.getIslandEnd(i);
+
+            for (int j = islandManager.getIslandStart(i); j < end; j++) {
+                Contact contact = contacts[islandManager.getContactIndex(j)];
+
+                // Resolve collision
+                if (collisionResponseFilterCallback.needsCollisionResponse(contact.collisionGameObject0,
+                        contact.collisionGameObject1)) {
+                    resolveCollision(contact, arena);
+                }
+            }
+        }
+    }
+
+    public int getContactsPerTask() {
+        return contactsPerTask;
+    }
+
+    public void setContactsPerTask(int contactsPerTask) {
+        this.contactsPerTask = contactsPerTask;
     }
 
     public void processContacts(ContactData contactData) {
         Contact[] contacts = contactData.getContacts();
+        TempArena arena = TempArena.Get();
 
         for (int i = 0; i < contacts.length; i++) {
             Contact contact = contacts[i];
@@ -91,28 +157,63 @@ public class CollisionResolver {
             // Resolve collision
             if (collisionResponseFilterCallback.needsCollisionResponse(contact.collisionGameObject0,
                     contact.collisionGameObject1)) {
-                resolveCollision(contact);
+                resolveCollision(contact, arena);
             }
+        }
 
-            // Save contact to list
-            contactsToFree.add(contact);
+        notifyAndFreeContacts(contactData);
+    }
+
+    /**
+     * Resolves islands of contacts concurrently using the pool. Contacts inside of an island are resolved in the same
+     * order as the serial version. Collision game objects are notified on the calling thread after all islands have
+     * been resolved.
+     *
+     * @param contactData
+     * @param islandManager Islands must already be built for the contact data
+     * @param pool
+     */
+    public void processContacts(ContactData contactData, IslandManager islandManager, ForkJoinPool pool) {
+        Contact[] contacts = contactData.getContacts();
+
+        // Resolve islands in parallel
+        if (islandManager.getIslandCount() > 0) {
+            pool.invoke(new ResolveIslandsTask(contacts, islandManager, 0, islandManager.getIslandCount()));
         }
 
-        // Notify collision game objects that there was a collision
-        for (Contact contact : contactsToFree) {
-            CollisionGameObject collisionGameObject0 = contact.collisionGameObject0;
-            CollisionGameObject collisionGameObject1 = contact.collisionGameObject1;
-            collisionGameObject0.collidedWith(collisionGameObject1, contact);
-            collisionGameObject1.collidedWith(collisionGameObject0, contact);
+        notifyAndFreeContacts(contactData);
+    }
+
+    private class ResolveIslandsTask extends RecursiveAction {
+
+        private final int islandEnd;
+        private final int islandStart;
+        private final Contact[] contacts;
+        private final IslandManager islandManager;
+
+        public ResolveIslandsTask(Contact[] contacts, IslandManager islandManager, int islandStart, int islandEnd) {
+            this.islandEnd = islandEnd;
+            this.islandStart = islandStart;
+            this.contacts = contacts;
+            this.islandManager = islandManager;
         }
 
-        // Free all contacts
-        for (Contact contact : contactsToFree) {
-            contactData.freeContact(contact);
+        @Override
+        protected void compute() {
+            int totalContacts = islandManager.getIslandEnd(islandEnd - 1) - islandManager.getIslandStart(islandStart);
+
+            // A single island can't be split any further
+            if ((islandEnd - islandStart == 1) || (totalContacts <= contactsPerTask)) {
+                resolveIslands(contacts, islandManager, islandStart, islandEnd);
+                return;
+            }
+
+            int islandMiddle = (islandStart + islandEnd) >>> 1;
+            invokeAll(
+                    new ResolveIslandsTask(contacts, islandManager, islandStart, islandMiddle),
+                    new ResolveIslandsTask(contacts, islandManager, islandMiddle, islandEnd));
         }
 
-        // Clear list
-        contactsToFree.clear();
     }
 
 }
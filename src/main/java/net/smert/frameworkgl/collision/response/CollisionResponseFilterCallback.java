@@ -20,6 +20,14 @@ import net.smert.frameworkgl.collision.CollisionGameObject;
  */
 public interface CollisionResponseFilterCallback {
 
+    /**
+     * Decides if contacts between the two objects are resolved. When the collision world runs in parallel this is
+     * called from worker threads at the same time for different islands, so it must be thread-safe.
+     *
+     * @param collisionGameObject0
+     * @param collisionGameObject1
+     * @return True if the contacts should be resolved
+     */
     public boolean needsCollisionResponse(CollisionGameObject collisionGameObject0,
             CollisionGameObject collisionGameObject1);
 
@@ -0,0 +1,455 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.collision.response;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import net.smert.frameworkgl.collision.CollisionGameObject;
+import net.smert.frameworkgl.collision.IslandManager;
+import net.smert.frameworkgl.collision.narrowphase.Contact;
+import net.smert.frameworkgl.collision.narrowphase.ContactData;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.utils.HashTableUtils;
+import net.smert.frameworkgl.utils.TempArena;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class SequentialImpulseCollisionResolver extends CollisionResolver {
+
+    private final static long EMPTY_KEY = -1L; // Unique IDs are never negative so this can't be a valid key
+    private final static long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private boolean warmStarting;
+    private float baumgarte;
+    private float linearSlop;
+    private float maxLinearCorrection;
+    private float restitutionThreshold;
+    private float warmStartingFactor;
+    private int contactCapacity;
+    private int positionIterations;
+    private int velocityIterations;
+    private int warmStartHashMask;
+    private int warmStartHashShift;
+    private boolean[] solving;
+    private float[] initialDistances;
+    private float[] velocityBiases;
+    private float[] warmStartImpulses;
+    private int[] contactIndexes;
+    private int[] islandStarts;
+    private long[] warmStartKeys;
+
+    public SequentialImpulseCollisionResolver(CollisionResponseFilterCallback collisionResponseFilterCallback) {
+        super(collisionResponseFilterCallback);
+        warmStarting = true;
+        baumgarte = .4f;
+        linearSlop = .005f;
+        maxLinearCorrection = .2f;
+        restitutionThreshold = 1f;
+        warmStartingFactor = .85f;
+        contactCapacity = 16;
+        positionIterations = 4;
+        velocityIterations = 8;
+        solving = new boolean[contactCapacity];
+        initialDistances = new float[contactCapacity];
+        velocityBiases = new float[contactCapacity];
+        contactIndexes = new int[contactCapacity];
+        islandStarts = new int[contactCapacity + 1];
+        createWarmStartTable(contactCapacity * 2);
+    }
+
+    private void createWarmStartTable(int tableCapacity) {
+        assert (Integer.bitCount(tableCapacity) == 1);
+        warmStartHashMask = tableCapacity - 1;
+        warmStartHashShift = 64 - Integer.numberOfTrailingZeros(tableCapacity);
+        warmStartImpulses = new float[tableCapacity * 3];
+        warmStartKeys = new long[tableCapacity];
+        for (int i = 0; i < tableCapacity; i++) {
+            warmStartKeys[i] = EMPTY_KEY;
+        }
+    }
+
+    private void ensureContactCapacity(int capacity) {
+        if (capacity <= contactCapacity) {
+            return;
+        }
+        while (contactCapacity < capacity) {
+            contactCapacity *= 2;
+        }
+        solving = new boolean[contactCapacity];
+        initialDistances = new float[contactCapacity];
+        velocityBiases = new float[contactCapacity];
+        contactIndexes = new int[contactCapacity];
+        islandStarts = new int[contactCapacity + 1];
+    }
+
+    private int findWarmStartSlot(long key) {
+        int slot = (int) ((key * HASH_MULTIPLIER) >>> warmStartHashShift);
+        long slotKey;
+        while ((slotKey = warmStartKeys[slot]) != EMPTY_KEY) {
+            if (slotKey == key) {
+                return slot;
+            }
+            slot = (slot + 1) & warmStartHashMask;
+        }
+        return -slot - 1;
+    }
+
+    private long getKey(Contact contact) {
+
+        // Proxy unique IDs are reused by the broadphase so a new object could pick up the impulse of a removed one
+        int uniqueID0 = contact.collisionGameObject0.getUniqueID();
+        int uniqueID1 = contact.collisionGameObject1.getUniqueID();
+
+        // The key must be the same regardless of the order of the objects
+        if (uniqueID0 > uniqueID1) {
+            return ((long) uniqueID1 << 32) | uniqueID0;
+        }
+        return ((long) uniqueID0 << 32) | uniqueID1;
+    }
+
+    private float getKeySign(Contact contact) {
+
+        // Impulses are saved as seen from the object with the lowest unique ID
+        if (contact.collisionGameObject0.getUniqueID() > contact.collisionGameObject1.getUniqueID()) {
+            return -1f;
+        }
+        return 1f;
+    }
+
+    private void saveWarmStartImpulses(Contact[] contacts, int totalContacts) {
+
+        int tableCapacity = HashTableUtils.GetCapacity(warmStartKeys.length, totalContacts);
+        if (tableCapacity != warmStartKeys.length) {
+            createWarmStartTable(tableCapacity);
+        } else {
+            for (int i = 0; i < tableCapacity; i++) {
+                warmStartKeys[i] = EMPTY_KEY;
+            }
+        }
+
+        for (int i = 0; i < totalContacts; i++) {
+            int contactIndex = contactIndexes[i];
+            if (!solving[contactIndex]) {
+                continue;
+            }
+
+            Contact contact = contacts[contactIndex];
+            long key = getKey(contact);
+            int slot = findWarmStartSlot(key);
+
+            // Pairs with more than one contact keep the first one
+            if (slot >= 0) {
+                continue;
+            }
+            slot = -slot - 1;
+
+            float impulse = contact.normalImpulse * getKeySign(contact);
+            warmStartKeys[slot] = key;
+            warmStartImpulses[slot * 3 + 0] = contact.normal.getX() * impulse;
+            warmStartImpulses[slot * 3 + 1] = contact.normal.getY() * impulse;
+            warmStartImpulses[slot * 3 + 2] = contact.normal.getZ() * impulse;
+        }
+    }
+
+    private void setupContact(Contact contact, TempArena arena) {
+        int contactIndex = contact.index;
+        CollisionGameObject collisionGameObject0 = contact.collisionGameObject0;
+        CollisionGameObject collisionGameObject1 = contact.collisionGameObject1;
+        Vector3f normal = contact.normal;
+
+        float totalInverseMass = collisionGameObject0.getInverseMass() + collisionGameObject1.getInverseMass();
+        solving[contactIndex] = (totalInverseMass > 0f)
+                && collisionResponseFilterCallback.needsCollisionResponse(collisionGameObject0, collisionGameObject1);
+        contact.normalImpulse = 0f;
+        if (!solving[contactIndex]) {
+            return;
+        }
+
+        // Temp vars from the arena
+        arena.begin();
+        Vector3f impulse = arena.vector3f();
+        Vector3f relativeVelocity = arena.vector3f();
+
+        // Bounce only when the objects hit hard enough otherwise resting contacts never settle
+        relativeVelocity.set(collisionGameObject1.getLinearVelocity()).subtract(
+                collisionGameObject0.getLinearVelocity());
+        float velocityOnNormal = relativeVelocity.dot(normal);
+        float restitution = Math.min(collisionGameObject0.getRestitution(), collisionGameObject1.getRestitution());
+        velocityBiases[contactIndex] = 0f;
+        if (velocityOnNormal < -restitutionThreshold) {
+            velocityBiases[contactIndex] = -restitution * velocityOnNormal;
+        }
+
+        // Distance between the objects along the normal is used to track the penetration during position iterations
+        relativeVelocity.set(collisionGameObject1.getWorldPosition()).subtract(
+                collisionGameObject0.getWorldPosition());
+        initialDistances[contactIndex] = relativeVelocity.dot(normal);
+
+        // Warm start using the impulse from the last frame projected onto the new normal
+        if (warmStarting) {
+            int slot = findWarmStartSlot(getKey(contact));
+            if (slot >= 0) {
+                float sign = getKeySign(contact);
+                float lastImpulse = (warmStartImpulses[slot * 3 + 0] * normal.getX()
+                        + warmStartImpulses[slot * 3 + 1] * normal.getY()
+                        + warmStartImpulses[slot * 3 + 2] * normal.getZ()) * sign * warmStartingFactor;
+                if (lastImpulse > 0f) {
+                    contact.normalImpulse = lastImpulse;
+                    impulse.set(normal).multiply(lastImpulse);
+                    collisionGameObject1.applyImpulse(impulse);
+                    collisionGameObject0.applyImpulse(impulse.invert());
+                }
+            }
+        }
+
+        // Give back temp vars
+        arena.end();
+    }
+
+    private void solvePosition(Contact contact, TempArena arena) {
+        CollisionGameObject collisionGameObject0 = contact.collisionGameObject0;
+        CollisionGameObject collisionGameObject1 = contact.collisionGameObject1;
+        Vector3f normal = contact.normal;
+
+        // Temp vars from the arena
+        arena.begin();
+        Vector3f positionCorrection = arena.vector3f();
+        Vector3f relativePosition = arena.vector3f();
+
+        // Current penetration from how far the objects moved apart since the contact was created
+        relativePosition.set(collisionGameObject1.getWorldPosition()).subtract(
+                collisionGameObject0.getWorldPosition());
+        float separation = contact.penetration + relativePosition.dot(normal) - initialDistances[contact.index];
+
+        // Leave a little penetration so the contact persists and correct a fraction of the rest
+        float correction = Math.max(Math.min(baumgarte * (separation + linearSlop), 0f), -maxLinearCorrection);
+
+        if (correction < 0f) {
+            float totalInverseMass = collisionGameObject0.getInverseMass() + collisionGameObject1.getInverseMass();
+            positionCorrection.set(normal).multiply(correction / totalInverseMass);
+            collisionGameObject0.applyPositionCorrection(positionCorrection);
+            collisionGameObject1.applyPositionCorrection(positionCorrection.invert());
+        }
+
+        // Give back temp vars
+        arena.end();
+    }
+
+    private void solveVelocity(Contact contact, TempArena arena) {
+        CollisionGameObject collisionGameObject0 = contact.collisionGameObject0;
+        CollisionGameObject collisionGameObject1 = contact.collisionGameObject1;
+        Vector3f normal = contact.normal;
+
+        // Temp vars from the arena
+        arena.begin();
+        Vector3f impulse = arena.vector3f();
+        Vector3f relativeVelocity = arena.vector3f();
+
+        // Relative velocity from collisionGameObject0 to collisionGameObject1
+        relativeVelocity.set(collisionGameObject1.getLinearVelocity()).subtract(
+                collisionGameObject0.getLinearVelocity());
+        float velocityOnNormal = relativeVelocity.dot(normal);
+
+        // Impulse to reach the target velocity. The accumulated impulse is clamped instead of each impulse so that
+        // later iterations can take back some of what earlier iterations applied.
+        float totalInverseMass = collisionGameObject0.getInverseMass() + collisionGameObject1.getInverseMass();
+        float j = (velocityBiases[contact.index] - velocityOnNormal) / totalInverseMass;
+        float oldNormalImpulse = contact.normalImpulse;
+        contact.normalImpulse = Math.max(oldNormalImpulse + j, 0f);
+        j = contact.normalImpulse - oldNormalImpulse;
+
+        if (j != 0f) {
+            impulse.set(normal).multiply(j);
+            collisionGameObject1.applyImpulse(impulse);
+            collisionGameObject0.applyImpulse(impulse.invert());
+        }
+
+        // Give back temp vars
+        arena.end();
+    }
+
+    private void solve(Contact[] contacts, int start, int end) {
+
+        TempArena arena = TempArena.Get();
+
+        for (int i = start; i < end; i++) {
+            setupContact(contacts[contactIndexes[i]], arena);
+        }
+        for (int iteration = 0; iteration < velocityIterations; iteration++) {
+            for (int i = start; i < end; i++) {
+                int contactIndex = contactIndexes[i];
+                if (solving[contactIndex]) {
+                    solveVelocity(contacts[contactIndex], arena);
+                }
+            }
+        }
+        for (int iteration = 0; iteration < positionIterations; iteration++) {
+            for (int i = start; i < end; i++) {
+                int contactIndex = contactIndexes[i];
+                if (solving[contactIndex]) {
+                    solvePosition(contacts[contactIndex], arena);
+                }
+            }
+        }
+    }
+
+    public boolean isWarmStarting() {
+        return warmStarting;
+    }
+
+    public void setWarmStarting(boolean warmStarting) {
+        this.warmStarting = warmStarting;
+    }
+
+    public float getBaumgarte() {
+        return baumgarte;
+    }
+
+    public void setBaumgarte(float baumgarte) {
+        this.baumgarte = baumgarte;
+    }
+
+    public float getLinearSlop() {
+        return linearSlop;
+    }
+
+    public void setLinearSlop(float linearSlop) {
+        this.linearSlop = linearSlop;
+    }
+
+    public float getMaxLinearCorrection() {
+        return maxLinearCorrection;
+    }
+
+    public void setMaxLinearCorrection(float maxLinearCorrection) {
+        this.maxLinearCorrection = maxLinearCorrection;
+    }
+
+    public float getRestitutionThreshold() {
+        return restitutionThreshold;
+    }
+
+    public void setRestitutionThreshold(float restitutionThreshold) {
+        this.restitutionThreshold = restitutionThreshold;
+    }
+
+    public float getWarmStartingFactor() {
+        return warmStartingFactor;
+    }
+
+    public void setWarmStartingFactor(float warmStartingFactor) {
+        this.warmStartingFactor = warmStartingFactor;
+    }
+
+    public int getPositionIterations() {
+        return positionIterations;
+    }
+
+    public void setPositionIterations(int positionIterations) {
+        this.positionIterations = positionIterations;
+    }
+
+    public int getVelocityIterations() {
+        return velocityIterations;
+    }
+
+    public void setVelocityIterations(int velocityIterations) {
+        this.velocityIterations = velocityIterations;
+    }
+
+    @Override
+    public void processContacts(ContactData contactData) {
+        Contact[] contacts = contactData.getContacts();
+        ensureContactCapacity(contacts.length);
+
+        // Solve all contacts together in their original order
+        int totalContacts = 0;
+        for (int i = 0; i < contacts.length; i++) {
+            if (contacts[i].index != ContactData.NULL) {
+                contactIndexes[totalContacts++] = i;
+            }
+        }
+        solve(contacts, 0, totalContacts);
+
+        saveWarmStartImpulses(contacts, totalContacts);
+        notifyAndFreeContacts(contactData);
+    }
+
+    /**
+     * Solves islands of contacts concurrently using the pool. Every iteration of an island only touches objects in
+     * that island so the result is the same as solving the islands one after another. Warm start impulses are saved and
+     * collision game objects are notified on the calling thread after all islands have been solved.
+     *
+     * @param contactData
+     * @param islandManager Islands must already be built for the contact data
+     * @param pool
+     */
+    @Override
+    public void processContacts(ContactData contactData, IslandManager islandManager, ForkJoinPool pool) {
+        Contact[] contacts = contactData.getContacts();
+        ensureContactCapacity(contacts.length);
+
+        // Copy the contact order of each island
+        int islandCount = islandManager.getIslandCount();
+        int totalContacts = (islandCount > 0) ? islandManager.getIslandEnd(islandCount - 1) : 0;
+        for (int i = 0; i < totalContacts; i++) {
+            contactIndexes[i] = islandManager.getContactIndex(i);
+        }
+        for (int i = 0; i <= islandCount; i++) {
+            islandStarts[i] = (i < islandCount) ? islandManager.getIslandStart(i) : totalContacts;
+        }
+
+        // Solve islands in parallel
+        if (islandCount > 0) {
+            pool.invoke(new SolveIslandsTask(contacts, 0, islandCount));
+        }
+
+        saveWarmStartImpulses(contacts, totalContacts);
+        notifyAndFreeContacts(contactData);
+    }
+
+    private class SolveIslandsTask extends RecursiveAction {
+
+        private final int islandEnd;
+        private final int islandStart;
+        private final Contact[] contacts;
+
+        public SolveIslandsTask(Contact[] contacts, int islandStart, int islandEnd) {
+            this.islandEnd = islandEnd;
+            this.islandStart = islandStart;
+            this.contacts = contacts;
+        }
+
+        @Override
+        protected void compute() {
+            int totalContacts = islandStarts[islandEnd] - islandStarts[islandStart];
+
+            // A single island can't be split any further
+            if ((islandEnd - islandStart == 1) || (totalContacts <= contactsPerTask)) {
+                for (int i = islandStart; i < islandEnd; i++) {
+                    solve(contacts, islandStarts[i], islandStarts[i + 1]);
+                }
+                return;
+            }
+
+            int islandMiddle = (islandStart + islandEnd) >>> 1;
+            invokeAll(
+                    new SolveIslandsTask(contacts, islandStart, islandMiddle),
+                    new SolveIslandsTask(contacts, islandMiddle, islandEnd));
+        }
+
+    }
+
+}
@@ -19,6 +19,9 @@ package net.smert.frameworkgl.collision.shapes;
 public enum ShapeType {
 
     AABB,
+    CAPSULE,
+    OBB,
+    SPHERE,
     MAX_SHAPE
 
 }
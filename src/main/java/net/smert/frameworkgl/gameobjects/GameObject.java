@@ -12,9 +12,13 @@
  */
 package net.smert.frameworkgl.gameobjects;
 
+import java.util.ArrayList;
+import java.util.List;
+import net.smert.frameworkgl.Fw;
 import net.smert.frameworkgl.math.AABB;
 import net.smert.frameworkgl.math.Matrix3f;
 import net.smert.frameworkgl.math.Transform4f;
+import net.smert.frameworkgl.math.Vector3d;
 import net.smert.frameworkgl.math.Vector3f;
 import net.smert.frameworkgl.opengl.mesh.Mesh;
 import net.smert.frameworkgl.opengl.renderable.AbstractRenderable;
@@ -26,19 +30,91 @@ import net.smert.frameworkgl.opengl.renderable.RenderableState;
  */
 public class GameObject {
 
+    private boolean childrenDirty;
+    private boolean transformDirty;
     private final AABB worldAabb;
     private AbstractRenderable renderable;
+    private GameObject parent;
+    private final List<GameObject> children;
     private Mesh mesh;
     private final RenderableState renderableState;
+    private final Transform4f localTransform;
     private Transform4f scalingTransform;
     private final Transform4f worldTransform;
+    private WorldAabbCallback worldAabbCallback;
 
     public GameObject() {
+        childrenDirty = false;
+        transformDirty = true;
         worldAabb = new AABB();
+        children = new ArrayList<>();
         renderableState = new RenderableState();
+        localTransform = new Transform4f();
         worldTransform = new Transform4f();
     }
 
+    private void markAncestorsDirty() {
+
+        // Stop at the first ancestor that already knows. Everything above it was marked at the same time.
+        GameObject ancestor = parent;
+        while ((ancestor != null) && !ancestor.childrenDirty) {
+            ancestor.childrenDirty = true;
+            ancestor = ancestor.parent;
+        }
+    }
+
+    private void markSubtreeDirty() {
+        transformDirty = true;
+        if (children.isEmpty()) {
+            return;
+        }
+        childrenDirty = true;
+        for (int i = 0; i < children.size(); i++) {
+            GameObject child = children.get(i);
+
+            // A dirty child already has a dirty subtree
+            if (!child.transformDirty) {
+                child.markSubtreeDirty();
+            }
+        }
+    }
+
+    private void updateLocalTransform() {
+        if (parent == null) {
+            localTransform.set(worldTransform);
+            return;
+        }
+
+        // Local transform relative to the parent's current world transform
+        localTransform.set(parent.worldTransform).multiplyTranspose(worldTransform);
+    }
+
+    protected void localTransformChanged() {
+        if (parent == null) {
+            worldTransform.set(localTransform);
+        }
+        markTransformDirty();
+    }
+
+    protected void worldTransformChanged() {
+        updateLocalTransform();
+        markTransformDirty();
+    }
+
+    public void addChild(GameObject child) {
+        assert (child != this);
+        assert (!child.isAncestorOf(this));
+        if (child.parent == this) {
+            return;
+        }
+        if (child.parent != null) {
+            child.parent.removeChild(child);
+        }
+        children.add(child);
+        child.parent = this;
+        child.markTransformDirty();
+    }
+
     public void destroy() {
         if (renderable == null) {
             return;
@@ -46,10 +122,116 @@ public class GameObject {
         renderable.destroy();
     }
 
+    public List<GameObject> getChildren() {
+        return children;
+    }
+
+    public GameObject getParent() {
+        return parent;
+    }
+
+    public boolean isAncestorOf(GameObject gameObject) {
+        GameObject ancestor = gameObject.parent;
+        while (ancestor != null) {
+            if (ancestor == this) {
+                return true;
+            }
+            ancestor = ancestor.parent;
+        }
+        return false;
+    }
+
+    public boolean isTransformDirty() {
+        return transformDirty;
+    }
+
+    public void markTransformDirty() {
+        markSubtreeDirty();
+        markAncestorsDirty();
+    }
+
+    /**
+     * Moves the object by the opposite of the shift when the world origin moves by the shift. Every object moves by the
+     * same amount so the local transforms of children don't change.
+     *
+     * @param shift Distance the world origin moved
+     */
+    public void shiftOrigin(Vector3f shift) {
+        worldTransform.getPosition().subtract(shift);
+        if (parent == null) {
+            localTransform.getPosition().subtract(shift);
+        }
+        worldAabb.getMin().subtract(shift);
+        worldAabb.getMax().subtract(shift);
+        worldAabbUpdated();
+    }
+
+    public void removeChild(GameObject child) {
+        if (child.parent != this) {
+            return;
+        }
+        children.remove(child);
+        child.parent = null;
+
+        // The last world transform becomes the root transform
+        child.localTransform.set(child.worldTransform);
+        child.markTransformDirty();
+    }
+
+    public void updateWorldTransforms() {
+        if (transformDirty) {
+            if (parent != null) {
+                worldTransform.set(parent.worldTransform).multiply(localTransform);
+            } else {
+                localTransform.set(worldTransform);
+            }
+            transformDirty = false;
+
+            // Only objects that moved need a new world AABB
+            if (mesh != null) {
+                Fw.graphics.updateAabb(this);
+                worldAabbUpdated();
+            }
+        }
+
+        // Skip subtrees where nothing changed
+        if (!childrenDirty) {
+            return;
+        }
+        childrenDirty = false;
+        for (int i = 0; i < children.size(); i++) {
+            children.get(i).updateWorldTransforms();
+        }
+    }
+
+    public Vector3d getAbsolutePosition(Vector3d worldOrigin, Vector3d out) {
+        return out.set(worldOrigin).add(worldTransform.getPosition());
+    }
+
+    public GameObject setAbsolutePosition(Vector3d worldOrigin, Vector3d absolutePosition) {
+        absolutePosition.subtractOut(worldOrigin, worldTransform.getPosition());
+        worldTransformChanged();
+        return this;
+    }
+
     public AABB getWorldAabb() {
         return worldAabb;
     }
 
+    public WorldAabbCallback getWorldAabbCallback() {
+        return worldAabbCallback;
+    }
+
+    public void setWorldAabbCallback(WorldAabbCallback worldAabbCallback) {
+        this.worldAabbCallback = worldAabbCallback;
+    }
+
+    public void worldAabbUpdated() {
+        if (worldAabbCallback != null) {
+            worldAabbCallback.worldAabbUpdated(this);
+        }
+    }
+
     public AbstractRenderable getRenderable() {
         return renderable;
     }
@@ -64,6 +246,43 @@ public class GameObject {
 
     public GameObject setWorldRotation(Vector3f axis, float angle) {
         worldTransform.getRotation().fromAxisAngle(axis, angle);
+        worldTransformChanged();
+        return this;
+    }
+
+    public Transform4f getLocalTransform() {
+        return localTransform;
+    }
+
+    public GameObject setLocalTransform(Transform4f localTransform) {
+        this.localTransform.set(localTransform);
+        localTransformChanged();
+        return this;
+    }
+
+    public Vector3f getLocalPosition() {
+        return localTransform.getPosition();
+    }
+
+    public GameObject setLocalPosition(float x, float y, float z) {
+        localTransform.setPosition(x, y, z);
+        localTransformChanged();
+        return this;
+    }
+
+    public GameObject setLocalPosition(Vector3f position) {
+        localTransform.setPosition(position);
+        localTransformChanged();
+        return this;
+    }
+
+    public Matrix3f getLocalRotation() {
+        return localTransform.getRotation();
+    }
+
+    public GameObject setLocalRotation(Vector3f axis, float angle) {
+        localTransform.getRotation().fromAxisAngle(axis, angle);
+        localTransformChanged();
         return this;
     }
 
@@ -79,6 +298,10 @@ public class GameObject {
         return renderableState;
     }
 
+    public Transform4f getRenderTransform() {
+        return worldTransform;
+    }
+
     public Transform4f getScalingTransform() {
         return scalingTransform;
     }
@@ -94,6 +317,7 @@ public class GameObject {
 
     public GameObject setWorldTransform(Transform4f worldTransform) {
         this.worldTransform.set(worldTransform);
+        worldTransformChanged();
         return this;
     }
 
@@ -103,11 +327,13 @@ public class GameObject {
 
     public GameObject setWorldPosition(float x, float y, float z) {
         worldTransform.setPosition(x, y, z);
+        worldTransformChanged();
         return this;
     }
 
     public GameObject setWorldPosition(Vector3f position) {
         worldTransform.setPosition(position);
+        worldTransformChanged();
         return this;
     }
 
@@ -12,6 +12,7 @@
  */
 package net.smert.frameworkgl.gui;
 
+import net.smert.frameworkgl.opengl.camera.AbstractFrustumCulling;
 import net.smert.frameworkgl.opengl.renderer.TextRenderer;
 import net.smert.frameworkgl.utils.Color;
 import net.smert.frameworkgl.utils.TimeSpan;
@@ -26,6 +27,7 @@ public class SimpleDebugGuiScreen implements GuiScreen {
     private int displayFps;
     private final Color textureColor0;
     private final TimeSpan fpsTimeSpan;
+    protected AbstractFrustumCulling frustumCulling;
     protected TextRenderer textRenderer;
 
     public SimpleDebugGuiScreen() {
@@ -35,6 +37,14 @@ public class SimpleDebugGuiScreen implements GuiScreen {
         fpsTimeSpan = new TimeSpan();
     }
 
+    public AbstractFrustumCulling getFrustumCulling() {
+        return frustumCulling;
+    }
+
+    public void setFrustumCulling(AbstractFrustumCulling frustumCulling) {
+        this.frustumCulling = frustumCulling;
+    }
+
     public Color getTextureColor0() {
         return textureColor0;
     }
@@ -67,6 +77,11 @@ public class SimpleDebugGuiScreen implements GuiScreen {
         textRenderer.textNewLine();
         textRenderer.drawString("Used memory: " + percentUsed + "% " + memoryUsed + "MB of " + memoryTotal + "MB");
         textRenderer.textNewLine();
+        if (frustumCulling != null) {
+            textRenderer.drawString("Frustum plane tests: " + frustumCulling.getPlaneTests() + " Skipped: "
+                    + frustumCulling.getSkippedTests());
+            textRenderer.textNewLine();
+        }
     }
 
     @Override
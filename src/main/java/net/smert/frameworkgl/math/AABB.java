@@ -92,6 +92,13 @@ public class AABB {
         min.set(aabb.min);
     }
 
+    public float getSurfaceArea() {
+        float x = max.getX() - min.getX();
+        float y = max.getY() - min.getY();
+        float z = max.getZ() - min.getZ();
+        return 2f * (x * y + y * z + z * x);
+    }
+
     public float getVolume() {
         float x = max.getX() - min.getX();
         float y = max.getY() - min.getY();
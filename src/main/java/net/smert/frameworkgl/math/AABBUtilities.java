@@ -23,12 +23,91 @@ public class AABBUtilities {
     private AABBUtilities() {
     }
 
+    private static float SweepEnterFraction(float min0, float max0, float min1, float max1, float displacement) {
+        if (displacement > 0f) {
+            return (min1 - max0) / displacement;
+        }
+        if (displacement < 0f) {
+            return (max1 - min0) / displacement;
+        }
+
+        // Not moving along this axis so it always or never overlaps
+        if ((max0 > min1) && (max1 > min0)) {
+            return -Float.MAX_VALUE;
+        }
+        return Float.MAX_VALUE;
+    }
+
+    private static float SweepExitFraction(float min0, float max0, float min1, float max1, float displacement) {
+        if (displacement > 0f) {
+            return (max1 - min0) / displacement;
+        }
+        if (displacement < 0f) {
+            return (min1 - max0) / displacement;
+        }
+        return Float.MAX_VALUE;
+    }
+
     public static boolean DoesAabb0IntersectAabb1(AABB aabb0, AABB aabb1) {
         return ((aabb0.min.getX() <= aabb1.max.getX()) && (aabb1.min.getX() <= aabb0.max.getX())
                 && (aabb0.min.getZ() <= aabb1.max.getZ()) && (aabb1.min.getZ() <= aabb0.max.getZ())
                 && (aabb0.min.getY() <= aabb1.max.getY()) && (aabb1.min.getY() <= aabb0.max.getY()));
     }
 
+    public static boolean DoesRayIntersectAabb(Vector3f origin, Vector3f inverseDirection, float maxFraction,
+            AABB aabb) {
+
+        // Slab test. Fractions are along the unnormalized direction so a fraction of 1 is origin + direction. A zero
+        // direction gives an infinite inverse and NaNs for origins on a slab which the comparisons ignore.
+        float minFraction = 0f;
+        float t0 = (aabb.min.getX() - origin.getX()) * inverseDirection.getX();
+        float t1 = (aabb.max.getX() - origin.getX()) * inverseDirection.getX();
+        if (t0 > t1) {
+            float temp = t0;
+            t0 = t1;
+            t1 = temp;
+        }
+        if (t0 > minFraction) {
+            minFraction = t0;
+        }
+        if (t1 < maxFraction) {
+            maxFraction = t1;
+        }
+        if (minFraction > maxFraction) {
+            return false;
+        }
+        t0 = (aabb.min.getY() - origin.getY()) * inverseDirection.getY();
+        t1 = (aabb.max.getY() - origin.getY()) * inverseDirection.getY();
+        if (t0 > t1) {
+            float temp = t0;
+            t0 = t1;
+            t1 = temp;
+        }
+        if (t0 > minFraction) {
+            minFraction = t0;
+        }
+        if (t1 < maxFraction) {
+            maxFraction = t1;
+        }
+        if (minFraction > maxFraction) {
+            return false;
+        }
+        t0 = (aabb.min.getZ() - origin.getZ()) * inverseDirection.getZ();
+        t1 = (aabb.max.getZ() - origin.getZ()) * inverseDirection.getZ();
+        if (t0 > t1) {
+            float temp = t0;
+            t0 = t1;
+            t1 = temp;
+        }
+        if (t0 > minFraction) {
+            minFraction = t0;
+        }
+        if (t1 < maxFraction) {
+            maxFraction = t1;
+        }
+        return (minFraction <= maxFraction);
+    }
+
     public static boolean IsAabb0ContainedInAabb1(AABB aabb0, AABB aabb1) {
         return ((aabb0.min.getX() >= aabb1.min.getX()) && (aabb0.max.getX() <= aabb1.max.getX())
                 && (aabb0.min.getZ() >= aabb1.min.getZ()) && (aabb0.max.getZ() <= aabb1.max.getZ())
@@ -74,6 +153,45 @@ public class AABBUtilities {
         vars.release();
     }
 
+    /**
+     * Finds the fraction of the motion where two moving AABBs first touch. The AABBs are where each one ended up and
+     * the displacements are how far each one moved to get there.
+     *
+     * @param aabb0 AABB at the end of the motion
+     * @param displacement0 Motion of aabb0
+     * @param aabb1 AABB at the end of the motion
+     * @param displacement1 Motion of aabb1
+     * @return Fraction in [0, 1) of the first contact or 1 if they don't start touching. AABBs that already overlap at
+     * the start of the motion also return 1 since the discrete test handles them.
+     */
+    public static float TimeOfImpact(AABB aabb0, Vector3f displacement0, AABB aabb1, Vector3f displacement1) {
+
+        // Slab test of aabb0 moving against aabb1 with both at their start positions
+        float enter = SweepEnterFraction(aabb0.min.getX() - displacement0.getX(),
+                aabb0.max.getX() - displacement0.getX(), aabb1.min.getX() - displacement1.getX(),
+                aabb1.max.getX() - displacement1.getX(), displacement0.getX() - displacement1.getX());
+        float exit = SweepExitFraction(aabb0.min.getX() - displacement0.getX(),
+                aabb0.max.getX() - displacement0.getX(), aabb1.min.getX() - displacement1.getX(),
+                aabb1.max.getX() - displacement1.getX(), displacement0.getX() - displacement1.getX());
+        enter = Math.max(enter, SweepEnterFraction(aabb0.min.getY() - displacement0.getY(),
+                aabb0.max.getY() - displacement0.getY(), aabb1.min.getY() - displacement1.getY(),
+                aabb1.max.getY() - displacement1.getY(), displacement0.getY() - displacement1.getY()));
+        exit = Math.min(exit, SweepExitFraction(aabb0.min.getY() - displacement0.getY(),
+                aabb0.max.getY() - displacement0.getY(), aabb1.min.getY() - displacement1.getY(),
+                aabb1.max.getY() - displacement1.getY(), displacement0.getY() - displacement1.getY()));
+        enter = Math.max(enter, SweepEnterFraction(aabb0.min.getZ() - displacement0.getZ(),
+                aabb0.max.getZ() - displacement0.getZ(), aabb1.min.getZ() - displacement1.getZ(),
+                aabb1.max.getZ() - displacement1.getZ(), displacement0.getZ() - displacement1.getZ()));
+        exit = Math.min(exit, SweepExitFraction(aabb0.min.getZ() - displacement0.getZ(),
+                aabb0.max.getZ() - displacement0.getZ(), aabb1.min.getZ() - displacement1.getZ(),
+                aabb1.max.getZ() - displacement1.getZ(), displacement0.getZ() - displacement1.getZ()));
+
+        if ((enter < 0f) || (enter >= 1f) || (enter >= exit)) {
+            return 1f;
+        }
+        return enter;
+    }
+
     public static void Transform(AABB localAabb, Transform4f worldTransform, AABB worldAabb) {
 
         // Temp vars from thread local storage
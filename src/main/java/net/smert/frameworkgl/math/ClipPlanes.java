@@ -18,6 +18,25 @@ package net.smert.frameworkgl.math;
  */
 public class ClipPlanes {
 
+    public final static int PLANE_MASK_ALL = 0x3f;
+    public final static int PLANE_MASK_BOTTOM = 0x10;
+    public final static int PLANE_MASK_FAR = 0x02;
+    public final static int PLANE_MASK_LEFT = 0x04;
+    public final static int PLANE_MASK_NEAR = 0x01;
+    public final static int PLANE_MASK_OUTSIDE = -1;
+    public final static int PLANE_MASK_RIGHT = 0x08;
+    public final static int PLANE_MASK_TOP = 0x20;
+    public final static int PLANE_BOTTOM = 4;
+    public final static int PLANE_FAR = 1;
+    public final static int PLANE_LEFT = 2;
+    public final static int PLANE_NEAR = 0;
+    public final static int PLANE_NONE = -1;
+    public final static int PLANE_RIGHT = 3;
+    public final static int PLANE_TOP = 5;
+
+    private int planeTests;
+    private int rejectingPlane;
+
     // Bottom
     float bpW;
     float bpX;
@@ -63,9 +82,58 @@ public class ClipPlanes {
     float tpThreshold;
 
     public ClipPlanes() {
+        planeTests = 0;
+        rejectingPlane = PLANE_NONE;
         reset();
     }
 
+    private int planeAABBSide(float x, float y, float z, float w, float cx, float cy, float cz, float ex, float ey,
+            float ez) {
+        planeTests++;
+
+        // Negative when completely outside, positive when completely inside and zero when intersecting
+        float distance = x * cx + y * cy + z * cz + w;
+        float radius = Math.abs(x) * ex + Math.abs(y) * ey + Math.abs(z) * ez;
+        if (distance + radius <= 0f) {
+            return -1;
+        }
+        if (distance - radius > 0f) {
+            return 1;
+        }
+        return 0;
+    }
+
+    private int planeAABBSide(int plane, float cx, float cy, float cz, float ex, float ey, float ez) {
+        switch (plane) {
+            case PLANE_NEAR:
+                return planeAABBSide(npX, npY, npZ, npW - npThreshold, cx, cy, cz, ex, ey, ez);
+            case PLANE_FAR:
+                return planeAABBSide(fpX, fpY, fpZ, fpW - fpThreshold, cx, cy, cz, ex, ey, ez);
+            case PLANE_LEFT:
+                return planeAABBSide(lpX, lpY, lpZ, lpW - lpThreshold, cx, cy, cz, ex, ey, ez);
+            case PLANE_RIGHT:
+                return planeAABBSide(rpX, rpY, rpZ, rpW - rpThreshold, cx, cy, cz, ex, ey, ez);
+            case PLANE_BOTTOM:
+                return planeAABBSide(bpX, bpY, bpZ, bpW - bpThreshold, cx, cy, cz, ex, ey, ez);
+            case PLANE_TOP:
+                return planeAABBSide(tpX, tpY, tpZ, tpW - tpThreshold, cx, cy, cz, ex, ey, ez);
+            default:
+                throw new IllegalArgumentException("Invalid plane: " + plane);
+        }
+    }
+
+    public int getPlaneTests() {
+        return planeTests;
+    }
+
+    public int getRejectingPlane() {
+        return rejectingPlane;
+    }
+
+    public void resetPlaneTests() {
+        planeTests = 0;
+    }
+
     public boolean planeAABBEquation(Vector3f aabbMin, Vector3f aabbMax) {
 
         // This will fail if the AABB is larger than the frustum
@@ -194,6 +262,137 @@ public class ClipPlanes {
         return planePointEquation(center, maxExtent);
     }
 
+    public int planeAABBEquation(float[] centers, float[] extents, int start, int end, int[] visibleOut,
+            int visibleOffset) {
+        assert (centers.length >= end * 3);
+        assert (extents.length >= end * 3);
+        assert (visibleOut.length >= visibleOffset + end - start);
+
+        // Absolute normals project the extent onto each plane normal
+        float npAbsX = Math.abs(npX), npAbsY = Math.abs(npY), npAbsZ = Math.abs(npZ);
+        float fpAbsX = Math.abs(fpX), fpAbsY = Math.abs(fpY), fpAbsZ = Math.abs(fpZ);
+        float lpAbsX = Math.abs(lpX), lpAbsY = Math.abs(lpY), lpAbsZ = Math.abs(lpZ);
+        float rpAbsX = Math.abs(rpX), rpAbsY = Math.abs(rpY), rpAbsZ = Math.abs(rpZ);
+        float bpAbsX = Math.abs(bpX), bpAbsY = Math.abs(bpY), bpAbsZ = Math.abs(bpZ);
+        float tpAbsX = Math.abs(tpX), tpAbsY = Math.abs(tpY), tpAbsZ = Math.abs(tpZ);
+
+        int visibleIndex = visibleOffset;
+        for (int i = start, j = start * 3; i < end; i++, j += 3) {
+            float cx = centers[j], cy = centers[j + 1], cz = centers[j + 2];
+            float ex = extents[j], ey = extents[j + 1], ez = extents[j + 2];
+
+            // Test the corner furthest along each plane normal (p-vertex) which is the center distance plus the
+            // projected extent. A single test per plane and no branches on the result.
+            boolean visible
+                    = ((npX * cx + npY * cy + npZ * cz + npW + npAbsX * ex + npAbsY * ey + npAbsZ * ez) > npThreshold)
+                    & ((fpX * cx + fpY * cy + fpZ * cz + fpW + fpAbsX * ex + fpAbsY * ey + fpAbsZ * ez) > fpThreshold)
+                    & ((lpX * cx + lpY * cy + lpZ * cz + lpW + lpAbsX * ex + lpAbsY * ey + lpAbsZ * ez) > lpThreshold)
+                    & ((rpX * cx + rpY * cy + rpZ * cz + rpW + rpAbsX * ex + rpAbsY * ey + rpAbsZ * ez) > rpThreshold)
+                    & ((bpX * cx + bpY * cy + bpZ * cz + bpW + bpAbsX * ex + bpAbsY * ey + bpAbsZ * ez) > bpThreshold)
+                    & ((tpX * cx + tpY * cy + tpZ * cz + tpW + tpAbsX * ex + tpAbsY * ey + tpAbsZ * ez) > tpThreshold);
+
+            // Always write the index and only keep it when visible
+            visibleOut[visibleIndex] = i;
+            visibleIndex += visible ? 1 : 0;
+        }
+
+        return visibleIndex - visibleOffset;
+    }
+
+    public int planeAABBMask(Vector3f aabbMin, Vector3f aabbMax, int planeMask) {
+        return planeAABBMask(aabbMin, aabbMax, planeMask, PLANE_NONE);
+    }
+
+    public int planeAABBMask(Vector3f aabbMin, Vector3f aabbMax, int planeMask, int firstPlane) {
+        float cx = (aabbMin.x + aabbMax.x) * .5f;
+        float cy = (aabbMin.y + aabbMax.y) * .5f;
+        float cz = (aabbMin.z + aabbMax.z) * .5f;
+        float ex = (aabbMax.x - aabbMin.x) * .5f;
+        float ey = (aabbMax.y - aabbMin.y) * .5f;
+        float ez = (aabbMax.z - aabbMin.z) * .5f;
+
+        // The plane that rejected the AABB last time will most likely reject it again so it is tested first. It is
+        // the only plane picked by index, the rest are unrolled.
+        int testMask = planeMask;
+        if ((firstPlane != PLANE_NONE) && ((planeMask & (1 << firstPlane)) != 0)) {
+            int side = planeAABBSide(firstPlane, cx, cy, cz, ex, ey, ez);
+            if (side < 0) {
+                rejectingPlane = firstPlane;
+                return PLANE_MASK_OUTSIDE;
+            }
+            if (side > 0) {
+                planeMask &= ~(1 << firstPlane);
+            }
+            testMask &= ~(1 << firstPlane);
+        }
+
+        // Only test planes in the mask. A plane is removed from the mask when the AABB is completely inside it so
+        // children of the AABB can skip the test.
+        if ((testMask & PLANE_MASK_NEAR) != 0) {
+            int side = planeAABBSide(npX, npY, npZ, npW - npThreshold, cx, cy, cz, ex, ey, ez);
+            if (side < 0) {
+                rejectingPlane = PLANE_NEAR;
+                return PLANE_MASK_OUTSIDE;
+            }
+            if (side > 0) {
+                planeMask &= ~PLANE_MASK_NEAR;
+            }
+        }
+        if ((testMask & PLANE_MASK_FAR) != 0) {
+            int side = planeAABBSide(fpX, fpY, fpZ, fpW - fpThreshold, cx, cy, cz, ex, ey, ez);
+            if (side < 0) {
+                rejectingPlane = PLANE_FAR;
+                return PLANE_MASK_OUTSIDE;
+            }
+            if (side > 0) {
+                planeMask &= ~PLANE_MASK_FAR;
+            }
+        }
+        if ((testMask & PLANE_MASK_LEFT) != 0) {
+            int side = planeAABBSide(lpX, lpY, lpZ, lpW - lpThreshold, cx, cy, cz, ex, ey, ez);
+            if (side < 0) {
+                rejectingPlane = PLANE_LEFT;
+                return PLANE_MASK_OUTSIDE;
+            }
+            if (side > 0) {
+                planeMask &= ~PLANE_MASK_LEFT;
+            }
+        }
+        if ((testMask & PLANE_MASK_RIGHT) != 0) {
+            int side = planeAABBSide(rpX, rpY, rpZ, rpW - rpThreshold, cx, cy, cz, ex, ey, ez);
+            if (side < 0) {
+                rejectingPlane = PLANE_RIGHT;
+                return PLANE_MASK_OUTSIDE;
+            }
+            if (side > 0) {
+                planeMask &= ~PLANE_MASK_RIGHT;
+            }
+        }
+        if ((testMask & PLANE_MASK_BOTTOM) != 0) {
+            int side = planeAABBSide(bpX, bpY, bpZ, bpW - bpThreshold, cx, cy, cz, ex, ey, ez);
+            if (side < 0) {
+                rejectingPlane = PLANE_BOTTOM;
+                return PLANE_MASK_OUTSIDE;
+            }
+            if (side > 0) {
+                planeMask &= ~PLANE_MASK_BOTTOM;
+            }
+        }
+        if ((testMask & PLANE_MASK_TOP) != 0) {
+            int side = planeAABBSide(tpX, tpY, tpZ, tpW - tpThreshold, cx, cy, cz, ex, ey, ez);
+            if (side < 0) {
+                rejectingPlane = PLANE_TOP;
+                return PLANE_MASK_OUTSIDE;
+            }
+            if (side > 0) {
+                planeMask &= ~PLANE_MASK_TOP;
+            }
+        }
+
+        rejectingPlane = PLANE_NONE;
+        return planeMask;
+    }
+
     public boolean planePointEquation(float x, float y, float z, float threshold) {
         boolean result;
         result = ((npX * x + npY * y + npZ * z + npW) > (-threshold + npThreshold));
@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
  */
 public class Quaternion4f {
 
+    private final static float SLERP_THRESHOLD = .9995f;
     private final static Logger log = LoggerFactory.getLogger(Quaternion4f.class);
 
     float w;
@@ -90,6 +91,10 @@ public class Quaternion4f {
     }
 
     // Scalar Operations
+    public float dot(Quaternion4f quaternion) {
+        return w * quaternion.w + x * quaternion.x + y * quaternion.y + z * quaternion.z;
+    }
+
     public float getAngle() {
         return MathHelper.ArcCos(w) * 2f;
     }
@@ -206,6 +211,47 @@ public class Quaternion4f {
         return multiply(1f / mag);
     }
 
+    public Quaternion4f setNlerp(Quaternion4f quaternion0, Quaternion4f quaternion1, float f) {
+
+        // Take the shortest path. Both quaternions may be aliased by this.
+        float s = 1f - f;
+        if (quaternion0.dot(quaternion1) < 0f) {
+            f = -f;
+        }
+        set(
+                quaternion0.w * s + quaternion1.w * f,
+                quaternion0.x * s + quaternion1.x * f,
+                quaternion0.y * s + quaternion1.y * f,
+                quaternion0.z * s + quaternion1.z * f);
+        return normalize();
+    }
+
+    public Quaternion4f setSlerp(Quaternion4f quaternion0, Quaternion4f quaternion1, float f) {
+        float cosTheta = quaternion0.dot(quaternion1);
+        float sign = 1f;
+
+        // Take the shortest path
+        if (cosTheta < 0f) {
+            cosTheta = -cosTheta;
+            sign = -1f;
+        }
+
+        // Nearly parallel quaternions divide by a tiny sine so fall back to nlerp
+        if (cosTheta > SLERP_THRESHOLD) {
+            return setNlerp(quaternion0, quaternion1, f);
+        }
+
+        float theta = MathHelper.ArcCos(cosTheta);
+        float inverseSinTheta = 1f / MathHelper.Sin(theta);
+        float s0 = MathHelper.Sin((1f - f) * theta) * inverseSinTheta;
+        float s1 = MathHelper.Sin(f * theta) * inverseSinTheta * sign;
+        return set(
+                quaternion0.w * s0 + quaternion1.w * s1,
+                quaternion0.x * s0 + quaternion1.x * s1,
+                quaternion0.y * s0 + quaternion1.y * s1,
+                quaternion0.z * s0 + quaternion1.z * s1);
+    }
+
     public Quaternion4f set(float w, float x, float y, float z) {
         this.w = w;
         this.x = x;
@@ -0,0 +1,178 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.math;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Kernels that work on many transforms at once. Transforms are packed 12 floats each in the same layout as
+ * Transform4f.toColumnArray, AABBs are packed 6 floats each as min then max and matrices are packed 16 floats each in
+ * OpenGL column major order. The loops only use straight array indexing so HotSpot can unroll them and drop the
+ * bounds checks.
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class TransformBatchUtilities {
+
+    public final static int AABB_STRIDE = 6;
+    public final static int MATRIX_STRIDE = 16;
+    public final static int TRANSFORM_STRIDE = 12;
+
+    private TransformBatchUtilities() {
+    }
+
+    public static void MultiplyTransforms(Matrix4f matrix, float[] transforms, int count, float[] matricesOut) {
+        assert (transforms.length >= count * TRANSFORM_STRIDE);
+        assert (matricesOut.length >= count * MATRIX_STRIDE);
+
+        // Keep the matrix in locals so the loop only touches the packed arrays
+        float m0 = matrix.d0, m1 = matrix.d1, m2 = matrix.d2, m3 = matrix.d3;
+        float m4 = matrix.d4, m5 = matrix.d5, m6 = matrix.d6, m7 = matrix.d7;
+        float m8 = matrix.d8, m9 = matrix.d9, m10 = matrix.d10, m11 = matrix.d11;
+        float m12 = matrix.d12, m13 = matrix.d13, m14 = matrix.d14, m15 = matrix.d15;
+
+        for (int i = 0, t = 0, o = 0; i < count; i++, t += TRANSFORM_STRIDE, o += MATRIX_STRIDE) {
+            float xx = transforms[t], xy = transforms[t + 1], xz = transforms[t + 2];
+            float yx = transforms[t + 3], yy = transforms[t + 4], yz = transforms[t + 5];
+            float zx = transforms[t + 6], zy = transforms[t + 7], zz = transforms[t + 8];
+            float px = transforms[t + 9], py = transforms[t + 10], pz = transforms[t + 11];
+
+            // The transform is affine so the bottom row is 0, 0, 0, 1
+            matricesOut[o] = m0 * xx + m4 * xy + m8 * xz;
+            matricesOut[o + 1] = m1 * xx + m5 * xy + m9 * xz;
+            matricesOut[o + 2] = m2 * xx + m6 * xy + m10 * xz;
+            matricesOut[o + 3] = m3 * xx + m7 * xy + m11 * xz;
+            matricesOut[o + 4] = m0 * yx + m4 * yy + m8 * yz;
+            matricesOut[o + 5] = m1 * yx + m5 * yy + m9 * yz;
+            matricesOut[o + 6] = m2 * yx + m6 * yy + m10 * yz;
+            matricesOut[o + 7] = m3 * yx + m7 * yy + m11 * yz;
+            matricesOut[o + 8] = m0 * zx + m4 * zy + m8 * zz;
+            matricesOut[o + 9] = m1 * zx + m5 * zy + m9 * zz;
+            matricesOut[o + 10] = m2 * zx + m6 * zy + m10 * zz;
+            matricesOut[o + 11] = m3 * zx + m7 * zy + m11 * zz;
+            matricesOut[o + 12] = m0 * px + m4 * py + m8 * pz + m12;
+            matricesOut[o + 13] = m1 * px + m5 * py + m9 * pz + m13;
+            matricesOut[o + 14] = m2 * px + m6 * py + m10 * pz + m14;
+            matricesOut[o + 15] = m3 * px + m7 * py + m11 * pz + m15;
+        }
+    }
+
+    public static void PackAabbs(AABB[] aabbs, int count, float[] aabbsOut) {
+        assert (aabbsOut.length >= count * AABB_STRIDE);
+        for (int i = 0, o = 0; i < count; i++, o += AABB_STRIDE) {
+            AABB aabb = aabbs[i];
+            aabbsOut[o] = aabb.min.x;
+            aabbsOut[o + 1] = aabb.min.y;
+            aabbsOut[o + 2] = aabb.min.z;
+            aabbsOut[o + 3] = aabb.max.x;
+            aabbsOut[o + 4] = aabb.max.y;
+            aabbsOut[o + 5] = aabb.max.z;
+        }
+    }
+
+    public static void PackTransforms(Transform4f[] transforms, int count, float[] transformsOut) {
+        assert (transformsOut.length >= count * TRANSFORM_STRIDE);
+        for (int i = 0, o = 0; i < count; i++, o += TRANSFORM_STRIDE) {
+            Transform4f transform = transforms[i];
+            transformsOut[o] = transform.rotation.xAxis.x;
+            transformsOut[o + 1] = transform.rotation.xAxis.y;
+            transformsOut[o + 2] = transform.rotation.xAxis.z;
+            transformsOut[o + 3] = transform.rotation.yAxis.x;
+            transformsOut[o + 4] = transform.rotation.yAxis.y;
+            transformsOut[o + 5] = transform.rotation.yAxis.z;
+            transformsOut[o + 6] = transform.rotation.zAxis.x;
+            transformsOut[o + 7] = transform.rotation.zAxis.y;
+            transformsOut[o + 8] = transform.rotation.zAxis.z;
+            transformsOut[o + 9] = transform.position.x;
+            transformsOut[o + 10] = transform.position.y;
+            transformsOut[o + 11] = transform.position.z;
+        }
+    }
+
+    public static void ToFloatBuffer(float[] matrices, int count, FloatBuffer fbOut) {
+
+        // A single bulk put is a memory copy for both heap and direct buffers
+        fbOut.put(matrices, 0, count * MATRIX_STRIDE);
+    }
+
+    public static void ToMatrices(float[] transforms, int count, float[] matricesOut) {
+        assert (transforms.length >= count * TRANSFORM_STRIDE);
+        assert (matricesOut.length >= count * MATRIX_STRIDE);
+        for (int i = 0, t = 0, o = 0; i < count; i++, t += TRANSFORM_STRIDE, o += MATRIX_STRIDE) {
+            matricesOut[o] = transforms[t];
+            matricesOut[o + 1] = transforms[t + 1];
+            matricesOut[o + 2] = transforms[t + 2];
+            matricesOut[o + 3] = 0f;
+            matricesOut[o + 4] = transforms[t + 3];
+            matricesOut[o + 5] = transforms[t + 4];
+            matricesOut[o + 6] = transforms[t + 5];
+            matricesOut[o + 7] = 0f;
+            matricesOut[o + 8] = transforms[t + 6];
+            matricesOut[o + 9] = transforms[t + 7];
+            matricesOut[o + 10] = transforms[t + 8];
+            matricesOut[o + 11] = 0f;
+            matricesOut[o + 12] = transforms[t + 9];
+            matricesOut[o + 13] = transforms[t + 10];
+            matricesOut[o + 14] = transforms[t + 11];
+            matricesOut[o + 15] = 1f;
+        }
+    }
+
+    public static void TransformAabbs(float[] localAabbs, float[] transforms, int count, float[] worldAabbsOut) {
+        assert (localAabbs.length >= count * AABB_STRIDE);
+        assert (transforms.length >= count * TRANSFORM_STRIDE);
+        assert (worldAabbsOut.length >= count * AABB_STRIDE);
+        for (int i = 0, a = 0, t = 0; i < count; i++, a += AABB_STRIDE, t += TRANSFORM_STRIDE) {
+            float xx = transforms[t], xy = transforms[t + 1], xz = transforms[t + 2];
+            float yx = transforms[t + 3], yy = transforms[t + 4], yz = transforms[t + 5];
+            float zx = transforms[t + 6], zy = transforms[t + 7], zz = transforms[t + 8];
+
+            // Local center and extent
+            float cx = (localAabbs[a] + localAabbs[a + 3]) * .5f;
+            float cy = (localAabbs[a + 1] + localAabbs[a + 4]) * .5f;
+            float cz = (localAabbs[a + 2] + localAabbs[a + 5]) * .5f;
+            float ex = (localAabbs[a + 3] - localAabbs[a]) * .5f;
+            float ey = (localAabbs[a + 4] - localAabbs[a + 1]) * .5f;
+            float ez = (localAabbs[a + 5] - localAabbs[a + 2]) * .5f;
+
+            // Rotate the center and project the extent onto each world axis using the absolute rotation
+            float wcx = xx * cx + yx * cy + zx * cz + transforms[t + 9];
+            float wcy = xy * cx + yy * cy + zy * cz + transforms[t + 10];
+            float wcz = xz * cx + yz * cy + zz * cz + transforms[t + 11];
+            float wex = Math.abs(xx) * ex + Math.abs(yx) * ey + Math.abs(zx) * ez;
+            float wey = Math.abs(xy) * ex + Math.abs(yy) * ey + Math.abs(zy) * ez;
+            float wez = Math.abs(xz) * ex + Math.abs(yz) * ey + Math.abs(zz) * ez;
+
+            worldAabbsOut[a] = wcx - wex;
+            worldAabbsOut[a + 1] = wcy - wey;
+            worldAabbsOut[a + 2] = wcz - wez;
+            worldAabbsOut[a + 3] = wcx + wex;
+            worldAabbsOut[a + 4] = wcy + wey;
+            worldAabbsOut[a + 5] = wcz + wez;
+        }
+    }
+
+    public static void UnpackAabbs(float[] aabbs, int count, AABB[] aabbsOut) {
+        assert (aabbs.length >= count * AABB_STRIDE);
+        for (int i = 0, a = 0; i < count; i++, a += AABB_STRIDE) {
+            AABB aabb = aabbsOut[i];
+            aabb.min.x = aabbs[a];
+            aabb.min.y = aabbs[a + 1];
+            aabb.min.z = aabbs[a + 2];
+            aabb.max.x = aabbs[a + 3];
+            aabb.max.y = aabbs[a + 4];
+            aabb.max.z = aabbs[a + 5];
+        }
+    }
+
+}
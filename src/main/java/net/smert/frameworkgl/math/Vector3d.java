@@ -0,0 +1,194 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.math;
+
+/**
+ * Double precision position used for world coordinates that are too far from the origin for a float.
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class Vector3d {
+
+    double x;
+    double y;
+    double z;
+
+    // Constructors
+    public Vector3d() {
+        zero();
+    }
+
+    public Vector3d(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public Vector3d(Vector3d vector) {
+        x = vector.x;
+        y = vector.y;
+        z = vector.z;
+    }
+
+    public Vector3d(Vector3f vector) {
+        x = vector.x;
+        y = vector.y;
+        z = vector.z;
+    }
+
+    // Conversion Operations
+    public Vector3f toVector3f(Vector3f out) {
+        out.x = (float) x;
+        out.y = (float) y;
+        out.z = (float) z;
+        return out;
+    }
+
+    public Vector3f subtractOut(Vector3d vector, Vector3f out) {
+
+        // Subtract in double precision so only the small difference is rounded to a float
+        out.x = (float) (x - vector.x);
+        out.y = (float) (y - vector.y);
+        out.z = (float) (z - vector.z);
+        return out;
+    }
+
+    // Scalar Results
+    public double distance(Vector3d vector) {
+        return Math.sqrt(distanceSquared(vector));
+    }
+
+    public double distanceSquared(Vector3d vector) {
+        double d0 = x - vector.x;
+        double d1 = y - vector.y;
+        double d2 = z - vector.z;
+        return d0 * d0 + d1 * d1 + d2 * d2;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    public double magnitude() {
+        return Math.sqrt(magnitudeSquared());
+    }
+
+    public double magnitudeSquared() {
+        return x * x + y * y + z * z;
+    }
+
+    // Vector Results
+    public Vector3d add(double x, double y, double z) {
+        this.x += x;
+        this.y += y;
+        this.z += z;
+        return this;
+    }
+
+    public Vector3d add(Vector3d vector) {
+        x += vector.x;
+        y += vector.y;
+        z += vector.z;
+        return this;
+    }
+
+    public Vector3d add(Vector3f vector) {
+        x += vector.x;
+        y += vector.y;
+        z += vector.z;
+        return this;
+    }
+
+    public Vector3d set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    public Vector3d set(Vector3d vector) {
+        x = vector.x;
+        y = vector.y;
+        z = vector.z;
+        return this;
+    }
+
+    public Vector3d set(Vector3f vector) {
+        x = vector.x;
+        y = vector.y;
+        z = vector.z;
+        return this;
+    }
+
+    public Vector3d subtract(Vector3d vector) {
+        x -= vector.x;
+        y -= vector.y;
+        z -= vector.z;
+        return this;
+    }
+
+    public Vector3d subtract(Vector3f vector) {
+        x -= vector.x;
+        y -= vector.y;
+        z -= vector.z;
+        return this;
+    }
+
+    public final Vector3d zero() {
+        x = 0.0;
+        y = 0.0;
+        z = 0.0;
+        return this;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 53 * hash + Long.hashCode(Double.doubleToLongBits(this.x));
+        hash = 53 * hash + Long.hashCode(Double.doubleToLongBits(this.y));
+        hash = 53 * hash + Long.hashCode(Double.doubleToLongBits(this.z));
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final Vector3d other = (Vector3d) obj;
+        if (Double.doubleToLongBits(this.x) != Double.doubleToLongBits(other.x)) {
+            return false;
+        }
+        if (Double.doubleToLongBits(this.y) != Double.doubleToLongBits(other.y)) {
+            return false;
+        }
+        return Double.doubleToLongBits(this.z) == Double.doubleToLongBits(other.z);
+    }
+
+    @Override
+    public String toString() {
+        return "(x: " + x + " y: " + y + " z: " + z + ")";
+    }
+
+}
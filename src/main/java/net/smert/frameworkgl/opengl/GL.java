@@ -26,6 +26,7 @@ import net.smert.frameworkgl.opengl.helpers.RenderBufferObjectHelper;
 import net.smert.frameworkgl.opengl.helpers.ShaderHelper;
 import net.smert.frameworkgl.opengl.helpers.ShaderUniformHelper;
 import net.smert.frameworkgl.opengl.helpers.TextureHelper;
+import net.smert.frameworkgl.opengl.helpers.UniformBufferObjectHelper;
 import net.smert.frameworkgl.opengl.helpers.VertexArrayHelper;
 import net.smert.frameworkgl.opengl.helpers.VertexArrayObjectHelper;
 import net.smert.frameworkgl.opengl.helpers.VertexBufferObjectHelper;
@@ -43,6 +44,7 @@ import net.smert.frameworkgl.opengl.renderer.RendererGL3;
 import net.smert.frameworkgl.opengl.renderer.factory.RendererFactory;
 import net.smert.frameworkgl.opengl.shader.DefaultAttribLocations;
 import net.smert.frameworkgl.opengl.shader.ShaderBuilder;
+import net.smert.frameworkgl.opengl.shader.UniformBlockBuffer;
 import net.smert.frameworkgl.opengl.shader.UniformVariables;
 import net.smert.frameworkgl.opengl.texture.TextureBuilder;
 import net.smert.frameworkgl.opengl.texture.TextureReader;
@@ -86,6 +88,8 @@ public class GL {
     public static TextureBuilder textureBuilder;
     public static TextureHelper textureHelper;
     public static TextureReader textureReader;
+    public static UniformBlockBuffer uniformBlockBuffer;
+    public static UniformBufferObjectHelper uboHelper;
     public static UniformVariables uniformVariables;
     public static VertexArrayHelper vaHelper;
     public static VertexArrayObjectHelper vaoHelper;
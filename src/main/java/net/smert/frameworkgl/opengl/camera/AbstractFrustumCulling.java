@@ -12,6 +12,7 @@
  */
 package net.smert.frameworkgl.opengl.camera;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import net.smert.frameworkgl.math.AABB;
 import net.smert.frameworkgl.math.ClipPlanes;
 import net.smert.frameworkgl.math.Matrix4f;
@@ -23,10 +24,68 @@ import net.smert.frameworkgl.math.Vector3f;
  */
 public abstract class AbstractFrustumCulling {
 
+    private final static AtomicInteger nextPlanesVersion = new AtomicInteger(1);
+
+    private int planesVersion;
+    private int skippedTests;
     protected final ClipPlanes clipPlanes;
+    private final Matrix4f lastClippingMatrix;
 
     public AbstractFrustumCulling() {
+        planesVersion = 0;
+        skippedTests = 0;
         clipPlanes = new ClipPlanes();
+        lastClippingMatrix = new Matrix4f();
+    }
+
+    protected void extractPlanes(Matrix4f clippingMatrix) {
+
+        // Counters are per frame
+        clipPlanes.resetPlaneTests();
+        skippedTests = 0;
+
+        // Planes only change when the camera moves or the projection changes
+        if ((planesVersion > 0) && clippingMatrix.equals(lastClippingMatrix)) {
+            return;
+        }
+        lastClippingMatrix.set(clippingMatrix);
+        clippingMatrix.extractPlanes(clipPlanes);
+
+        // Versions are unique across every instance so a cached result from another camera never matches
+        planesVersion = nextPlanesVersion.getAndIncrement();
+    }
+
+    public void incrementSkippedTests() {
+        skippedTests++;
+    }
+
+    public int findAABBsInFrustum(float[] centers, float[] extents, int start, int end, int[] visibleOut,
+            int visibleOffset) {
+        return clipPlanes.planeAABBEquation(centers, extents, start, end, visibleOut, visibleOffset);
+    }
+
+    public int getAABBPlaneMask(AABB aabb, int planeMask) {
+        return clipPlanes.planeAABBMask(aabb.getMin(), aabb.getMax(), planeMask);
+    }
+
+    public int getAABBPlaneMask(AABB aabb, int planeMask, int firstPlane) {
+        return clipPlanes.planeAABBMask(aabb.getMin(), aabb.getMax(), planeMask, firstPlane);
+    }
+
+    public int getPlaneTests() {
+        return clipPlanes.getPlaneTests();
+    }
+
+    public int getPlanesVersion() {
+        return planesVersion;
+    }
+
+    public int getRejectingPlane() {
+        return clipPlanes.getRejectingPlane();
+    }
+
+    public int getSkippedTests() {
+        return skippedTests;
     }
 
     public boolean isAABBInFrustum(AABB aabb) {
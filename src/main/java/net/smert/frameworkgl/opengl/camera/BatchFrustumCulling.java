@@ -0,0 +1,197 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.opengl.camera;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import net.smert.frameworkgl.math.AABB;
+import net.smert.frameworkgl.math.Vector3f;
+
+/**
+ * World AABBs are kept as centers and extents in flat arrays (3 floats each) and culled together. The indices of the
+ * visible AABBs are written to an int array.
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class BatchFrustumCulling {
+
+    private boolean parallel;
+    private int capacity;
+    private int objectsPerTask;
+    private int size;
+    private int visibleCount;
+    private float[] centers;
+    private float[] extents;
+    private int[] taskVisibleCounts;
+    private int[] visibleIndices;
+    private ForkJoinPool forkJoinPool;
+
+    public BatchFrustumCulling() {
+        parallel = false;
+        capacity = 256;
+        objectsPerTask = 4096;
+        size = 0;
+        visibleCount = 0;
+        centers = new float[capacity * 3];
+        extents = new float[capacity * 3];
+        taskVisibleCounts = new int[1];
+        visibleIndices = new int[capacity];
+        forkJoinPool = ForkJoinPool.commonPool();
+    }
+
+    private void compactVisibleIndices(int totalTasks) {
+
+        // Each task wrote its indices at the start of its own range so move them down next to each other
+        visibleCount = taskVisibleCounts[0];
+        for (int i = 1; i < totalTasks; i++) {
+            int count = taskVisibleCounts[i];
+            if (count > 0) {
+                System.arraycopy(visibleIndices, i * objectsPerTask, visibleIndices, visibleCount, count);
+                visibleCount += count;
+            }
+        }
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity <= capacity) {
+            return;
+        }
+        while (capacity < minCapacity) {
+            capacity *= 2;
+        }
+        float[] newCenters = new float[capacity * 3];
+        float[] newExtents = new float[capacity * 3];
+        System.arraycopy(centers, 0, newCenters, 0, size * 3);
+        System.arraycopy(extents, 0, newExtents, 0, size * 3);
+        centers = newCenters;
+        extents = newExtents;
+        visibleIndices = new int[capacity];
+    }
+
+    public int add(AABB aabb) {
+        ensureCapacity(size + 1);
+        int index = size++;
+        set(index, aabb);
+        return index;
+    }
+
+    public void clear() {
+        size = 0;
+        visibleCount = 0;
+    }
+
+    public int cull(AbstractFrustumCulling frustumCulling) {
+        int totalTasks = (size + objectsPerTask - 1) / objectsPerTask;
+        if (!parallel || (totalTasks <= 1)) {
+            visibleCount = frustumCulling.findAABBsInFrustum(centers, extents, 0, size, visibleIndices, 0);
+            return visibleCount;
+        }
+        if (taskVisibleCounts.length < totalTasks) {
+            taskVisibleCounts = new int[totalTasks];
+        }
+        forkJoinPool.invoke(new CullTask(frustumCulling, 0, totalTasks));
+        compactVisibleIndices(totalTasks);
+        return visibleCount;
+    }
+
+    public float[] getCenters() {
+        return centers;
+    }
+
+    public float[] getExtents() {
+        return extents;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    public int getObjectsPerTask() {
+        return objectsPerTask;
+    }
+
+    public void setObjectsPerTask(int objectsPerTask) {
+        this.objectsPerTask = objectsPerTask;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public void set(int index, AABB aabb) {
+        assert (index < size);
+        Vector3f max = aabb.getMax();
+        Vector3f min = aabb.getMin();
+        int i = index * 3;
+        centers[i] = (min.getX() + max.getX()) * .5f;
+        centers[i + 1] = (min.getY() + max.getY()) * .5f;
+        centers[i + 2] = (min.getZ() + max.getZ()) * .5f;
+        extents[i] = (max.getX() - min.getX()) * .5f;
+        extents[i + 1] = (max.getY() - min.getY()) * .5f;
+        extents[i + 2] = (max.getZ() - min.getZ()) * .5f;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        ensureCapacity(size);
+        this.size = size;
+    }
+
+    public int getVisibleCount() {
+        return visibleCount;
+    }
+
+    public int[] getVisibleIndices() {
+        return visibleIndices;
+    }
+
+    private class CullTask extends RecursiveAction {
+
+        private final int endTask;
+        private final int startTask;
+        private final AbstractFrustumCulling frustumCulling;
+
+        public CullTask(AbstractFrustumCulling frustumCulling, int startTask, int endTask) {
+            this.endTask = endTask;
+            this.startTask = startTask;
+            this.frustumCulling = frustumCulling;
+        }
+
+        @Override
+        protected void compute() {
+            if (endTask - startTask == 1) {
+                int start = startTask * objectsPerTask;
+                int end = Math.min(start + objectsPerTask, size);
+                taskVisibleCounts[startTask] = frustumCulling.findAABBsInFrustum(centers, extents, start, end,
+                        visibleIndices, start);
+                return;
+            }
+
+            int middle = (startTask + endTask) >>> 1;
+            invokeAll(new CullTask(frustumCulling, startTask, middle), new CullTask(frustumCulling, middle, endTask));
+        }
+
+    }
+
+}
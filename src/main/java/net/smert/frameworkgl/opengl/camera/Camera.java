@@ -28,6 +28,7 @@ public class Camera {
     public final static float MAX_SAFE_PITCH = 90f;
     public final static float MAX_SAFE_ROLL = 30f;
 
+    private boolean cameraRelative;
     private boolean invert;
     private float aspectRatio;
     private float fieldOfView;
@@ -43,11 +44,13 @@ public class Camera {
     private final Matrix4f inverseProjectionViewMatrix;
     private final Matrix4f projectionMatrix;
     private final Matrix4f projectionViewMatrix;
+    private final Matrix4f relativeViewMatrix;
     private final Matrix4f viewMatrix;
     private final Vector3f position;
     private final Vector3f viewDirection;
 
     public Camera() {
+        cameraRelative = false;
         invert = false;
         aspectRatio = 0f;
         fieldOfView = 0f;
@@ -62,6 +65,7 @@ public class Camera {
         inverseProjectionViewMatrix = new Matrix4f();
         projectionMatrix = new Matrix4f();
         projectionViewMatrix = new Matrix4f();
+        relativeViewMatrix = new Matrix4f();
         viewMatrix = new Matrix4f();
         position = new Vector3f();
         viewDirection = new Vector3f();
@@ -131,6 +135,10 @@ public class Camera {
         return projectionViewMatrix;
     }
 
+    public Matrix4f getRelativeViewMatrix() {
+        return relativeViewMatrix;
+    }
+
     public Matrix4f getViewMatrix() {
         return viewMatrix;
     }
@@ -153,6 +161,19 @@ public class Camera {
         return viewDirection;
     }
 
+    public boolean isCameraRelative() {
+        return cameraRelative;
+    }
+
+    /**
+     * Renders with a view matrix that has no translation and model matrices relative to the camera position.
+     *
+     * @param cameraRelative True to render relative to the camera
+     */
+    public void setCameraRelative(boolean cameraRelative) {
+        this.cameraRelative = cameraRelative;
+    }
+
     public boolean isInvert() {
         return invert;
     }
@@ -289,6 +310,7 @@ public class Camera {
 
     public void update() {
         viewMatrix.setInverse(rotationMatrix, position);
+        relativeViewMatrix.set(viewMatrix).setPosition(0f, 0f, 0f);
         projectionMatrix.projectionMultiplyViewOut(viewMatrix, projectionViewMatrix);
         inverseProjectionViewMatrix.setInverse(projectionViewMatrix);
     }
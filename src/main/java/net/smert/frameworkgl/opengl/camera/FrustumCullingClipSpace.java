@@ -29,7 +29,7 @@ public class FrustumCullingClipSpace extends AbstractFrustumCulling {
     @Override
     public void updatePlanes(Matrix4f projectionMatrix, Matrix4f viewMatrix) {
         projectionMatrix.projectionMultiplyViewOut(viewMatrix, clippingMatrix);
-        clippingMatrix.extractPlanes(clipPlanes);
+        extractPlanes(clippingMatrix);
     }
 
 }
@@ -29,7 +29,7 @@ public class FrustumCullingClipSpaceSymmetrical extends AbstractFrustumCulling {
     @Override
     public void updatePlanes(Matrix4f projectionMatrix, Matrix4f viewMatrix) {
         projectionMatrix.projectionSymmetricalMultiplyViewOut(viewMatrix, clippingMatrix);
-        clippingMatrix.extractPlanes(clipPlanes);
+        extractPlanes(clippingMatrix);
     }
 
 }
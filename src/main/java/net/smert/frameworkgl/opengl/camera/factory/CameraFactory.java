@@ -12,6 +12,7 @@
  */
 package net.smert.frameworkgl.opengl.camera.factory;
 
+import net.smert.frameworkgl.opengl.camera.BatchFrustumCulling;
 import net.smert.frameworkgl.opengl.camera.Camera;
 import net.smert.frameworkgl.opengl.camera.CameraController;
 import net.smert.frameworkgl.opengl.camera.FrustumCullingClipSpace;
@@ -32,6 +33,10 @@ public class CameraFactory {
         container = cameraFactoryContainer;
     }
 
+    public BatchFrustumCulling createBatchFrustumCulling() {
+        return container.getComponent(BatchFrustumCulling.class);
+    }
+
     public Camera createCamera() {
         return container.getComponent(Camera.class);
     }
@@ -295,6 +295,16 @@ public class FrameBufferObjectBuilder {
         return temp;
     }
 
+    /**
+     * Texture attached by this builder. Must be called before createFrameBufferObject(true) which clears the list.
+     *
+     * @param index Index in the order the textures were attached
+     * @return The attached texture
+     */
+    public Texture getTexture(int index) {
+        return textures.get(index);
+    }
+
     public void init() {
         maxColorAttachments = GL.o3.getMaxColorAttachments();
         maxDepthAttachments = 1;
@@ -0,0 +1,146 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.opengl.fbo;
+
+import net.smert.frameworkgl.opengl.FrameBufferObject;
+import net.smert.frameworkgl.opengl.GL;
+import net.smert.frameworkgl.opengl.Texture;
+import net.smert.frameworkgl.opengl.constants.ClearBits;
+import net.smert.frameworkgl.opengl.constants.TextureFilters;
+import net.smert.frameworkgl.opengl.constants.TextureUnit;
+import net.smert.frameworkgl.opengl.renderable.Renderable;
+
+/**
+ * Geometry buffer for deferred rendering. The textures are bound to the shader texture units starting at
+ * TextureUnit.TEXTURE8 so they are not unbound by model textures during the light passes.
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class GBuffer extends AbstractFrameBufferObject {
+
+    public final static int DIFFUSE_TEXTURE_UNIT = TextureUnit.TEXTURE8;
+    public final static int NORMAL_TEXTURE_UNIT = TextureUnit.TEXTURE9;
+    public final static int POSITION_TEXTURE_UNIT = TextureUnit.TEXTURE10;
+    public final static int AMBIENT_TEXTURE_UNIT = TextureUnit.TEXTURE11;
+    public final static int DEPTH_TEXTURE_UNIT = TextureUnit.TEXTURE12;
+
+    private final int height;
+    private final int width;
+    private final FrameBufferObject fbo;
+    private final Texture ambientTexture;
+    private final Texture depthTexture;
+    private final Texture diffuseTexture;
+    private final Texture normalTexture;
+    private final Texture positionTexture;
+
+    public GBuffer(FrameBufferObject fbo, Texture diffuseTexture, Texture normalTexture, Texture positionTexture,
+            Texture ambientTexture, Texture depthTexture, int width, int height) {
+        super(fbo);
+        this.height = height;
+        this.width = width;
+        this.fbo = fbo;
+        this.ambientTexture = ambientTexture;
+        this.depthTexture = depthTexture;
+        this.diffuseTexture = diffuseTexture;
+        this.normalTexture = normalTexture;
+        this.positionTexture = positionTexture;
+    }
+
+    public void bindTextures() {
+        Renderable.textureBindState.bindTexture(DIFFUSE_TEXTURE_UNIT, diffuseTexture);
+        Renderable.textureBindState.bindTexture(NORMAL_TEXTURE_UNIT, normalTexture);
+        Renderable.textureBindState.bindTexture(POSITION_TEXTURE_UNIT, positionTexture);
+        Renderable.textureBindState.bindTexture(AMBIENT_TEXTURE_UNIT, ambientTexture);
+        Renderable.textureBindState.bindTexture(DEPTH_TEXTURE_UNIT, depthTexture);
+    }
+
+    /**
+     * Copies the depth of the geometry pass into the default frame buffer so light volumes and anything rendered
+     * forward afterwards are depth tested against the scene. The default frame buffer must use a 24 bit depth and 8
+     * bit stencil buffer to match.
+     */
+    public void blitDepthToDefaultFrameBuffer() {
+        GL.fboHelper.setBlitTargets(fbo.getFboID(), 0);
+        GL.fboHelper.blit(0, 0, width, height, 0, 0, width, height, ClearBits.DEPTH_BUFFER_BIT,
+                TextureFilters.NEAREST);
+        GL.fboHelper.unbindBlitTargets();
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        ambientTexture.destroy();
+        depthTexture.destroy();
+        diffuseTexture.destroy();
+        normalTexture.destroy();
+        positionTexture.destroy();
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public void unbindTextures() {
+        Renderable.textureBindState.bindTexture(DIFFUSE_TEXTURE_UNIT, null);
+        Renderable.textureBindState.bindTexture(NORMAL_TEXTURE_UNIT, null);
+        Renderable.textureBindState.bindTexture(POSITION_TEXTURE_UNIT, null);
+        Renderable.textureBindState.bindTexture(AMBIENT_TEXTURE_UNIT, null);
+        Renderable.textureBindState.bindTexture(DEPTH_TEXTURE_UNIT, null);
+    }
+
+    public static class Factory {
+
+        /**
+         * Builds the G-buffer. Diffuse color with specular intensity in alpha, eye space normal with shininess in
+         * alpha, eye space position, emission plus global ambient and a depth stencil buffer. Only the depth needs to be
+         * cleared since pixels without geometry are found by their depth.
+         *
+         * @param width Width in pixels
+         * @param height Height in pixels
+         * @return The new G-buffer
+         */
+        public static GBuffer Create(int width, int height) {
+            GL.fboBuilder.init();
+            GL.fboBuilder.
+                    buildBegin().
+                    setWidth(width).
+                    setHeight(height).
+                    setInternalFormatRGBA8().
+                    attachNewTexture().
+                    setInternalFormatRGBA16F().
+                    attachNewTexture().
+                    setInternalFormatRGBA16F().
+                    attachNewTexture().
+                    setInternalFormatRGBA16F().
+                    attachNewTexture().
+                    setInternalFormatDepth24Stencil8().
+                    attachNewTexture().
+                    setReadBufferAttachmentColorAttachment0().
+                    buildEnd("gbuffer");
+            Texture diffuseTexture = GL.fboBuilder.getTexture(0);
+            Texture normalTexture = GL.fboBuilder.getTexture(1);
+            Texture positionTexture = GL.fboBuilder.getTexture(2);
+            Texture ambientTexture = GL.fboBuilder.getTexture(3);
+            Texture depthTexture = GL.fboBuilder.getTexture(4);
+            FrameBufferObject fbo = GL.fboBuilder.createFrameBufferObject(true);
+            return new GBuffer(fbo, diffuseTexture, normalTexture, positionTexture, ambientTexture, depthTexture,
+                    width, height);
+        }
+
+    }
+
+}
@@ -12,11 +12,11 @@
  */
 package net.smert.frameworkgl.opengl.helpers;
 
-import java.util.Stack;
 import net.smert.frameworkgl.math.Matrix4f;
 import net.smert.frameworkgl.math.Transform4f;
 import net.smert.frameworkgl.math.Vector3f;
-import net.smert.frameworkgl.utils.ThreadLocalVars;
+import net.smert.frameworkgl.opengl.camera.Camera;
+import net.smert.frameworkgl.utils.TempArena;
 
 /**
  *
@@ -28,19 +28,54 @@ public class MatrixHelper {
     public final static int MATRIX_PROJECTION = 1;
     public final static int MATRIX_VIEW = 2;
 
+    private boolean cameraRelative;
+    private boolean projectionViewModelDirty;
+    private boolean viewModelDirty;
     private int mode;
-    private final Stack<Matrix4f> modelMatrixStack;
-    private final Stack<Matrix4f> projectionMatrixStack;
-    private final Stack<Matrix4f> viewMatrixStack;
+    private final Matrix4f projectionViewModelMatrix;
+    private final Matrix4f viewModelMatrix;
+    private final MatrixStack modelMatrixStack;
+    private final MatrixStack projectionMatrixStack;
+    private final MatrixStack viewMatrixStack;
+    private final TempArena tempArena; // Only used by the render thread
+    private final Vector3f cameraPosition;
 
     public MatrixHelper() {
-        modelMatrixStack = new Stack<>();
-        projectionMatrixStack = new Stack<>();
-        viewMatrixStack = new Stack<>();
+        projectionViewModelMatrix = new Matrix4f();
+        viewModelMatrix = new Matrix4f();
+        modelMatrixStack = new MatrixStack();
+        projectionMatrixStack = new MatrixStack();
+        viewMatrixStack = new MatrixStack();
+        tempArena = new TempArena();
+        cameraPosition = new Vector3f();
         reset();
     }
 
-    private Stack<Matrix4f> getCurrentStack() {
+    private void changed(int changedMode) {
+
+        // The cached products are recomputed the next time they are used
+        projectionViewModelDirty = true;
+        if (changedMode != MATRIX_PROJECTION) {
+            viewModelDirty = true;
+        }
+    }
+
+    private void makeCameraRelative(Matrix4f matrix) {
+
+        // Only model matrices are moved. The view matrix has no translation in camera relative mode.
+        if (!cameraRelative || (mode != MATRIX_MODEL)) {
+            return;
+        }
+        matrix.setPosition(matrix.getPositionX() - cameraPosition.getX(),
+                matrix.getPositionY() - cameraPosition.getY(), matrix.getPositionZ() - cameraPosition.getZ());
+    }
+
+    private Matrix4f changeCurrentMatrix() {
+        changed(mode);
+        return getCurrentStack().peek();
+    }
+
+    private MatrixStack getCurrentStack() {
         switch (mode) {
             case MATRIX_MODEL:
                 return modelMatrixStack;
@@ -53,6 +88,31 @@ public class MatrixHelper {
         }
     }
 
+    public boolean isCameraRelative() {
+        return cameraRelative;
+    }
+
+    public Vector3f getCameraPosition() {
+        return cameraPosition;
+    }
+
+    public void clearCameraRelative() {
+        cameraRelative = false;
+        cameraPosition.zero();
+    }
+
+    /**
+     * Model matrices loaded after this are relative to the camera position. The large translations of the view and
+     * model matrices cancel before the matrices are multiplied instead of after which keeps objects far from the origin
+     * from jittering.
+     *
+     * @param cameraPosition World position of the camera
+     */
+    public void setCameraRelative(Vector3f cameraPosition) {
+        cameraRelative = true;
+        this.cameraPosition.set(cameraPosition);
+    }
+
     public int getMode() {
         return mode;
     }
@@ -69,6 +129,8 @@ public class MatrixHelper {
         mode = MATRIX_VIEW;
     }
 
+    // The getters below return the matrix on top of the stack which must not be changed since the cached products
+    // would not know about it. Use the load, rotate, scale and translate methods instead.
     public Matrix4f getCurrentMatrix() {
         return getCurrentStack().peek();
     }
@@ -81,20 +143,61 @@ public class MatrixHelper {
         return projectionMatrixStack.peek();
     }
 
+    /**
+     * Projection, view and model matrices multiplied together. The product is cached and only recomputed after one of
+     * the matrices has changed.
+     *
+     * @return The cached product which must not be changed
+     */
+    public Matrix4f getProjectionViewModelMatrix() {
+        if (projectionViewModelDirty) {
+            projectionMatrixStack.peek().projectionMultiplyViewOut(getViewModelMatrix(), projectionViewModelMatrix);
+            projectionViewModelDirty = false;
+        }
+        return projectionViewModelMatrix;
+    }
+
     public Matrix4f getViewMatrix() {
         return viewMatrixStack.peek();
     }
 
+    /**
+     * View and model matrices multiplied together. The product is cached and only recomputed after the view or model
+     * matrix has changed.
+     *
+     * @return The cached product which must not be changed
+     */
+    public Matrix4f getViewModelMatrix() {
+        if (viewModelDirty) {
+            viewMatrixStack.peek().viewMultiplyModelOut(modelMatrixStack.peek(), viewModelMatrix);
+            viewModelDirty = false;
+        }
+        return viewModelMatrix;
+    }
+
     public void load(Matrix4f matrix) {
-        getCurrentMatrix().set(matrix);
+        Matrix4f currentMatrix = changeCurrentMatrix();
+        currentMatrix.set(matrix);
+        makeCameraRelative(currentMatrix);
     }
 
     public void load(Transform4f transform) {
-        getCurrentMatrix().set(transform);
+        Matrix4f currentMatrix = changeCurrentMatrix();
+        currentMatrix.set(transform);
+        makeCameraRelative(currentMatrix);
     }
 
     public void loadIdentity() {
-        Matrix4f matrix = getCurrentMatrix();
+        Matrix4f matrix = changeCurrentMatrix();
+        matrix.identity();
+        makeCameraRelative(matrix);
+    }
+
+    /**
+     * Loads the identity even in camera relative mode. Used for matrices that are already relative to the camera.
+     */
+    public void loadIdentityIgnoringCamera() {
+        Matrix4f matrix = changeCurrentMatrix();
         matrix.identity();
     }
 
@@ -107,87 +210,117 @@ public class MatrixHelper {
     }
 
     public void multiplyViewAndModelMatrix(Matrix4f out) {
-        viewMatrixStack.peek().viewMultiplyModelOut(modelMatrixStack.peek(), out);
+        out.set(getViewModelMatrix());
     }
 
-    public void pop() {
-        Stack<Matrix4f> stack = getCurrentStack();
-        if (stack.size() == 1) {
-            throw new IllegalStateException("The last matrix in the stack cannot be popped.");
+    public Vector3f multiplyViewAndWorldPositionOut(Vector3f worldPosition, Vector3f out) {
+        if (!cameraRelative) {
+            return viewMatrixStack.peek().multiplyOut(worldPosition, out);
         }
+
+        // Temp vars from the arena
+        tempArena.begin();
+        Vector3f relativePosition = tempArena.vector3f();
+
+        relativePosition.set(worldPosition).subtract(cameraPosition);
+        viewMatrixStack.peek().multiplyOut(relativePosition, out);
+
+        // Give back temp vars
+        tempArena.end();
+
+        return out;
+    }
+
+    public void pop() {
         getCurrentStack().pop();
+        changed(mode);
     }
 
     public void push() {
-        Stack<Matrix4f> stack = getCurrentStack();
-        stack.push(new Matrix4f(stack.peek()));
+
+        // The pushed matrix is a copy so the cached products are still valid
+        getCurrentStack().push();
     }
 
     public final void reset() {
+        clearCameraRelative();
         mode = MATRIX_MODEL;
-        modelMatrixStack.clear();
-        modelMatrixStack.push(new Matrix4f());
-        projectionMatrixStack.clear();
-        projectionMatrixStack.push(new Matrix4f());
-        viewMatrixStack.clear();
-        viewMatrixStack.push(new Matrix4f());
+        modelMatrixStack.reset();
+        projectionMatrixStack.reset();
+        viewMatrixStack.reset();
+        changed(MATRIX_MODEL);
     }
 
     public void rotate(float degrees, float x, float y, float z) {
 
-        // Temp vars from thread local storage
-        ThreadLocalVars vars = ThreadLocalVars.Get();
-        Vector3f vector = vars.v3f0;
+        // Temp vars from the arena
+        tempArena.begin();
+        Vector3f vector = tempArena.vector3f();
 
-        Matrix4f matrix = getCurrentMatrix();
+        Matrix4f matrix = changeCurrentMatrix();
         vector.set(x, y, z);
         matrix.fromAxisAngle(vector, degrees);
 
-        // Release vars instance
-        vars.release();
+        // Give back temp vars
+        tempArena.end();
+    }
+
+    public void setCamera(Camera camera) {
+        setModeProjection();
+        load(camera.getProjectionMatrix());
+        setModeView();
+        if (camera.isCameraRelative()) {
+            load(camera.getRelativeViewMatrix());
+            setCameraRelative(camera.getPosition());
+        } else {
+            load(camera.getViewMatrix());
+            clearCameraRelative();
+        }
+        setModeModel();
+        loadIdentity();
     }
 
     public void setFrustum(float left, float right, float bottom, float top, float zNear, float zFar) {
-        Matrix4f matrix = getCurrentMatrix();
+        Matrix4f matrix = changeCurrentMatrix();
         matrix.setFrustum(left, right, bottom, top, zNear, zFar);
     }
 
     public void setOrthogonal(float left, float right, float bottom, float top, float zNear, float zFar) {
-        Matrix4f matrix = getCurrentMatrix();
+        Matrix4f matrix = changeCurrentMatrix();
         matrix.setOrthogonal(left, right, bottom, top, zNear, zFar);
     }
 
     public void setPerspective(float fieldOfViewY, float aspectRatio, float zNear, float zFar) {
-        Matrix4f matrix = getCurrentMatrix();
+        Matrix4f matrix = changeCurrentMatrix();
         matrix.setPerspective(fieldOfViewY, aspectRatio, zNear, zFar);
     }
 
     public void scale(float x, float y, float z) {
 
-        // Temp vars from thread local storage
-        ThreadLocalVars vars = ThreadLocalVars.Get();
-        Matrix4f scale = vars.m4f0;
+        // Temp vars from the arena
+        tempArena.begin();
+        Matrix4f scale = tempArena.matrix4f();
 
-        Matrix4f matrix = getCurrentMatrix();
+        Matrix4f matrix = changeCurrentMatrix();
         scale.setDiagonal(x, y, z);
         matrix.multiply(scale);
 
-        // Release vars instance
-        vars.release();
+        // Give back temp vars
+        tempArena.end();
     }
 
     public void translate(float x, float y, float z) {
 
-        // Temp vars from thread local storage
-        ThreadLocalVars vars = ThreadLocalVars.Get();
-        Vector3f vector = vars.v3f0;
+        // Temp vars from the arena
+        tempArena.begin();
+        Vector3f vector = tempArena.vector3f();
 
-        Matrix4f matrix = getCurrentMatrix();
+        Matrix4f matrix = changeCurrentMatrix();
         vector.set(x, y, z);
         matrix.multiply(vector);
 
-        // Release vars instance
-        vars.release();
+        // Give back temp vars
+        tempArena.end();
     }
 
 }
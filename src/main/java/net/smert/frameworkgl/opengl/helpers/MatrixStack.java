@@ -0,0 +1,74 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.opengl.helpers;
+
+import net.smert.frameworkgl.math.Matrix4f;
+
+/**
+ * Matrix stack indexed by depth. Matrices are allocated once and reused so push and pop do not allocate or lock.
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class MatrixStack {
+
+    private final static int INITIAL_CAPACITY = 16;
+
+    private int depth;
+    private Matrix4f[] matrices;
+
+    public MatrixStack() {
+        matrices = new Matrix4f[0];
+        expand(INITIAL_CAPACITY);
+        reset();
+    }
+
+    private void expand(int capacity) {
+        Matrix4f[] newMatrices = new Matrix4f[capacity];
+        System.arraycopy(matrices, 0, newMatrices, 0, matrices.length);
+        for (int i = matrices.length; i < capacity; i++) {
+            newMatrices[i] = new Matrix4f();
+        }
+        matrices = newMatrices;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public Matrix4f peek() {
+        return matrices[depth];
+    }
+
+    public void pop() {
+        if (depth == 0) {
+            throw new IllegalStateException("The last matrix in the stack cannot be popped.");
+        }
+        depth--;
+    }
+
+    public void push() {
+        if (depth + 1 == matrices.length) {
+            expand(matrices.length * 2);
+        }
+
+        // Copy into the reused matrix of the next depth
+        matrices[depth + 1].set(matrices[depth]);
+        depth++;
+    }
+
+    public final void reset() {
+        depth = 0;
+        matrices[0].identity();
+    }
+
+}
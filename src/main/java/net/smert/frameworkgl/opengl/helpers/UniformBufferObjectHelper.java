@@ -0,0 +1,105 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.opengl.helpers;
+
+import java.nio.ByteBuffer;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GLCapabilities;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class UniformBufferObjectHelper {
+
+    public final static int INVALID_INDEX = GL31.GL_INVALID_INDEX;
+
+    public void bind(int uboID) {
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, uboID);
+    }
+
+    public void bindRange(int bindingIndex, int uboID, long offsetBytes, long sizeBytes) {
+        GL30.glBindBufferRange(GL31.GL_UNIFORM_BUFFER, bindingIndex, uboID, offsetBytes, sizeBytes);
+    }
+
+    public int create() {
+        return GL15.glGenBuffers();
+    }
+
+    public long createFence() {
+        return GL32.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+    }
+
+    public void delete(int uboID) {
+        GL15.glDeleteBuffers(uboID);
+    }
+
+    public void deleteFence(long fence) {
+        GL32.glDeleteSync(fence);
+    }
+
+    public int getOffsetAlignment() {
+        return GL11.glGetInteger(GL31.GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT);
+    }
+
+    public int getUniformBlockIndex(int programID, String blockName) {
+        return GL31.glGetUniformBlockIndex(programID, blockName);
+    }
+
+    public boolean isSupported() {
+        GLCapabilities capabilities = org.lwjgl.opengl.GL.getCapabilities();
+
+        // Ranges are fenced so sync objects are required as well
+        return capabilities.OpenGL32 || (capabilities.OpenGL31 && capabilities.GL_ARB_sync);
+    }
+
+    public ByteBuffer map(int uboID, long offsetBytes, long sizeBytes, ByteBuffer oldByteBuffer) {
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, uboID);
+
+        // No synchronization is done by the driver. The caller must use fences so a range is never written while the
+        // GPU is still reading it.
+        return GL30.glMapBufferRange(GL31.GL_UNIFORM_BUFFER, offsetBytes, sizeBytes, GL30.GL_MAP_WRITE_BIT
+                | GL30.GL_MAP_INVALIDATE_RANGE_BIT | GL30.GL_MAP_UNSYNCHRONIZED_BIT, oldByteBuffer);
+    }
+
+    public void setBufferData(int uboID, long sizeBytes, int usage) {
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, uboID);
+        GL15.glBufferData(GL31.GL_UNIFORM_BUFFER, sizeBytes, usage);
+    }
+
+    public void setBufferSubData(int uboID, long offsetBytes, ByteBuffer byteBuffer) {
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, uboID);
+        GL15.glBufferSubData(GL31.GL_UNIFORM_BUFFER, offsetBytes, byteBuffer);
+    }
+
+    public void setUniformBlockBinding(int programID, int blockIndex, int bindingIndex) {
+        GL31.glUniformBlockBinding(programID, blockIndex, bindingIndex);
+    }
+
+    public void unbind() {
+        GL15.glBindBuffer(GL31.GL_UNIFORM_BUFFER, 0);
+    }
+
+    public void unmap() {
+        GL15.glUnmapBuffer(GL31.GL_UNIFORM_BUFFER);
+    }
+
+    public void waitForFence(long fence) {
+        GL32.glClientWaitSync(fence, GL32.GL_SYNC_FLUSH_COMMANDS_BIT, Long.MAX_VALUE);
+    }
+
+}
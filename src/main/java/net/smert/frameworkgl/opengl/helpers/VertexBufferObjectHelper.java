@@ -20,6 +20,8 @@ import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL12;
 import org.lwjgl.opengl.GL15;
 import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL33;
 
 /**
  *
@@ -93,10 +95,18 @@ public class VertexBufferObjectHelper {
         GL11.glDrawArrays(mode, first, count);
     }
 
+    public void drawArraysInstanced(int mode, int first, int count, int instanceCount) {
+        GL31.glDrawArraysInstanced(mode, first, count, instanceCount);
+    }
+
     public void drawElements(int mode, int count, int type, long byteOffset) {
         GL11.glDrawElements(mode, count, type, byteOffset);
     }
 
+    public void drawElementsInstanced(int mode, int count, int type, long byteOffset, int instanceCount) {
+        GL31.glDrawElementsInstanced(mode, count, type, byteOffset, instanceCount);
+    }
+
     public void drawRangeElements(int mode, int minIndex, int maxIndex, int count, int type, long byteOffset) {
         GL12.glDrawRangeElements(mode, minIndex, maxIndex, count, type, byteOffset);
     }
@@ -196,4 +206,8 @@ public class VertexBufferObjectHelper {
         GL15.glBufferSubData(GL15.GL_ELEMENT_ARRAY_BUFFER, offsetBytes, shortBuffer);
     }
 
+    public void vertexAttribDivisor(int index, int divisor) {
+        GL33.glVertexAttribDivisor(index, divisor);
+    }
+
 }
@@ -0,0 +1,186 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.opengl.pipeline;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.gameobjects.GameObject;
+import net.smert.frameworkgl.gameobjects.WorldAabbCallback;
+import net.smert.frameworkgl.opengl.camera.Camera;
+
+/**
+ * Frustum culling through a RenderAABBTree so the cost follows the number of visible objects instead of the size of
+ * the scene. Leaves follow their game objects through a WorldAabbCallback, which GameObject.updateWorldTransforms and
+ * CollisionWorld call for objects that moved, so only those touch the tree.
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class AABBTreePipelineRenderCallback extends DefaultPipelineRenderCallback {
+
+    private final static int TAG_ENTITY = 1;
+    private final static int TAG_NON_OPAQUE = 2;
+    private final static int TAG_WORLD = 0;
+
+    private final Map<GameObject, Integer> leafIndexes;
+    private final RenderAABBTree renderAABBTree;
+    private final RenderAABBTreeQueryCallback queryCallback;
+    private final WorldAabbCallback worldAabbCallback;
+
+    public AABBTreePipelineRenderCallback() {
+        leafIndexes = new HashMap<>();
+        renderAABBTree = new RenderAABBTree();
+        queryCallback = (RenderAABBTreeNode node) -> {
+            GameObject gameObject = node.getGameObject();
+            gameObject.getRenderableState().setInFrustum(true);
+            switch (node.getTag()) {
+                case TAG_ENTITY:
+                    entityGameObjectsToRender.add(gameObject);
+                    break;
+                case TAG_NON_OPAQUE:
+                    nonOpaqueGameObjectsToRender.add(gameObject);
+                    break;
+                case TAG_WORLD:
+                    worldGameObjectsToRender.add(gameObject);
+                    break;
+            }
+        };
+        worldAabbCallback = (GameObject gameObject) -> {
+            updateGameObject(gameObject);
+        };
+    }
+
+    private void createLeaf(GameObject gameObject, int tag) {
+        assert (!leafIndexes.containsKey(gameObject));
+        leafIndexes.put(gameObject, renderAABBTree.createLeaf(gameObject, tag));
+        gameObject.setWorldAabbCallback(worldAabbCallback);
+    }
+
+    private void destroyLeaf(GameObject gameObject) {
+        Integer index = leafIndexes.remove(gameObject);
+        if (index != null) {
+            renderAABBTree.destroyLeaf(index);
+        }
+        if (gameObject.getWorldAabbCallback() == worldAabbCallback) {
+            gameObject.setWorldAabbCallback(null);
+        }
+    }
+
+    private void resetInFrustum(List<GameObject> gameObjectsToRender) {
+        for (int i = 0; i < gameObjectsToRender.size(); i++) {
+            gameObjectsToRender.get(i).getRenderableState().setInFrustum(false);
+        }
+        gameObjectsToRender.clear();
+    }
+
+    public RenderAABBTree getRenderAABBTree() {
+        return renderAABBTree;
+    }
+
+    public void updateGameObject(GameObject gameObject) {
+        Integer index = leafIndexes.get(gameObject);
+        if (index != null) {
+            renderAABBTree.moveLeaf(index, gameObject.getWorldAabb());
+        }
+    }
+
+    @Override
+    public void addEntityGameObject(GameObject entityGameObject) {
+        super.addEntityGameObject(entityGameObject);
+        createLeaf(entityGameObject, TAG_ENTITY);
+    }
+
+    @Override
+    public void addNonOpaqueGameObject(GameObject nonOpaqueGameObject) {
+        super.addNonOpaqueGameObject(nonOpaqueGameObject);
+        createLeaf(nonOpaqueGameObject, TAG_NON_OPAQUE);
+    }
+
+    @Override
+    public void addWorldGameObject(GameObject worldGameObject) {
+        super.addWorldGameObject(worldGameObject);
+        createLeaf(worldGameObject, TAG_WORLD);
+    }
+
+    @Override
+    public void removeEntityGameObject(GameObject entityGameObject) {
+        super.removeEntityGameObject(entityGameObject);
+        destroyLeaf(entityGameObject);
+    }
+
+    @Override
+    public void removeNonOpaqueGameObject(GameObject nonOpaqueGameObject) {
+        super.removeNonOpaqueGameObject(nonOpaqueGameObject);
+        destroyLeaf(nonOpaqueGameObject);
+    }
+
+    @Override
+    public void removeWorldGameObject(GameObject worldGameObject) {
+        super.removeWorldGameObject(worldGameObject);
+        destroyLeaf(worldGameObject);
+    }
+
+    @Override
+    public void setAllEntityGameObjects(List<GameObject> entityGameObjects) {
+        for (GameObject gameObject : this.entityGameObjects) {
+            destroyLeaf(gameObject);
+        }
+        super.setAllEntityGameObjects(entityGameObjects);
+        for (GameObject gameObject : this.entityGameObjects) {
+            createLeaf(gameObject, TAG_ENTITY);
+        }
+    }
+
+    @Override
+    public void setAllNonOpaqueGameObjects(List<GameObject> nonOpaqueGameObjects) {
+        for (GameObject gameObject : this.nonOpaqueGameObjects) {
+            destroyLeaf(gameObject);
+        }
+        super.setAllNonOpaqueGameObjects(nonOpaqueGameObjects);
+        for (GameObject gameObject : this.nonOpaqueGameObjects) {
+            createLeaf(gameObject, TAG_NON_OPAQUE);
+        }
+    }
+
+    @Override
+    public void setAllWorldGameObjects(List<GameObject> worldGameObjects) {
+        for (GameObject gameObject : this.worldGameObjects) {
+            destroyLeaf(gameObject);
+        }
+        super.setAllWorldGameObjects(worldGameObjects);
+        for (GameObject gameObject : this.worldGameObjects) {
+            createLeaf(gameObject, TAG_WORLD);
+        }
+    }
+
+    @Override
+    public void performFrustumCulling(Camera camera) {
+
+        // Only objects that were visible last frame need their flag cleared
+        resetInFrustum(worldGameObjectsToRender);
+        resetInFrustum(entityGameObjectsToRender);
+        resetInFrustum(nonOpaqueGameObjectsToRender);
+        renderAABBTree.query(camera.getFrustumCulling(), queryCallback);
+    }
+
+    @Override
+    public void updateAabbs() {
+
+        // Only objects with a dirty transform get a new world AABB, and their leaves are moved by the callback
+        Fw.graphics.updateWorldTransforms(worldGameObjects);
+        Fw.graphics.updateWorldTransforms(entityGameObjects);
+        Fw.graphics.updateWorldTransforms(nonOpaqueGameObjects);
+    }
+
+}
@@ -28,12 +28,12 @@ import net.smert.frameworkgl.opengl.camera.Camera;
 public class DefaultPipelineRenderCallback implements PipelineRenderCallback {
 
     private final List<PipelineRenderDebugCallback> pipelineRenderDebugCallbacks;
-    private final List<GameObject> entityGameObjects;
-    private final List<GameObject> entityGameObjectsToRender;
-    private final List<GameObject> nonOpaqueGameObjects;
-    private final List<GameObject> nonOpaqueGameObjectsToRender;
-    private final List<GameObject> worldGameObjects;
-    private final List<GameObject> worldGameObjectsToRender;
+    protected final List<GameObject> entityGameObjects;
+    protected final List<GameObject> entityGameObjectsToRender;
+    protected final List<GameObject> nonOpaqueGameObjects;
+    protected final List<GameObject> nonOpaqueGameObjectsToRender;
+    protected final List<GameObject> worldGameObjects;
+    protected final List<GameObject> worldGameObjectsToRender;
 
     public DefaultPipelineRenderCallback() {
         pipelineRenderDebugCallbacks = new ArrayList<>();
@@ -77,7 +77,7 @@ public class DefaultPipelineRenderCallback implements PipelineRenderCallback {
 
     public void addEntityGameObjects(List<GameObject> entityGameObjects) {
         for (GameObject gameObject : entityGameObjects) {
-            this.entityGameObjects.add(gameObject);
+            addEntityGameObject(gameObject);
         }
     }
 
@@ -87,7 +87,7 @@ public class DefaultPipelineRenderCallback implements PipelineRenderCallback {
 
     public void addNonOpaqueGameObjects(List<GameObject> nonOpaqueGameObjects) {
         for (GameObject gameObject : nonOpaqueGameObjects) {
-            this.nonOpaqueGameObjects.add(gameObject);
+            addNonOpaqueGameObject(gameObject);
         }
     }
 
@@ -97,7 +97,7 @@ public class DefaultPipelineRenderCallback implements PipelineRenderCallback {
 
     public void addWorldGameObjects(List<GameObject> worldGameObjects) {
         for (GameObject gameObject : worldGameObjects) {
-            this.worldGameObjects.add(gameObject);
+            addWorldGameObject(gameObject);
         }
     }
 
@@ -119,7 +119,7 @@ public class DefaultPipelineRenderCallback implements PipelineRenderCallback {
 
     public void removeEntityGameObjects(List<GameObject> entityGameObjects) {
         for (GameObject gameObject : entityGameObjects) {
-            this.entityGameObjects.remove(gameObject);
+            removeEntityGameObject(gameObject);
         }
     }
 
@@ -129,7 +129,7 @@ public class DefaultPipelineRenderCallback implements PipelineRenderCallback {
 
     public void removeNonOpaqueGameObjects(List<GameObject> nonOpaqueGameObjects) {
         for (GameObject gameObject : nonOpaqueGameObjects) {
-            this.nonOpaqueGameObjects.remove(gameObject);
+            removeNonOpaqueGameObject(gameObject);
         }
     }
 
@@ -139,7 +139,7 @@ public class DefaultPipelineRenderCallback implements PipelineRenderCallback {
 
     public void removeWorldGameObjects(List<GameObject> worldGameObjects) {
         for (GameObject gameObject : worldGameObjects) {
-            this.worldGameObjects.remove(gameObject);
+            removeWorldGameObject(gameObject);
         }
     }
 
@@ -190,9 +190,8 @@ public class DefaultPipelineRenderCallback implements PipelineRenderCallback {
 
     @Override
     public void render() {
-        Fw.graphics.render(worldGameObjectsToRender);
-        Fw.graphics.render(entityGameObjectsToRender);
-        Fw.graphics.renderBlend(nonOpaqueGameObjectsToRender);
+        renderOpaque();
+        renderNonOpaque();
     }
 
     @Override
@@ -209,6 +208,17 @@ public class DefaultPipelineRenderCallback implements PipelineRenderCallback {
         }
     }
 
+    @Override
+    public void renderNonOpaque() {
+        Fw.graphics.renderBlend(nonOpaqueGameObjectsToRender);
+    }
+
+    @Override
+    public void renderOpaque() {
+        Fw.graphics.render(worldGameObjectsToRender);
+        Fw.graphics.render(entityGameObjectsToRender);
+    }
+
     @Override
     public void renderSimpleOrientationAxis(SimpleOrientationAxisGameObject simpleOrientationAxisGameObject) {
         renderSimpleOrientationAxis(worldGameObjectsToRender, simpleOrientationAxisGameObject);
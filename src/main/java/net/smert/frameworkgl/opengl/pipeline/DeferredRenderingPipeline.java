@@ -12,10 +12,580 @@
  */
 package net.smert.frameworkgl.opengl.pipeline;
 
+import java.io.IOException;
+import java.util.List;
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.gameobjects.AABBGameObject;
+import net.smert.frameworkgl.gameobjects.SimpleOrientationAxisGameObject;
+import net.smert.frameworkgl.gameobjects.SkyboxGameObject;
+import net.smert.frameworkgl.gameobjects.ViewFrustumGameObject;
+import net.smert.frameworkgl.math.AABB;
+import net.smert.frameworkgl.math.MathHelper;
+import net.smert.frameworkgl.math.Transform4f;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.math.Vector4f;
+import net.smert.frameworkgl.opengl.GL;
+import net.smert.frameworkgl.opengl.GLLight;
+import net.smert.frameworkgl.opengl.fbo.GBuffer;
+import net.smert.frameworkgl.opengl.mesh.Mesh;
+import net.smert.frameworkgl.opengl.renderable.AbstractRenderable;
+import net.smert.frameworkgl.opengl.renderer.GuiRenderer;
+import net.smert.frameworkgl.opengl.shader.AbstractShader;
+import net.smert.frameworkgl.opengl.shader.basic.DiffuseTextureShader;
+import net.smert.frameworkgl.opengl.shader.basic.SkyboxShader;
+import net.smert.frameworkgl.opengl.shader.deferred.GeometryShader;
+import net.smert.frameworkgl.opengl.shader.deferred.LightShader;
+import net.smert.frameworkgl.opengl.shader.pixellit.multi.BlinnPhongSpecularHybridShader;
+import net.smert.frameworkgl.utils.Color;
+
 /**
+ * Renders the scene once into a G-buffer and then lights it one light at a time. Point lights are rendered as spheres
+ * and spot lights as cones with additive blending so the cost of a light depends on how much of the screen it covers
+ * instead of how many objects it touches. Directional lights cover the whole screen. Non-opaque game objects cannot be
+ * stored in the G-buffer and are rendered forward after the lights. Requires OpenGL 3.3 and the v330 shaders.
  *
  * @author Jason Sorensen <sorensenj@smert.net>
  */
-public class DeferredRenderingPipeline extends AbstractRenderingPipeline {
+public class DeferredRenderingPipeline extends AbstractRenderingPipeline implements AdvancedRenderingPipeline {
+
+    private final static float LIGHT_VOLUME_SCALE = 1.1f; // The tessellated volumes are slightly inside the real ones
+    private final static float MAX_SPOT_CUTOFF = 89f; // Wider spot lights use a sphere
+
+    private boolean renderAabbs;
+    private boolean renderDebug;
+    private boolean renderSimpleOrientationAxis;
+    private boolean renderViewFrustum;
+    private boolean updateAabbs;
+    private AABBGameObject aabbGameObject;
+    private AbstractRenderable coneRenderable;
+    private AbstractRenderable quadRenderable;
+    private AbstractRenderable sphereRenderable;
+    private AbstractShader currentDefaultShader;
+    private AbstractShader defaultShader;
+    private AbstractShader defaultShaderWithShadows;
+    private BlinnPhongSpecularHybridShader nonOpaqueShader;
+    private final Color skyboxColor;
+    private final Config config;
+    private DiffuseTextureShader diffuseTextureShader;
+    private GBuffer gBuffer;
+    private GeometryShader geometryShader;
+    private GuiRenderer guiRenderer;
+    private LightShader ambientShader;
+    private LightShader fullscreenLightShader;
+    private LightShader volumeLightShader;
+    private PipelineRenderCallback pipelineRenderCallback;
+    private SimpleOrientationAxisGameObject simpleOrientationAxisGameObject;
+    private SkyboxGameObject skyboxGameObject;
+    private SkyboxShader skyboxShader;
+    private final Transform4f lightVolumeTransform;
+    private final Vector3f spotXAxis;
+    private final Vector3f spotYAxis;
+    private final Vector3f spotZAxis;
+    private ViewFrustumGameObject viewFrustumGameObject;
+
+    public DeferredRenderingPipeline() {
+        skyboxColor = new Color();
+        config = new Config();
+        lightVolumeTransform = new Transform4f();
+        spotXAxis = new Vector3f();
+        spotYAxis = new Vector3f();
+        spotZAxis = new Vector3f();
+        reset();
+    }
+
+    private AbstractRenderable createRenderable(Mesh mesh) {
+        AbstractRenderable renderable = Fw.graphics.createInterleavedRenderable();
+        renderable.create(mesh);
+        return renderable;
+    }
+
+    private void renderGeometry() {
+        int width = Fw.config.getCurrentWidth();
+        int height = Fw.config.getCurrentHeight();
+
+        // Create the G-buffer again when the window size changes
+        if ((gBuffer == null) || (gBuffer.getWidth() != width) || (gBuffer.getHeight() != height)) {
+            if (gBuffer != null) {
+                gBuffer.destroy();
+            }
+            gBuffer = GBuffer.Factory.Create(width, height);
+        }
+
+        gBuffer.bind();
+        GL.o1.clearDepthBuffer();
+        switchPolygonFillMode();
+        Fw.graphics.switchShader(currentDefaultShader);
+        pipelineRenderCallback.renderOpaque(); // Blending would mix the normals and positions
+        Fw.graphics.unbindShader();
+        GL.o1.setPolygonModeFrontAndBackFill();
+        gBuffer.unbind();
+    }
+
+    private void renderLights() {
+        List<GLLight> glLights = GL.uniformVariables.getGlLights();
+        gBuffer.bindTextures();
+
+        // Emission and global ambient replace the skybox where there is geometry
+        GL.o1.disableDepthTest();
+        GL.o1.disableDepthMask();
+        Fw.graphics.switchShader(ambientShader);
+        Fw.graphics.render(quadRenderable);
+        Fw.graphics.unbindShader();
+
+        GL.o1.setBlendingFunctionOneAndOne();
+        GL.o1.enableBlending();
+
+        // Directional lights cover the whole screen
+        Fw.graphics.switchShader(fullscreenLightShader);
+        for (int i = 0; i < glLights.size(); i++) {
+            GLLight glLight = glLights.get(i);
+            if (!glLight.isEnabled() || (glLight.getPosition().getW() != 0f)) {
+                continue;
+            }
+            fullscreenLightShader.getUniforms().setLight(glLight);
+            Fw.graphics.render(quadRenderable);
+        }
+        Fw.graphics.unbindShader();
+
+        // Only the back faces of a light volume are rendered so the camera can be inside of it. The depth test passes
+        // where the scene is in front of the back face.
+        GL.o1.enableDepthTest();
+        GL.o1.setDepthFuncGreaterEqual();
+        GL.o1.setCullFrontFace();
+        Fw.graphics.switchShader(volumeLightShader);
+        for (int i = 0; i < glLights.size(); i++) {
+            GLLight glLight = glLights.get(i);
+            Vector4f position = glLight.getPosition();
+            float radius = glLight.getRadius();
+            if (!glLight.isEnabled() || (position.getW() == 0f) || (radius <= 0f)) {
+                continue;
+            }
+            if (frustumCulling && !camera.getFrustumCulling().isSphereInFrustum(
+                    position.getX(), position.getY(), position.getZ(), radius)) {
+                continue;
+            }
+            volumeLightShader.getUniforms().setLight(glLight);
+            if (glLight.getSpotOuterCutoff() <= MAX_SPOT_CUTOFF) {
+                setSpotLightVolume(glLight);
+                Fw.graphics.render(coneRenderable, lightVolumeTransform);
+            } else {
+                lightVolumeTransform.getRotation().identity().setDiagonal(radius * LIGHT_VOLUME_SCALE);
+                lightVolumeTransform.setPosition(position.getX(), position.getY(), position.getZ());
+                Fw.graphics.render(sphereRenderable, lightVolumeTransform);
+            }
+        }
+        Fw.graphics.unbindShader();
+
+        GL.o1.setCullBackFace();
+        GL.o1.setDepthFuncLess();
+        GL.o1.enableDepthMask();
+        GL.o1.disableBlending();
+        gBuffer.unbindTextures();
+    }
+
+    private void renderNonOpaque() {
+        GL.o1.setBlendingFunctionSrcAlphaAndOneMinusSrcAlpha();
+        switchPolygonFillMode();
+        Fw.graphics.switchShader(nonOpaqueShader);
+        pipelineRenderCallback.renderNonOpaque();
+        Fw.graphics.unbindShader();
+        GL.o1.setPolygonModeFrontAndBackFill();
+    }
+
+    private void setSpotLightVolume(GLLight glLight) {
+        Vector4f position = glLight.getPosition();
+        float length = glLight.getRadius() * LIGHT_VOLUME_SCALE;
+        float baseRadius = length * MathHelper.Tan(glLight.getSpotOuterCutoff() * MathHelper.DEG_TO_RAD);
+
+        // The cone points down the local -Y axis from its apex at the origin
+        spotYAxis.set(glLight.getSpotDirection()).normalize().invert();
+        if (Math.abs(spotYAxis.getX()) < 0.9f) {
+            spotXAxis.set(1f, 0f, 0f);
+        } else {
+            spotXAxis.set(0f, 1f, 0f);
+        }
+        spotZAxis.set(spotXAxis).cross(spotYAxis).normalize();
+        spotXAxis.set(spotYAxis).cross(spotZAxis);
+        spotXAxis.multiply(baseRadius);
+        spotYAxis.multiply(length);
+        spotZAxis.multiply(baseRadius);
+        lightVolumeTransform.getRotation().setAxes(spotXAxis, spotYAxis, spotZAxis);
+        lightVolumeTransform.setPosition(position.getX(), position.getY(), position.getZ());
+    }
+
+    @Override
+    public void addAllGameObjectsToRender() {
+        pipelineRenderCallback.addAllGameObjectsToRender();
+    }
+
+    @Override
+    public AdvancedPipelineConfig getPipelineConfig() {
+        return config;
+    }
+
+    @Override
+    public void performFrustumCulling() {
+        camera.updatePlanes();
+        pipelineRenderCallback.performFrustumCulling(camera);
+    }
+
+    @Override
+    public void updateAabbs() {
+        pipelineRenderCallback.updateAabbs();
+    }
+
+    @Override
+    public void updateCurrentShader() {
+
+        // The default shaders must write the G-buffer like GeometryShader does
+        if (shadowsEnabled && (defaultShaderWithShadows != null)) {
+            currentDefaultShader = defaultShaderWithShadows;
+        } else if (defaultShader != null) {
+            currentDefaultShader = defaultShader;
+        } else {
+            currentDefaultShader = geometryShader;
+        }
+    }
+
+    @Override
+    public void updateViewFrustumGameObjectWithCamera() {
+        viewFrustumGameObject.getWorldTransform().getRotation().set(camera.getRotationMatrix());
+        viewFrustumGameObject.setWorldPosition(camera.getPosition());
+        viewFrustumGameObject.update(camera.getAspectRatio(), camera.getFieldOfView(), camera.getZNear(),
+                camera.getZFar());
+        Fw.graphics.updateAabb(viewFrustumGameObject);
+    }
+
+    @Override
+    public void destroy() {
+        aabbGameObject.destroy();
+        simpleOrientationAxisGameObject.destroy();
+        viewFrustumGameObject.destroy();
+        coneRenderable.destroy();
+        quadRenderable.destroy();
+        sphereRenderable.destroy();
+        if (gBuffer != null) {
+            gBuffer.destroy();
+            gBuffer = null;
+        }
+        ambientShader.destroy();
+        diffuseTextureShader.destroy();
+        fullscreenLightShader.destroy();
+        geometryShader.destroy();
+        nonOpaqueShader.destroy();
+        skyboxShader.destroy();
+        volumeLightShader.destroy();
+    }
+
+    @Override
+    public void init() throws IOException {
+
+        // AABB game object
+        aabbGameObject = new AABBGameObject();
+        aabbGameObject.getColor0().set("yellow");
+        aabbGameObject.init(new AABB()); // Empty AABB
+
+        // Simple axis game object
+        simpleOrientationAxisGameObject = new SimpleOrientationAxisGameObject();
+        simpleOrientationAxisGameObject.getColor0().set("red");
+        simpleOrientationAxisGameObject.getColor1().set("green");
+        simpleOrientationAxisGameObject.getColor2().set("blue");
+        simpleOrientationAxisGameObject.init();
+
+        // View frustum game object
+        viewFrustumGameObject = new ViewFrustumGameObject();
+        viewFrustumGameObject.getColor0().set("black");
+        viewFrustumGameObject.getColor1().set("yellow");
+        viewFrustumGameObject.getColor2().set("yellow");
+        viewFrustumGameObject.getColor3().set("white");
+        viewFrustumGameObject.getColor3().setA(.4f);
+        viewFrustumGameObject.init(camera.getAspectRatio(), camera.getFieldOfView(), camera.getZNear(),
+                camera.getZFar());
+
+        // Light volumes. The cone apex is moved to the origin.
+        coneRenderable = createRenderable(GL.dynamicMeshBuilder.
+                setColor(0, "white").
+                setLocalPosition(0f, -.5f, 0f).
+                setQuality(4, 1, 1).
+                setRadius(1f, 1f, 1f).
+                setSize(1f, 1f, 1f).
+                build("cone").
+                createMesh(true));
+        sphereRenderable = createRenderable(GL.dynamicMeshBuilder.
+                setColor(0, "white").
+                setQuality(4, 4, 4).
+                setRadius(1f, 1f, 1f).
+                build("sphere").
+                createMesh(true));
+
+        // Fullscreen quad which is already in clip space
+        quadRenderable = createRenderable(GL.dynamicMeshBuilder.
+                setColor(0, "white").
+                setQuality(1, 1, 1).
+                setSize(2f, 2f, 0f).
+                build("quad").
+                createMesh(true));
+
+        // Build shaders
+        ambientShader = LightShader.Factory.CreateAmbient();
+        ambientShader.init();
+        diffuseTextureShader = DiffuseTextureShader.Factory.Create();
+        diffuseTextureShader.init();
+        fullscreenLightShader = LightShader.Factory.CreateFullscreen();
+        fullscreenLightShader.init();
+        geometryShader = GeometryShader.Factory.Create();
+        geometryShader.init();
+        nonOpaqueShader = BlinnPhongSpecularHybridShader.Factory.Create();
+        nonOpaqueShader.init();
+        skyboxShader = SkyboxShader.Factory.Create();
+        skyboxShader.init();
+        volumeLightShader = LightShader.Factory.CreateVolume();
+        volumeLightShader.init();
+
+        updateCurrentShader();
+    }
+
+    @Override
+    public void render() {
+
+        // Reset state and clear
+        GL.o1.disableBlending();
+        GL.o1.enableColorMask();
+        GL.o1.enableCulling();
+        GL.o1.enableDepthMask();
+        GL.o1.enableDepthTest();
+        GL.o1.setDepthFuncLess();
+        GL.o1.setPolygonModeFrontAndBackFill();
+        GL.o1.clear();
+
+        // Update camera
+        Fw.graphics.setCamera(camera);
+
+        // Update AABBs
+        if (updateAabbs) {
+            updateAabbs();
+        }
+
+        // Frustum culling
+        if (frustumCulling) {
+            performFrustumCulling();
+        }
+
+        // Render 3D
+        renderGeometry();
+
+        Fw.graphics.switchShader(skyboxShader);
+        Fw.graphics.color(skyboxColor.getR(), skyboxColor.getG(), skyboxColor.getB(), skyboxColor.getA());
+        skyboxGameObject.getWorldTransform().setPosition(camera.getPosition());
+        GL.o1.disableCulling();
+        GL.o1.disableDepthTest();
+        Fw.graphics.render(skyboxGameObject);
+        GL.o1.enableDepthTest();
+        GL.o1.enableCulling();
+        Fw.graphics.unbindShader();
+
+        // Light volumes, non-opaque game objects and debug rendering are depth tested against the scene
+        gBuffer.blitDepthToDefaultFrameBuffer();
+        renderLights();
+        renderNonOpaque();
+
+        if (debug) {
+            Fw.graphics.switchShader(diffuseTextureShader); // No lighting
+
+            // View frustum
+            if (renderViewFrustum) {
+                Fw.graphics.renderBlend(viewFrustumGameObject);
+            }
+
+            // AABBs
+            if (renderAabbs) {
+                pipelineRenderCallback.renderAabbs(aabbGameObject);
+            }
+
+            // Orientation axis
+            if (renderSimpleOrientationAxis) {
+                GL.o1.disableDepthTest();
+                pipelineRenderCallback.renderSimpleOrientationAxis(simpleOrientationAxisGameObject);
+                GL.o1.enableDepthTest();
+            }
+
+            // Debug
+            if (renderDebug) {
+                pipelineRenderCallback.renderDebug();
+            }
+
+            Fw.graphics.unbindShader();
+        }
+
+        // Render 2D
+        GL.o1.setBlendingFunctionSrcAlphaAndOneMinusSrcAlpha();
+        GL.o1.enableBlending();
+        GL.o1.disableDepthTest();
+        GL.o1.setPolygonModeFrontAndBackFill();
+        Fw.graphics.switchShader(diffuseTextureShader);
+        Fw.graphics.set2DMode();
+        guiRenderer.render();
+        Fw.graphics.unbindShader();
+        GL.o1.enableDepthTest();
+        GL.o1.disableBlending();
+    }
+
+    @Override
+    public final void reset() {
+        super.reset();
+        renderAabbs = false;
+        renderDebug = false;
+        renderSimpleOrientationAxis = false;
+        renderViewFrustum = false;
+        updateAabbs = true;
+        skyboxColor.setWhite();
+    }
+
+    public class Config extends AbstractRenderingPipeline.Config implements AdvancedPipelineConfig {
+
+        @Override
+        public AABBGameObject getAabbGameObject() {
+            return aabbGameObject;
+        }
+
+        @Override
+        public void setAabbGameObject(AABBGameObject aabbGameObject) {
+            DeferredRenderingPipeline.this.aabbGameObject = aabbGameObject;
+        }
+
+        @Override
+        public AbstractShader getDefaultShader() {
+            return defaultShader;
+        }
+
+        @Override
+        public void setDefaultShader(AbstractShader defaultShader) {
+            DeferredRenderingPipeline.this.defaultShader = defaultShader;
+            updateCurrentShader();
+        }
+
+        @Override
+        public AbstractShader getDefaultShaderWithShadows() {
+            return defaultShaderWithShadows;
+        }
+
+        @Override
+        public void setDefaultShaderWithShadows(AbstractShader defaultShaderWithShadows) {
+            DeferredRenderingPipeline.this.defaultShaderWithShadows = defaultShaderWithShadows;
+            updateCurrentShader();
+        }
+
+        @Override
+        public Color getSkyboxColor() {
+            return skyboxColor;
+        }
+
+        @Override
+        public GuiRenderer getGuiRenderer() {
+            return guiRenderer;
+        }
+
+        @Override
+        public void setGuiRenderer(GuiRenderer guiRenderer) {
+            DeferredRenderingPipeline.this.guiRenderer = guiRenderer;
+        }
+
+        @Override
+        public PipelineRenderCallback getPipelineRenderCallback() {
+            return pipelineRenderCallback;
+        }
+
+        @Override
+        public void setPipelineRenderCallback(PipelineRenderCallback renderCallback) {
+            DeferredRenderingPipeline.this.pipelineRenderCallback = renderCallback;
+        }
+
+        @Override
+        public SimpleOrientationAxisGameObject getSimpleOrientationAxisGameObject() {
+            return simpleOrientationAxisGameObject;
+        }
+
+        @Override
+        public void setSimpleOrientationAxisGameObject(SimpleOrientationAxisGameObject simpleOrientationAxisGameObject) {
+            DeferredRenderingPipeline.this.simpleOrientationAxisGameObject = simpleOrientationAxisGameObject;
+        }
+
+        @Override
+        public SkyboxGameObject getSkyboxGameObject() {
+            return skyboxGameObject;
+        }
+
+        @Override
+        public void setSkyboxGameObject(SkyboxGameObject skyboxGameObject) {
+            DeferredRenderingPipeline.this.skyboxGameObject = skyboxGameObject;
+        }
+
+        @Override
+        public ViewFrustumGameObject getViewFrustumGameObject() {
+            return viewFrustumGameObject;
+        }
+
+        @Override
+        public void setViewFrustumGameObject(ViewFrustumGameObject viewFrustumGameObject) {
+            DeferredRenderingPipeline.this.viewFrustumGameObject = viewFrustumGameObject;
+        }
+
+        @Override
+        public boolean isRenderAabbs() {
+            return renderAabbs;
+        }
+
+        @Override
+        public void setRenderAabbs(boolean renderAabbs) {
+            DeferredRenderingPipeline.this.renderAabbs = renderAabbs;
+        }
+
+        @Override
+        public boolean isRenderDebug() {
+            return renderDebug;
+        }
+
+        @Override
+        public void setRenderDebug(boolean renderDebug) {
+            DeferredRenderingPipeline.this.renderDebug = renderDebug;
+        }
+
+        @Override
+        public boolean isRenderSimpleOrientationAxis() {
+            return renderSimpleOrientationAxis;
+        }
+
+        @Override
+        public void setRenderSimpleOrientationAxis(boolean renderSimpleOrientationAxis) {
+            DeferredRenderingPipeline.this.renderSimpleOrientationAxis = renderSimpleOrientationAxis;
+        }
+
+        @Override
+        public boolean isRenderViewFrustum() {
+            return renderViewFrustum;
+        }
+
+        @Override
+        public void setRenderViewFrustum(boolean renderViewFrustum) {
+            DeferredRenderingPipeline.this.renderViewFrustum = renderViewFrustum;
+        }
+
+        @Override
+        public boolean isUpdateAabbs() {
+            return updateAabbs;
+        }
+
+        @Override
+        public void setUpdateAabbs(boolean updateAabbs) {
+            DeferredRenderingPipeline.this.updateAabbs = updateAabbs;
+        }
+
+        @Override
+        public void setShadowsEnabled(boolean shadowsEnabled) {
+            super.setShadowsEnabled(shadowsEnabled);
+            updateCurrentShader();
+        }
+
+    }
 
 }
@@ -36,6 +36,10 @@ public interface PipelineRenderCallback {
 
     public void renderDebug();
 
+    public void renderNonOpaque();
+
+    public void renderOpaque();
+
     public void renderSimpleOrientationAxis(SimpleOrientationAxisGameObject simpleOrientationAxisGameObject);
 
     public void updateAabbs();
@@ -0,0 +1,451 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.opengl.pipeline;
+
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.gameobjects.GameObject;
+import net.smert.frameworkgl.math.AABB;
+import net.smert.frameworkgl.math.AABBUtilities;
+import net.smert.frameworkgl.math.ClipPlanes;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.opengl.camera.AbstractFrustumCulling;
+import net.smert.frameworkgl.utils.StackInt;
+import net.smert.frameworkgl.utils.ThreadLocalVars;
+
+/**
+ * Dynamic AABB tree over render objects. Leaves store a fat AABB so objects that move a little don't change the tree.
+ * Frustum queries reject whole subtrees and stop testing planes that a node is completely inside of.
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class RenderAABBTree {
+
+    public final static int NULL = -1;
+
+    private int capacity;
+    private int free;
+    private int root;
+    private int size;
+    private RenderAABBTreeNode[] nodes;
+    private final StackInt stackOfIndexes;
+    private final StackInt stackOfPlaneMasks;
+    private final Vector3f margin;
+
+    public RenderAABBTree() {
+        capacity = 16;
+        free = 0;
+        root = NULL;
+        size = 0;
+        nodes = new RenderAABBTreeNode[capacity];
+        stackOfIndexes = new StackInt();
+        stackOfPlaneMasks = new StackInt();
+        margin = new Vector3f(.1f, .1f, .1f);
+        createNodes(free);
+    }
+
+    private void ascendFixingHeightAndAabb(int index) {
+        while (index != NULL) {
+            index = balance(index);
+
+            RenderAABBTreeNode node = nodes[index];
+            RenderAABBTreeNode nodeLeft = nodes[node.left];
+            RenderAABBTreeNode nodeRight = nodes[node.right];
+
+            node.aabb.combine(nodeLeft.aabb, nodeRight.aabb);
+            node.height = 1 + Math.max(nodeLeft.height, nodeRight.height);
+
+            index = node.parent;
+        }
+    }
+
+    private void addSubtree(int index, RenderAABBTreeQueryCallback callback) {
+
+        // Every leaf below a node that is completely inside the frustum is visible
+        StackInt stack = stackOfIndexes;
+        int bottom = stack.getSize();
+        stack.push(index);
+        while (stack.getSize() > bottom) {
+            RenderAABBTreeNode node = nodes[stack.pop()];
+            if (node.isLeaf()) {
+                callback.queryNode(node);
+            } else {
+                stack.push(node.left);
+                stack.push(node.right);
+            }
+        }
+    }
+
+    private int allocateNode() {
+
+        // Expand nodes array
+        if (free == NULL) {
+            assert (size == capacity);
+            capacity *= 2;
+            free = size;
+            RenderAABBTreeNode[] newNodes = new RenderAABBTreeNode[capacity];
+            System.arraycopy(nodes, 0, newNodes, 0, size);
+            nodes = newNodes;
+            createNodes(free);
+        }
+
+        // Allocate node
+        int index = free;
+        RenderAABBTreeNode node = nodes[index];
+        free = node.parent; // Next free node
+        size++;
+
+        // Defaults
+        node.height = 0;
+        node.index = index;
+        node.left = NULL;
+        node.parent = NULL;
+        node.rejectingPlane = ClipPlanes.PLANE_NONE;
+        node.right = NULL;
+        node.tag = 0;
+        node.gameObject = null;
+
+        return index;
+    }
+
+    private int balance(int index) {
+        RenderAABBTreeNode node = nodes[index];
+
+        if (node.isLeaf() || (node.height < 2)) {
+            return index;
+        }
+
+        int indexLeft = node.left;
+        int indexRight = node.right;
+        RenderAABBTreeNode nodeLeft = nodes[indexLeft];
+        RenderAABBTreeNode nodeRight = nodes[indexRight];
+
+        int balance = nodeRight.height - nodeLeft.height;
+
+        // Rotate nodeLeft up
+        if (balance < -1) {
+            int indexLeftLeft = nodeLeft.left;
+            int indexLeftRight = nodeLeft.right;
+            RenderAABBTreeNode nodeLeftLeft = nodes[indexLeftLeft];
+            RenderAABBTreeNode nodeLeftRight = nodes[indexLeftRight];
+
+            // Swap node and nodeLeft
+            nodeLeft.left = index;
+            nodeLeft.parent = node.parent;
+            node.parent = indexLeft;
+            replaceChild(nodeLeft.parent, index, indexLeft);
+
+            // The taller grandchild stays under nodeLeft
+            if (nodeLeftLeft.height > nodeLeftRight.height) {
+                node.left = indexLeftRight;
+                nodeLeftRight.parent = index;
+                nodeLeft.right = indexLeftLeft;
+                node.aabb.combine(nodeLeftRight.aabb, nodeRight.aabb);
+                nodeLeft.aabb.combine(node.aabb, nodeLeftLeft.aabb);
+                node.height = 1 + Math.max(nodeLeftRight.height, nodeRight.height);
+                nodeLeft.height = 1 + Math.max(node.height, nodeLeftLeft.height);
+            } else {
+                node.left = indexLeftLeft;
+                nodeLeftLeft.parent = index;
+                nodeLeft.right = indexLeftRight;
+                node.aabb.combine(nodeLeftLeft.aabb, nodeRight.aabb);
+                nodeLeft.aabb.combine(node.aabb, nodeLeftRight.aabb);
+                node.height = 1 + Math.max(nodeLeftLeft.height, nodeRight.height);
+                nodeLeft.height = 1 + Math.max(node.height, nodeLeftRight.height);
+            }
+
+            return indexLeft;
+        }
+
+        // Rotate nodeRight up
+        if (balance > 1) {
+            int indexRightLeft = nodeRight.left;
+            int indexRightRight = nodeRight.right;
+            RenderAABBTreeNode nodeRightLeft = nodes[indexRightLeft];
+            RenderAABBTreeNode nodeRightRight = nodes[indexRightRight];
+
+            // Swap node and nodeRight
+            nodeRight.left = index;
+            nodeRight.parent = node.parent;
+            node.parent = indexRight;
+            replaceChild(nodeRight.parent, index, indexRight);
+
+            // The taller grandchild stays under nodeRight
+            if (nodeRightLeft.height > nodeRightRight.height) {
+                node.right = indexRightRight;
+                nodeRightRight.parent = index;
+                nodeRight.right = indexRightLeft;
+                node.aabb.combine(nodeLeft.aabb, nodeRightRight.aabb);
+                nodeRight.aabb.combine(node.aabb, nodeRightLeft.aabb);
+                node.height = 1 + Math.max(nodeLeft.height, nodeRightRight.height);
+                nodeRight.height = 1 + Math.max(node.height, nodeRightLeft.height);
+            } else {
+                node.right = indexRightLeft;
+                nodeRightLeft.parent = index;
+                nodeRight.right = indexRightRight;
+                node.aabb.combine(nodeLeft.aabb, nodeRightLeft.aabb);
+                nodeRight.aabb.combine(node.aabb, nodeRightRight.aabb);
+                node.height = 1 + Math.max(nodeLeft.height, nodeRightLeft.height);
+                nodeRight.height = 1 + Math.max(node.height, nodeRightRight.height);
+            }
+
+            return indexRight;
+        }
+
+        return index;
+    }
+
+    private void createNodes(int index) {
+
+        // Create all nodes except the last one
+        for (int i = index; i < capacity - 1; i++) {
+            RenderAABBTreeNode node = new RenderAABBTreeNode();
+            node.height = NULL;
+            node.index = NULL; // Mark not in use
+            node.parent = i + 1; // Next free node
+            nodes[i] = node;
+        }
+
+        // Create last node
+        RenderAABBTreeNode node = new RenderAABBTreeNode();
+        node.height = NULL;
+        node.index = NULL; // Mark not in use
+        node.parent = NULL; // Last free node
+        nodes[capacity - 1] = node;
+    }
+
+    private void freeNode(int index) {
+        assert (size > 0);
+        RenderAABBTreeNode node = nodes[index];
+        node.gameObject = null;
+        node.index = NULL; // Mark not in use
+        node.parent = free; // Next free node
+        free = index;
+        size--;
+    }
+
+    private void insertLeaf(int index) {
+        RenderAABBTreeNode nodeLeaf = nodes[index];
+
+        // Create root node
+        if (root == NULL) {
+            root = index;
+            nodeLeaf.parent = NULL;
+            return;
+        }
+
+        // Temp vars from thread local storage
+        ThreadLocalVars vars = ThreadLocalVars.Get();
+        AABB combinedAabb = vars.aabb0;
+
+        // Find best sibling for the leaf node. Surface area is used since render objects are often flat.
+        int indexCurrent = root;
+        RenderAABBTreeNode nodeCurrent;
+        while (!(nodeCurrent = nodes[indexCurrent]).isLeaf()) {
+            combinedAabb.combine(nodeCurrent.aabb, nodeLeaf.aabb);
+            float currentArea = nodeCurrent.aabb.getSurfaceArea();
+            float combinedArea = combinedAabb.getSurfaceArea();
+
+            // Calculate costs
+            float combinedCost = 2f * combinedArea;
+            float inheritedCost = 2f * (combinedArea - currentArea);
+            float leftCost = getDescendCost(nodes[nodeCurrent.left], nodeLeaf, combinedAabb) + inheritedCost;
+            float rightCost = getDescendCost(nodes[nodeCurrent.right], nodeLeaf, combinedAabb) + inheritedCost;
+
+            // Combined cost of leaf and current node might be cheaper
+            if ((combinedCost < leftCost) && (combinedCost < rightCost)) {
+                break;
+            }
+
+            // Descend according to the minimum cost
+            if (leftCost < rightCost) {
+                indexCurrent = nodeCurrent.left;
+            } else {
+                indexCurrent = nodeCurrent.right;
+            }
+        }
+
+        // Release vars instance
+        vars.release();
+
+        // We now have a sibling node
+        RenderAABBTreeNode nodeSibling = nodes[indexCurrent];
+
+        // Create new parent node
+        int indexOldParent = nodeSibling.parent;
+        int indexNewParent = allocateNode();
+        RenderAABBTreeNode nodeNewParent = nodes[indexNewParent];
+        nodeNewParent.aabb.combine(nodeSibling.aabb, nodeLeaf.aabb);
+        nodeNewParent.height = nodeSibling.height + 1;
+        nodeNewParent.left = indexCurrent;
+        nodeNewParent.parent = indexOldParent;
+        nodeNewParent.right = index;
+
+        // Change parent of leaf and sibling
+        nodeLeaf.parent = indexNewParent;
+        nodeSibling.parent = indexNewParent;
+        replaceChild(indexOldParent, indexCurrent, indexNewParent);
+
+        ascendFixingHeightAndAabb(indexNewParent);
+    }
+
+    private float getDescendCost(RenderAABBTreeNode node, RenderAABBTreeNode nodeLeaf, AABB combinedAabb) {
+        combinedAabb.combine(node.aabb, nodeLeaf.aabb);
+        if (node.isLeaf()) {
+            return combinedAabb.getSurfaceArea();
+        }
+        return combinedAabb.getSurfaceArea() - node.aabb.getSurfaceArea();
+    }
+
+    private void removeLeaf(int index) {
+
+        // Last node in the tree has no parent
+        if (index == root) {
+            root = NULL;
+            return;
+        }
+
+        RenderAABBTreeNode node = nodes[index];
+        int indexParent = node.parent;
+        RenderAABBTreeNode nodeParent = nodes[indexParent];
+        int indexGrandParent = nodeParent.parent;
+        int indexSibling = (nodeParent.left == index) ? nodeParent.right : nodeParent.left;
+        RenderAABBTreeNode nodeSibling = nodes[indexSibling];
+
+        // Destroy parent and connect sibling to grand parent
+        nodeSibling.parent = indexGrandParent;
+        replaceChild(indexGrandParent, indexParent, indexSibling);
+        if (indexGrandParent != NULL) {
+            ascendFixingHeightAndAabb(indexGrandParent);
+        }
+
+        freeNode(indexParent);
+    }
+
+    private void replaceChild(int indexParent, int indexOldChild, int indexNewChild) {
+        if (indexParent == NULL) {
+            root = indexNewChild;
+            return;
+        }
+        RenderAABBTreeNode nodeParent = nodes[indexParent];
+        if (nodeParent.left == indexOldChild) {
+            nodeParent.left = indexNewChild;
+        } else {
+            nodeParent.right = indexNewChild;
+        }
+    }
+
+    public int createLeaf(GameObject gameObject, int tag) {
+        int index = allocateNode();
+        RenderAABBTreeNode node = nodes[index];
+
+        // The world AABB may never have been computed for an object that was just created
+        Fw.graphics.updateAabb(gameObject);
+        node.aabb.set(gameObject.getWorldAabb());
+        node.aabb.expand(margin);
+        node.gameObject = gameObject;
+        node.tag = tag;
+        insertLeaf(index);
+        return index;
+    }
+
+    public void destroyLeaf(int index) {
+        assert (nodes[index].isLeaf());
+        removeLeaf(index);
+        freeNode(index);
+    }
+
+    public int getHeight() {
+        if (root == NULL) {
+            return 0;
+        }
+        return nodes[root].height;
+    }
+
+    public Vector3f getMargin() {
+        return margin;
+    }
+
+    public void setMargin(float margin) {
+        this.margin.set(margin, margin, margin);
+    }
+
+    public RenderAABBTreeNode getNode(int index) {
+        return nodes[index];
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean moveLeaf(int index, AABB worldAabb) {
+        RenderAABBTreeNode node = nodes[index];
+        assert (node.isLeaf());
+
+        // If the new AABB is still contained in the fat AABB then we do nothing
+        if (AABBUtilities.IsAabb0ContainedInAabb1(worldAabb, node.aabb)) {
+            return false;
+        }
+
+        removeLeaf(index);
+        node.aabb.set(worldAabb);
+        node.aabb.expand(margin);
+        insertLeaf(index);
+        return true;
+    }
+
+    public void query(AbstractFrustumCulling frustumCulling, RenderAABBTreeQueryCallback callback) {
+        if (root == NULL) {
+            return;
+        }
+
+        StackInt stack = stackOfIndexes;
+        StackInt stackPlaneMasks = stackOfPlaneMasks;
+        stack.clear();
+        stackPlaneMasks.clear();
+        stack.push(root);
+        stackPlaneMasks.push(ClipPlanes.PLANE_MASK_ALL);
+
+        // Loop until empty
+        while (!stack.empty()) {
+            int index = stack.pop();
+            int planeMask = stackPlaneMasks.pop();
+            RenderAABBTreeNode node = nodes[index];
+
+            // Reject the whole subtree. Leaves use the fat AABB which is conservative. The plane that rejected the
+            // node last frame is tested first.
+            planeMask = frustumCulling.getAABBPlaneMask(node.aabb, planeMask, node.rejectingPlane);
+            node.rejectingPlane = frustumCulling.getRejectingPlane();
+            if (planeMask == ClipPlanes.PLANE_MASK_OUTSIDE) {
+                continue;
+            }
+
+            if (node.isLeaf()) {
+                callback.queryNode(node);
+                continue;
+            }
+
+            // Completely inside so no children need plane tests
+            if (planeMask == 0) {
+                addSubtree(index, callback);
+                continue;
+            }
+
+            // Descend the tree
+            stack.push(node.left);
+            stackPlaneMasks.push(planeMask);
+            stack.push(node.right);
+            stackPlaneMasks.push(planeMask);
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.opengl.pipeline;
+
+import net.smert.frameworkgl.gameobjects.GameObject;
+import net.smert.frameworkgl.math.AABB;
+import static net.smert.frameworkgl.opengl.pipeline.RenderAABBTree.NULL;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class RenderAABBTreeNode {
+
+    int height;
+    int index;
+    int left;
+    int parent;
+    int rejectingPlane;
+    int right;
+    int tag;
+    final AABB aabb = new AABB();
+    GameObject gameObject;
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getTag() {
+        return tag;
+    }
+
+    public AABB getAabb() {
+        return aabb;
+    }
+
+    public GameObject getGameObject() {
+        return gameObject;
+    }
+
+    public boolean isLeaf() {
+        return right == NULL;
+    }
+
+    @Override
+    public String toString() {
+        return "(height= " + height + " left= " + left + " parent= " + parent
+                + " right= " + right + " tag= " + tag + " aabb= " + aabb + ")";
+    }
+
+}
@@ -12,6 +12,8 @@
  */
 package net.smert.frameworkgl.opengl.renderable;
 
+import net.smert.frameworkgl.math.ClipPlanes;
+
 /**
  *
  * @author Jason Sorensen <sorensenj@smert.net>
@@ -21,11 +23,17 @@ public class RenderableState {
     private boolean enabled;
     private boolean inFrustum;
     private boolean opaque;
+    private boolean staticObject;
+    private int frustumPlanesVersion;
+    private int frustumRejectingPlane;
 
     public RenderableState() {
         enabled = true;
         inFrustum = true;
         opaque = true;
+        staticObject = false;
+        frustumPlanesVersion = -1;
+        frustumRejectingPlane = ClipPlanes.PLANE_NONE;
     }
 
     public boolean isEnabled() {
@@ -36,6 +44,22 @@ public class RenderableState {
         this.enabled = enabled;
     }
 
+    public int getFrustumPlanesVersion() {
+        return frustumPlanesVersion;
+    }
+
+    public void setFrustumPlanesVersion(int frustumPlanesVersion) {
+        this.frustumPlanesVersion = frustumPlanesVersion;
+    }
+
+    public int getFrustumRejectingPlane() {
+        return frustumRejectingPlane;
+    }
+
+    public void setFrustumRejectingPlane(int frustumRejectingPlane) {
+        this.frustumRejectingPlane = frustumRejectingPlane;
+    }
+
     public boolean isInFrustum() {
         return inFrustum;
     }
@@ -52,4 +76,15 @@ public class RenderableState {
         this.opaque = opaque;
     }
 
+    public boolean isStaticObject() {
+        return staticObject;
+    }
+
+    public void setStaticObject(boolean staticObject) {
+        this.staticObject = staticObject;
+
+        // Force the next culling test
+        frustumPlanesVersion = -1;
+    }
+
 }
@@ -15,6 +15,7 @@ package net.smert.frameworkgl.opengl.renderable.factory;
 import net.smert.frameworkgl.opengl.renderable.AbstractRenderable;
 import net.smert.frameworkgl.opengl.renderable.gl3.DynamicVertexArrayObjectInterleavedGL3Renderable;
 import net.smert.frameworkgl.opengl.renderable.gl3.DynamicVertexArrayObjectNonInterleavedGL3Renderable;
+import net.smert.frameworkgl.opengl.renderable.gl3.InstancedVertexArrayObjectInterleavedGL3Renderable;
 import net.smert.frameworkgl.opengl.renderable.gl3.VertexArrayObjectInterleavedGL3Renderable;
 import net.smert.frameworkgl.opengl.renderable.gl3.VertexArrayObjectNonInterleavedGL3Renderable;
 import org.picocontainer.MutablePicoContainer;
@@ -56,6 +57,10 @@ public class RenderableFactoryGL3 implements RenderableFactory {
         throw new UnsupportedOperationException("Not supported.");
     }
 
+    public InstancedVertexArrayObjectInterleavedGL3Renderable createInstancedRenderable() {
+        return container.getComponent(InstancedVertexArrayObjectInterleavedGL3Renderable.class);
+    }
+
     @Override
     public VertexArrayObjectInterleavedGL3Renderable createInterleavedRenderable() {
         return container.getComponent(VertexArrayObjectInterleavedGL3Renderable.class);
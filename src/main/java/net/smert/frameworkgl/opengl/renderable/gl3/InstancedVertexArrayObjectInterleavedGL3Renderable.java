@@ -0,0 +1,155 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.opengl.renderable.gl3;
+
+import java.nio.FloatBuffer;
+import net.smert.frameworkgl.math.Transform4f;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.opengl.GL;
+import net.smert.frameworkgl.opengl.VertexBufferObject;
+import net.smert.frameworkgl.opengl.constants.GLTypes;
+import net.smert.frameworkgl.opengl.constants.VertexBufferObjectTypes;
+import net.smert.frameworkgl.opengl.mesh.Mesh;
+import net.smert.frameworkgl.opengl.renderable.Renderable;
+import net.smert.frameworkgl.opengl.renderable.RenderableConfiguration;
+import net.smert.frameworkgl.opengl.renderable.shared.AbstractInstancedRenderCall;
+import net.smert.frameworkgl.opengl.renderable.shared.AbstractVertexArrayObjectInterleavedRenderable;
+import net.smert.frameworkgl.opengl.renderable.shared.InterleavedRenderable;
+
+/**
+ * Draws every instance added since the last render with one instanced draw call per segment. The model matrix of each
+ * instance is a per instance vertex attribute so the shader must be one of the instanced variants.
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class InstancedVertexArrayObjectInterleavedGL3Renderable extends AbstractVertexArrayObjectInterleavedRenderable
+        implements InterleavedRenderable {
+
+    private final static int FLOATS_PER_INSTANCE = 16;
+    private final static int INITIAL_INSTANCES = 64;
+
+    private int totalInstances;
+    private AbstractInstancedRenderCall instancedRenderCall;
+    private FloatBuffer instanceFloatBuffer;
+    private VertexBufferObject vboInstance;
+
+    public InstancedVertexArrayObjectInterleavedGL3Renderable() {
+        bufferUsage = VertexBufferObjectTypes.STATIC_DRAW;
+        totalInstances = 0;
+        instancedRenderCall = null;
+        instanceFloatBuffer = null;
+        vboInstance = null;
+    }
+
+    private void bindInstanceAttribs() {
+        int strideBytes = FLOATS_PER_INSTANCE * 4;
+
+        // Each column of the model matrix is a vec4 attribute that advances once per instance
+        for (int i = 0; i < 4; i++) {
+            int index = GL.defaultAttribLocations.getIndex("instanceModel" + i);
+            GL.vboHelper.bindVertexAttrib(vboInstance.getVboID(), index, 4, GLTypes.FLOAT, strideBytes, i * 16);
+            GL.vboHelper.enableVertexAttribArray(index);
+            GL.vboHelper.vertexAttribDivisor(index, 1);
+        }
+    }
+
+    private void ensureCapacity(int instances) {
+        int floats = instances * FLOATS_PER_INSTANCE;
+        if (floats <= instanceFloatBuffer.capacity()) {
+            return;
+        }
+
+        // Double the capacity and keep the instances already added
+        FloatBuffer newFloatBuffer = GL.bufferHelper.createFloatBuffer(
+                Math.max(floats, instanceFloatBuffer.capacity() * 2));
+        instanceFloatBuffer.flip();
+        newFloatBuffer.put(instanceFloatBuffer);
+        instanceFloatBuffer = newFloatBuffer;
+    }
+
+    public void addInstance(Transform4f transform) {
+        ensureCapacity(totalInstances + 1);
+        int position = instanceFloatBuffer.position();
+        transform.toFloatBuffer(instanceFloatBuffer);
+
+        // Same as MatrixHelper.load() so instances match objects drawn one at a time in camera relative mode
+        if (GL.matrixHelper.isCameraRelative()) {
+            Vector3f cameraPosition = GL.matrixHelper.getCameraPosition();
+            instanceFloatBuffer.put(position + 12, instanceFloatBuffer.get(position + 12) - cameraPosition.getX());
+            instanceFloatBuffer.put(position + 13, instanceFloatBuffer.get(position + 13) - cameraPosition.getY());
+            instanceFloatBuffer.put(position + 14, instanceFloatBuffer.get(position + 14) - cameraPosition.getZ());
+        }
+        totalInstances++;
+    }
+
+    public void clearInstances() {
+        instanceFloatBuffer.clear();
+        totalInstances = 0;
+    }
+
+    public int getTotalInstances() {
+        return totalInstances;
+    }
+
+    @Override
+    public void create(Mesh mesh) {
+        createGL3(mesh);
+
+        // Get configuration
+        RenderableConfiguration config = Renderable.configPool.get(renderableConfigID);
+
+        // Create VBO for the model matrices and add it to the VAO state
+        if (instanceFloatBuffer == null) {
+            instanceFloatBuffer = GL.bufferHelper.createFloatBuffer(INITIAL_INSTANCES * FLOATS_PER_INSTANCE);
+        }
+        vboInstance = GL.glFactory.createVertexBufferObject();
+        vboInstance.create();
+        GL.vaoHelper.bind(vao.getVaoID());
+        bindInstanceAttribs();
+        GL.vboHelper.unbind();
+        GL.vaoHelper.unbind();
+
+        // Create render call
+        instancedRenderCall = Renderable.vboDrawCallBuilder.createInstancedRenderCall(mesh, config);
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        if (vboInstance != null) {
+            vboInstance.destroy();
+            vboInstance = null;
+        }
+        if (instanceFloatBuffer != null) {
+            clearInstances();
+        }
+    }
+
+    @Override
+    public void render() {
+        if (totalInstances == 0) {
+            return;
+        }
+
+        // Orphan the previous buffer so the driver does not wait for last frame's draw to finish
+        instanceFloatBuffer.flip();
+        GL.vboHelper.setBufferData(vboInstance.getVboID(), instanceFloatBuffer, VertexBufferObjectTypes.STREAM_DRAW);
+        instanceFloatBuffer.position(instanceFloatBuffer.limit());
+        instanceFloatBuffer.limit(instanceFloatBuffer.capacity());
+
+        bindGL3();
+        instancedRenderCall.setInstanceCount(totalInstances);
+        instancedRenderCall.render();
+    }
+
+}
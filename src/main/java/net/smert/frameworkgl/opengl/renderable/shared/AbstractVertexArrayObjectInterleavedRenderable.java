@@ -52,8 +52,11 @@ public abstract class AbstractVertexArrayObjectInterleavedRenderable extends Abs
 
     protected void bindGL3() {
 
-        // Bind VAO
-        Renderable.bindState.bindVAO(vao.getVaoID());
+        // Bind VAO. Enabled attributes and the index buffer are part of the VAO state so they are still set when the
+        // same VAO is drawn again.
+        if (!Renderable.bindState.bindVAO(vao.getVaoID())) {
+            return;
+        }
 
         // Bind VBO for each type
         if (hasColors) {
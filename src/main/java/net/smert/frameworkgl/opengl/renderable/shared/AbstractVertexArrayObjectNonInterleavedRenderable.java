@@ -49,8 +49,11 @@ public abstract class AbstractVertexArrayObjectNonInterleavedRenderable extends
 
     protected void bindGL3() {
 
-        // Bind VAO
-        Renderable.bindState.bindVAO(vao.getVaoID());
+        // Bind VAO. Enabled attributes and the index buffer are part of the VAO state so they are still set when the
+        // same VAO is drawn again.
+        if (!Renderable.bindState.bindVAO(vao.getVaoID())) {
+            return;
+        }
 
         // Bind each VBO
         if (vboColor != null) {
@@ -100,14 +100,15 @@ public class BindState {
                 strideBytes, texCoordOffsetBytes);
     }
 
-    public void bindVAO(int vaoID) {
+    public boolean bindVAO(int vaoID) {
         if (this.vaoID == vaoID) {
-            return;
+            return false;
         }
         vaoUnbinded = false;
         vboUnbinded = false;
         this.vaoID = vaoID;
         GL.vaoHelper.bind(vaoID);
+        return true;
     }
 
     public void bindVertexGL1(int vboID, int strideBytes, int vertexOffsetBytes) {
@@ -78,12 +78,7 @@ public class ShaderBindState {
 
     public void setCamera(Camera camera) {
         camera.update();
-        GL.matrixHelper.setModeProjection();
-        GL.matrixHelper.load(camera.getProjectionMatrix());
-        GL.matrixHelper.setModeView();
-        GL.matrixHelper.load(camera.getViewMatrix());
-        GL.matrixHelper.setModeModel();
-        GL.matrixHelper.loadIdentity();
+        GL.matrixHelper.setCamera(camera);
     }
 
     public void switchShader(AbstractShader shader) {
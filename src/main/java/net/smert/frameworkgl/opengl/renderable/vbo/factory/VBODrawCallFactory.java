@@ -13,7 +13,9 @@
 package net.smert.frameworkgl.opengl.renderable.vbo.factory;
 
 import net.smert.frameworkgl.opengl.renderable.vbo.VBODrawArrays;
+import net.smert.frameworkgl.opengl.renderable.vbo.VBODrawArraysInstanced;
 import net.smert.frameworkgl.opengl.renderable.vbo.VBODrawElements;
+import net.smert.frameworkgl.opengl.renderable.vbo.VBODrawElementsInstanced;
 import net.smert.frameworkgl.opengl.renderable.vbo.VBODrawRangeElements;
 import org.picocontainer.MutablePicoContainer;
 
@@ -33,10 +35,18 @@ public class VBODrawCallFactory {
         return container.getComponent(VBODrawArrays.class);
     }
 
+    public VBODrawArraysInstanced createDrawArraysInstanced() {
+        return container.getComponent(VBODrawArraysInstanced.class);
+    }
+
     public VBODrawElements createDrawElements() {
         return container.getComponent(VBODrawElements.class);
     }
 
+    public VBODrawElementsInstanced createDrawElementsInstanced() {
+        return container.getComponent(VBODrawElementsInstanced.class);
+    }
+
     public VBODrawRangeElements createDrawRangeElements() {
         return container.getComponent(VBODrawRangeElements.class);
     }
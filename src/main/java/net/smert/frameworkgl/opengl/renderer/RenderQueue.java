@@ -0,0 +1,383 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.opengl.renderer;
+
+import java.util.HashMap;
+import java.util.Map;
+import net.smert.frameworkgl.gameobjects.GameObject;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.opengl.TextureType;
+import net.smert.frameworkgl.opengl.mesh.Mesh;
+import net.smert.frameworkgl.opengl.mesh.Segment;
+import net.smert.frameworkgl.opengl.mesh.SegmentMaterial;
+import net.smert.frameworkgl.opengl.renderable.AbstractRenderable;
+import net.smert.frameworkgl.opengl.shader.AbstractShader;
+
+/**
+ * Collects draws for a frame and sorts them by a packed 64 bit key so that draws sharing a shader, texture set and
+ * renderable (VAO) are submitted together. Opaque draws are sorted by state and then front to back. Blended draws are
+ * sorted back to front first so they still blend correctly and by state after that.
+ *
+ * <pre>
+ * Opaque: pass (2) | shader (10) | texture set (14) | renderable (14) | depth (24)
+ * Blend:  pass (2) | inverted depth (24) | shader (10) | texture set (14) | renderable (14)
+ * </pre>
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class RenderQueue {
+
+    public final static int PASS_OPAQUE = 0;
+    public final static int PASS_BLEND = 1;
+    private final static int DEPTH_BITS = 24;
+    private final static int RENDERABLE_BITS = 14;
+    private final static int SHADER_BITS = 10;
+    private final static int TEXTURE_SET_BITS = 14;
+    private final static long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+    private final static long RENDERABLE_MASK = (1L << RENDERABLE_BITS) - 1;
+    private final static long SHADER_MASK = (1L << SHADER_BITS) - 1;
+    private final static long TEXTURE_SET_MASK = (1L << TEXTURE_SET_BITS) - 1;
+
+    private float depthRange;
+    private int capacity;
+    private int passChanges;
+    private int renderableChanges;
+    private int shaderChanges;
+    private int size;
+    private int textureSetChanges;
+    private int totalShaders;
+    private int[] counts;
+    private int[] itemRenderables;
+    private int[] items;
+    private int[] renderableTextureSets;
+    private int[] tempItems;
+    private long[] keys;
+    private long[] tempKeys;
+    private AbstractShader[] itemShaders;
+    private AbstractShader[] shaders;
+    private GameObject[] gameObjects;
+    private final Map<AbstractRenderable, Integer> renderableIndexes;
+    private final Map<String, Integer> textureSetIndexes;
+    private final StringBuilder textureSetBuilder;
+    private final Vector3f cameraPosition;
+
+    public RenderQueue() {
+        depthRange = 1000f;
+        capacity = 256;
+        passChanges = 0;
+        renderableChanges = 0;
+        shaderChanges = 0;
+        size = 0;
+        textureSetChanges = 0;
+        totalShaders = 0;
+        counts = new int[256];
+        itemRenderables = new int[capacity];
+        items = new int[capacity];
+        renderableTextureSets = new int[64];
+        tempItems = new int[capacity];
+        keys = new long[capacity];
+        tempKeys = new long[capacity];
+        itemShaders = new AbstractShader[capacity];
+        shaders = new AbstractShader[16];
+        gameObjects = new GameObject[capacity];
+        renderableIndexes = new HashMap<>();
+        textureSetIndexes = new HashMap<>();
+        textureSetBuilder = new StringBuilder();
+        cameraPosition = new Vector3f();
+    }
+
+    private void ensureCapacity(int newCapacity) {
+        if (newCapacity <= capacity) {
+            return;
+        }
+        while (capacity < newCapacity) {
+            capacity *= 2;
+        }
+        int[] newItemRenderables = new int[capacity];
+        System.arraycopy(itemRenderables, 0, newItemRenderables, 0, size);
+        itemRenderables = newItemRenderables;
+        int[] newItems = new int[capacity];
+        System.arraycopy(items, 0, newItems, 0, size);
+        items = newItems;
+        tempItems = new int[capacity];
+        long[] newKeys = new long[capacity];
+        System.arraycopy(keys, 0, newKeys, 0, size);
+        keys = newKeys;
+        tempKeys = new long[capacity];
+        AbstractShader[] newItemShaders = new AbstractShader[capacity];
+        System.arraycopy(itemShaders, 0, newItemShaders, 0, size);
+        itemShaders = newItemShaders;
+        GameObject[] newGameObjects = new GameObject[capacity];
+        System.arraycopy(gameObjects, 0, newGameObjects, 0, size);
+        gameObjects = newGameObjects;
+    }
+
+    private long getDepth(GameObject gameObject) {
+        float distance = gameObject.getWorldPosition().distance(cameraPosition);
+        float depth = Math.min(distance / depthRange, 1f);
+        return (long) (depth * DEPTH_MASK);
+    }
+
+    private int getRenderableIndex(GameObject gameObject) {
+        AbstractRenderable renderable = gameObject.getRenderable();
+        Integer renderableIndex = renderableIndexes.get(renderable);
+        if (renderableIndex != null) {
+            return renderableIndex;
+        }
+
+        // First time the renderable was seen so find its texture set
+        int index = renderableIndexes.size();
+        renderableIndexes.put(renderable, index);
+        if (index == renderableTextureSets.length) {
+            int[] newRenderableTextureSets = new int[index * 2];
+            System.arraycopy(renderableTextureSets, 0, newRenderableTextureSets, 0, index);
+            renderableTextureSets = newRenderableTextureSets;
+        }
+        renderableTextureSets[index] = getTextureSetIndex(gameObject.getMesh());
+        return index;
+    }
+
+    private int getShaderIndex(AbstractShader shader) {
+        for (int i = 0; i < totalShaders; i++) {
+            if (shaders[i] == shader) {
+                return i;
+            }
+        }
+        if (totalShaders == shaders.length) {
+            AbstractShader[] newShaders = new AbstractShader[totalShaders * 2];
+            System.arraycopy(shaders, 0, newShaders, 0, totalShaders);
+            shaders = newShaders;
+        }
+        shaders[totalShaders] = shader;
+        return totalShaders++;
+    }
+
+    private int getTextureSetIndex(Mesh mesh) {
+        if (mesh == null) {
+            return 0;
+        }
+
+        // Every texture of every segment in order
+        textureSetBuilder.setLength(0);
+        for (int i = 0; i < mesh.getTotalSegments(); i++) {
+            Segment segment = mesh.getSegment(i);
+            SegmentMaterial material = segment.getMaterial();
+            if (material == null) {
+                textureSetBuilder.append(';');
+                continue;
+            }
+            for (Map.Entry<TextureType, String> entry : material.getTextures().entrySet()) {
+                textureSetBuilder.append(entry.getKey()).append('=').append(entry.getValue()).append(',');
+            }
+            textureSetBuilder.append(';');
+        }
+
+        String textureSet = textureSetBuilder.toString();
+        Integer textureSetIndex = textureSetIndexes.get(textureSet);
+        if (textureSetIndex == null) {
+            textureSetIndex = textureSetIndexes.size();
+            textureSetIndexes.put(textureSet, textureSetIndex);
+        }
+        return textureSetIndex;
+    }
+
+    private void sortByte(int shift) {
+        for (int i = 0; i < 256; i++) {
+            counts[i] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            counts[(int) (keys[i] >>> shift) & 0xFF]++;
+        }
+
+        // All keys have the same byte so this pass wouldn't change the order
+        if (counts[(int) (keys[0] >>> shift) & 0xFF] == size) {
+            return;
+        }
+
+        int offset = 0;
+        for (int i = 0; i < 256; i++) {
+            int count = counts[i];
+            counts[i] = offset;
+            offset += count;
+        }
+        for (int i = 0; i < size; i++) {
+            int bucket = (int) (keys[i] >>> shift) & 0xFF;
+            int index = counts[bucket]++;
+            tempKeys[index] = keys[i];
+            tempItems[index] = items[i];
+        }
+
+        long[] swapKeys = keys;
+        keys = tempKeys;
+        tempKeys = swapKeys;
+        int[] swapItems = items;
+        items = tempItems;
+        tempItems = swapItems;
+    }
+
+    public void add(GameObject gameObject, AbstractShader shader) {
+        ensureCapacity(size + 1);
+
+        long pass = gameObject.getRenderableState().isOpaque() ? PASS_OPAQUE : PASS_BLEND;
+
+        // Indexes past the number of bits wrap around which only makes the grouping worse
+        long shaderIndex = getShaderIndex(shader) & SHADER_MASK;
+        int renderableIndex = getRenderableIndex(gameObject);
+        long textureSetIndex = renderableTextureSets[renderableIndex] & TEXTURE_SET_MASK;
+        long state = (shaderIndex << (TEXTURE_SET_BITS + RENDERABLE_BITS))
+                | (textureSetIndex << RENDERABLE_BITS) | (renderableIndex & RENDERABLE_MASK);
+        long depth = getDepth(gameObject);
+
+        long key;
+        if (pass == PASS_OPAQUE) {
+            key = (state << DEPTH_BITS) | depth;
+        } else {
+            key = ((DEPTH_MASK - depth) << (SHADER_BITS + TEXTURE_SET_BITS + RENDERABLE_BITS)) | state;
+        }
+        key |= pass << 62;
+
+        gameObjects[size] = gameObject;
+        itemRenderables[size] = renderableIndex;
+        items[size] = size;
+        itemShaders[size] = shader;
+        keys[size] = key;
+        size++;
+    }
+
+    /**
+     * Removes all draws. Renderables and texture sets keep their indexes between frames.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            gameObjects[i] = null;
+            itemShaders[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Counts the state changes needed to submit the draws in their current order. Called after sort() for the sorted
+     * order or before it for the order the draws were added in.
+     */
+    public void countStateChanges() {
+        passChanges = 0;
+        renderableChanges = 0;
+        shaderChanges = 0;
+        textureSetChanges = 0;
+
+        int lastPass = -1;
+        int lastRenderable = -1;
+        int lastTextureSet = -1;
+        AbstractShader lastShader = null;
+        for (int i = 0; i < size; i++) {
+            int item = items[i];
+            GameObject gameObject = gameObjects[item];
+            int pass = gameObject.getRenderableState().isOpaque() ? PASS_OPAQUE : PASS_BLEND;
+            int renderable = itemRenderables[item];
+            int textureSet = renderableTextureSets[renderable];
+            AbstractShader shader = itemShaders[item];
+            if (pass != lastPass) {
+                lastPass = pass;
+                passChanges++;
+            }
+            if (shader != lastShader) {
+                lastShader = shader;
+                shaderChanges++;
+            }
+            if (textureSet != lastTextureSet) {
+                lastTextureSet = textureSet;
+                textureSetChanges++;
+            }
+            if (renderable != lastRenderable) {
+                lastRenderable = renderable;
+                renderableChanges++;
+            }
+        }
+    }
+
+    public float getDepthRange() {
+        return depthRange;
+    }
+
+    /**
+     * Sets the distance from the camera that maps to the largest depth in the sort key. Draws further away than this
+     * are sorted as if they were at this distance.
+     *
+     * @param depthRange Usually the far plane of the camera
+     */
+    public void setDepthRange(float depthRange) {
+        this.depthRange = depthRange;
+    }
+
+    public int getPassChanges() {
+        return passChanges;
+    }
+
+    public int getRenderableChanges() {
+        return renderableChanges;
+    }
+
+    public int getShaderChanges() {
+        return shaderChanges;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getTextureSetChanges() {
+        return textureSetChanges;
+    }
+
+    public GameObject getGameObject(int index) {
+        return gameObjects[items[index]];
+    }
+
+    public AbstractShader getShader(int index) {
+        return itemShaders[items[index]];
+    }
+
+    public boolean isOpaque(int index) {
+        return (keys[index] >>> 62) == PASS_OPAQUE;
+    }
+
+    /**
+     * Forgets every renderable and texture set. Must be called when the textures of a mesh change.
+     */
+    public void reset() {
+        clear();
+        for (int i = 0; i < totalShaders; i++) {
+            shaders[i] = null;
+        }
+        totalShaders = 0;
+        renderableIndexes.clear();
+        textureSetIndexes.clear();
+    }
+
+    public void setCameraPosition(Vector3f cameraPosition) {
+        this.cameraPosition.set(cameraPosition);
+    }
+
+    /**
+     * Least significant digit radix sort of the keys one byte at a time. Equal keys keep the order they were added in.
+     */
+    public void sort() {
+        if (size < 2) {
+            return;
+        }
+        for (int shift = 0; shift < 64; shift += 8) {
+            sortByte(shift);
+        }
+    }
+
+}
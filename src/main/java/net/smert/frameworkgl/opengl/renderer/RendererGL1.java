@@ -165,7 +165,7 @@ public class RendererGL1 extends AbstractRendererGL {
 
     @Override
     public void render(GameObject gameObject) {
-        gameObject.getWorldTransform().toFloatBuffer(modelMatrixFloatBuffer);
+        gameObject.getRenderTransform().toFloatBuffer(modelMatrixFloatBuffer);
         modelMatrixFloatBuffer.flip();
         render(gameObject.getRenderable(), modelMatrixFloatBuffer);
     }
@@ -149,7 +149,7 @@ public class RendererGL2 extends AbstractRendererGL {
     @Override
     public void render(GameObject gameObject) {
         pushMatrix();
-        GL.matrixHelper.load(gameObject.getWorldTransform());
+        GL.matrixHelper.load(gameObject.getRenderTransform());
         Renderable.shaderBindState.sendUniformsOncePerGameObject(gameObject);
         render(gameObject.getRenderable());
         popMatrix();
@@ -216,6 +216,7 @@ public class RendererGL2 extends AbstractRendererGL {
 
     @Override
     public void set2DMode() {
+        GL.matrixHelper.clearCameraRelative();
         GL.matrixHelper.setModeProjection();
         GL.matrixHelper.setOrthogonal(0f, Fw.config.getCurrentWidth(), 0f, Fw.config.getCurrentHeight(), -1f, 1f);
         GL.matrixHelper.setModeView();
@@ -226,6 +227,7 @@ public class RendererGL2 extends AbstractRendererGL {
 
     @Override
     public void set2DMode(int width, int height) {
+        GL.matrixHelper.clearCameraRelative();
         GL.matrixHelper.setModeProjection();
         GL.matrixHelper.setOrthogonal(0f, width, 0f, height, -1f, 1f);
         GL.matrixHelper.setModeView();
@@ -237,12 +239,7 @@ public class RendererGL2 extends AbstractRendererGL {
     @Override
     public void setCamera(Camera camera) {
         camera.update();
-        GL.matrixHelper.setModeProjection();
-        GL.matrixHelper.load(camera.getProjectionMatrix());
-        GL.matrixHelper.setModeView();
-        GL.matrixHelper.load(camera.getViewMatrix());
-        GL.matrixHelper.setModeModel();
-        GL.matrixHelper.loadIdentity();
+        GL.matrixHelper.setCamera(camera);
     }
 
     @Override
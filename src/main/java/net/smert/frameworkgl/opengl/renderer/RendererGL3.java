@@ -12,6 +12,7 @@
  */
 package net.smert.frameworkgl.opengl.renderer;
 
+import java.util.ArrayList;
 import java.util.List;
 import net.smert.frameworkgl.Fw;
 import net.smert.frameworkgl.gameobjects.GameObject;
@@ -24,6 +25,7 @@ import net.smert.frameworkgl.opengl.renderable.AbstractRenderable;
 import net.smert.frameworkgl.opengl.renderable.Renderable;
 import net.smert.frameworkgl.opengl.renderable.gl3.DynamicVertexArrayObjectInterleavedGL3Renderable;
 import net.smert.frameworkgl.opengl.renderable.gl3.DynamicVertexArrayObjectNonInterleavedGL3Renderable;
+import net.smert.frameworkgl.opengl.renderable.gl3.InstancedVertexArrayObjectInterleavedGL3Renderable;
 import net.smert.frameworkgl.opengl.renderable.gl3.VertexArrayObjectInterleavedGL3Renderable;
 import net.smert.frameworkgl.opengl.renderable.gl3.VertexArrayObjectNonInterleavedGL3Renderable;
 import net.smert.frameworkgl.opengl.shader.AbstractShader;
@@ -35,8 +37,11 @@ import net.smert.frameworkgl.utils.Color;
  */
 public class RendererGL3 extends AbstractRendererGL {
 
+    private final List<InstancedVertexArrayObjectInterleavedGL3Renderable> instancedRenderables;
+
     public RendererGL3() {
         super();
+        instancedRenderables = new ArrayList<>();
     }
 
     public AbstractRenderable createArrayRenderable() {
@@ -59,6 +64,10 @@ public class RendererGL3 extends AbstractRendererGL {
         return GL.rf3.createImmediateModeRenderable();
     }
 
+    public InstancedVertexArrayObjectInterleavedGL3Renderable createInstancedRenderable() {
+        return GL.rf3.createInstancedRenderable();
+    }
+
     public VertexArrayObjectInterleavedGL3Renderable createInterleavedRenderable() {
         return GL.rf3.createInterleavedRenderable();
     }
@@ -68,6 +77,7 @@ public class RendererGL3 extends AbstractRendererGL {
     }
 
     public void destroy() {
+        GL.uniformBlockBuffer.destroy();
     }
 
     public void init() {
@@ -147,7 +157,7 @@ public class RendererGL3 extends AbstractRendererGL {
     @Override
     public void render(GameObject gameObject) {
         pushMatrix();
-        GL.matrixHelper.load(gameObject.getWorldTransform());
+        GL.matrixHelper.load(gameObject.getRenderTransform());
         Renderable.shaderBindState.sendUniformsOncePerGameObject(gameObject);
         render(gameObject.getRenderable());
         popMatrix();
@@ -160,6 +170,30 @@ public class RendererGL3 extends AbstractRendererGL {
         }
     }
 
+    /**
+     * Sorts the queue and draws it. Blending is enabled once for all blended draws which are sorted after the opaque
+     * draws.
+     *
+     * @param renderQueue Draws for this frame
+     */
+    public void render(RenderQueue renderQueue) {
+        renderQueue.sort();
+        renderQueue.countStateChanges();
+
+        boolean blending = false;
+        for (int i = 0; i < renderQueue.getSize(); i++) {
+            if (!blending && !renderQueue.isOpaque(i)) {
+                GL.o1.enableBlending();
+                blending = true;
+            }
+            switchShader(renderQueue.getShader(i));
+            render(renderQueue.getGameObject(i));
+        }
+        if (blending) {
+            GL.o1.disableBlending();
+        }
+    }
+
     @Override
     public void renderBlend(GameObject gameObject) {
         if (gameObject.getRenderableState().isOpaque()) {
@@ -182,6 +216,40 @@ public class RendererGL3 extends AbstractRendererGL {
         GL.o1.disableBlending();
     }
 
+    /**
+     * Draws game objects that share an instanced renderable with one instanced draw per segment and all other game
+     * objects one at a time. Uniforms sent once per game object are not sent for instanced game objects.
+     *
+     * @param gameObjects Visible game objects
+     */
+    public void renderInstanced(List<GameObject> gameObjects) {
+        for (int i = 0; i < gameObjects.size(); i++) {
+            GameObject gameObject = gameObjects.get(i);
+            AbstractRenderable renderable = gameObject.getRenderable();
+            if (!(renderable instanceof InstancedVertexArrayObjectInterleavedGL3Renderable)) {
+                render(gameObject);
+                continue;
+            }
+            InstancedVertexArrayObjectInterleavedGL3Renderable instancedRenderable
+                    = (InstancedVertexArrayObjectInterleavedGL3Renderable) renderable;
+            if (instancedRenderable.getTotalInstances() == 0) {
+                instancedRenderables.add(instancedRenderable);
+            }
+            instancedRenderable.addInstance(gameObject.getRenderTransform());
+        }
+
+        // Each instance has its own model matrix which is already camera relative
+        pushMatrix();
+        GL.matrixHelper.loadIdentityIgnoringCamera();
+        for (int i = 0; i < instancedRenderables.size(); i++) {
+            InstancedVertexArrayObjectInterleavedGL3Renderable instancedRenderable = instancedRenderables.get(i);
+            render(instancedRenderable);
+            instancedRenderable.clearInstances();
+        }
+        popMatrix();
+        instancedRenderables.clear();
+    }
+
     @Override
     public void renderOpaque(GameObject gameObject) {
         if (!gameObject.getRenderableState().isOpaque()) {
@@ -214,6 +282,7 @@ public class RendererGL3 extends AbstractRendererGL {
 
     @Override
     public void set2DMode() {
+        GL.matrixHelper.clearCameraRelative();
         GL.matrixHelper.setModeProjection();
         GL.matrixHelper.setOrthogonal(0f, Fw.config.getCurrentWidth(), 0f, Fw.config.getCurrentHeight(), -1f, 1f);
         GL.matrixHelper.setModeView();
@@ -224,6 +293,7 @@ public class RendererGL3 extends AbstractRendererGL {
 
     @Override
     public void set2DMode(int width, int height) {
+        GL.matrixHelper.clearCameraRelative();
         GL.matrixHelper.setModeProjection();
         GL.matrixHelper.setOrthogonal(0f, width, 0f, height, -1f, 1f);
         GL.matrixHelper.setModeView();
@@ -235,12 +305,10 @@ public class RendererGL3 extends AbstractRendererGL {
     @Override
     public void setCamera(Camera camera) {
         camera.update();
-        GL.matrixHelper.setModeProjection();
-        GL.matrixHelper.load(camera.getProjectionMatrix());
-        GL.matrixHelper.setModeView();
-        GL.matrixHelper.load(camera.getViewMatrix());
-        GL.matrixHelper.setModeModel();
-        GL.matrixHelper.loadIdentity();
+        GL.matrixHelper.setCamera(camera);
+
+        // Moves to the next fenced range on the first camera of a frame and rewrites the current one after that
+        GL.uniformBlockBuffer.update();
     }
 
     @Override
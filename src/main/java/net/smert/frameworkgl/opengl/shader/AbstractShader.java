@@ -72,12 +72,15 @@ public abstract class AbstractShader {
         bind();
         shaderUniforms.setTextureLocations();
         shaderUniforms.updateUniformLocations();
+        GL.uniformBlockBuffer.setUniformBlockBindings(shader.getProgramID());
         unbind();
     }
 
     public void sendUniformMatrices(FloatBuffer matrixFloatBuffer) {
-        GL.matrixHelper.multiplyViewAndModelMatrix(viewModelMatrix);
-        GL.matrixHelper.multiplyProjectionAndViewModelMatrix(viewModelMatrix, projectionViewModelMatrix);
+
+        // Copy the cached products which are only multiplied again when a matrix changes
+        viewModelMatrix.set(GL.matrixHelper.getViewModelMatrix());
+        projectionViewModelMatrix.set(GL.matrixHelper.getProjectionViewModelMatrix());
         projectionViewModelMatrix.toFloatBuffer(matrixFloatBuffer);
         matrixFloatBuffer.flip();
         shaderUniforms.setProjectionViewModelMatrix(false, matrixFloatBuffer);
@@ -55,13 +55,13 @@ public class DefaultAttribLocations {
         // Indexes
         nameToIndex.clear();
         nameToIndex.put("vertex", 0);
-        // 1 Unused
+        nameToIndex.put("instanceModel0", 1); // Columns of the model matrix for instanced rendering
         nameToIndex.put("normal", 2);
         nameToIndex.put("color", 3);
         nameToIndex.put("color2", 4); // Could reuse
-        // 5 gl_FogCoord
-        // 6 Unused
-        // 7 Unused
+        nameToIndex.put("instanceModel1", 5);
+        nameToIndex.put("instanceModel2", 6);
+        nameToIndex.put("instanceModel3", 7);
         nameToIndex.put("texCoord0", 8);
         nameToIndex.put("texCoord1", 9);
         nameToIndex.put("texCoord2", 10);
@@ -74,9 +74,13 @@ public class DefaultAttribLocations {
         // Attribute locations
         indexToAttributeLocation.clear();
         indexToAttributeLocation.put(nameToIndex.get("vertex"), "in_Vertex");
+        indexToAttributeLocation.put(nameToIndex.get("instanceModel0"), "in_InstanceModel0");
         indexToAttributeLocation.put(nameToIndex.get("normal"), "in_Normal");
         indexToAttributeLocation.put(nameToIndex.get("color"), "in_Color");
         indexToAttributeLocation.put(nameToIndex.get("color2"), "in_Color2");
+        indexToAttributeLocation.put(nameToIndex.get("instanceModel1"), "in_InstanceModel1");
+        indexToAttributeLocation.put(nameToIndex.get("instanceModel2"), "in_InstanceModel2");
+        indexToAttributeLocation.put(nameToIndex.get("instanceModel3"), "in_InstanceModel3");
         indexToAttributeLocation.put(nameToIndex.get("texCoord0"), "in_TexCoord0");
         indexToAttributeLocation.put(nameToIndex.get("texCoord1"), "in_TexCoord1");
         indexToAttributeLocation.put(nameToIndex.get("texCoord2"), "in_TexCoord2");
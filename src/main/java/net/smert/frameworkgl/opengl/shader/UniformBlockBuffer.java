@@ -0,0 +1,378 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.opengl.shader;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.math.Matrix4f;
+import net.smert.frameworkgl.math.Vector3f;
+import net.smert.frameworkgl.math.Vector4f;
+import net.smert.frameworkgl.opengl.GL;
+import net.smert.frameworkgl.opengl.GLLight;
+import net.smert.frameworkgl.opengl.MaterialLight;
+import net.smert.frameworkgl.opengl.constants.VertexBufferObjectTypes;
+import net.smert.frameworkgl.opengl.helpers.UniformBufferObjectHelper;
+import net.smert.frameworkgl.opengl.mesh.SegmentMaterial;
+import net.smert.frameworkgl.opengl.renderable.Renderable;
+import net.smert.frameworkgl.utils.HashMapIntInt;
+import net.smert.frameworkgl.utils.StackInt;
+
+/**
+ * Writes the std140 camera, light and material uniform blocks once per frame into a ring of buffer ranges. Shaders that
+ * declare the blocks read them by binding index instead of having lights and materials sent with glUniform for every
+ * bind and render call. Each range is fenced so it is only written again once the GPU is done with it. Cameras set
+ * later in the same frame rewrite the camera and light blocks of the current range through the driver.
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class UniformBlockBuffer {
+
+    public final static int CAMERA_BINDING = 0;
+    public final static int LIGHT_BINDING = 1;
+    public final static int MATERIAL_BINDING = 2;
+    public final static String CAMERA_BLOCK = "CameraBlock";
+    public final static String LIGHT_BLOCK = "LightBlock";
+    public final static String MATERIAL_BLOCK = "MaterialBlock";
+    private final static int CAMERA_BLOCK_SIZE = 192; // 3 mat4
+    private final static int LIGHT_SIZE = 112; // std140 size of CustomLightSourceParameters
+    private final static int LIGHTS_OFFSET = 144; // uGlobalAmbientLight, uNumberOfLights and uLight come first
+    private final static int MATERIAL_BLOCK_SIZE = 80; // std140 size of CustomMaterialParameters
+    private final static int MAX_LIGHTS = 32; // Must match "#define MAX_LIGHTS" in GLSL shader
+    private final static int LIGHT_BLOCK_SIZE = LIGHTS_OFFSET + MAX_LIGHTS * LIGHT_SIZE;
+    private final static int RANGES = 3;
+    private final static int SPARE_MATERIAL_SLOTS = 8;
+
+    private int alignment;
+    private int boundMaterialSlot;
+    private int frame;
+    private int lightOffset;
+    private int materialOffset;
+    private int materialSlots;
+    private int materialStride;
+    private int range;
+    private int rangeSize;
+    private int uboID;
+    private long rangeOffset;
+    private boolean[] materialSlotsWritten;
+    private int[] materialSlotUniqueIDs;
+    private final long[] fences;
+    private ByteBuffer byteBuffer;
+    private ByteBuffer cameraByteBuffer;
+    private ByteBuffer mappedByteBuffer;
+    private final HashMapIntInt uniqueIDToMaterialSlot;
+    private final Matrix4f projectionViewMatrix;
+    private final Vector3f eyePosition;
+    private final Vector3f spotEyeDirection;
+    private final Vector3f spotWorldDirection;
+    private final StackInt freeMaterialSlots;
+    private final Vector3f worldPosition;
+
+    public UniformBlockBuffer() {
+        materialSlots = 1;
+        materialSlotsWritten = new boolean[16];
+        materialSlotUniqueIDs = new int[16];
+        fences = new long[RANGES];
+        uniqueIDToMaterialSlot = new HashMapIntInt();
+        projectionViewMatrix = new Matrix4f();
+        eyePosition = new Vector3f();
+        spotEyeDirection = new Vector3f();
+        spotWorldDirection = new Vector3f();
+        freeMaterialSlots = new StackInt();
+        worldPosition = new Vector3f();
+        reset();
+    }
+
+    private int align(int sizeBytes) {
+        return (sizeBytes + alignment - 1) / alignment * alignment;
+    }
+
+    private int allocateMaterialSlot(int uniqueID) {
+        int slot;
+        if (freeMaterialSlots.empty()) {
+            slot = materialSlots++;
+            if (slot == materialSlotUniqueIDs.length) {
+                materialSlotsWritten = Arrays.copyOf(materialSlotsWritten, slot * 2);
+                materialSlotUniqueIDs = Arrays.copyOf(materialSlotUniqueIDs, slot * 2);
+            }
+        } else {
+            slot = freeMaterialSlots.pop();
+        }
+        materialSlotsWritten[slot] = false;
+        materialSlotUniqueIDs[slot] = uniqueID;
+        uniqueIDToMaterialSlot.put(uniqueID, slot);
+        return slot;
+    }
+
+    private void create(int capacitySlots) {
+        deleteBuffer();
+        alignment = GL.uboHelper.getOffsetAlignment();
+        lightOffset = align(CAMERA_BLOCK_SIZE);
+        materialOffset = lightOffset + align(LIGHT_BLOCK_SIZE);
+        materialStride = align(MATERIAL_BLOCK_SIZE);
+
+        // Leave room for a few more materials so adding one does not always create a new buffer
+        rangeSize = materialOffset + (capacitySlots + SPARE_MATERIAL_SLOTS) * materialStride;
+        uboID = GL.uboHelper.create();
+        GL.uboHelper.setBufferData(uboID, (long) rangeSize * RANGES, VertexBufferObjectTypes.STREAM_DRAW);
+        GL.uboHelper.unbind();
+        if ((cameraByteBuffer == null) || (cameraByteBuffer.capacity() != materialOffset)) {
+            cameraByteBuffer = GL.bufferHelper.createByteBuffer(materialOffset);
+        }
+    }
+
+    private void deleteBuffer() {
+        for (int i = 0; i < RANGES; i++) {
+            if (fences[i] != 0) {
+                GL.uboHelper.deleteFence(fences[i]);
+                fences[i] = 0;
+            }
+        }
+        if (uboID != 0) {
+            GL.uboHelper.delete(uboID);
+        }
+        reset();
+    }
+
+    private void putVector4f(int offset, float x, float y, float z, float w) {
+        byteBuffer.putFloat(offset, x);
+        byteBuffer.putFloat(offset + 4, y);
+        byteBuffer.putFloat(offset + 8, z);
+        byteBuffer.putFloat(offset + 12, w);
+    }
+
+    private void putVector4f(int offset, Vector4f vector) {
+        putVector4f(offset, vector.getX(), vector.getY(), vector.getZ(), vector.getW());
+    }
+
+    private void writeCamera(int offset) {
+        GL.matrixHelper.multiplyProjectionAndViewMatrix(projectionViewMatrix);
+        byteBuffer.position(offset);
+        GL.matrixHelper.getProjectionMatrix().toFloatBuffer(byteBuffer.asFloatBuffer());
+        byteBuffer.position(offset + 64);
+        GL.matrixHelper.getViewMatrix().toFloatBuffer(byteBuffer.asFloatBuffer());
+        byteBuffer.position(offset + 128);
+        projectionViewMatrix.toFloatBuffer(byteBuffer.asFloatBuffer());
+        byteBuffer.position(0);
+    }
+
+    private void writeLight(int offset, GLLight glLight) {
+        Vector4f position = glLight.getPosition();
+
+        // Lights are sent in eye space
+        worldPosition.set(position);
+        if (position.getW() != 0.0f) {
+            GL.matrixHelper.multiplyViewAndWorldPositionOut(worldPosition, eyePosition);
+        } else {
+            GL.matrixHelper.getViewMatrix().multiplyDirectionOut(worldPosition, eyePosition);
+        }
+        spotWorldDirection.set(glLight.getSpotDirection());
+        GL.matrixHelper.getViewMatrix().multiplyDirectionOut(spotWorldDirection, spotEyeDirection);
+
+        byteBuffer.putFloat(offset, glLight.getConstantAttenuation());
+        byteBuffer.putFloat(offset + 4, glLight.getLinearAttenuation());
+        byteBuffer.putFloat(offset + 8, glLight.getQuadraticAttenuation());
+        byteBuffer.putFloat(offset + 12, glLight.getRadius());
+        byteBuffer.putFloat(offset + 16, glLight.getSpotInnerCutoffCos());
+        byteBuffer.putFloat(offset + 20, glLight.getSpotOuterCutoffCos());
+        byteBuffer.putFloat(offset + 24, glLight.getSpotExponent());
+        putVector4f(offset + 32, spotEyeDirection.getX(), spotEyeDirection.getY(), spotEyeDirection.getZ(), 0f);
+        putVector4f(offset + 48, glLight.getAmbient());
+        putVector4f(offset + 64, glLight.getDiffuse());
+        putVector4f(offset + 80, eyePosition.getX(), eyePosition.getY(), eyePosition.getZ(), position.getW());
+        putVector4f(offset + 96, glLight.getSpecular());
+    }
+
+    private void writeLights(int offset) {
+        UniformVariables uniformVariables = GL.uniformVariables;
+        List<GLLight> glLights = uniformVariables.getGlLights();
+        int numberOfLights = Math.min(glLights.size(), MAX_LIGHTS);
+        putVector4f(offset, uniformVariables.getAmbientLight().getAmbient());
+        byteBuffer.putInt(offset + 16, numberOfLights);
+        writeLight(offset + 32, uniformVariables.getGlLight());
+        for (int i = 0; i < numberOfLights; i++) {
+            writeLight(offset + LIGHTS_OFFSET + i * LIGHT_SIZE, glLights.get(i));
+        }
+    }
+
+    private void writeMaterialLight(int offset, MaterialLight materialLight) {
+        byteBuffer.putFloat(offset, materialLight.getShininess());
+        putVector4f(offset + 16, materialLight.getAmbient());
+        putVector4f(offset + 32, materialLight.getDiffuse());
+        putVector4f(offset + 48, materialLight.getEmission());
+        putVector4f(offset + 64, materialLight.getSpecular());
+    }
+
+    private void releaseMaterialSlots() {
+
+        // Unique IDs are never reused so a missing one means the material light was removed from the pool
+        for (int i = 1; i < materialSlots; i++) {
+            int uniqueID = materialSlotUniqueIDs[i];
+            if ((uniqueID != 0) && !Renderable.materialLightPool.exists(uniqueID)) {
+                uniqueIDToMaterialSlot.remove(uniqueID);
+                materialSlotsWritten[i] = false;
+                materialSlotUniqueIDs[i] = 0;
+            }
+        }
+        while ((materialSlots > 1) && (materialSlotUniqueIDs[materialSlots - 1] == 0)) {
+            materialSlots--;
+        }
+
+        // Lowest slots are reused first so the used slots stay packed
+        freeMaterialSlots.clear();
+        for (int i = materialSlots - 1; i > 0; i--) {
+            if (materialSlotUniqueIDs[i] == 0) {
+                freeMaterialSlots.push(i);
+            }
+        }
+    }
+
+    private void writeMaterialLights(int offset) {
+
+        // Slot 0 is the default material light and the rest hold the material lights that were bound
+        writeMaterialLight(offset, GL.uniformVariables.getDefaultMaterialLight());
+        for (int i = 1; i < materialSlots; i++) {
+            int uniqueID = materialSlotUniqueIDs[i];
+            if (uniqueID != 0) {
+                writeMaterialLight(offset + i * materialStride, Renderable.materialLightPool.get(uniqueID));
+                materialSlotsWritten[i] = true;
+            }
+        }
+    }
+
+    public void bindMaterialLight(SegmentMaterial material) {
+        int slot = 0;
+        if (material != null) {
+            int uniqueID = Renderable.materialLightPool.getUniqueID(material.getMaterialLightName());
+            if (uniqueID == -1) {
+                throw new IllegalArgumentException(
+                        "Tried to bind a material light that does not exist: " + material.getMaterialLightName());
+            }
+            slot = uniqueIDToMaterialSlot.get(uniqueID);
+            if (slot == HashMapIntInt.NOT_FOUND) {
+                slot = allocateMaterialSlot(uniqueID);
+            }
+
+            // Material lights first bound after this frame was written use the default until the next frame
+            if (!materialSlotsWritten[slot]) {
+                slot = 0;
+            }
+        }
+        if (boundMaterialSlot == slot) {
+            return;
+        }
+        boundMaterialSlot = slot;
+        GL.uboHelper.bindRange(MATERIAL_BINDING, uboID, rangeOffset + materialOffset + slot * materialStride,
+                MATERIAL_BLOCK_SIZE);
+    }
+
+    public final void destroy() {
+        deleteBuffer();
+        materialSlots = 1;
+        Arrays.fill(materialSlotsWritten, false);
+        Arrays.fill(materialSlotUniqueIDs, 0);
+        freeMaterialSlots.clear();
+        uniqueIDToMaterialSlot.clear();
+    }
+
+    public boolean hasLightBlock(int programID) {
+        if (!GL.uboHelper.isSupported()) {
+            return false;
+        }
+        return GL.uboHelper.getUniformBlockIndex(programID, LIGHT_BLOCK) != UniformBufferObjectHelper.INVALID_INDEX;
+    }
+
+    public final void reset() {
+        boundMaterialSlot = -1;
+        range = 0;
+        rangeOffset = 0;
+        rangeSize = 0;
+        uboID = 0;
+    }
+
+    public void setUniformBlockBindings(int programID) {
+        if (!GL.uboHelper.isSupported()) {
+            return;
+        }
+        String[] blockNames = {CAMERA_BLOCK, LIGHT_BLOCK, MATERIAL_BLOCK};
+        int[] bindings = {CAMERA_BINDING, LIGHT_BINDING, MATERIAL_BINDING};
+        for (int i = 0; i < blockNames.length; i++) {
+            int blockIndex = GL.uboHelper.getUniformBlockIndex(programID, blockNames[i]);
+            if (blockIndex != UniformBufferObjectHelper.INVALID_INDEX) {
+                GL.uboHelper.setUniformBlockBinding(programID, blockIndex, bindings[i]);
+            }
+        }
+    }
+
+    /**
+     * Writes the camera, lights and material lights into the next range and binds it. Call after the camera has been
+     * set and before drawing. Only the first call in a frame moves to the next range.
+     */
+    public void update() {
+        if ((uboID == 0) && !GL.uboHelper.isSupported()) {
+            return;
+        }
+
+        // The driver orders a buffer update after the draws already issued, so the range doesn't have to move
+        int currentFrame = Fw.timer.getFrameCounter();
+        if ((uboID != 0) && (frame == currentFrame)) {
+            byteBuffer = cameraByteBuffer;
+            writeCamera(0);
+            writeLights(lightOffset);
+            GL.uboHelper.setBufferSubData(uboID, rangeOffset, byteBuffer);
+            GL.uboHelper.unbind();
+            return;
+        }
+
+        // Slots of removed material lights are reused. The buffer grows with the number of bound material lights and
+        // shrinks once most of them are gone.
+        releaseMaterialSlots();
+        if (uboID == 0) {
+            create(materialSlots);
+        } else {
+            int capacitySlots = (rangeSize - materialOffset) / materialStride;
+            if ((materialSlots > capacitySlots) || (capacitySlots > 2 * (materialSlots + SPARE_MATERIAL_SLOTS))) {
+                create(materialSlots);
+            }
+        }
+        frame = currentFrame;
+
+        // Fence the range used by the last frame and wait until the GPU is done with the next one
+        if (fences[range] == 0) {
+            fences[range] = GL.uboHelper.createFence();
+        }
+        range = (range + 1) % RANGES;
+        if (fences[range] != 0) {
+            GL.uboHelper.waitForFence(fences[range]);
+            GL.uboHelper.deleteFence(fences[range]);
+            fences[range] = 0;
+        }
+        rangeOffset = (long) range * rangeSize;
+
+        mappedByteBuffer = GL.uboHelper.map(uboID, rangeOffset, rangeSize, mappedByteBuffer);
+        mappedByteBuffer.order(ByteOrder.nativeOrder());
+        byteBuffer = mappedByteBuffer;
+        writeCamera(0);
+        writeLights(lightOffset);
+        writeMaterialLights(materialOffset);
+        GL.uboHelper.unmap();
+        GL.uboHelper.unbind();
+
+        GL.uboHelper.bindRange(CAMERA_BINDING, uboID, rangeOffset, CAMERA_BLOCK_SIZE);
+        GL.uboHelper.bindRange(LIGHT_BINDING, uboID, rangeOffset + lightOffset, LIGHT_BLOCK_SIZE);
+        boundMaterialSlot = -1;
+    }
+
+}
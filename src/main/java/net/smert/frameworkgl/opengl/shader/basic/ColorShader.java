@@ -42,6 +42,11 @@ public class ColorShader extends AbstractShader {
             return new ColorShader(new Uniforms(shader.getProgramID()), shader);
         }
 
+        public static ColorShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader("basic/color.fsh", "basic/color_instanced.vsh", "colorInstanced");
+            return new ColorShader(new Uniforms(shader.getProgramID()), shader);
+        }
+
     }
 
     public static class Uniforms extends DefaultShaderUniforms {
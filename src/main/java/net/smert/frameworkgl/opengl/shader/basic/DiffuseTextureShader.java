@@ -45,6 +45,12 @@ public class DiffuseTextureShader extends AbstractShader {
             return new DiffuseTextureShader(new Uniforms(shader.getProgramID()), shader);
         }
 
+        public static DiffuseTextureShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader("basic/diffuse_texture.fsh", "basic/diffuse_texture_instanced.vsh",
+                    "diffuseTextureInstanced");
+            return new DiffuseTextureShader(new Uniforms(shader.getProgramID()), shader);
+        }
+
     }
 
     public static class Uniforms extends DefaultShaderUniforms {
@@ -32,6 +32,7 @@ public class MultiLightAndMaterialUniforms {
     private final static Vector3f spotWorldDirection = new Vector3f();
     private final static Vector3f worldPosition = new Vector3f();
 
+    private boolean uniformBlocks;
     private final int programID;
     private int uniformGlobalAmbientLightID;
     private int uniformNumberOfLightsID;
@@ -47,6 +48,10 @@ public class MultiLightAndMaterialUniforms {
         }
     }
 
+    public boolean hasUniformBlocks() {
+        return uniformBlocks;
+    }
+
     public void setAmbientLight(AmbientLight ambientLight) {
         Vector4f ambient = ambientLight.getAmbient();
         GL.shaderUniformHelper.setUniform(uniformGlobalAmbientLightID,
@@ -62,7 +67,7 @@ public class MultiLightAndMaterialUniforms {
 
         worldPosition.set(position);
         if (position.getW() != 0.0f) {
-            GL.matrixHelper.getViewMatrix().multiplyOut(worldPosition, eyePosition);
+            GL.matrixHelper.multiplyViewAndWorldPositionOut(worldPosition, eyePosition);
         } else {
             GL.matrixHelper.getViewMatrix().multiplyDirectionOut(worldPosition, eyePosition);
         }
@@ -121,6 +126,7 @@ public class MultiLightAndMaterialUniforms {
     }
 
     public void updateUniformLocations() {
+        uniformBlocks = GL.uniformBlockBuffer.hasLightBlock(programID);
         uniformGlobalAmbientLightID = GL.shaderUniformHelper.getUniformLocation(programID, "uGlobalAmbientLight");
         uniformNumberOfLightsID = GL.shaderUniformHelper.getUniformLocation(programID, "uNumberOfLights");
 
@@ -30,6 +30,7 @@ public class SingleLightAndMaterialUniforms {
     private final static Vector3f spotWorldDirection = new Vector3f();
     private final static Vector3f worldPosition = new Vector3f();
 
+    private boolean uniformBlocks;
     private final int programID;
     private int uniformGlobalAmbientLightID;
     private final int[] uniformLightIDs;
@@ -41,6 +42,10 @@ public class SingleLightAndMaterialUniforms {
         uniformMaterialLightIDs = new int[5];
     }
 
+    public boolean hasUniformBlocks() {
+        return uniformBlocks;
+    }
+
     public void setAmbientLight(AmbientLight ambientLight) {
         Vector4f ambient = ambientLight.getAmbient();
         GL.shaderUniformHelper.setUniform(uniformGlobalAmbientLightID,
@@ -56,7 +61,7 @@ public class SingleLightAndMaterialUniforms {
 
         worldPosition.set(position);
         if (position.getW() != 0.0f) {
-            GL.matrixHelper.getViewMatrix().multiplyOut(worldPosition, eyePosition);
+            GL.matrixHelper.multiplyViewAndWorldPositionOut(worldPosition, eyePosition);
         } else {
             GL.matrixHelper.getViewMatrix().multiplyDirectionOut(worldPosition, eyePosition);
         }
@@ -99,6 +104,7 @@ public class SingleLightAndMaterialUniforms {
     }
 
     public void updateUniformLocations() {
+        uniformBlocks = GL.uniformBlockBuffer.hasLightBlock(programID);
         uniformGlobalAmbientLightID = GL.shaderUniformHelper.getUniformLocation(programID, "uGlobalAmbientLight");
 
         uniformLightIDs[0] = GL.shaderUniformHelper.getUniformLocation(programID, "uLight.constantAttenuation");
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.opengl.shader.deferred;
+
+import java.io.IOException;
+import net.smert.frameworkgl.Fw;
+import net.smert.frameworkgl.opengl.GLLight;
+import net.smert.frameworkgl.opengl.Shader;
+import net.smert.frameworkgl.opengl.shader.AbstractShader;
+import net.smert.frameworkgl.opengl.shader.DefaultShaderUniforms;
+import net.smert.frameworkgl.opengl.shader.common.SingleLightAndMaterialUniforms;
+
+/**
+ * Lighting passes that read the G-buffer. One light is sent at a time with setLight() before its volume is rendered.
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class LightShader extends AbstractShader {
+
+    private final Uniforms uniforms;
+
+    public LightShader(Uniforms uniforms, Shader shader) {
+        super(uniforms, shader);
+        this.uniforms = uniforms;
+    }
+
+    public Uniforms getUniforms() {
+        return uniforms;
+    }
+
+    public static class Factory {
+
+        public static LightShader CreateAmbient() throws IOException {
+            Shader shader = Fw.graphics.buildShader("deferred/ambient.fsh", "deferred/fullscreen.vsh", "deferredAmbient");
+            return new LightShader(new Uniforms(shader.getProgramID()), shader);
+        }
+
+        public static LightShader CreateFullscreen() throws IOException {
+            Shader shader = Fw.graphics.buildShader("deferred/light.fsh", "deferred/fullscreen.vsh", "deferredLightFullscreen");
+            return new LightShader(new Uniforms(shader.getProgramID()), shader);
+        }
+
+        public static LightShader CreateVolume() throws IOException {
+            Shader shader = Fw.graphics.buildShader("deferred/light.fsh", "deferred/light_volume.vsh", "deferredLightVolume");
+            return new LightShader(new Uniforms(shader.getProgramID()), shader);
+        }
+
+    }
+
+    public static class Uniforms extends DefaultShaderUniforms {
+
+        private final SingleLightAndMaterialUniforms singleLightAndMaterialUniforms;
+
+        public Uniforms(int programID) {
+            super(programID);
+            singleLightAndMaterialUniforms = new SingleLightAndMaterialUniforms(programID);
+        }
+
+        public void setLight(GLLight glLight) {
+            singleLightAndMaterialUniforms.setLight(glLight);
+        }
+
+        @Override
+        public void updateUniformLocations() {
+            super.updateUniformLocations();
+            singleLightAndMaterialUniforms.updateUniformLocations();
+        }
+
+    }
+
+}
@@ -36,6 +36,14 @@ public class BlinnPhongSpecularHybridShader extends AbstractSpecularShader {
             return new BlinnPhongSpecularHybridShader(new SpecularUniforms(shader.getProgramID()), shader);
         }
 
+        public static BlinnPhongSpecularHybridShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/multi/blinn_phong_specular_hybrid.fsh",
+                    "pixellit/multi/blinn_phong_specular_hybrid_instanced.vsh",
+                    "pixelLitMultiBlinnPhongSpecularHybridInstanced");
+            return new BlinnPhongSpecularHybridShader(new SpecularUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
@@ -36,6 +36,14 @@ public class BlinnPhongSpecularPointShader extends AbstractSpecularShader {
             return new BlinnPhongSpecularPointShader(new SpecularUniforms(shader.getProgramID()), shader);
         }
 
+        public static BlinnPhongSpecularPointShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/multi/blinn_phong_specular_point.fsh",
+                    "pixellit/multi/blinn_phong_specular_point_instanced.vsh",
+                    "pixelLitMultiBlinnPhongSpecularPointInstanced");
+            return new BlinnPhongSpecularPointShader(new SpecularUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
@@ -36,6 +36,14 @@ public class DiffuseDirectionalShader extends AbstractDiffuseShader {
             return new DiffuseDirectionalShader(new DiffuseUniforms(shader.getProgramID()), shader);
         }
 
+        public static DiffuseDirectionalShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/multi/diffuse_directional.fsh",
+                    "pixellit/multi/diffuse_directional_instanced.vsh",
+                    "pixelLitMultiDiffuseDirectionalInstanced");
+            return new DiffuseDirectionalShader(new DiffuseUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
@@ -36,6 +36,14 @@ public class DiffuseHybridShader extends AbstractDiffuseShader {
             return new DiffuseHybridShader(new DiffuseUniforms(shader.getProgramID()), shader);
         }
 
+        public static DiffuseHybridShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/multi/diffuse_hybrid.fsh",
+                    "pixellit/multi/diffuse_hybrid_instanced.vsh",
+                    "pixelLitMultiDiffuseHybridInstanced");
+            return new DiffuseHybridShader(new DiffuseUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
@@ -36,6 +36,14 @@ public class DiffusePointShader extends AbstractDiffuseShader {
             return new DiffusePointShader(new DiffuseUniforms(shader.getProgramID()), shader);
         }
 
+        public static DiffusePointShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/multi/diffuse_point.fsh",
+                    "pixellit/multi/diffuse_point_instanced.vsh",
+                    "pixelLitMultiDiffusePointInstanced");
+            return new DiffusePointShader(new DiffuseUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
@@ -36,6 +36,14 @@ public class DiffuseSpotShader extends AbstractDiffuseShader {
             return new DiffuseSpotShader(new DiffuseUniforms(shader.getProgramID()), shader);
         }
 
+        public static DiffuseSpotShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/multi/diffuse_spot.fsh",
+                    "pixellit/multi/diffuse_spot_instanced.vsh",
+                    "pixelLitMultiDiffuseSpotInstanced");
+            return new DiffuseSpotShader(new DiffuseUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
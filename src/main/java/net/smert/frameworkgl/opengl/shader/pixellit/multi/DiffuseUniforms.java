@@ -32,6 +32,10 @@ public class DiffuseUniforms extends DefaultShaderUniforms {
         multiLightAndMaterialUniforms = new MultiLightAndMaterialUniforms(programID);
     }
 
+    public boolean hasUniformBlocks() {
+        return multiLightAndMaterialUniforms.hasUniformBlocks();
+    }
+
     public void setAmbientLight(AmbientLight ambientLight) {
         multiLightAndMaterialUniforms.setAmbientLight(ambientLight);
     }
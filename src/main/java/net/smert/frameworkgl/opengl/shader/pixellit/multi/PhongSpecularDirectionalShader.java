@@ -36,6 +36,14 @@ public class PhongSpecularDirectionalShader extends AbstractSpecularShader {
             return new PhongSpecularDirectionalShader(new SpecularUniforms(shader.getProgramID()), shader);
         }
 
+        public static PhongSpecularDirectionalShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/multi/phong_specular_directional.fsh",
+                    "pixellit/multi/phong_specular_directional_instanced.vsh",
+                    "pixelLitMultiPhongSpecularDirectionalInstanced");
+            return new PhongSpecularDirectionalShader(new SpecularUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
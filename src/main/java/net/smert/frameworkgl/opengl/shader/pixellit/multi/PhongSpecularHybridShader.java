@@ -36,6 +36,14 @@ public class PhongSpecularHybridShader extends AbstractSpecularShader {
             return new PhongSpecularHybridShader(new SpecularUniforms(shader.getProgramID()), shader);
         }
 
+        public static PhongSpecularHybridShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/multi/phong_specular_hybrid.fsh",
+                    "pixellit/multi/phong_specular_hybrid_instanced.vsh",
+                    "pixelLitMultiPhongSpecularHybridInstanced");
+            return new PhongSpecularHybridShader(new SpecularUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
@@ -36,6 +36,14 @@ public class PhongSpecularPointShader extends AbstractSpecularShader {
             return new PhongSpecularPointShader(new SpecularUniforms(shader.getProgramID()), shader);
         }
 
+        public static PhongSpecularPointShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/multi/phong_specular_point.fsh",
+                    "pixellit/multi/phong_specular_point_instanced.vsh",
+                    "pixelLitMultiPhongSpecularPointInstanced");
+            return new PhongSpecularPointShader(new SpecularUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
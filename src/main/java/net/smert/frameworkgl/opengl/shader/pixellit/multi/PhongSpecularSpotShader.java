@@ -36,6 +36,14 @@ public class PhongSpecularSpotShader extends AbstractSpecularShader {
             return new PhongSpecularSpotShader(new SpecularUniforms(shader.getProgramID()), shader);
         }
 
+        public static PhongSpecularSpotShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/multi/phong_specular_spot.fsh",
+                    "pixellit/multi/phong_specular_spot_instanced.vsh",
+                    "pixelLitMultiPhongSpecularSpotInstanced");
+            return new PhongSpecularSpotShader(new SpecularUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
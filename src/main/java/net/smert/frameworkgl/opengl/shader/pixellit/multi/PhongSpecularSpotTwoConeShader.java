@@ -36,6 +36,14 @@ public class PhongSpecularSpotTwoConeShader extends AbstractSpecularShader {
             return new PhongSpecularSpotTwoConeShader(new SpecularUniforms(shader.getProgramID()), shader);
         }
 
+        public static PhongSpecularSpotTwoConeShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/multi/phong_specular_spot_two_cone.fsh",
+                    "pixellit/multi/phong_specular_spot_two_cone_instanced.vsh",
+                    "pixelLitMultiPhongSpecularSpotInstanced");
+            return new PhongSpecularSpotTwoConeShader(new SpecularUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
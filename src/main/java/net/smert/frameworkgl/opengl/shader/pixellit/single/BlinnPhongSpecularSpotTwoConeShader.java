@@ -36,6 +36,14 @@ public class BlinnPhongSpecularSpotTwoConeShader extends AbstractSpecularShader
             return new BlinnPhongSpecularSpotTwoConeShader(new SpecularUniforms(shader.getProgramID()), shader);
         }
 
+        public static BlinnPhongSpecularSpotTwoConeShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/single/blinn_phong_specular_spot_two_cone.fsh",
+                    "pixellit/single/blinn_phong_specular_spot_two_cone_instanced.vsh",
+                    "pixelLitSingleBlinnPhongSpecularSpotInstanced");
+            return new BlinnPhongSpecularSpotTwoConeShader(new SpecularUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
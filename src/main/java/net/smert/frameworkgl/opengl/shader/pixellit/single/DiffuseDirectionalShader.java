@@ -36,6 +36,14 @@ public class DiffuseDirectionalShader extends AbstractDiffuseShader {
             return new DiffuseDirectionalShader(new DiffuseUniforms(shader.getProgramID()), shader);
         }
 
+        public static DiffuseDirectionalShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/single/diffuse_directional.fsh",
+                    "pixellit/single/diffuse_directional_instanced.vsh",
+                    "pixelLitSingleDiffuseDirectionalInstanced");
+            return new DiffuseDirectionalShader(new DiffuseUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
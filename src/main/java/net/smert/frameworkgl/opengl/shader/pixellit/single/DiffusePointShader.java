@@ -36,6 +36,14 @@ public class DiffusePointShader extends AbstractDiffuseShader {
             return new DiffusePointShader(new DiffuseUniforms(shader.getProgramID()), shader);
         }
 
+        public static DiffusePointShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/single/diffuse_point.fsh",
+                    "pixellit/single/diffuse_point_instanced.vsh",
+                    "pixelLitSingleDiffusePointInstanced");
+            return new DiffusePointShader(new DiffuseUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
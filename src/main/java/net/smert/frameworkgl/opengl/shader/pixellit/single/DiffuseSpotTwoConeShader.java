@@ -36,6 +36,14 @@ public class DiffuseSpotTwoConeShader extends AbstractDiffuseShader {
             return new DiffuseSpotTwoConeShader(new DiffuseUniforms(shader.getProgramID()), shader);
         }
 
+        public static DiffuseSpotTwoConeShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/single/diffuse_spot_two_cone.fsh",
+                    "pixellit/single/diffuse_spot_two_cone_instanced.vsh",
+                    "pixelLitSingleDiffuseSpotInstanced");
+            return new DiffuseSpotTwoConeShader(new DiffuseUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
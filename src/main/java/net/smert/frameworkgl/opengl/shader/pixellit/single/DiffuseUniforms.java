@@ -31,6 +31,10 @@ public class DiffuseUniforms extends DefaultShaderUniforms {
         singleLightAndMaterialUniforms = new SingleLightAndMaterialUniforms(programID);
     }
 
+    public boolean hasUniformBlocks() {
+        return singleLightAndMaterialUniforms.hasUniformBlocks();
+    }
+
     public void setAmbientLight(AmbientLight ambientLight) {
         singleLightAndMaterialUniforms.setAmbientLight(ambientLight);
     }
@@ -36,6 +36,14 @@ public class PhongSpecularSpotShader extends AbstractSpecularShader {
             return new PhongSpecularSpotShader(new SpecularUniforms(shader.getProgramID()), shader);
         }
 
+        public static PhongSpecularSpotShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "pixellit/single/phong_specular_spot.fsh",
+                    "pixellit/single/phong_specular_spot_instanced.vsh",
+                    "pixelLitSinglePhongSpecularSpotInstanced");
+            return new PhongSpecularSpotShader(new SpecularUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
@@ -55,12 +55,21 @@ public abstract class AbstractDiffuseShader extends AbstractShader {
 
     @Override
     public void sendUniformsOncePerBind(FloatBuffer matrixFloatBuffer) {
+
+        // Lights are read from the uniform block which is written once per frame
+        if (uniforms.hasUniformBlocks()) {
+            return;
+        }
         uniforms.setAmbientLight(GL.uniformVariables.getAmbientLight());
         uniforms.setLights(GL.uniformVariables.getGlLights());
     }
 
     @Override
     public void sendUniformsOncePerRenderCall(FloatBuffer matrixFloatBuffer, Segment segment) {
+        if (uniforms.hasUniformBlocks()) {
+            GL.uniformBlockBuffer.bindMaterialLight(segment.getMaterial());
+            return;
+        }
         MaterialLight materialLight;
         SegmentMaterial material = segment.getMaterial();
         if (material == null) {
@@ -36,6 +36,14 @@ public class BlinnPhongSpecularDirectionalShader extends AbstractSpecularShader
             return new BlinnPhongSpecularDirectionalShader(new SpecularUniforms(shader.getProgramID()), shader);
         }
 
+        public static BlinnPhongSpecularDirectionalShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "vertexlit/multi/blinn_phong_specular_directional.fsh",
+                    "vertexlit/multi/blinn_phong_specular_directional_instanced.vsh",
+                    "vertexLitMultiBlinnPhongSpecularDirectionalInstanced");
+            return new BlinnPhongSpecularDirectionalShader(new SpecularUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
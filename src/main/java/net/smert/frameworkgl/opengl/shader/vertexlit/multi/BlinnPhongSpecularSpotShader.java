@@ -36,6 +36,14 @@ public class BlinnPhongSpecularSpotShader extends AbstractSpecularShader {
             return new BlinnPhongSpecularSpotShader(new SpecularUniforms(shader.getProgramID()), shader);
         }
 
+        public static BlinnPhongSpecularSpotShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "vertexlit/multi/blinn_phong_specular_spot.fsh",
+                    "vertexlit/multi/blinn_phong_specular_spot_instanced.vsh",
+                    "vertexLitMultiBlinnPhongSpecularSpotInstanced");
+            return new BlinnPhongSpecularSpotShader(new SpecularUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
@@ -36,6 +36,14 @@ public class DiffusePointShader extends AbstractDiffuseShader {
             return new DiffusePointShader(new DiffuseUniforms(shader.getProgramID()), shader);
         }
 
+        public static DiffusePointShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "vertexlit/multi/diffuse_point.fsh",
+                    "vertexlit/multi/diffuse_point_instanced.vsh",
+                    "vertexLitMultiDiffusePointInstanced");
+            return new DiffusePointShader(new DiffuseUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
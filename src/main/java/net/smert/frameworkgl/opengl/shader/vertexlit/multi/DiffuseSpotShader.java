@@ -36,6 +36,14 @@ public class DiffuseSpotShader extends AbstractDiffuseShader {
             return new DiffuseSpotShader(new DiffuseUniforms(shader.getProgramID()), shader);
         }
 
+        public static DiffuseSpotShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "vertexlit/multi/diffuse_spot.fsh",
+                    "vertexlit/multi/diffuse_spot_instanced.vsh",
+                    "vertexLitMultiDiffuseSpotInstanced");
+            return new DiffuseSpotShader(new DiffuseUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
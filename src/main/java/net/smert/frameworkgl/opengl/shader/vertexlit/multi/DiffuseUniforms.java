@@ -36,6 +36,10 @@ public class DiffuseUniforms extends DefaultShaderUniforms {
         multiLightAndMaterialUniforms = new MultiLightAndMaterialUniforms(programID);
     }
 
+    public boolean hasUniformBlocks() {
+        return multiLightAndMaterialUniforms.hasUniformBlocks();
+    }
+
     public void setAmbientLight(AmbientLight ambientLight) {
         multiLightAndMaterialUniforms.setAmbientLight(ambientLight);
     }
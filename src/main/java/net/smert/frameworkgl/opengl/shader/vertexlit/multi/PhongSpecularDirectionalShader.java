@@ -36,6 +36,14 @@ public class PhongSpecularDirectionalShader extends AbstractSpecularShader {
             return new PhongSpecularDirectionalShader(new SpecularUniforms(shader.getProgramID()), shader);
         }
 
+        public static PhongSpecularDirectionalShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "vertexlit/multi/phong_specular_directional.fsh",
+                    "vertexlit/multi/phong_specular_directional_instanced.vsh",
+                    "vertexLitMultiPhongSpecularDirectionalInstanced");
+            return new PhongSpecularDirectionalShader(new SpecularUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
@@ -36,6 +36,14 @@ public class PhongSpecularHybridShader extends AbstractSpecularShader {
             return new PhongSpecularHybridShader(new SpecularUniforms(shader.getProgramID()), shader);
         }
 
+        public static PhongSpecularHybridShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "vertexlit/multi/phong_specular_hybrid.fsh",
+                    "vertexlit/multi/phong_specular_hybrid_instanced.vsh",
+                    "vertexLitMultiPhongSpecularHybridInstanced");
+            return new PhongSpecularHybridShader(new SpecularUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
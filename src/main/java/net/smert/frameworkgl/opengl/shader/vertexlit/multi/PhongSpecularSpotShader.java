@@ -36,6 +36,14 @@ public class PhongSpecularSpotShader extends AbstractSpecularShader {
             return new PhongSpecularSpotShader(new SpecularUniforms(shader.getProgramID()), shader);
         }
 
+        public static PhongSpecularSpotShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "vertexlit/multi/phong_specular_spot.fsh",
+                    "vertexlit/multi/phong_specular_spot_instanced.vsh",
+                    "vertexLitMultiPhongSpecularSpotInstanced");
+            return new PhongSpecularSpotShader(new SpecularUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
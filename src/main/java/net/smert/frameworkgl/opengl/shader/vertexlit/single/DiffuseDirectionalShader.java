@@ -36,6 +36,14 @@ public class DiffuseDirectionalShader extends AbstractDiffuseShader {
             return new DiffuseDirectionalShader(new DiffuseUniforms(shader.getProgramID()), shader);
         }
 
+        public static DiffuseDirectionalShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "vertexlit/single/diffuse_directional.fsh",
+                    "vertexlit/single/diffuse_directional_instanced.vsh",
+                    "vertexLitSingleDiffuseDirectionalInstanced");
+            return new DiffuseDirectionalShader(new DiffuseUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
@@ -36,6 +36,14 @@ public class DiffusePointShader extends AbstractDiffuseShader {
             return new DiffusePointShader(new DiffuseUniforms(shader.getProgramID()), shader);
         }
 
+        public static DiffusePointShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "vertexlit/single/diffuse_point.fsh",
+                    "vertexlit/single/diffuse_point_instanced.vsh",
+                    "vertexLitSingleDiffusePointInstanced");
+            return new DiffusePointShader(new DiffuseUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
@@ -36,6 +36,14 @@ public class DiffuseSpotShader extends AbstractDiffuseShader {
             return new DiffuseSpotShader(new DiffuseUniforms(shader.getProgramID()), shader);
         }
 
+        public static DiffuseSpotShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "vertexlit/single/diffuse_spot.fsh",
+                    "vertexlit/single/diffuse_spot_instanced.vsh",
+                    "vertexLitSingleDiffuseSpotInstanced");
+            return new DiffuseSpotShader(new DiffuseUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
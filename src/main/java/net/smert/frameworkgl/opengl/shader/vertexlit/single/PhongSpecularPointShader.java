@@ -36,6 +36,14 @@ public class PhongSpecularPointShader extends AbstractSpecularShader {
             return new PhongSpecularPointShader(new SpecularUniforms(shader.getProgramID()), shader);
         }
 
+        public static PhongSpecularPointShader CreateInstanced() throws IOException {
+            Shader shader = Fw.graphics.buildShader(
+                    "vertexlit/single/phong_specular_point.fsh",
+                    "vertexlit/single/phong_specular_point_instanced.vsh",
+                    "vertexLitSinglePhongSpecularPointInstanced");
+            return new PhongSpecularPointShader(new SpecularUniforms(shader.getProgramID()), shader);
+        }
+
     }
 
 }
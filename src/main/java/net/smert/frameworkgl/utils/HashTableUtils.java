@@ -0,0 +1,37 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.utils;
+
+/**
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class HashTableUtils {
+
+    /**
+     * Capacity for an open addressing table with linear probing. The table is kept at most half full so probe chains
+     * stay short and a lookup for a missing key always reaches an empty slot quickly.
+     *
+     * @param capacity Current capacity which must be a power of two
+     * @param entries Number of entries the table must hold
+     * @return The current capacity or the smallest power of two multiple of it that is at least twice the entries
+     */
+    public static int GetCapacity(int capacity, int entries) {
+        assert (Integer.bitCount(capacity) == 1);
+        while (capacity < entries * 2) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+}
@@ -58,6 +58,12 @@ public class StackInt {
         return size;
     }
 
+    public void setSize(int size) {
+        assert (size >= 0);
+        assert (size <= this.size);
+        this.size = size;
+    }
+
     public int peek() {
         if (size == 0) {
             throw new EmptyStackException();
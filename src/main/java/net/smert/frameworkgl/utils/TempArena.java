@@ -0,0 +1,159 @@
+/**
+ * Copyright 2012 Jason Sorensen (sorensenj@smert.net)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package net.smert.frameworkgl.utils;
+
+import net.smert.frameworkgl.math.AABB;
+import net.smert.frameworkgl.math.Matrix4f;
+import net.smert.frameworkgl.math.Vector3f;
+
+/**
+ * Temporaries for hot paths. Each begin() marks a scope and end() gives back every temporary taken since the matching
+ * begin(). Unlike ThreadLocalVars an arena is passed explicitly, so there is no thread local lookup per call, and it
+ * grows when a scope needs more temporaries or nesting goes deeper. An arena must only be used by one thread at a time.
+ *
+ * @author Jason Sorensen <sorensenj@smert.net>
+ */
+public class TempArena {
+
+    private final static int INITIAL_CAPACITY = 8;
+    private final static int INITIAL_SCOPES = 8;
+    private static final ThreadLocal<TempArena> localArena;
+
+    private int aabbIndex;
+    private int matrix4fIndex;
+    private int scopeDepth;
+    private int vector3fIndex;
+    private AABB[] aabbs;
+    private int[] scopes; // Saved indexes for each open scope
+    private Matrix4f[] matrix4fs;
+    private Vector3f[] vector3fs;
+
+    public TempArena() {
+        aabbIndex = 0;
+        matrix4fIndex = 0;
+        scopeDepth = 0;
+        vector3fIndex = 0;
+        aabbs = expand(new AABB[0], INITIAL_CAPACITY);
+        scopes = new int[INITIAL_SCOPES * 3];
+        matrix4fs = expand(new Matrix4f[0], INITIAL_CAPACITY);
+        vector3fs = expand(new Vector3f[0], INITIAL_CAPACITY);
+    }
+
+    private AABB[] expand(AABB[] array, int capacity) {
+        AABB[] newArray = new AABB[capacity];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        for (int i = array.length; i < capacity; i++) {
+            newArray[i] = new AABB();
+        }
+        return newArray;
+    }
+
+    private Matrix4f[] expand(Matrix4f[] array, int capacity) {
+        Matrix4f[] newArray = new Matrix4f[capacity];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        for (int i = array.length; i < capacity; i++) {
+            newArray[i] = new Matrix4f();
+        }
+        return newArray;
+    }
+
+    private Vector3f[] expand(Vector3f[] array, int capacity) {
+        Vector3f[] newArray = new Vector3f[capacity];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        for (int i = array.length; i < capacity; i++) {
+            newArray[i] = new Vector3f();
+        }
+        return newArray;
+    }
+
+    public AABB aabb() {
+        assert (scopeDepth > 0);
+        if (aabbIndex == aabbs.length) {
+            aabbs = expand(aabbs, aabbs.length * 2);
+        }
+        return aabbs[aabbIndex++];
+    }
+
+    public Matrix4f matrix4f() {
+        assert (scopeDepth > 0);
+        if (matrix4fIndex == matrix4fs.length) {
+            matrix4fs = expand(matrix4fs, matrix4fs.length * 2);
+        }
+        return matrix4fs[matrix4fIndex++];
+    }
+
+    public Vector3f vector3f() {
+        assert (scopeDepth > 0);
+        if (vector3fIndex == vector3fs.length) {
+            vector3fs = expand(vector3fs, vector3fs.length * 2);
+        }
+        return vector3fs[vector3fIndex++];
+    }
+
+    public void begin() {
+        int index = scopeDepth * 3;
+
+        // Expand scopes array
+        if (index == scopes.length) {
+            int[] newScopes = new int[scopes.length * 2];
+            System.arraycopy(scopes, 0, newScopes, 0, scopes.length);
+            scopes = newScopes;
+        }
+
+        scopes[index] = aabbIndex;
+        scopes[index + 1] = matrix4fIndex;
+        scopes[index + 2] = vector3fIndex;
+        scopeDepth++;
+    }
+
+    public void end() {
+        if (scopeDepth == 0) {
+            throw new IllegalStateException("end() was called without a matching begin()");
+        }
+
+        // Give back everything taken since the matching begin()
+        scopeDepth--;
+        int index = scopeDepth * 3;
+        aabbIndex = scopes[index];
+        matrix4fIndex = scopes[index + 1];
+        vector3fIndex = scopes[index + 2];
+    }
+
+    public int getScopeDepth() {
+        return scopeDepth;
+    }
+
+    /**
+     * Arena for the current thread. Entry points that are not given an arena should call this once and pass the arena
+     * down instead of calling it for each object. Worker threads each get their own arena so parallel tasks can call
+     * this too.
+     *
+     * @return The arena of the current thread
+     */
+    public static TempArena Get() {
+        return localArena.get();
+    }
+
+    // Use static block to initialize class
+    static {
+        localArena = new ThreadLocal<TempArena>() {
+
+            @Override
+            public TempArena initialValue() {
+                return new TempArena();
+            }
+
+        };
+    }
+
+}
@@ -15,6 +15,7 @@ package net.smert.frameworkgl.utils;
 import net.smert.frameworkgl.math.AABB;
 import net.smert.frameworkgl.math.Matrix3f;
 import net.smert.frameworkgl.math.Matrix4f;
+import net.smert.frameworkgl.math.Quaternion4f;
 import net.smert.frameworkgl.math.Transform4f;
 import net.smert.frameworkgl.math.Vector2f;
 import net.smert.frameworkgl.math.Vector3f;
@@ -36,6 +37,8 @@ public class ThreadLocalVars {
     public final Matrix3f m3f1 = new Matrix3f();
     public final Matrix4f m4f0 = new Matrix4f();
     public final Matrix4f m4f1 = new Matrix4f();
+    public final Quaternion4f q4f0 = new Quaternion4f();
+    public final Quaternion4f q4f1 = new Quaternion4f();
     public final Transform4f t0 = new Transform4f();
     public final Transform4f t1 = new Transform4f();
     public final Vector2f v2f0 = new Vector2f();
@@ -80,6 +83,14 @@ public class ThreadLocalVars {
 
         // Get stack from thread local storage
         LocalStack stack = localStack.get();
+
+        // Expand stack instead of failing when nesting is deeper than expected
+        if (stack.index == stack.vars.length) {
+            ThreadLocalVars[] newVars = new ThreadLocalVars[stack.vars.length * 2];
+            System.arraycopy(stack.vars, 0, newVars, 0, stack.vars.length);
+            stack.vars = newVars;
+        }
+
         ThreadLocalVars instance = stack.vars[stack.index];
 
         if (instance == null) {